@@ -0,0 +1,50 @@
+package at.tw.tourplanner.tourplanner.cache;
+
+import java.time.Instant;
+import java.util.function.Function;
+
+/**
+ * A value served by a cached service, together with whether it is stale. Stale values are served
+ * from an expired cache entry because the upstream service could not be reached.
+ *
+ * @param value     the served value
+ * @param stale     whether the value comes from an expired cache entry
+ * @param fetchedAt when a stale value was fetched from the upstream service, or null for fresh values
+ * @param <T>       the type of the value
+ */
+public record CacheResult<T>(T value, boolean stale, Instant fetchedAt) {
+
+    /**
+     * Creates a result for an up-to-date value.
+     *
+     * @param value the value
+     * @param <T>   the type of the value
+     * @return the fresh result
+     */
+    public static <T> CacheResult<T> fresh(T value) {
+        return new CacheResult<>(value, false, null);
+    }
+
+    /**
+     * Creates a result for a value from an expired cache entry.
+     *
+     * @param value     the value
+     * @param fetchedAt when the value was fetched from the upstream service
+     * @param <T>       the type of the value
+     * @return the stale result
+     */
+    public static <T> CacheResult<T> stale(T value, Instant fetchedAt) {
+        return new CacheResult<>(value, true, fetchedAt);
+    }
+
+    /**
+     * Converts the value, keeping the staleness.
+     *
+     * @param mapper the conversion
+     * @param <R>    the type of the converted value
+     * @return the result with the converted value
+     */
+    public <R> CacheResult<R> map(Function<T, R> mapper) {
+        return new CacheResult<>(mapper.apply(value), stale, fetchedAt);
+    }
+}
@@ -0,0 +1,35 @@
+package at.tw.tourplanner.tourplanner.cache;
+
+import at.tw.tourplanner.tourplanner.dto.CoordinateDTO;
+
+/**
+ * Cached result of a geocode lookup. A null coordinate marks a negative entry,
+ * i.e. an address for which the upstream service returned no match.
+ *
+ * @param lon   the cached longitude
+ * @param lat   the cached latitude
+ * @param found whether the upstream lookup returned a match
+ */
+public record CachedGeocode(double lon, double lat, boolean found) {
+
+    /**
+     * Creates a cache entry for a geocode result.
+     *
+     * @param coordinate the resolved coordinate, or null if the address could not be resolved
+     * @return the cache entry
+     */
+    public static CachedGeocode of(CoordinateDTO coordinate) {
+        return coordinate == null
+                ? new CachedGeocode(0, 0, false)
+                : new CachedGeocode(coordinate.getLon(), coordinate.getLat(), true);
+    }
+
+    /**
+     * Converts the entry back into a fresh CoordinateDTO so callers can't modify the cached state.
+     *
+     * @return the coordinate, or null for a negative entry
+     */
+    public CoordinateDTO toCoordinate() {
+        return found ? new CoordinateDTO(lon, lat) : null;
+    }
+}
@@ -0,0 +1,10 @@
+package at.tw.tourplanner.tourplanner.cache;
+
+/**
+ * Cached distance and duration of a single origin/destination pair.
+ *
+ * @param distance  the distance in meters, or null if the destination is unreachable
+ * @param duration  the duration in seconds, or null if the destination is unreachable
+ */
+public record CachedMatrixCell(Double distance, Double duration) {
+}
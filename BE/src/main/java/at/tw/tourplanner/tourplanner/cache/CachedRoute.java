@@ -0,0 +1,18 @@
+package at.tw.tourplanner.tourplanner.cache;
+
+import java.time.Instant;
+
+/**
+ * Cached OpenRouteService directions result. Holds the full GeoJSON response
+ * together with the route summary and the per-leg summaries extracted from it.
+ *
+ * @param geoJson       the UTF-8 encoded GeoJSON response as returned by OpenRouteService
+ * @param distance      the total distance in meters
+ * @param duration      the total duration in seconds
+ * @param legDistances  the distance of each leg between consecutive waypoints, in meters
+ * @param legDurations  the duration of each leg between consecutive waypoints, in seconds
+ * @param fetchedAt     when the route was fetched from the routing backend
+ */
+public record CachedRoute(byte[] geoJson, double distance, double duration, double[] legDistances, double[] legDurations,
+                          Instant fetchedAt) {
+}
@@ -0,0 +1,26 @@
+package at.tw.tourplanner.tourplanner.cache;
+
+import at.tw.tourplanner.tourplanner.dto.CacheStatsDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Helpers shared by the in-memory caches in front of OpenRouteService.
+ */
+public final class Caches {
+
+    private Caches() {
+    }
+
+    /**
+     * Takes a snapshot of the counters of a Caffeine cache.
+     *
+     * @param cache the cache to inspect; must have been built with {@code recordStats()}
+     * @return the current size, hit, miss and eviction counters
+     */
+    public static CacheStatsDTO stats(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDTO(cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.hitRate());
+    }
+}
@@ -0,0 +1,99 @@
+package at.tw.tourplanner.tourplanner.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * Cache of generated files on disk, e.g. map tiles and images. Entries are written to a temporary file
+ * and moved into place, so readers never see partial files. Failures to read or write are logged and
+ * treated as misses, since every entry can be generated again.
+ */
+public final class FileCache {
+
+    private static final Logger logger = LogManager.getLogger(FileCache.class);
+
+    private final Path directory;
+
+    /**
+     * Constructs a FileCache.
+     *
+     * @param directory the root directory of the cache, or null or blank to disable caching
+     */
+    public FileCache(String directory) {
+        this.directory = directory == null || directory.isBlank() ? null : Path.of(directory);
+    }
+
+    /**
+     * Reads an entry.
+     *
+     * @param group the directory of the entry relative to the cache root
+     * @param name  the file name of the entry
+     * @return the content, or empty on a miss
+     */
+    public Optional<byte[]> read(String group, String name) {
+        if (directory == null) return Optional.empty();
+        try {
+            return Optional.of(Files.readAllBytes(directory.resolve(group).resolve(name)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            logger.warn("Failed to read cached file {}/{}: {}", group, name, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes an entry.
+     *
+     * @param group the directory of the entry relative to the cache root
+     * @param name  the file name of the entry
+     * @param data  the content
+     */
+    public void write(String group, String name, byte[] data) {
+        write(group, name, data, false);
+    }
+
+    /**
+     * Writes an entry and deletes the other entries of its group, e.g. older versions of a tile.
+     *
+     * @param group the directory of the entry relative to the cache root
+     * @param name  the file name of the entry
+     * @param data  the content
+     */
+    public void replace(String group, String name, byte[] data) {
+        write(group, name, data, true);
+    }
+
+    private void write(String group, String name, byte[] data, boolean replace) {
+        if (directory == null) return;
+        Path dir = directory.resolve(group);
+        try {
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, name, ".tmp");
+            try {
+                Files.write(temp, data);
+                Files.move(temp, dir.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            if (replace) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                    for (Path file : files) {
+                        String fileName = file.getFileName().toString();
+                        if (!fileName.equals(name) && !fileName.endsWith(".tmp")) Files.deleteIfExists(file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write cached file {}/{}: {}", group, name, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package at.tw.tourplanner.tourplanner.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Registry of pending upstream requests. Concurrent callers asking for the same key
+ * share a single pending future instead of each issuing their own request.
+ *
+ * @param <K> the request key type
+ * @param <V> the result type
+ */
+public final class InFlightRequests<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Starts the loader for the given key, unless a request for the same key is already
+     * in flight, in which case the caller shares that pending result.
+     *
+     * @param key    the request key
+     * @param loader the upstream call to start if no request is pending
+     * @return a future completing with the loaded value or the loader's failure
+     */
+    public CompletableFuture<V> submit(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> existing = pending.putIfAbsent(key, own);
+        if (existing != null) return existing.copy();
+
+        CompletableFuture<V> load;
+        try {
+            load = loader.get();
+        } catch (RuntimeException e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+        load.whenComplete((value, failure) -> {
+            pending.remove(key, own);
+            if (failure != null) own.completeExceptionally(failure);
+            else own.complete(value);
+        });
+        return own.copy();
+    }
+
+    /**
+     * Gets the number of requests currently in flight.
+     *
+     * @return the number of distinct pending keys
+     */
+    public int size() {
+        return pending.size();
+    }
+}
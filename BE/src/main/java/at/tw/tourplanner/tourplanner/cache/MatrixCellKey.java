@@ -0,0 +1,14 @@
+package at.tw.tourplanner.tourplanner.cache;
+
+/**
+ * Cache key for a single origin/destination cell of a distance matrix. Coordinates are
+ * quantized with the same resolution as {@link RouteKey}.
+ *
+ * @param sourceLon      the quantized origin longitude
+ * @param sourceLat      the quantized origin latitude
+ * @param destinationLon the quantized destination longitude
+ * @param destinationLat the quantized destination latitude
+ * @param profile        the OpenRouteService profile
+ */
+public record MatrixCellKey(long sourceLon, long sourceLat, long destinationLon, long destinationLat, String profile) {
+}
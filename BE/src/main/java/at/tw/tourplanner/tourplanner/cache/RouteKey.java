@@ -0,0 +1,129 @@
+package at.tw.tourplanner.tourplanner.cache;
+
+import at.tw.tourplanner.tourplanner.dto.CoordinateDTO;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cache key for a route, made of the ordered waypoint coordinates quantized to
+ * five decimal places (roughly one meter) and the OpenRouteService profile.
+ */
+public final class RouteKey {
+
+    /** Number of quantization steps per degree. */
+    public static final double SCALE = 1e5;
+
+    private final String profile;
+    private final long[] coordinates;
+
+    private RouteKey(String profile, long[] coordinates) {
+        this.profile = profile;
+        this.coordinates = coordinates;
+    }
+
+    /**
+     * Creates a key for a route between two points.
+     *
+     * @param startLon start longitude
+     * @param startLat start latitude
+     * @param endLon   end longitude
+     * @param endLat   end latitude
+     * @param profile  transport mode profile for OpenRouteService
+     * @return the quantized route key
+     */
+    public static RouteKey of(double startLon, double startLat, double endLon, double endLat, String profile) {
+        return new RouteKey(profile, new long[]{quantize(startLon), quantize(startLat), quantize(endLon), quantize(endLat)});
+    }
+
+    /**
+     * Creates a key for a route through an ordered list of waypoints.
+     *
+     * @param waypoints the waypoints, including start and end
+     * @param profile   transport mode profile for OpenRouteService
+     * @return the quantized route key
+     */
+    public static RouteKey of(List<CoordinateDTO> waypoints, String profile) {
+        long[] coordinates = new long[waypoints.size() * 2];
+        for (int i = 0; i < waypoints.size(); i++) {
+            coordinates[2 * i] = quantize(waypoints.get(i).getLon());
+            coordinates[2 * i + 1] = quantize(waypoints.get(i).getLat());
+        }
+        return new RouteKey(profile, coordinates);
+    }
+
+    /**
+     * Quantizes a coordinate value to the key's resolution.
+     *
+     * @param value the coordinate in degrees
+     * @return the coordinate in quantization steps
+     */
+    public static long quantize(double value) {
+        return Math.round(value * SCALE);
+    }
+
+    /**
+     * Converts a quantized value back to degrees.
+     *
+     * @param value the coordinate in quantization steps
+     * @return the coordinate in degrees
+     */
+    public static double toDegrees(long value) {
+        return value / SCALE;
+    }
+
+    /**
+     * Gets the OpenRouteService profile.
+     *
+     * @return the profile
+     */
+    public String profile() {
+        return profile;
+    }
+
+    /**
+     * Gets the number of waypoints.
+     *
+     * @return the number of waypoints, including start and end
+     */
+    public int size() {
+        return coordinates.length / 2;
+    }
+
+    /**
+     * Gets the quantized longitude of a waypoint, converted back to degrees.
+     *
+     * @param index the waypoint index
+     * @return the longitude in degrees
+     */
+    public double lon(int index) {
+        return toDegrees(coordinates[2 * index]);
+    }
+
+    /**
+     * Gets the quantized latitude of a waypoint, converted back to degrees.
+     *
+     * @param index the waypoint index
+     * @return the latitude in degrees
+     */
+    public double lat(int index) {
+        return toDegrees(coordinates[2 * index + 1]);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RouteKey other)) return false;
+        return profile.equals(other.profile) && Arrays.equals(coordinates, other.coordinates);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * profile.hashCode() + Arrays.hashCode(coordinates);
+    }
+
+    @Override
+    public String toString() {
+        return "RouteKey[" + profile + ", " + Arrays.toString(coordinates) + "]";
+    }
+}
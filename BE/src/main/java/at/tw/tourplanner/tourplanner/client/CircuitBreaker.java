@@ -0,0 +1,145 @@
+package at.tw.tourplanner.tourplanner.client;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker. While closed, the outcomes of the last calls are kept in a ring buffer,
+ * and the circuit opens once the failure rate reaches the threshold. While open, calls are rejected
+ * until the open duration has passed; then a limited number of probe calls is let through
+ * (half-open), which close the circuit if they all succeed and reopen it on the first failure.
+ */
+public final class CircuitBreaker {
+
+    /**
+     * State of the circuit.
+     */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final boolean[] outcomes;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    /**
+     * Constructs a closed CircuitBreaker.
+     *
+     * @param windowSize           the number of most recent calls the failure rate is computed over
+     * @param minimumCalls         the number of calls required before the circuit can open
+     * @param failureRateThreshold the failure rate (0 to 1) at which the circuit opens
+     * @param openDuration         how long the circuit stays open before probe calls are let through
+     * @param halfOpenCalls        the number of successful probe calls required to close the circuit
+     * @param clock                the nanosecond clock
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration,
+                          int halfOpenCalls, LongSupplier clock) {
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.clock = clock;
+    }
+
+    /**
+     * Asks for permission to make a call. Every permitted call must be followed by exactly one of
+     * {@link #onSuccess()}, {@link #onFailure()} or {@link #onIgnored()}.
+     *
+     * @return whether the call may be made
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openNanos) return false;
+            state = State.HALF_OPEN;
+            probesStarted = 0;
+            probesSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= halfOpenCalls) return false;
+            probesStarted++;
+        }
+        return true;
+    }
+
+    /**
+     * Records a successful call.
+     */
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++probesSucceeded >= halfOpenCalls) close();
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    /**
+     * Records a failed call.
+     */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+        }
+    }
+
+    /**
+     * Releases the permission of a call that was not made, e.g. because it was rejected locally.
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && probesStarted > probesSucceeded) probesStarted--;
+    }
+
+    /**
+     * Gets the current state. An open circuit whose open duration has passed is reported as half-open.
+     *
+     * @return the state
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) return State.HALF_OPEN;
+        return state;
+    }
+
+    /**
+     * Gets the failure rate over the recorded calls while closed.
+     *
+     * @return the failure rate (0 to 1), or 0 if no calls were recorded
+     */
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0 : (double) failures / recorded;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) failures--;
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) failures++;
+        next = (next + 1) % outcomes.length;
+        if (recorded >= minimumCalls && failures >= failureRateThreshold * recorded) open();
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,209 @@
+package at.tw.tourplanner.tourplanner.client;
+
+import at.tw.tourplanner.tourplanner.dto.CircuitBreakerStatsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Shared HTTP client for the OpenRouteService API.
+ * A single {@link HttpClient} pools keep-alive connections, negotiates HTTP/2 where the server
+ * supports it and enforces connect and request timeouts. Responses are requested gzip-compressed.
+ * Every request first waits for a token of the shared {@link OrsRateLimiter}.
+ * <p>
+ * A {@link CircuitBreaker} rejects requests immediately while OpenRouteService keeps failing or answering
+ * slowly, and a bulkhead bounds the number of requests in flight, so an upstream brownout cannot pile up
+ * pending requests. Rejected requests fail with an {@link OrsUnavailableException}.
+ */
+@Component
+public class OrsClient {
+
+    private final HttpClient httpClient;
+    private final OrsRateLimiter rateLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final int maxConcurrent;
+    private final long slowCallNanos;
+    private final String baseUrl;
+    private final String apiKey;
+    private final Duration requestTimeout;
+
+    /**
+     * Constructs the OrsClient.
+     *
+     * @param apiKey         the OpenRouteService API key
+     * @param baseUrl        the base URL of the OpenRouteService API
+     * @param connectTimeout the maximum time to establish a connection
+     * @param requestTimeout the maximum time to wait for a complete response
+     * @param rateLimiter    the limiter shared by all OpenRouteService requests
+     * @param maxConcurrent  the maximum number of requests in flight (bulkhead size)
+     * @param windowSize     the number of recent calls the circuit breaker's failure rate is computed over
+     * @param minimumCalls   the number of calls required before the circuit can open
+     * @param failureRate    the failure rate (0 to 1) at which the circuit opens
+     * @param slowCall       the response time above which a call counts as failed
+     * @param openDuration   how long the circuit stays open before probe calls are let through
+     * @param halfOpenCalls  the number of successful probe calls that close the circuit again
+     */
+    public OrsClient(@Value("${openrouteservice.api-key}") String apiKey,
+                     @Value("${openrouteservice.base-url:https://api.openrouteservice.org}") String baseUrl,
+                     @Value("${openrouteservice.connect-timeout:2s}") Duration connectTimeout,
+                     @Value("${openrouteservice.request-timeout:10s}") Duration requestTimeout,
+                     OrsRateLimiter rateLimiter,
+                     @Value("${openrouteservice.bulkhead.max-concurrent:20}") int maxConcurrent,
+                     @Value("${openrouteservice.circuit-breaker.window-size:20}") int windowSize,
+                     @Value("${openrouteservice.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                     @Value("${openrouteservice.circuit-breaker.failure-rate-threshold:0.5}") double failureRate,
+                     @Value("${openrouteservice.circuit-breaker.slow-call-threshold:5s}") Duration slowCall,
+                     @Value("${openrouteservice.circuit-breaker.open-duration:30s}") Duration openDuration,
+                     @Value("${openrouteservice.circuit-breaker.half-open-calls:3}") int halfOpenCalls) {
+        this.apiKey = apiKey;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = new CircuitBreaker(windowSize, minimumCalls, failureRate, openDuration, halfOpenCalls, System::nanoTime);
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.maxConcurrent = maxConcurrent;
+        this.slowCallNanos = slowCall.toNanos();
+        this.baseUrl = baseUrl;
+        this.requestTimeout = requestTimeout;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Sends an interactive GET request to OpenRouteService.
+     *
+     * @param path        the API path, e.g. {@code /geocode/search}
+     * @param queryParams the query parameters, URL-encoded by this method
+     * @return a future completing with the response body, or failing with an {@link OrsException}
+     */
+    public CompletableFuture<byte[]> get(String path, Map<String, String> queryParams) {
+        return get(path, queryParams, OrsPriority.INTERACTIVE);
+    }
+
+    /**
+     * Sends a GET request to OpenRouteService.
+     *
+     * @param path        the API path, e.g. {@code /geocode/search}
+     * @param queryParams the query parameters, URL-encoded by this method
+     * @param priority    the priority of the request in the rate limiter
+     * @return a future completing with the response body, or failing with an {@link OrsException}
+     */
+    public CompletableFuture<byte[]> get(String path, Map<String, String> queryParams, OrsPriority priority) {
+        String query = queryParams.entrySet().stream()
+                .map(e -> e.getKey() + "=" + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+        HttpRequest request = newRequest(path + (query.isEmpty() ? "" : "?" + query))
+                .GET()
+                .build();
+        return send(request, "GET " + path, priority);
+    }
+
+    /**
+     * Sends a POST request with a JSON body to OpenRouteService.
+     *
+     * @param path     the API path, e.g. {@code /v2/directions/driving-car/geojson}
+     * @param json     the JSON request body
+     * @param priority the priority of the request in the rate limiter
+     * @return a future completing with the response body, or failing with an {@link OrsException}
+     */
+    public CompletableFuture<byte[]> postJson(String path, String json, OrsPriority priority) {
+        HttpRequest request = newRequest(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+        return send(request, "POST " + path, priority);
+    }
+
+    private HttpRequest.Builder newRequest(String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + pathAndQuery))
+                .timeout(requestTimeout)
+                .header("Authorization", apiKey)
+                .header("Accept", "application/json, application/geo+json")
+                .header("Accept-Encoding", "gzip");
+    }
+
+    /**
+     * Returns the circuit breaker state and the number of requests in flight.
+     *
+     * @return a snapshot of the circuit breaker and bulkhead state
+     */
+    public CircuitBreakerStatsDTO getCircuitBreakerStats() {
+        return new CircuitBreakerStatsDTO(circuitBreaker.getState().name(), circuitBreaker.getFailureRate(),
+                maxConcurrent - bulkhead.availablePermits(), maxConcurrent);
+    }
+
+    /**
+     * Waits for a rate limiter token, then asks the circuit breaker, so its decision and any half-open probe
+     * permit refer to the moment the request is actually sent. A rejected request gives its token back.
+     */
+    private CompletableFuture<byte[]> send(HttpRequest request, String description, OrsPriority priority) {
+        return rateLimiter.acquire(priority)
+                .thenCompose(permit -> {
+                    if (!circuitBreaker.tryAcquire()) {
+                        rateLimiter.release();
+                        return CompletableFuture.failedFuture(new OrsUnavailableException(description + " rejected: circuit open"));
+                    }
+                    return exchange(request, description);
+                })
+                .thenApply(response -> {
+                    if (response.statusCode() == 429) rateLimiter.onRateLimited();
+                    if (response.statusCode() != 200) {
+                        throw new OrsException(description + " failed", response.statusCode());
+                    }
+                    return decode(response);
+                });
+    }
+
+    /**
+     * Sends a request inside the bulkhead and reports its outcome to the circuit breaker.
+     * Server errors, transport failures and slow responses count as failures. A request rejected by the
+     * bulkhead gives its rate limiter token back, since it never reaches OpenRouteService.
+     */
+    private CompletableFuture<HttpResponse<byte[]>> exchange(HttpRequest request, String description) {
+        if (!bulkhead.tryAcquire()) {
+            circuitBreaker.onIgnored();
+            rateLimiter.release();
+            return CompletableFuture.failedFuture(new OrsUnavailableException(description + " rejected: too many requests in flight"));
+        }
+        long start = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, failure) -> {
+                    bulkhead.release();
+                    if (failure != null || response.statusCode() >= 500 || System.nanoTime() - start > slowCallNanos) {
+                        circuitBreaker.onFailure();
+                    } else {
+                        circuitBreaker.onSuccess();
+                    }
+                });
+    }
+
+    private static byte[] decode(HttpResponse<byte[]> response) {
+        boolean gzip = response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        if (!gzip) return response.body();
+        try (InputStream body = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            return body.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package at.tw.tourplanner.tourplanner.client;
+
+/**
+ * Exception thrown when OpenRouteService answers with a non-success status code.
+ */
+public class OrsException extends RuntimeException {
+
+    private final int statusCode;
+
+    /**
+     * Constructs an OrsException for the given status code.
+     *
+     * @param message    description of the failed request
+     * @param statusCode the HTTP status code returned by OpenRouteService
+     */
+    public OrsException(String message, int statusCode) {
+        super(message + ": HTTP " + statusCode);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Gets the HTTP status code returned by OpenRouteService.
+     *
+     * @return the status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
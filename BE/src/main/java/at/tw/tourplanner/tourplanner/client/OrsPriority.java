@@ -0,0 +1,11 @@
+package at.tw.tourplanner.tourplanner.client;
+
+/**
+ * Priority of an OpenRouteService request in the shared rate limiter.
+ */
+public enum OrsPriority {
+    /** Requests a user is waiting for; always served first. */
+    INTERACTIVE,
+    /** Bulk work such as imports; only uses capacity interactive requests leave spare. */
+    BACKGROUND
+}
@@ -0,0 +1,335 @@
+package at.tw.tourplanner.tourplanner.client;
+
+import at.tw.tourplanner.tourplanner.dto.RateLimiterQueueStatsDTO;
+import at.tw.tourplanner.tourplanner.dto.RateLimiterStatsDTO;
+import at.tw.tourplanner.tourplanner.model.OrsQuotaUsage;
+import at.tw.tourplanner.tourplanner.repository.OrsQuotaUsageRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Token-bucket rate limiter shared by all OpenRouteService requests.
+ * The bucket holds up to one minute of quota and refills continuously. Requests wait in one of two
+ * FIFO queues: interactive requests are always served first, background requests only receive a token
+ * while no interactive request is waiting and the bucket holds more than the interactive reserve.
+ * The same reserve applies to the daily quota, whose counter is persisted so it survives restarts.
+ * Waiting never blocks a thread; a request's future completes once it has been granted a token, or fails
+ * once it has waited longer than the maximum wait of its priority, so no request is sent after its caller
+ * has given up. Tokens of requests that are not sent after all are given back with {@link #release()}.
+ */
+@Component
+public class OrsRateLimiter {
+
+    private static final Logger logger = LogManager.getLogger(OrsRateLimiter.class);
+    private static final double NANOS_PER_MINUTE = 60e9;
+
+    private final OrsQuotaUsageRepository quotaUsageRepository;
+    private final double capacity;
+    private final double tokensPerNano;
+    private final double reserveTokens;
+    private final long dailyLimit;
+    private final long dailyBackgroundLimit;
+    private final int maxQueue;
+    private final long interactiveMaxWaitNanos;
+    private final long backgroundMaxWaitNanos;
+    private final LongSupplier clock;
+    private final Supplier<LocalDate> today;
+    private final ScheduledExecutorService scheduler;
+
+    private final Deque<Waiter> interactiveQueue = new ArrayDeque<>();
+    private final Deque<Waiter> backgroundQueue = new ArrayDeque<>();
+    private final Counters interactiveCounters = new Counters();
+    private final Counters backgroundCounters = new Counters();
+    private double tokens;
+    private long lastRefill;
+    private LocalDate day;
+    private long dailyUsed;
+    private long persistedDailyUsed;
+    private boolean drainScheduled;
+
+    /**
+     * Constructs the OrsRateLimiter and restores today's request count.
+     *
+     * @param quotaUsageRepository the repository holding the daily request counters
+     * @param perMinute            the number of requests allowed per minute
+     * @param perDay               the number of requests allowed per day (UTC)
+     * @param interactiveReserve   the fraction of the per-minute and daily quota background requests may not use
+     * @param maxQueue             the maximum number of requests waiting per priority
+     * @param maxWait              the maximum time an interactive request waits for a token
+     * @param backgroundMaxWait    the maximum time a background request waits for a token
+     */
+    @Autowired
+    public OrsRateLimiter(OrsQuotaUsageRepository quotaUsageRepository,
+                          @Value("${openrouteservice.rate-limit.per-minute:40}") int perMinute,
+                          @Value("${openrouteservice.rate-limit.per-day:2000}") long perDay,
+                          @Value("${openrouteservice.rate-limit.interactive-reserve:0.25}") double interactiveReserve,
+                          @Value("${openrouteservice.rate-limit.max-queue:10000}") int maxQueue,
+                          @Value("${openrouteservice.rate-limit.max-wait:30s}") Duration maxWait,
+                          @Value("${openrouteservice.rate-limit.background-max-wait:30m}") Duration backgroundMaxWait) {
+        this(quotaUsageRepository, perMinute, perDay, interactiveReserve, maxQueue, maxWait, backgroundMaxWait, System::nanoTime,
+                () -> LocalDate.now(ZoneOffset.UTC), Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "ors-rate-limiter");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    OrsRateLimiter(OrsQuotaUsageRepository quotaUsageRepository, int perMinute, long perDay, double interactiveReserve,
+                   int maxQueue, Duration maxWait, Duration backgroundMaxWait, LongSupplier clock, Supplier<LocalDate> today,
+                   ScheduledExecutorService scheduler) {
+        this.quotaUsageRepository = quotaUsageRepository;
+        this.capacity = perMinute;
+        this.tokensPerNano = perMinute / NANOS_PER_MINUTE;
+        this.reserveTokens = Math.floor(perMinute * interactiveReserve);
+        this.dailyLimit = perDay;
+        this.dailyBackgroundLimit = perDay - (long) Math.ceil(perDay * interactiveReserve);
+        this.maxQueue = maxQueue;
+        this.interactiveMaxWaitNanos = maxWait.toNanos();
+        this.backgroundMaxWaitNanos = backgroundMaxWait.toNanos();
+        this.clock = clock;
+        this.today = today;
+        this.scheduler = scheduler;
+        this.tokens = capacity;
+        this.lastRefill = clock.getAsLong();
+        this.day = today.get();
+        this.dailyUsed = loadDailyUsed(day);
+        this.persistedDailyUsed = dailyUsed;
+    }
+
+    /**
+     * Waits for a token for one request.
+     *
+     * @param priority the priority of the request
+     * @return a future completing once the request may be sent, or failing with an {@link OrsException}
+     *         with status 429 if the queue is full, the maximum wait has passed or the daily quota is exhausted
+     */
+    public CompletableFuture<Void> acquire(OrsPriority priority) {
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        List<Runnable> completions;
+        synchronized (this) {
+            Deque<Waiter> queue = priority == OrsPriority.INTERACTIVE ? interactiveQueue : backgroundQueue;
+            if (queue.size() >= maxQueue) {
+                (priority == OrsPriority.INTERACTIVE ? interactiveCounters : backgroundCounters).rejected++;
+                return CompletableFuture.failedFuture(new OrsException("Rate limiter queue full", 429));
+            }
+            long now = clock.getAsLong();
+            long maxWait = priority == OrsPriority.INTERACTIVE ? interactiveMaxWaitNanos : backgroundMaxWaitNanos;
+            queue.add(new Waiter(permit, now, now + maxWait));
+            completions = drainLocked();
+        }
+        completions.forEach(Runnable::run);
+        return permit;
+    }
+
+    /**
+     * Gives back the token of a granted request that was not sent, e.g. because the bulkhead or the circuit
+     * breaker rejected it, so it counts neither against the bucket nor against the daily quota.
+     */
+    public void release() {
+        List<Runnable> completions;
+        synchronized (this) {
+            refill();
+            rollDay();
+            tokens = Math.min(capacity, tokens + 1);
+            if (dailyUsed > 0) dailyUsed--;
+            completions = drainLocked();
+        }
+        completions.forEach(Runnable::run);
+    }
+
+    /**
+     * Empties the bucket after OpenRouteService answered with 429, so the next requests back off
+     * until the bucket has refilled.
+     */
+    public synchronized void onRateLimited() {
+        refill();
+        tokens = 0;
+    }
+
+    /**
+     * Returns the bucket level, the daily usage and the queue depth and wait times per priority.
+     *
+     * @return a snapshot of the limiter state
+     */
+    public synchronized RateLimiterStatsDTO getStats() {
+        refill();
+        rollDay();
+        return new RateLimiterStatsDTO(tokens, dailyUsed, dailyLimit,
+                interactiveCounters.toDto(interactiveQueue.size()), backgroundCounters.toDto(backgroundQueue.size()));
+    }
+
+    /**
+     * Stores today's request count if it changed since it was last stored.
+     */
+    @Scheduled(fixedDelayString = "${openrouteservice.rate-limit.persist-interval:PT30S}")
+    public void persist() {
+        LocalDate snapshotDay;
+        long snapshotUsed;
+        synchronized (this) {
+            if (dailyUsed == persistedDailyUsed) return;
+            snapshotDay = day;
+            snapshotUsed = dailyUsed;
+        }
+        try {
+            quotaUsageRepository.save(new OrsQuotaUsage(snapshotDay, snapshotUsed));
+            synchronized (this) {
+                if (day.equals(snapshotDay)) persistedDailyUsed = snapshotUsed;
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to persist OpenRouteService quota usage: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stores the request count and stops the drain scheduler on shutdown.
+     */
+    @PreDestroy
+    public void shutdown() {
+        persist();
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Grants tokens to waiting requests. Invoked by the scheduler once enough tokens should have accumulated.
+     */
+    void drain() {
+        List<Runnable> completions;
+        synchronized (this) {
+            drainScheduled = false;
+            completions = drainLocked();
+        }
+        completions.forEach(Runnable::run);
+    }
+
+    /**
+     * Fails expired requests, grants tokens in priority order and schedules the next drain if requests are
+     * still waiting. The futures are completed by the caller after releasing the lock, since completing them
+     * starts the HTTP requests.
+     */
+    private List<Runnable> drainLocked() {
+        refill();
+        rollDay();
+        List<Runnable> completions = new ArrayList<>();
+        long now = clock.getAsLong();
+        expire(interactiveQueue, interactiveCounters, now, completions);
+        expire(backgroundQueue, backgroundCounters, now, completions);
+        while (!interactiveQueue.isEmpty()) {
+            if (dailyUsed >= dailyLimit) {
+                rejectAll(interactiveQueue, interactiveCounters, completions);
+                break;
+            }
+            if (tokens < 1) break;
+            grant(interactiveQueue.poll(), interactiveCounters, completions);
+        }
+        while (!backgroundQueue.isEmpty() && interactiveQueue.isEmpty()) {
+            if (dailyUsed >= dailyBackgroundLimit) {
+                rejectAll(backgroundQueue, backgroundCounters, completions);
+                break;
+            }
+            if (tokens < reserveTokens + 1) break;
+            grant(backgroundQueue.poll(), backgroundCounters, completions);
+        }
+
+        if (!drainScheduled && (!interactiveQueue.isEmpty() || !backgroundQueue.isEmpty())) {
+            double needed = (interactiveQueue.isEmpty() ? reserveTokens + 1 : 1) - tokens;
+            long delay = (long) Math.ceil(needed / tokensPerNano);
+            // the queues are FIFO with one maximum wait each, so their heads expire first
+            if (!interactiveQueue.isEmpty()) delay = Math.min(delay, interactiveQueue.peek().deadline() - now);
+            if (!backgroundQueue.isEmpty()) delay = Math.min(delay, backgroundQueue.peek().deadline() - now);
+            scheduler.schedule(this::drain, Math.max(1, delay), TimeUnit.NANOSECONDS);
+            drainScheduled = true;
+        }
+        return completions;
+    }
+
+    private void grant(Waiter waiter, Counters counters, List<Runnable> completions) {
+        if (waiter.permit().isDone()) return; // cancelled by the caller, the token stays in the bucket
+        tokens -= 1;
+        dailyUsed++;
+        long waited = clock.getAsLong() - waiter.enqueuedAt();
+        counters.granted++;
+        counters.totalWaitNanos += waited;
+        counters.maxWaitNanos = Math.max(counters.maxWaitNanos, waited);
+        completions.add(() -> waiter.permit().complete(null));
+    }
+
+    private static void expire(Deque<Waiter> queue, Counters counters, long now, List<Runnable> completions) {
+        OrsException timedOut = new OrsException("Rate limiter wait timed out", 429);
+        while (!queue.isEmpty() && queue.peek().deadline() - now <= 0) {
+            Waiter waiter = queue.poll();
+            counters.rejected++;
+            completions.add(() -> waiter.permit().completeExceptionally(timedOut));
+        }
+    }
+
+    private static void rejectAll(Deque<Waiter> queue, Counters counters, List<Runnable> completions) {
+        OrsException exhausted = new OrsException("Daily quota exhausted", 429);
+        while (!queue.isEmpty()) {
+            Waiter waiter = queue.poll();
+            counters.rejected++;
+            completions.add(() -> waiter.permit().completeExceptionally(exhausted));
+        }
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+
+    private void rollDay() {
+        LocalDate current = today.get();
+        if (!current.equals(day)) {
+            day = current;
+            dailyUsed = 0;
+            persistedDailyUsed = 0;
+        }
+    }
+
+    private long loadDailyUsed(LocalDate day) {
+        if (quotaUsageRepository == null) return 0;
+        try {
+            return quotaUsageRepository.findById(day).map(OrsQuotaUsage::getRequests).orElse(0L);
+        } catch (Exception e) {
+            logger.warn("Failed to read OpenRouteService quota usage: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    private record Waiter(CompletableFuture<Void> permit, long enqueuedAt, long deadline) {
+    }
+
+    /**
+     * Cumulative counters of one priority queue, guarded by the limiter's lock.
+     */
+    private static final class Counters {
+        long granted;
+        long rejected;
+        long totalWaitNanos;
+        long maxWaitNanos;
+
+        RateLimiterQueueStatsDTO toDto(int queueDepth) {
+            double averageWait = granted == 0 ? 0 : totalWaitNanos / 1e6 / granted;
+            return new RateLimiterQueueStatsDTO(queueDepth, granted, rejected, averageWait, maxWaitNanos / 1e6);
+        }
+    }
+}
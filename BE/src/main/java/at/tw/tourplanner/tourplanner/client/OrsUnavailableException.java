@@ -0,0 +1,17 @@
+package at.tw.tourplanner.tourplanner.client;
+
+/**
+ * Exception thrown without contacting OpenRouteService because its circuit breaker is open
+ * or too many requests are already in flight.
+ */
+public class OrsUnavailableException extends OrsException {
+
+    /**
+     * Constructs an OrsUnavailableException with the given message.
+     *
+     * @param message description of the rejected request
+     */
+    public OrsUnavailableException(String message) {
+        super(message, 503);
+    }
+}
@@ -1,13 +1,17 @@
 package at.tw.tourplanner.tourplanner.controller;
 
+import at.tw.tourplanner.tourplanner.dto.BatchGeocodeResultDTO;
+import at.tw.tourplanner.tourplanner.dto.CacheStatsDTO;
 import at.tw.tourplanner.tourplanner.dto.CoordinateDTO;
+import at.tw.tourplanner.tourplanner.dto.SuggestionDTO;
 import at.tw.tourplanner.tourplanner.service.GeocodeService;
-import org.springframework.http.HttpStatus;
+import at.tw.tourplanner.tourplanner.service.SuggestService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST controller for geocoding addresses to geographic coordinates.
@@ -16,30 +20,84 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/coordinates")
 public class CoordinateController {
 
+    private static final int MAX_SUGGESTIONS = 50;
+
     private final GeocodeService geocodeService;
+    private final SuggestService suggestService;
+    private final int maxBatchSize;
 
     /**
-     * Constructor that initializes the GeocodeService dependency.
+     * Constructor that initializes the GeocodeService and SuggestService dependencies.
      *
      * @param geocodeService the service used for geocoding operations
+     * @param suggestService the service used for address completions
+     * @param maxBatchSize   the maximum number of addresses accepted by the batch endpoint
      */
-    public CoordinateController(GeocodeService geocodeService) {
+    public CoordinateController(GeocodeService geocodeService,
+                                SuggestService suggestService,
+                                @Value("${geocode.batch.max-size:1000}") int maxBatchSize) {
         this.geocodeService = geocodeService;
+        this.suggestService = suggestService;
+        this.maxBatchSize = maxBatchSize;
     }
 
     /**
      * Endpoint for geocoding a given address into latitude and longitude.
+     * The request is processed asynchronously, so no servlet thread waits for OpenRouteService.
+     * If OpenRouteService fails, an expired stored coordinate is returned with the {@code X-Data-Stale} header.
      *
      * @param address the address to geocode
-     * @return ResponseEntity containing CoordinateDTO if successful, or appropriate error response
+     * @return future ResponseEntity containing CoordinateDTO if successful, or appropriate error response
      */
     @GetMapping
-    public ResponseEntity<CoordinateDTO> geocode(@RequestParam String address) {
-        try {
-            CoordinateDTO coordinates = geocodeService.geocode(address);
-            return ResponseEntity.ok(coordinates);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    public CompletableFuture<ResponseEntity<CoordinateDTO>> geocode(@RequestParam String address) {
+        return geocodeService.geocodeAsync(address)
+                .thenApply(Freshness::response)
+                .exceptionally(e -> ResponseEntity.status(Freshness.errorStatus(e)).build());
+    }
+
+    /**
+     * Endpoint for geocoding a list of addresses in one request, e.g. during a tour import.
+     * Duplicate addresses are looked up once; results are returned in input order with a per-item status.
+     *
+     * @param addresses the addresses to geocode
+     * @return future ResponseEntity containing one BatchGeocodeResultDTO per address, bad request if the batch is too large,
+     *         or 503 if OpenRouteService is unavailable
+     */
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<List<BatchGeocodeResultDTO>>> geocodeBatch(@RequestBody List<String> addresses) {
+        if (addresses.size() > maxBatchSize) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return geocodeService.geocodeBatchAsync(addresses)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> ResponseEntity.status(Freshness.errorStatus(e)).build());
+    }
+
+    /**
+     * Endpoint for completing a partially entered address, e.g. on every keystroke in the tour form.
+     * Completions are answered from an in-memory index without calling OpenRouteService.
+     *
+     * @param prefix the text entered so far
+     * @param limit  the maximum number of completions (1 to 50)
+     * @return ResponseEntity containing the completions, best first, or bad request if the limit is out of range
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(@RequestParam String prefix,
+                                                       @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            return ResponseEntity.badRequest().build();
         }
+        return ResponseEntity.ok(suggestService.suggest(prefix, limit));
+    }
+
+    /**
+     * Endpoint exposing the hit, miss and eviction counters of the geocode cache.
+     *
+     * @return ResponseEntity containing the current CacheStatsDTO
+     */
+    @GetMapping("/cache-stats")
+    public ResponseEntity<CacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(geocodeService.getCacheStats());
     }
 }
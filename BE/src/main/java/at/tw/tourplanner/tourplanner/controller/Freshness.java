@@ -0,0 +1,61 @@
+package at.tw.tourplanner.tourplanner.controller;
+
+import at.tw.tourplanner.tourplanner.cache.CacheResult;
+import at.tw.tourplanner.tourplanner.client.OrsUnavailableException;
+import at.tw.tourplanner.tourplanner.util.Futures;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Helpers for responses built from cached results that may be stale.
+ */
+final class Freshness {
+
+    /** Response header set to {@code true} when the body comes from an expired cache entry. */
+    static final String STALE_HEADER = "X-Data-Stale";
+
+    private Freshness() {
+    }
+
+    /**
+     * Creates a 200 response builder that marks stale results with the {@code X-Data-Stale} and {@code Age} headers.
+     *
+     * @param result the cached result
+     * @return the response builder
+     */
+    static ResponseEntity.BodyBuilder ok(CacheResult<?> result) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (result.stale()) {
+            long age = Math.max(0, Duration.between(result.fetchedAt(), Instant.now()).toSeconds());
+            builder.header(STALE_HEADER, "true").header(HttpHeaders.AGE, Long.toString(age));
+        }
+        return builder;
+    }
+
+    /**
+     * Creates a 200 response for a cached result.
+     *
+     * @param result the cached result
+     * @param <T>    the type of the body
+     * @return the response containing the result's value
+     */
+    static <T> ResponseEntity<T> response(CacheResult<T> result) {
+        return ok(result).body(result.value());
+    }
+
+    /**
+     * Maps a failure to the response status: 503 if OpenRouteService is unavailable and nothing was cached,
+     * 500 otherwise.
+     *
+     * @param failure the failure, possibly wrapped by a future
+     * @return the response status
+     */
+    static HttpStatus errorStatus(Throwable failure) {
+        return Futures.unwrap(failure) instanceof OrsUnavailableException
+                ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+}
@@ -0,0 +1,53 @@
+package at.tw.tourplanner.tourplanner.controller;
+
+import at.tw.tourplanner.tourplanner.client.OrsClient;
+import at.tw.tourplanner.tourplanner.client.OrsRateLimiter;
+import at.tw.tourplanner.tourplanner.dto.CircuitBreakerStatsDTO;
+import at.tw.tourplanner.tourplanner.dto.RateLimiterStatsDTO;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller exposing the state of the shared OpenRouteService client.
+ */
+@RestController
+@RequestMapping("/api/ors")
+public class OrsController {
+
+    private final OrsClient orsClient;
+    private final OrsRateLimiter rateLimiter;
+
+    /**
+     * Constructor that initializes the OrsClient and OrsRateLimiter dependencies.
+     *
+     * @param orsClient   the shared OpenRouteService client
+     * @param rateLimiter the limiter shared by all OpenRouteService requests
+     */
+    public OrsController(OrsClient orsClient, OrsRateLimiter rateLimiter) {
+        this.orsClient = orsClient;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Endpoint exposing the token bucket level, the daily quota usage and the queue depth
+     * and wait times of the interactive and background queues.
+     *
+     * @return ResponseEntity containing the current RateLimiterStatsDTO
+     */
+    @GetMapping("/rate-limit")
+    public ResponseEntity<RateLimiterStatsDTO> getRateLimitStats() {
+        return ResponseEntity.ok(rateLimiter.getStats());
+    }
+
+    /**
+     * Endpoint exposing the circuit breaker state and the number of requests in flight.
+     *
+     * @return ResponseEntity containing the current CircuitBreakerStatsDTO
+     */
+    @GetMapping("/circuit-breaker")
+    public ResponseEntity<CircuitBreakerStatsDTO> getCircuitBreakerStats() {
+        return ResponseEntity.ok(orsClient.getCircuitBreakerStats());
+    }
+}
@@ -1,15 +1,28 @@
 package at.tw.tourplanner.tourplanner.controller;
 
+import at.tw.tourplanner.tourplanner.cache.CacheResult;
+import at.tw.tourplanner.tourplanner.client.OrsPriority;
+import at.tw.tourplanner.tourplanner.dto.CacheStatsDTO;
+import at.tw.tourplanner.tourplanner.dto.MatrixRequestDTO;
+import at.tw.tourplanner.tourplanner.dto.MatrixResultDTO;
+import at.tw.tourplanner.tourplanner.dto.RoutePolylineDTO;
 import at.tw.tourplanner.tourplanner.dto.RouteResultDTO;
+import at.tw.tourplanner.tourplanner.dto.WaypointRouteRequestDTO;
+import at.tw.tourplanner.tourplanner.dto.WaypointRouteResultDTO;
 import at.tw.tourplanner.tourplanner.model.TransportMode;
+import at.tw.tourplanner.tourplanner.service.MatrixService;
 import at.tw.tourplanner.tourplanner.service.RouteService;
+import at.tw.tourplanner.tourplanner.util.GeometryUtils;
+import at.tw.tourplanner.tourplanner.util.RouteGeoJson;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST controller for handling route-related requests.
@@ -18,15 +31,27 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/route")
 public class RouteController {
 
+    // OpenRouteService rejects directions requests with more waypoints
+    private static final int MAX_WAYPOINTS = 50;
+    private static final int MAX_ZOOM = 22;
+    private static final int MAX_PRECISION = 7;
+
     private final RouteService routeService;
+    private final MatrixService matrixService;
+    private final int maxMatrixCells;
 
     /**
-     * Constructs the RouteController with the given RouteService.
+     * Constructs the RouteController with the given services.
      *
-     * @param routeService the service used to fetch route data
+     * @param routeService   the service used to fetch route data
+     * @param matrixService  the service used to compute distance/duration matrices
+     * @param maxMatrixCells the maximum number of cells accepted by the matrix endpoint
      */
-    public RouteController(RouteService routeService) {
+    public RouteController(RouteService routeService, MatrixService matrixService,
+                           @Value("${route.matrix.max-cells:10000}") int maxMatrixCells) {
         this.routeService = routeService;
+        this.matrixService = matrixService;
+        this.maxMatrixCells = maxMatrixCells;
     }
 
     /**
@@ -37,57 +62,265 @@ public class RouteController {
      * @param endLon the longitude of the end point
      * @param endLat the latitude of the end point
      * @param mode the transport mode (car, bicycle, walk, etc.)
-     * @return ResponseEntity containing RouteResultDTO or error status
+     * @return future ResponseEntity containing RouteResultDTO or error status, 503 if OpenRouteService is unavailable
      */
     @GetMapping("/summary")
-    public ResponseEntity<RouteResultDTO> getRouteSummary(
+    public CompletableFuture<ResponseEntity<RouteResultDTO>> getRouteSummary(
             @RequestParam double startLon,
             @RequestParam double startLat,
             @RequestParam double endLon,
             @RequestParam double endLat,
             @RequestParam(defaultValue = "car") String mode
     ) {
+        String profile;
         try {
-            String profile = TransportMode.fromString(mode).getOrsProfile();
-            RouteResultDTO route = routeService.getRoute(startLon, startLat, endLon, endLat, profile);
-            return ResponseEntity.ok(route);
+            profile = TransportMode.fromString(mode).getOrsProfile();
         } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().build();
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         }
+        return routeService.getRouteAsync(startLon, startLat, endLon, endLat, profile)
+                .thenApply(Freshness::response)
+                .exceptionally(e -> ResponseEntity.status(Freshness.errorStatus(e)).build());
     }
 
     /**
      * Returns a GeoJSON representation of the route between two points.
+     * Without geometry options the cached response bytes are written to the client as they are. With a zoom level or tolerance the geometry is simplified with Douglas–Peucker,
+     * a precision caps the number of decimals, and {@code format=polyline} returns an encoded polyline instead.
      *
      * @param startLon the longitude of the start point
      * @param startLat the latitude of the start point
      * @param endLon the longitude of the end point
      * @param endLat the latitude of the end point
      * @param mode the transport mode (car, bicycle, walk, etc.)
-     * @return ResponseEntity containing the GeoJSON string or error message
+     * @param zoom the map zoom level the geometry is simplified for (optional)
+     * @param tolerance the simplification tolerance in degrees, overrides the zoom level (optional)
+     * @param precision the maximum number of coordinate decimals (optional)
+     * @param format the response format, geojson or polyline
+     * @return future ResponseEntity containing the route or error message
      */
     @GetMapping
-    public ResponseEntity<String> getRoute(
+    public CompletableFuture<ResponseEntity<byte[]>> getRoute(
             @RequestParam double startLon,
             @RequestParam double startLat,
             @RequestParam double endLon,
             @RequestParam double endLat,
-            @RequestParam(defaultValue = "car") String mode
+            @RequestParam(defaultValue = "car") String mode,
+            @RequestParam(required = false) Integer zoom,
+            @RequestParam(required = false) Double tolerance,
+            @RequestParam(required = false) Integer precision,
+            @RequestParam(defaultValue = "geojson") String format
     ) {
+        String profile;
+        GeometryOptions options;
+        try {
+            profile = TransportMode.fromString(mode).getOrsProfile();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(jsonError(HttpStatus.BAD_REQUEST, "Invalid transport mode."));
+        }
+        try {
+            options = GeometryOptions.of(zoom, tolerance, precision, format);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(jsonError(HttpStatus.BAD_REQUEST, e.getMessage()));
+        }
+        return routeService.getRouteGeoJsonAsync(startLon, startLat, endLon, endLat, profile, OrsPriority.INTERACTIVE)
+                .thenApply(geoJson -> render(geoJson, options))
+                .exceptionally(e -> jsonError(Freshness.errorStatus(e), "Failed to fetch GeoJSON route"));
+    }
+
+    /**
+     * Returns the total and per-leg distance and duration of a route through an ordered list of waypoints.
+     * The whole chain is requested from OpenRouteService in one directions call.
+     *
+     * @param request the waypoints (at least two, including start and end) and the transport mode
+     * @return future ResponseEntity containing WaypointRouteResultDTO or error status, 503 if OpenRouteService is unavailable
+     */
+    @PostMapping("/waypoints")
+    public CompletableFuture<ResponseEntity<WaypointRouteResultDTO>> getWaypointRouteSummary(@RequestBody WaypointRouteRequestDTO request) {
+        String profile;
         try {
-            String profile = TransportMode.fromString(mode).getOrsProfile();
-            String geoJson = routeService.getRouteGeoJson(startLon, startLat, endLon, endLat, profile);
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(geoJson);
+            profile = validateWaypointRequest(request);
         } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest()
-                    .body("{\"error\": \"Invalid transport mode.\"}");
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("{\"error\": \"Failed to fetch GeoJSON route\"}");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return routeService.getRouteAsync(request.getCoordinates(), profile)
+                .thenApply(Freshness::response)
+                .exceptionally(e -> ResponseEntity.status(Freshness.errorStatus(e)).build());
+    }
+
+    /**
+     * Returns a GeoJSON representation of the route through an ordered list of waypoints.
+     * Accepts the same geometry options as {@link #getRoute}.
+     *
+     * @param request the waypoints (at least two, including start and end) and the transport mode
+     * @param zoom the map zoom level the geometry is simplified for (optional)
+     * @param tolerance the simplification tolerance in degrees, overrides the zoom level (optional)
+     * @param precision the maximum number of coordinate decimals (optional)
+     * @param format the response format, geojson or polyline
+     * @return future ResponseEntity containing the route or error message
+     */
+    @PostMapping("/waypoints/geojson")
+    public CompletableFuture<ResponseEntity<byte[]>> getWaypointRoute(
+            @RequestBody WaypointRouteRequestDTO request,
+            @RequestParam(required = false) Integer zoom,
+            @RequestParam(required = false) Double tolerance,
+            @RequestParam(required = false) Integer precision,
+            @RequestParam(defaultValue = "geojson") String format
+    ) {
+        String profile;
+        GeometryOptions options;
+        try {
+            profile = validateWaypointRequest(request);
+            options = GeometryOptions.of(zoom, tolerance, precision, format);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(jsonError(HttpStatus.BAD_REQUEST, e.getMessage()));
+        }
+        return routeService.getRouteGeoJsonAsync(request.getCoordinates(), profile, OrsPriority.INTERACTIVE)
+                .thenApply(geoJson -> render(geoJson, options))
+                .exceptionally(e -> jsonError(Freshness.errorStatus(e), "Failed to fetch GeoJSON route"));
+    }
+
+    /**
+     * Returns the distance and duration from every source to every destination.
+     * Each cell is cached individually, so only cells not requested before go to OpenRouteService.
+     *
+     * @param request the sources, destinations and transport mode
+     * @return future ResponseEntity containing MatrixResultDTO or error status, 503 if OpenRouteService is unavailable
+     */
+    @PostMapping("/matrix")
+    public CompletableFuture<ResponseEntity<MatrixResultDTO>> getMatrix(@RequestBody MatrixRequestDTO request) {
+        if (request.getSources() == null || request.getSources().isEmpty() || request.getSources().contains(null)
+                || request.getDestinations() == null || request.getDestinations().isEmpty() || request.getDestinations().contains(null)
+                || (long) request.getSources().size() * request.getDestinations().size() > maxMatrixCells
+                || request.getMode() == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        String profile;
+        try {
+            profile = TransportMode.fromString(request.getMode()).getOrsProfile();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return matrixService.getMatrixAsync(request.getSources(), request.getDestinations(), profile)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> ResponseEntity.status(Freshness.errorStatus(e)).build());
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the route cache.
+     *
+     * @return ResponseEntity containing the current CacheStatsDTO
+     */
+    @GetMapping("/cache-stats")
+    public ResponseEntity<CacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(routeService.getCacheStats());
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the matrix cell cache.
+     *
+     * @return ResponseEntity containing the current CacheStatsDTO
+     */
+    @GetMapping("/matrix/cache-stats")
+    public ResponseEntity<CacheStatsDTO> getMatrixCacheStats() {
+        return ResponseEntity.ok(matrixService.getCacheStats());
+    }
+
+    /**
+     * Validates a waypoint route request and resolves its OpenRouteService profile.
+     *
+     * @param request the request to validate
+     * @return the OpenRouteService profile for the requested transport mode
+     * @throws IllegalArgumentException if the waypoints or the transport mode are invalid
+     */
+    private String validateWaypointRequest(WaypointRouteRequestDTO request) {
+        if (request.getCoordinates() == null || request.getCoordinates().size() < 2 || request.getCoordinates().contains(null)) {
+            throw new IllegalArgumentException("At least two waypoints are required.");
+        }
+        if (request.getCoordinates().size() > MAX_WAYPOINTS) {
+            throw new IllegalArgumentException("At most " + MAX_WAYPOINTS + " waypoints are supported.");
+        }
+        try {
+            return TransportMode.fromString(request.getMode()).getOrsProfile();
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid transport mode.");
+        }
+    }
+
+    /**
+     * Renders a cached GeoJSON route according to the requested geometry options.
+     * A stale route is marked with the {@code X-Data-Stale} and {@code Age} headers.
+     *
+     * @param result  the UTF-8 encoded GeoJSON route and whether it is stale
+     * @param options the requested geometry options
+     * @return the response containing the route
+     */
+    private static ResponseEntity<byte[]> render(CacheResult<byte[]> result, GeometryOptions options) {
+        byte[] geoJson = result.value();
+        byte[] body;
+        if (options.polyline()) {
+            RoutePolylineDTO polyline = RouteGeoJson.toPolyline(geoJson, options.tolerance(), options.precision());
+            body = new JSONObject()
+                    .put("polyline", polyline.getPolyline())
+                    .put("precision", polyline.getPrecision())
+                    .put("distance", polyline.getDistance())
+                    .put("duration", polyline.getDuration())
+                    .toString().getBytes(StandardCharsets.UTF_8);
+        } else if (options.tolerance() > 0 || options.precision() >= 0) {
+            body = RouteGeoJson.simplify(geoJson, options.tolerance(), options.precision());
+        } else {
+            body = geoJson;
+        }
+        return Freshness.ok(result)
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(body.length)
+                .body(body);
+    }
+
+    /**
+     * Creates a JSON error response for the GeoJSON endpoints.
+     *
+     * @param status  the HTTP status of the response
+     * @param message the error message
+     * @return the error response
+     */
+    private static ResponseEntity<byte[]> jsonError(HttpStatus status, String message) {
+        byte[] body = new JSONObject().put("error", message).toString().getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * Geometry options of the GeoJSON route endpoints.
+     *
+     * @param tolerance the simplification tolerance in degrees, 0 to keep every point
+     * @param precision the number of coordinate decimals, negative to keep full precision
+     * @param polyline  whether an encoded polyline is returned instead of GeoJSON
+     */
+    private record GeometryOptions(double tolerance, int precision, boolean polyline) {
+
+        static GeometryOptions of(Integer zoom, Double tolerance, Integer precision, String format) {
+            if (zoom != null && (zoom < 0 || zoom > MAX_ZOOM)) {
+                throw new IllegalArgumentException("Zoom must be between 0 and " + MAX_ZOOM + ".");
+            }
+            if (tolerance != null && (tolerance < 0 || tolerance.isNaN())) {
+                throw new IllegalArgumentException("Tolerance must not be negative.");
+            }
+            if (precision != null && (precision < 0 || precision > MAX_PRECISION)) {
+                throw new IllegalArgumentException("Precision must be between 0 and " + MAX_PRECISION + ".");
+            }
+            boolean polyline = switch (format.toLowerCase()) {
+                case "geojson" -> false;
+                case "polyline" -> true;
+                default -> throw new IllegalArgumentException("Unsupported format: " + format);
+            };
+
+            double effectiveTolerance = tolerance != null ? tolerance
+                    : zoom != null ? GeometryUtils.toleranceForZoom(zoom) : 0;
+            int effectivePrecision = precision != null ? precision
+                    : polyline ? RouteGeoJson.DEFAULT_POLYLINE_PRECISION : -1;
+            return new GeometryOptions(effectiveTolerance, effectivePrecision, polyline);
         }
     }
 }
@@ -0,0 +1,73 @@
+package at.tw.tourplanner.tourplanner.controller;
+
+import at.tw.tourplanner.tourplanner.service.VectorTileService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+/**
+ * REST controller serving the tour routes as map tiles.
+ */
+@RestController
+@RequestMapping("/tiles")
+public class TileController {
+
+    /** Media type of Mapbox Vector Tiles. */
+    static final MediaType VECTOR_TILE = MediaType.parseMediaType("application/vnd.mapbox-vector-tile");
+
+    /** Deepest zoom level a tile can be requested for. */
+    private static final int MAX_ZOOM = 24;
+
+    private final VectorTileService vectorTileService;
+
+    /**
+     * Constructor that initializes the VectorTileService dependency.
+     *
+     * @param vectorTileService the service generating the tiles
+     */
+    public TileController(VectorTileService vectorTileService) {
+        this.vectorTileService = vectorTileService;
+    }
+
+    /**
+     * Endpoint returning a Mapbox Vector Tile with the layer {@value VectorTileService#LAYER}, holding the
+     * routes of all tours crossing the tile as line features with their name as property. Tiles are
+     * revalidated with their version as entity tag, since they change whenever a tour route changes.
+     *
+     * @param z           the zoom level
+     * @param x           the tile column
+     * @param y           the tile row
+     * @param ifNoneMatch the entity tag of a tile the client already has
+     * @return ResponseEntity containing the tile, no content if no route crosses it, not modified if the
+     *         client's version is current, or bad request for tile coordinates outside the map
+     */
+    @GetMapping("/{z}/{x}/{y}.mvt")
+    public ResponseEntity<byte[]> getTile(@PathVariable int z, @PathVariable int x, @PathVariable int y,
+                                          @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        if (z < 0 || z > MAX_ZOOM || x < 0 || y < 0 || x >= (1L << z) || y >= (1L << z)) {
+            return ResponseEntity.badRequest().build();
+        }
+        VectorTileService.VectorTile tile = vectorTileService.getTile(z, x, y);
+        String etag = "\"" + tile.version() + "\"";
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic();
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        if (tile.data().length == 0) {
+            return ResponseEntity.noContent().eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(VECTOR_TILE)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .body(tile.data());
+    }
+}
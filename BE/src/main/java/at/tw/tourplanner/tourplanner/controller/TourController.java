@@ -1,14 +1,28 @@
 package at.tw.tourplanner.tourplanner.controller;
 
+import at.tw.tourplanner.tourplanner.dto.RouteJobStatusDTO;
+import at.tw.tourplanner.tourplanner.dto.TourClusterDTO;
+import at.tw.tourplanner.tourplanner.dto.TourLocationDTO;
+import at.tw.tourplanner.tourplanner.geometry.TourPointIndex;
 import at.tw.tourplanner.tourplanner.model.Tour;
 import at.tw.tourplanner.tourplanner.repository.TourRepository;
+import at.tw.tourplanner.tourplanner.service.RouteImageService;
+import at.tw.tourplanner.tourplanner.service.TourIndexService;
+import at.tw.tourplanner.tourplanner.service.TourRouteJobService;
+import at.tw.tourplanner.tourplanner.service.TourRouteService;
+import at.tw.tourplanner.tourplanner.util.Futures;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST controller for managing Tour entities.
@@ -17,9 +31,33 @@ import java.util.Optional;
 @RequestMapping("/tour")
 public class TourController {
 
+    /** Maximum radius of a nearby query in meters. */
+    private static final double MAX_RADIUS = 500_000;
+
+    /** Maximum number of tours returned by a spatial query. */
+    private static final int MAX_RESULTS = 1000;
+
+    /** Maximum number of clusters returned for a map view. */
+    private static final int MAX_CLUSTERS = 5000;
+
+    /** Maximum number of representative tour names per cluster. */
+    private static final int MAX_REPRESENTATIVES = 10;
+
     @Autowired
     TourRepository tourRepository;
 
+    @Autowired
+    TourRouteService tourRouteService;
+
+    @Autowired
+    TourRouteJobService tourRouteJobService;
+
+    @Autowired
+    TourIndexService tourIndexService;
+
+    @Autowired
+    RouteImageService routeImageService;
+
     /**
      * Retrieves all tours.
      *
@@ -27,10 +65,136 @@ public class TourController {
      */
     @GetMapping("/")
     public ResponseEntity<List<Tour>> getTour() {
-        List<Tour> allTours = this.tourRepository.findAll();
+        List<Tour> allTours = this.tourRepository.findAllWithWaypoints();
         return new ResponseEntity<>(allTours, allTours.isEmpty() ? HttpStatus.NO_CONTENT : HttpStatus.OK );
     }
 
+    /**
+     * Finds the tours starting (or ending) near a coordinate, answered from the in-memory tour index.
+     * Tours are indexed once their route has been computed.
+     *
+     * @param lon    the longitude in degrees
+     * @param lat    the latitude in degrees
+     * @param radius the search radius in meters (up to 500 km)
+     * @param point  which points of the tours are matched: start, end or any
+     * @param limit  the maximum number of tours (1 to 1000)
+     * @return ResponseEntity containing the matching tours with their distance, nearest first, or bad request
+     *         for invalid parameters
+     */
+    @GetMapping("/near")
+    public ResponseEntity<List<TourLocationDTO>> getToursNear(@RequestParam double lon,
+                                                              @RequestParam double lat,
+                                                              @RequestParam(defaultValue = "1000") double radius,
+                                                              @RequestParam(defaultValue = "start") String point,
+                                                              @RequestParam(defaultValue = "100") int limit) {
+        TourPointIndex.Endpoint endpoint = endpoint(point);
+        if (endpoint == null || !validCoordinate(lon, lat) || !(radius > 0 && radius <= MAX_RADIUS)
+                || limit < 1 || limit > MAX_RESULTS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(tourIndexService.near(lon, lat, radius, endpoint, limit));
+    }
+
+    /**
+     * Finds the tours starting (or ending) inside a bounding box, answered from the in-memory tour index.
+     * A box with minLon greater than maxLon crosses the antimeridian.
+     *
+     * @param minLon the western longitude
+     * @param minLat the southern latitude
+     * @param maxLon the eastern longitude
+     * @param maxLat the northern latitude
+     * @param point  which points of the tours are matched: start, end or any
+     * @param limit  the maximum number of tours (1 to 1000)
+     * @return ResponseEntity containing up to limit matching tours, or bad request for invalid parameters
+     */
+    @GetMapping("/bbox")
+    public ResponseEntity<List<TourLocationDTO>> getToursInBoundingBox(@RequestParam double minLon,
+                                                                       @RequestParam double minLat,
+                                                                       @RequestParam double maxLon,
+                                                                       @RequestParam double maxLat,
+                                                                       @RequestParam(defaultValue = "start") String point,
+                                                                       @RequestParam(defaultValue = "100") int limit) {
+        TourPointIndex.Endpoint endpoint = endpoint(point);
+        if (endpoint == null || !validCoordinate(minLon, minLat) || !validCoordinate(maxLon, maxLat) || minLat > maxLat
+                || limit < 1 || limit > MAX_RESULTS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(tourIndexService.within(minLon, minLat, maxLon, maxLat, endpoint, limit));
+    }
+
+    /**
+     * Finds the tours whose route passes near a coordinate, answered from the in-memory route index.
+     *
+     * @param lon    the longitude in degrees
+     * @param lat    the latitude in degrees
+     * @param radius the maximum distance between the route and the coordinate in meters (up to 500 km)
+     * @param limit  the maximum number of tours (1 to 1000)
+     * @return ResponseEntity containing the matching tours with the distance of their route, nearest first,
+     *         or bad request for invalid parameters
+     */
+    @GetMapping("/passing")
+    public ResponseEntity<List<TourLocationDTO>> getToursPassing(@RequestParam double lon,
+                                                                 @RequestParam double lat,
+                                                                 @RequestParam(defaultValue = "1000") double radius,
+                                                                 @RequestParam(defaultValue = "100") int limit) {
+        if (!validCoordinate(lon, lat) || !(radius > 0 && radius <= MAX_RADIUS) || limit < 1 || limit > MAX_RESULTS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(tourIndexService.passingNear(lon, lat, radius, limit));
+    }
+
+    /**
+     * Finds the tours whose route crosses a bounding box, answered from the in-memory route index.
+     *
+     * @param minLon the western longitude
+     * @param minLat the southern latitude
+     * @param maxLon the eastern longitude
+     * @param maxLat the northern latitude
+     * @param limit  the maximum number of tours (1 to 1000)
+     * @return ResponseEntity containing up to limit matching tours, or bad request for invalid parameters
+     */
+    @GetMapping("/crossing")
+    public ResponseEntity<List<TourLocationDTO>> getToursCrossing(@RequestParam double minLon,
+                                                                  @RequestParam double minLat,
+                                                                  @RequestParam double maxLon,
+                                                                  @RequestParam double maxLat,
+                                                                  @RequestParam(defaultValue = "100") int limit) {
+        if (!validCoordinate(minLon, minLat) || !validCoordinate(maxLon, maxLat) || minLon > maxLon || minLat > maxLat
+                || limit < 1 || limit > MAX_RESULTS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(tourIndexService.crossing(minLon, minLat, maxLon, maxLat, limit));
+    }
+
+    /**
+     * Returns the tours of a map view as clusters of their start points, answered from the in-memory cluster
+     * index. A cluster with a count of one is a single tour.
+     *
+     * @param bbox            the map view as minLon,minLat,maxLon,maxLat; minLon greater than maxLon crosses
+     *                        the antimeridian
+     * @param zoom            the map zoom level (0 to 24)
+     * @param representatives the maximum number of tour names per cluster (0 to 10)
+     * @return ResponseEntity containing the clusters, largest first, or bad request for invalid parameters
+     */
+    @GetMapping("/clusters")
+    public ResponseEntity<List<TourClusterDTO>> getTourClusters(@RequestParam String bbox,
+                                                                @RequestParam int zoom,
+                                                                @RequestParam(defaultValue = "3") int representatives) {
+        String[] parts = bbox.split(",");
+        double[] box = new double[4];
+        try {
+            if (parts.length != 4) return ResponseEntity.badRequest().build();
+            for (int i = 0; i < 4; i++) box[i] = Double.parseDouble(parts[i].trim());
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!validCoordinate(box[0], box[1]) || !validCoordinate(box[2], box[3]) || box[1] > box[3]
+                || zoom < 0 || zoom > 24 || representatives < 0 || representatives > MAX_REPRESENTATIVES) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(tourIndexService.clusters(box[0], box[1], box[2], box[3], zoom, representatives, MAX_CLUSTERS));
+    }
+
     /**
      * Retrieves a specific tour by name.
      *
@@ -44,7 +208,7 @@ public class TourController {
     }
 
     /**
-     * Creates a new tour.
+     * Creates a new tour and enqueues the computation of its route.
      *
      * @param tour the tour to create
      * @return ResponseEntity with the created Tour or internal server error status
@@ -53,6 +217,7 @@ public class TourController {
     public ResponseEntity<Tour> createTour(@RequestBody Tour tour) {
         try {
             Tour _tour = this.tourRepository.save(tour);
+            this.tourRouteJobService.enqueue(_tour.getName());
             return new ResponseEntity<>(_tour, HttpStatus.CREATED);
         } catch (Exception e) {
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
@@ -69,6 +234,8 @@ public class TourController {
     public ResponseEntity<Tour> deleteTour(@PathVariable String name) {
         try {
             this.tourRepository.deleteById(name);
+            this.tourRouteJobService.remove(name);
+            this.tourIndexService.remove(name);
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -76,25 +243,148 @@ public class TourController {
     }
 
     /**
-     * Updates an existing tour.
+     * Returns the stored route of a tour without calling OpenRouteService.
+     *
+     * @param name the name of the tour
+     * @param format the response format, geojson (a LineString feature) or polyline
+     * @return ResponseEntity with the route, not found status if the tour does not exist or its route has not
+     *         been computed, or bad request for an unsupported format
+     */
+    @GetMapping("/{name}/route")
+    public ResponseEntity<?> getTourRoute(@PathVariable String name, @RequestParam(defaultValue = "geojson") String format) {
+        Optional<Tour> tour = this.tourRepository.findById(name);
+        if (tour.isEmpty() || !tour.get().isRouteAvailable()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        Optional<?> route = switch (format.toLowerCase()) {
+            case "geojson" -> tourRouteService.toGeoJson(tour.get());
+            case "polyline" -> tourRouteService.toPolyline(tour.get());
+            default -> null;
+        };
+        if (route == null) return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        return route.<ResponseEntity<?>>map(body -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(body))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Returns a PNG image of the stored route of a tour, rendered on the server and cached on disk.
+     * Requests passing the tour's current routeGeometryHash as v may cache the image for a year, since a
+     * changed route yields a new hash and thus a new URL; other requests revalidate with the entity tag.
+     *
+     * @param name        the name of the tour
+     * @param size        the image size: small (320x180), medium (640x360) or large (1280x720)
+     * @param version     the route geometry hash the client expects, optional
+     * @param ifNoneMatch the entity tag of an image the client already has
+     * @return ResponseEntity with the image, not modified if the client's image is current, not found status if
+     *         the tour does not exist or its route has not been computed, or bad request for an unknown size
+     */
+    @GetMapping("/{name}/image")
+    public ResponseEntity<byte[]> getTourImage(@PathVariable String name,
+                                               @RequestParam(defaultValue = "medium") String size,
+                                               @RequestParam(value = "v", required = false) String version,
+                                               @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        RouteImageService.Size imageSize = RouteImageService.Size.fromString(size);
+        if (imageSize == null) return ResponseEntity.badRequest().build();
+        Optional<Tour> tour = this.tourRepository.findById(name);
+        if (tour.isEmpty() || !tour.get().isRouteAvailable()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        Optional<RouteImageService.RouteImage> image = routeImageService.getImage(tour.get(), imageSize);
+        if (image.isEmpty()) return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+
+        String etag = "\"" + image.get().version() + "\"";
+        CacheControl cacheControl = image.get().geometryHash().equals(version)
+                ? CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable()
+                : CacheControl.maxAge(Duration.ZERO).mustRevalidate();
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .body(image.get().data());
+    }
+
+    /**
+     * Returns the state of the background job computing a tour's route.
+     *
+     * @param name the name of the tour
+     * @return ResponseEntity with the job status, or not found status if no job was enqueued since startup
+     */
+    @GetMapping("/{name}/route/job")
+    public ResponseEntity<RouteJobStatusDTO> getTourRouteJob(@PathVariable String name) {
+        return tourRouteJobService.getStatus(name)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Computes the route of a tour now and stores it with the tour.
+     *
+     * @param name the name of the tour
+     * @return future ResponseEntity with the updated tour, not found status if the tour does not exist,
+     *         unprocessable entity if a location cannot be found, or an error status if routing fails
+     */
+    @PostMapping("/{name}/route")
+    public CompletableFuture<ResponseEntity<Tour>> computeTourRoute(@PathVariable String name) {
+        return tourRouteService.computeRoute(name)
+                .thenApply(tour -> tour.map(ResponseEntity::ok).orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)))
+                .exceptionally(e -> new ResponseEntity<>(Futures.unwrap(e) instanceof IllegalArgumentException
+                        ? HttpStatus.UNPROCESSABLE_ENTITY : Freshness.errorStatus(e)));
+    }
+
+    /**
+     * Updates an existing tour. Waypoints are only replaced if the update contains them.
+     * The stored route is discarded and recomputed in the background if the locations or the transport type change.
      *
      * @param name the name of the tour to update
      * @param updatedTour the tour object containing updated values
-     * @return ResponseEntity with the updated tour or not found status
+     * @return ResponseEntity with the updated tour, not found status, or conflict if the tour was changed concurrently
      */
     @PutMapping("/{name}")
     public ResponseEntity<Tour> updateTour(@PathVariable String name, @RequestBody Tour updatedTour) {
         Optional<Tour> existingTour = this.tourRepository.findById(name);
         if (existingTour.isPresent()) {
             Tour tour = existingTour.get();
+            boolean routeChanged = TourRouteService.routeInputsChanged(tour, updatedTour);
+            if (routeChanged) {
+                tour.clearRoute();
+            }
             tour.setDescription(updatedTour.getDescription());
             tour.setFromLocation(updatedTour.getFromLocation());
             tour.setToLocation(updatedTour.getToLocation());
             tour.setTransportType(updatedTour.getTransportType());
-            Tour savedTour = tourRepository.save(tour);
+            if (updatedTour.getWaypoints() != null) {
+                tour.setWaypoints(updatedTour.getWaypoints());
+            }
+            Tour savedTour;
+            try {
+                savedTour = tourRepository.save(tour);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                return new ResponseEntity<>(HttpStatus.CONFLICT);
+            }
+            tourIndexService.update(savedTour);
+            if (routeChanged || !savedTour.isRouteAvailable()) {
+                tourRouteJobService.enqueue(name);
+            }
             return new ResponseEntity<>(savedTour, HttpStatus.OK);
         } else {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
+
+    private static TourPointIndex.Endpoint endpoint(String point) {
+        try {
+            return TourPointIndex.Endpoint.valueOf(point.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean validCoordinate(double lon, double lat) {
+        return lon >= -180 && lon <= 180 && lat >= -90 && lat <= 90;
+    }
 }
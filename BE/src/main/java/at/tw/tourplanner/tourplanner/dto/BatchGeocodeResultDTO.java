@@ -0,0 +1,61 @@
+package at.tw.tourplanner.tourplanner.dto;
+
+/**
+ * Data Transfer Object representing the result for one address of a batch geocode request.
+ */
+public class BatchGeocodeResultDTO {
+    private String address;
+    private GeocodeStatus status;
+    private CoordinateDTO coordinate;
+
+    /**
+     * Constructs a BatchGeocodeResultDTO with specified address, status and coordinate.
+     *
+     * @param address    the address as sent in the request
+     * @param status     the outcome of the lookup
+     * @param coordinate the resolved coordinate, or null unless the status is OK
+     */
+    public BatchGeocodeResultDTO(String address, GeocodeStatus status, CoordinateDTO coordinate) {
+        this.address = address;
+        this.status = status;
+        this.coordinate = coordinate;
+    }
+
+    /**
+     * Gets the address.
+     *
+     * @return the address as sent in the request
+     */
+    public String getAddress() { return address; }
+    /**
+     * Gets the status.
+     *
+     * @return the outcome of the lookup
+     */
+    public GeocodeStatus getStatus() { return status; }
+    /**
+     * Gets the coordinate.
+     *
+     * @return the resolved coordinate, or null unless the status is OK
+     */
+    public CoordinateDTO getCoordinate() { return coordinate; }
+
+    /**
+     * Sets the address.
+     *
+     * @param address the address to set
+     */
+    public void setAddress(String address) { this.address = address; }
+    /**
+     * Sets the status.
+     *
+     * @param status the status to set
+     */
+    public void setStatus(GeocodeStatus status) { this.status = status; }
+    /**
+     * Sets the coordinate.
+     *
+     * @param coordinate the coordinate to set
+     */
+    public void setCoordinate(CoordinateDTO coordinate) { this.coordinate = coordinate; }
+}
@@ -0,0 +1,91 @@
+package at.tw.tourplanner.tourplanner.dto;
+
+/**
+ * Data Transfer Object exposing the counters of an in-memory cache.
+ */
+public class CacheStatsDTO {
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private double hitRate;
+
+    /**
+     * Constructs a CacheStatsDTO with the given counters.
+     *
+     * @param size          the current number of cached entries
+     * @param hitCount      the number of lookups served from the cache
+     * @param missCount     the number of lookups that had to go upstream
+     * @param evictionCount the number of entries removed due to size or expiry
+     * @param hitRate       the ratio of hits to total lookups
+     */
+    public CacheStatsDTO(long size, long hitCount, long missCount, long evictionCount, double hitRate) {
+        this.size = size;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.hitRate = hitRate;
+    }
+
+    /**
+     * Gets the number of cached entries.
+     *
+     * @return the cache size
+     */
+    public long getSize() { return size; }
+    /**
+     * Gets the hit count.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() { return hitCount; }
+    /**
+     * Gets the miss count.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() { return missCount; }
+    /**
+     * Gets the eviction count.
+     *
+     * @return the number of evicted entries
+     */
+    public long getEvictionCount() { return evictionCount; }
+    /**
+     * Gets the hit rate.
+     *
+     * @return the ratio of hits to total lookups
+     */
+    public double getHitRate() { return hitRate; }
+
+    /**
+     * Sets the number of cached entries.
+     *
+     * @param size the cache size to set
+     */
+    public void setSize(long size) { this.size = size; }
+    /**
+     * Sets the hit count.
+     *
+     * @param hitCount the number of cache hits to set
+     */
+    public void setHitCount(long hitCount) { this.hitCount = hitCount; }
+    /**
+     * Sets the miss count.
+     *
+     * @param missCount the number of cache misses to set
+     */
+    public void setMissCount(long missCount) { this.missCount = missCount; }
+    /**
+     * Sets the eviction count.
+     *
+     * @param evictionCount the number of evicted entries to set
+     */
+    public void setEvictionCount(long evictionCount) { this.evictionCount = evictionCount; }
+    /**
+     * Sets the hit rate.
+     *
+     * @param hitRate the hit rate to set
+     */
+    public void setHitRate(double hitRate) { this.hitRate = hitRate; }
+}
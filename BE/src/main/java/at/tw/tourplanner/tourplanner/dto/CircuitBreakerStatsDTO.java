@@ -0,0 +1,76 @@
+package at.tw.tourplanner.tourplanner.dto;
+
+/**
+ * Data Transfer Object exposing the circuit breaker and bulkhead state of the OpenRouteService client.
+ */
+public class CircuitBreakerStatsDTO {
+    private String state;
+    private double failureRate;
+    private int inFlight;
+    private int maxConcurrent;
+
+    /**
+     * Constructs a CircuitBreakerStatsDTO with the given state.
+     *
+     * @param state         the circuit state (CLOSED, OPEN or HALF_OPEN)
+     * @param failureRate   the failure rate over the recent calls
+     * @param inFlight      the number of requests currently sent to OpenRouteService
+     * @param maxConcurrent the maximum number of concurrent requests allowed by the bulkhead
+     */
+    public CircuitBreakerStatsDTO(String state, double failureRate, int inFlight, int maxConcurrent) {
+        this.state = state;
+        this.failureRate = failureRate;
+        this.inFlight = inFlight;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * Gets the circuit state.
+     *
+     * @return the circuit state
+     */
+    public String getState() { return state; }
+    /**
+     * Gets the failure rate.
+     *
+     * @return the failure rate over the recent calls
+     */
+    public double getFailureRate() { return failureRate; }
+    /**
+     * Gets the number of requests in flight.
+     *
+     * @return the number of requests currently sent
+     */
+    public int getInFlight() { return inFlight; }
+    /**
+     * Gets the bulkhead size.
+     *
+     * @return the maximum number of concurrent requests
+     */
+    public int getMaxConcurrent() { return maxConcurrent; }
+
+    /**
+     * Sets the circuit state.
+     *
+     * @param state the circuit state to set
+     */
+    public void setState(String state) { this.state = state; }
+    /**
+     * Sets the failure rate.
+     *
+     * @param failureRate the failure rate to set
+     */
+    public void setFailureRate(double failureRate) { this.failureRate = failureRate; }
+    /**
+     * Sets the number of requests in flight.
+     *
+     * @param inFlight the number of requests to set
+     */
+    public void setInFlight(int inFlight) { this.inFlight = inFlight; }
+    /**
+     * Sets the bulkhead size.
+     *
+     * @param maxConcurrent the maximum number of concurrent requests to set
+     */
+    public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+}
@@ -18,6 +18,12 @@ public class CoordinateDTO {
         this.lat = lat;
     }
 
+    /**
+     * Default constructor.
+     */
+    public CoordinateDTO() {
+    }
+
     /**
      * Gets the longitude.
      *
@@ -0,0 +1,10 @@
+package at.tw.tourplanner.tourplanner.dto;
+
+/**
+ * Enum representing the outcome of a single geocode lookup within a batch.
+ */
+public enum GeocodeStatus {
+    OK,
+    NOT_FOUND,
+    ERROR
+}
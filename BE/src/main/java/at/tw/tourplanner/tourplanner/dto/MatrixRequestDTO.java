@@ -0,0 +1,50 @@
+package at.tw.tourplanner.tourplanner.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object representing a distance/duration matrix request.
+ */
+public class MatrixRequestDTO {
+    private List<CoordinateDTO> sources;
+    private List<CoordinateDTO> destinations;
+    private String mode = "car";
+
+    /**
+     * Gets the sources.
+     *
+     * @return the origin coordinates, one per matrix row
+     */
+    public List<CoordinateDTO> getSources() { return sources; }
+    /**
+     * Gets the destinations.
+     *
+     * @return the destination coordinates, one per matrix column
+     */
+    public List<CoordinateDTO> getDestinations() { return destinations; }
+    /**
+     * Gets the transport mode.
+     *
+     * @return the transport mode (car, bicycle, walk, etc.)
+     */
+    public String getMode() { return mode; }
+
+    /**
+     * Sets the sources.
+     *
+     * @param sources the origin coordinates to set
+     */
+    public void setSources(List<CoordinateDTO> sources) { this.sources = sources; }
+    /**
+     * Sets the destinations.
+     *
+     * @param destinations the destination coordinates to set
+     */
+    public void setDestinations(List<CoordinateDTO> destinations) { this.destinations = destinations; }
+    /**
+     * Sets the transport mode.
+     *
+     * @param mode the transport mode to set
+     */
+    public void setMode(String mode) { this.mode = mode; }
+}
@@ -0,0 +1,47 @@
+package at.tw.tourplanner.tourplanner.dto;
+
+/**
+ * Data Transfer Object representing a distance/duration matrix.
+ * Rows correspond to sources and columns to destinations; unreachable cells are null.
+ */
+public class MatrixResultDTO {
+    private Double[][] distances; // in meters
+    private Double[][] durations; // in seconds
+
+    /**
+     * Constructs a MatrixResultDTO with specified distances and durations.
+     *
+     * @param distances the distance of each source/destination pair in meters
+     * @param durations the duration of each source/destination pair in seconds
+     */
+    public MatrixResultDTO(Double[][] distances, Double[][] durations) {
+        this.distances = distances;
+        this.durations = durations;
+    }
+
+    /**
+     * Gets the distances.
+     *
+     * @return the distance matrix in meters
+     */
+    public Double[][] getDistances() { return distances; }
+    /**
+     * Gets the durations.
+     *
+     * @return the duration matrix in seconds
+     */
+    public Double[][] getDurations() { return durations; }
+
+    /**
+     * Sets the distances.
+     *
+     * @param distances the distance matrix to set
+     */
+    public void setDistances(Double[][] distances) { this.distances = distances; }
+    /**
+     * Sets the durations.
+     *
+     * @param durations the duration matrix to set
+     */
+    public void setDurations(Double[][] durations) { this.durations = durations; }
+}
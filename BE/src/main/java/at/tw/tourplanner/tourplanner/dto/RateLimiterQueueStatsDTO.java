@@ -0,0 +1,91 @@
+package at.tw.tourplanner.tourplanner.dto;
+
+/**
+ * Data Transfer Object exposing the counters of one priority queue of the OpenRouteService rate limiter.
+ */
+public class RateLimiterQueueStatsDTO {
+    private int queueDepth;
+    private long granted;
+    private long rejected;
+    private double averageWaitMillis;
+    private double maxWaitMillis;
+
+    /**
+     * Constructs a RateLimiterQueueStatsDTO with the given counters.
+     *
+     * @param queueDepth        the number of requests currently waiting for a token
+     * @param granted           the number of requests that received a token
+     * @param rejected          the number of requests rejected because of a full queue or an exhausted daily quota
+     * @param averageWaitMillis the average time granted requests waited for their token
+     * @param maxWaitMillis     the longest time a granted request waited for its token
+     */
+    public RateLimiterQueueStatsDTO(int queueDepth, long granted, long rejected, double averageWaitMillis, double maxWaitMillis) {
+        this.queueDepth = queueDepth;
+        this.granted = granted;
+        this.rejected = rejected;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Gets the queue depth.
+     *
+     * @return the number of waiting requests
+     */
+    public int getQueueDepth() { return queueDepth; }
+    /**
+     * Gets the granted count.
+     *
+     * @return the number of requests that received a token
+     */
+    public long getGranted() { return granted; }
+    /**
+     * Gets the rejected count.
+     *
+     * @return the number of rejected requests
+     */
+    public long getRejected() { return rejected; }
+    /**
+     * Gets the average wait time.
+     *
+     * @return the average wait in milliseconds
+     */
+    public double getAverageWaitMillis() { return averageWaitMillis; }
+    /**
+     * Gets the maximum wait time.
+     *
+     * @return the longest wait in milliseconds
+     */
+    public double getMaxWaitMillis() { return maxWaitMillis; }
+
+    /**
+     * Sets the queue depth.
+     *
+     * @param queueDepth the number of waiting requests to set
+     */
+    public void setQueueDepth(int queueDepth) { this.queueDepth = queueDepth; }
+    /**
+     * Sets the granted count.
+     *
+     * @param granted the number of granted requests to set
+     */
+    public void setGranted(long granted) { this.granted = granted; }
+    /**
+     * Sets the rejected count.
+     *
+     * @param rejected the number of rejected requests to set
+     */
+    public void setRejected(long rejected) { this.rejected = rejected; }
+    /**
+     * Sets the average wait time.
+     *
+     * @param averageWaitMillis the average wait in milliseconds to set
+     */
+    public void setAverageWaitMillis(double averageWaitMillis) { this.averageWaitMillis = averageWaitMillis; }
+    /**
+     * Sets the maximum wait time.
+     *
+     * @param maxWaitMillis the longest wait in milliseconds to set
+     */
+    public void setMaxWaitMillis(double maxWaitMillis) { this.maxWaitMillis = maxWaitMillis; }
+}
@@ -0,0 +1,92 @@
+package at.tw.tourplanner.tourplanner.dto;
+
+/**
+ * Data Transfer Object exposing the state of the OpenRouteService rate limiter.
+ */
+public class RateLimiterStatsDTO {
+    private double availableTokens;
+    private long dailyUsed;
+    private long dailyLimit;
+    private RateLimiterQueueStatsDTO interactive;
+    private RateLimiterQueueStatsDTO background;
+
+    /**
+     * Constructs a RateLimiterStatsDTO with the given state.
+     *
+     * @param availableTokens the tokens currently in the per-minute bucket
+     * @param dailyUsed       the number of requests sent today (UTC)
+     * @param dailyLimit      the daily request quota
+     * @param interactive     the counters of the interactive queue
+     * @param background      the counters of the background queue
+     */
+    public RateLimiterStatsDTO(double availableTokens, long dailyUsed, long dailyLimit,
+                               RateLimiterQueueStatsDTO interactive, RateLimiterQueueStatsDTO background) {
+        this.availableTokens = availableTokens;
+        this.dailyUsed = dailyUsed;
+        this.dailyLimit = dailyLimit;
+        this.interactive = interactive;
+        this.background = background;
+    }
+
+    /**
+     * Gets the available tokens.
+     *
+     * @return the tokens currently in the bucket
+     */
+    public double getAvailableTokens() { return availableTokens; }
+    /**
+     * Gets the daily usage.
+     *
+     * @return the number of requests sent today
+     */
+    public long getDailyUsed() { return dailyUsed; }
+    /**
+     * Gets the daily limit.
+     *
+     * @return the daily request quota
+     */
+    public long getDailyLimit() { return dailyLimit; }
+    /**
+     * Gets the interactive queue counters.
+     *
+     * @return the interactive queue counters
+     */
+    public RateLimiterQueueStatsDTO getInteractive() { return interactive; }
+    /**
+     * Gets the background queue counters.
+     *
+     * @return the background queue counters
+     */
+    public RateLimiterQueueStatsDTO getBackground() { return background; }
+
+    /**
+     * Sets the available tokens.
+     *
+     * @param availableTokens the tokens to set
+     */
+    public void setAvailableTokens(double availableTokens) { this.availableTokens = availableTokens; }
+    /**
+     * Sets the daily usage.
+     *
+     * @param dailyUsed the number of requests sent today to set
+     */
+    public void setDailyUsed(long dailyUsed) { this.dailyUsed = dailyUsed; }
+    /**
+     * Sets the daily limit.
+     *
+     * @param dailyLimit the daily request quota to set
+     */
+    public void setDailyLimit(long dailyLimit) { this.dailyLimit = dailyLimit; }
+    /**
+     * Sets the interactive queue counters.
+     *
+     * @param interactive the interactive queue counters to set
+     */
+    public void setInteractive(RateLimiterQueueStatsDTO interactive) { this.interactive = interactive; }
+    /**
+     * Sets the background queue counters.
+     *
+     * @param background the background queue counters to set
+     */
+    public void setBackground(RateLimiterQueueStatsDTO background) { this.background = background; }
+}
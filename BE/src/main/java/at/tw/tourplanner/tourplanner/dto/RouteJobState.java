@@ -0,0 +1,12 @@
+package at.tw.tourplanner.tourplanner.dto;
+
+/**
+ * Enum representing the state of a tour's route precomputation job.
+ */
+public enum RouteJobState {
+    QUEUED,
+    RUNNING,
+    RETRY_SCHEDULED,
+    SUCCEEDED,
+    FAILED
+}
@@ -0,0 +1,109 @@
+package at.tw.tourplanner.tourplanner.dto;
+
+import java.time.Instant;
+
+/**
+ * Data Transfer Object describing the route precomputation job of a tour.
+ */
+public class RouteJobStatusDTO {
+    private String tourName;
+    private RouteJobState state;
+    private int attempts;
+    private String lastError;
+    private Instant nextAttemptAt;
+    private Instant updatedAt;
+
+    /**
+     * Constructs a RouteJobStatusDTO with the given job state.
+     *
+     * @param tourName      the name of the tour
+     * @param state         the job state
+     * @param attempts      the number of attempts made for the current input of the tour
+     * @param lastError     the error of the last failed attempt, or null
+     * @param nextAttemptAt when the next attempt is scheduled, or null unless a retry is scheduled
+     * @param updatedAt     when the state last changed
+     */
+    public RouteJobStatusDTO(String tourName, RouteJobState state, int attempts, String lastError,
+                             Instant nextAttemptAt, Instant updatedAt) {
+        this.tourName = tourName;
+        this.state = state;
+        this.attempts = attempts;
+        this.lastError = lastError;
+        this.nextAttemptAt = nextAttemptAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Gets the name of the tour.
+     *
+     * @return the tour name
+     */
+    public String getTourName() { return tourName; }
+    /**
+     * Gets the job state.
+     *
+     * @return the job state
+     */
+    public RouteJobState getState() { return state; }
+    /**
+     * Gets the number of attempts.
+     *
+     * @return the number of attempts made
+     */
+    public int getAttempts() { return attempts; }
+    /**
+     * Gets the error of the last failed attempt.
+     *
+     * @return the error message, or null
+     */
+    public String getLastError() { return lastError; }
+    /**
+     * Gets the time of the next attempt.
+     *
+     * @return when the next attempt is scheduled, or null
+     */
+    public Instant getNextAttemptAt() { return nextAttemptAt; }
+    /**
+     * Gets the time of the last state change.
+     *
+     * @return when the state last changed
+     */
+    public Instant getUpdatedAt() { return updatedAt; }
+
+    /**
+     * Sets the name of the tour.
+     *
+     * @param tourName the tour name
+     */
+    public void setTourName(String tourName) { this.tourName = tourName; }
+    /**
+     * Sets the job state.
+     *
+     * @param state the job state
+     */
+    public void setState(RouteJobState state) { this.state = state; }
+    /**
+     * Sets the number of attempts.
+     *
+     * @param attempts the number of attempts made
+     */
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    /**
+     * Sets the error of the last failed attempt.
+     *
+     * @param lastError the error message, or null
+     */
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    /**
+     * Sets the time of the next attempt.
+     *
+     * @param nextAttemptAt when the next attempt is scheduled, or null
+     */
+    public void setNextAttemptAt(Instant nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    /**
+     * Sets the time of the last state change.
+     *
+     * @param updatedAt when the state last changed
+     */
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
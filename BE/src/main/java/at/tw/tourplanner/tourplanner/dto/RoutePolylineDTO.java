@@ -0,0 +1,76 @@
+package at.tw.tourplanner.tourplanner.dto;
+
+/**
+ * Data Transfer Object representing a route geometry as encoded polyline together with its summary.
+ */
+public class RoutePolylineDTO {
+    private String polyline;
+    private int precision;
+    private double distance; // in meters
+    private double duration; // in seconds
+
+    /**
+     * Constructs a RoutePolylineDTO with specified geometry and summary.
+     *
+     * @param polyline  the route geometry in Encoded Polyline Algorithm Format
+     * @param precision the number of decimals encoded per coordinate value
+     * @param distance  the total distance in meters
+     * @param duration  the total duration in seconds
+     */
+    public RoutePolylineDTO(String polyline, int precision, double distance, double duration) {
+        this.polyline = polyline;
+        this.precision = precision;
+        this.distance = distance;
+        this.duration = duration;
+    }
+
+    /**
+     * Gets the polyline.
+     *
+     * @return the encoded route geometry
+     */
+    public String getPolyline() { return polyline; }
+    /**
+     * Gets the precision.
+     *
+     * @return the number of decimals encoded per coordinate value
+     */
+    public int getPrecision() { return precision; }
+    /**
+     * Gets the distance.
+     *
+     * @return the distance in meters
+     */
+    public double getDistance() { return distance; }
+    /**
+     * Gets the duration.
+     *
+     * @return the duration in seconds
+     */
+    public double getDuration() { return duration; }
+
+    /**
+     * Sets the polyline.
+     *
+     * @param polyline the encoded route geometry to set
+     */
+    public void setPolyline(String polyline) { this.polyline = polyline; }
+    /**
+     * Sets the precision.
+     *
+     * @param precision the precision to set
+     */
+    public void setPrecision(int precision) { this.precision = precision; }
+    /**
+     * Sets the distance.
+     *
+     * @param distance the distance in meters to set
+     */
+    public void setDistance(double distance) { this.distance = distance; }
+    /**
+     * Sets the duration.
+     *
+     * @param duration the duration in seconds to set
+     */
+    public void setDuration(double duration) { this.duration = duration; }
+}
@@ -0,0 +1,46 @@
+package at.tw.tourplanner.tourplanner.dto;
+
+/**
+ * Data Transfer Object representing one address completion.
+ */
+public class SuggestionDTO {
+    private String text;
+    private CoordinateDTO coordinate;
+
+    /**
+     * Constructs a SuggestionDTO with specified text and coordinate.
+     *
+     * @param text       the suggested address
+     * @param coordinate the known coordinate of the address, or null if it has not been geocoded yet
+     */
+    public SuggestionDTO(String text, CoordinateDTO coordinate) {
+        this.text = text;
+        this.coordinate = coordinate;
+    }
+
+    /**
+     * Gets the text.
+     *
+     * @return the suggested address
+     */
+    public String getText() { return text; }
+    /**
+     * Gets the coordinate.
+     *
+     * @return the known coordinate, or null if it has not been geocoded yet
+     */
+    public CoordinateDTO getCoordinate() { return coordinate; }
+
+    /**
+     * Sets the text.
+     *
+     * @param text the suggested address to set
+     */
+    public void setText(String text) { this.text = text; }
+    /**
+     * Sets the coordinate.
+     *
+     * @param coordinate the coordinate to set
+     */
+    public void setCoordinate(CoordinateDTO coordinate) { this.coordinate = coordinate; }
+}
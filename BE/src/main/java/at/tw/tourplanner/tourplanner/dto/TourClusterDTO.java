@@ -0,0 +1,78 @@
+package at.tw.tourplanner.tourplanner.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object representing a cluster of tour start points on a map overview.
+ */
+public class TourClusterDTO {
+    private double lon;
+    private double lat;
+    private int count;
+    private List<String> names;
+
+    /**
+     * Constructs a TourClusterDTO with specified centroid, count and representative tours.
+     *
+     * @param lon   the longitude of the centroid
+     * @param lat   the latitude of the centroid
+     * @param count the number of tours in the cluster
+     * @param names the names of representative tours of the cluster
+     */
+    public TourClusterDTO(double lon, double lat, int count, List<String> names) {
+        this.lon = lon;
+        this.lat = lat;
+        this.count = count;
+        this.names = names;
+    }
+
+    /**
+     * Gets the longitude.
+     *
+     * @return the longitude of the centroid
+     */
+    public double getLon() { return lon; }
+    /**
+     * Gets the latitude.
+     *
+     * @return the latitude of the centroid
+     */
+    public double getLat() { return lat; }
+    /**
+     * Gets the count.
+     *
+     * @return the number of tours in the cluster
+     */
+    public int getCount() { return count; }
+    /**
+     * Gets the names.
+     *
+     * @return the names of representative tours
+     */
+    public List<String> getNames() { return names; }
+
+    /**
+     * Sets the longitude.
+     *
+     * @param lon the longitude to set
+     */
+    public void setLon(double lon) { this.lon = lon; }
+    /**
+     * Sets the latitude.
+     *
+     * @param lat the latitude to set
+     */
+    public void setLat(double lat) { this.lat = lat; }
+    /**
+     * Sets the count.
+     *
+     * @param count the count to set
+     */
+    public void setCount(int count) { this.count = count; }
+    /**
+     * Sets the names.
+     *
+     * @param names the names to set
+     */
+    public void setNames(List<String> names) { this.names = names; }
+}
@@ -0,0 +1,107 @@
+package at.tw.tourplanner.tourplanner.dto;
+
+/**
+ * Data Transfer Object representing the start and end point of a tour found by a spatial query.
+ */
+public class TourLocationDTO {
+    private String name;
+    private double fromLon;
+    private double fromLat;
+    private double toLon;
+    private double toLat;
+    private Double distance;
+
+    /**
+     * Constructs a TourLocationDTO with specified name, points and distance.
+     *
+     * @param name     the name of the tour
+     * @param fromLon  the longitude of the start
+     * @param fromLat  the latitude of the start
+     * @param toLon    the longitude of the end
+     * @param toLat    the latitude of the end
+     * @param distance the distance of the closest matching point to the queried coordinate in meters, or null
+     *                 for bounding box queries
+     */
+    public TourLocationDTO(String name, double fromLon, double fromLat, double toLon, double toLat, Double distance) {
+        this.name = name;
+        this.fromLon = fromLon;
+        this.fromLat = fromLat;
+        this.toLon = toLon;
+        this.toLat = toLat;
+        this.distance = distance;
+    }
+
+    /**
+     * Gets the name.
+     *
+     * @return the name of the tour
+     */
+    public String getName() { return name; }
+    /**
+     * Gets the start longitude.
+     *
+     * @return the longitude of the start
+     */
+    public double getFromLon() { return fromLon; }
+    /**
+     * Gets the start latitude.
+     *
+     * @return the latitude of the start
+     */
+    public double getFromLat() { return fromLat; }
+    /**
+     * Gets the end longitude.
+     *
+     * @return the longitude of the end
+     */
+    public double getToLon() { return toLon; }
+    /**
+     * Gets the end latitude.
+     *
+     * @return the latitude of the end
+     */
+    public double getToLat() { return toLat; }
+    /**
+     * Gets the distance.
+     *
+     * @return the distance in meters, or null for bounding box queries
+     */
+    public Double getDistance() { return distance; }
+
+    /**
+     * Sets the name.
+     *
+     * @param name the name to set
+     */
+    public void setName(String name) { this.name = name; }
+    /**
+     * Sets the start longitude.
+     *
+     * @param fromLon the longitude to set
+     */
+    public void setFromLon(double fromLon) { this.fromLon = fromLon; }
+    /**
+     * Sets the start latitude.
+     *
+     * @param fromLat the latitude to set
+     */
+    public void setFromLat(double fromLat) { this.fromLat = fromLat; }
+    /**
+     * Sets the end longitude.
+     *
+     * @param toLon the longitude to set
+     */
+    public void setToLon(double toLon) { this.toLon = toLon; }
+    /**
+     * Sets the end latitude.
+     *
+     * @param toLat the latitude to set
+     */
+    public void setToLat(double toLat) { this.toLat = toLat; }
+    /**
+     * Sets the distance.
+     *
+     * @param distance the distance to set
+     */
+    public void setDistance(Double distance) { this.distance = distance; }
+}
@@ -0,0 +1,37 @@
+package at.tw.tourplanner.tourplanner.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object representing a route request through an ordered list of waypoints.
+ */
+public class WaypointRouteRequestDTO {
+    private List<CoordinateDTO> coordinates;
+    private String mode = "car";
+
+    /**
+     * Gets the coordinates.
+     *
+     * @return the ordered waypoints, including start and end
+     */
+    public List<CoordinateDTO> getCoordinates() { return coordinates; }
+    /**
+     * Gets the transport mode.
+     *
+     * @return the transport mode (car, bicycle, walk, etc.)
+     */
+    public String getMode() { return mode; }
+
+    /**
+     * Sets the coordinates.
+     *
+     * @param coordinates the ordered waypoints to set
+     */
+    public void setCoordinates(List<CoordinateDTO> coordinates) { this.coordinates = coordinates; }
+    /**
+     * Sets the transport mode.
+     *
+     * @param mode the transport mode to set
+     */
+    public void setMode(String mode) { this.mode = mode; }
+}
@@ -0,0 +1,64 @@
+package at.tw.tourplanner.tourplanner.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object representing the result of a route query through several waypoints.
+ * Contains the total distance and duration as well as one summary per leg.
+ */
+public class WaypointRouteResultDTO {
+    private double distance; // in meters
+    private double duration; // in seconds
+    private List<RouteResultDTO> legs;
+
+    /**
+     * Constructs a WaypointRouteResultDTO with specified totals and legs.
+     *
+     * @param distance the total distance in meters
+     * @param duration the total duration in seconds
+     * @param legs     the summary of each leg between consecutive waypoints
+     */
+    public WaypointRouteResultDTO(double distance, double duration, List<RouteResultDTO> legs) {
+        this.distance = distance;
+        this.duration = duration;
+        this.legs = legs;
+    }
+
+    /**
+     * Gets the distance.
+     *
+     * @return the total distance in meters
+     */
+    public double getDistance() { return distance; }
+    /**
+     * Gets the duration.
+     *
+     * @return the total duration in seconds
+     */
+    public double getDuration() { return duration; }
+    /**
+     * Gets the legs.
+     *
+     * @return the summary of each leg between consecutive waypoints
+     */
+    public List<RouteResultDTO> getLegs() { return legs; }
+
+    /**
+     * Sets the distance.
+     *
+     * @param distance the distance in meters to set
+     */
+    public void setDistance(double distance) { this.distance = distance; }
+    /**
+     * Sets the duration.
+     *
+     * @param duration the duration in seconds to set
+     */
+    public void setDuration(double duration) { this.duration = duration; }
+    /**
+     * Sets the legs.
+     *
+     * @param legs the leg summaries to set
+     */
+    public void setLegs(List<RouteResultDTO> legs) { this.legs = legs; }
+}
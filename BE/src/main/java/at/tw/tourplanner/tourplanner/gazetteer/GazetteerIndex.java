@@ -0,0 +1,332 @@
+package at.tw.tourplanner.tourplanner.gazetteer;
+
+import at.tw.tourplanner.tourplanner.util.AddressNormalizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Immutable in-memory index of a place-name gazetteer.
+ * Normalized names are stored UTF-8 encoded, sorted and concatenated in a single byte array, so a lookup
+ * is a binary search without per-name objects; since UTF-8 preserves code point order, all names starting
+ * with a prefix form one contiguous range. Places are kept in primitive arrays and referenced by index.
+ * <p>
+ * The gazetteer file has one place per line: {@code name, lat, lon[, population[, alternate names]]},
+ * separated by tabs for {@code .tsv} files and by commas otherwise. Alternate names are separated by
+ * {@code |}. Fields may be enclosed in double quotes, and lines starting with {@code #} as well as a
+ * header line are skipped.
+ */
+public final class GazetteerIndex {
+
+    /** A name is ambiguous unless its most populous place has this many times the population of the next one. */
+    private static final int DOMINANCE_FACTOR = 10;
+
+    private static final GazetteerIndex EMPTY = new GazetteerIndex(new byte[0], new int[1], new int[0],
+            new String[0], new double[0], new double[0], new long[0], new BitSet());
+
+    private final byte[] names;
+    private final int[] nameOffsets;
+    private final int[] namePlaces;
+    private final String[] placeNames;
+    private final double[] lons;
+    private final double[] lats;
+    private final long[] populations;
+    private final BitSet ambiguous;
+
+    private GazetteerIndex(byte[] names, int[] nameOffsets, int[] namePlaces, String[] placeNames,
+                           double[] lons, double[] lats, long[] populations, BitSet ambiguous) {
+        this.names = names;
+        this.nameOffsets = nameOffsets;
+        this.namePlaces = namePlaces;
+        this.placeNames = placeNames;
+        this.lons = lons;
+        this.lats = lats;
+        this.populations = populations;
+        this.ambiguous = ambiguous;
+    }
+
+    /**
+     * Returns an index without places.
+     *
+     * @return the empty index
+     */
+    public static GazetteerIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Loads a gazetteer file.
+     *
+     * @param file the CSV or TSV gazetteer file
+     * @return the index
+     * @throws IOException if the file cannot be read or contains an invalid line
+     */
+    public static GazetteerIndex load(Path file) throws IOException {
+        char delimiter = file.getFileName().toString().toLowerCase().endsWith(".tsv") ? '\t' : ',';
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(reader, delimiter);
+        }
+    }
+
+    /**
+     * Reads gazetteer lines and builds the index.
+     *
+     * @param reader    the gazetteer content
+     * @param delimiter the field delimiter
+     * @return the index
+     * @throws IOException if the content cannot be read or contains an invalid line
+     */
+    public static GazetteerIndex read(Reader reader, char delimiter) throws IOException {
+        List<String> placeNames = new ArrayList<>();
+        List<double[]> coordinates = new ArrayList<>();
+        List<Long> populations = new ArrayList<>();
+        List<Entry> entries = new ArrayList<>();
+
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) continue;
+            List<String> fields = split(line, delimiter);
+            if (fields.size() < 3) throw new IOException("Line " + lineNumber + ": expected name, lat and lon");
+            double lat;
+            double lon;
+            try {
+                lat = Double.parseDouble(fields.get(1).trim());
+                lon = Double.parseDouble(fields.get(2).trim());
+            } catch (NumberFormatException e) {
+                if (placeNames.isEmpty() && lineNumber == 1) continue; // header
+                throw new IOException("Line " + lineNumber + ": invalid coordinate", e);
+            }
+            long population;
+            try {
+                population = fields.size() > 3 && !fields.get(3).isBlank() ? Long.parseLong(fields.get(3).trim()) : 0;
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + lineNumber + ": invalid population", e);
+            }
+
+            int place = placeNames.size();
+            placeNames.add(fields.get(0).trim());
+            coordinates.add(new double[]{lon, lat});
+            populations.add(population);
+            addEntry(entries, fields.get(0), place, population);
+            if (fields.size() > 4) {
+                for (String alternate : fields.get(4).split("\\|")) addEntry(entries, alternate, place, population);
+            }
+        }
+        return build(entries, placeNames, coordinates, populations);
+    }
+
+    private static void addEntry(List<Entry> entries, String name, int place, long population) {
+        String normalized = AddressNormalizer.normalize(name);
+        if (!normalized.isEmpty()) entries.add(new Entry(normalized.getBytes(StandardCharsets.UTF_8), place, population));
+    }
+
+    private static GazetteerIndex build(List<Entry> entries, List<String> placeNames, List<double[]> coordinates, List<Long> populations) {
+        // sort by name, most populous place first; drop repeated name/place pairs
+        entries.sort((a, b) -> {
+            int byName = Arrays.compareUnsigned(a.name, b.name);
+            if (byName != 0) return byName;
+            int byPopulation = Long.compare(b.population, a.population);
+            return byPopulation != 0 ? byPopulation : Integer.compare(a.place, b.place);
+        });
+        List<Entry> distinct = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            Entry last = distinct.isEmpty() ? null : distinct.get(distinct.size() - 1);
+            if (last == null || last.place != entry.place || !Arrays.equals(last.name, entry.name)) distinct.add(entry);
+        }
+
+        int totalBytes = 0;
+        for (Entry entry : distinct) totalBytes += entry.name.length;
+        byte[] names = new byte[totalBytes];
+        int[] nameOffsets = new int[distinct.size() + 1];
+        int[] namePlaces = new int[distinct.size()];
+        BitSet ambiguous = new BitSet();
+        int offset = 0;
+        for (int i = 0; i < distinct.size(); i++) {
+            Entry entry = distinct.get(i);
+            System.arraycopy(entry.name, 0, names, offset, entry.name.length);
+            nameOffsets[i] = offset;
+            namePlaces[i] = entry.place;
+            offset += entry.name.length;
+            boolean firstOfName = i == 0 || !Arrays.equals(distinct.get(i - 1).name, entry.name);
+            boolean hasRival = i + 1 < distinct.size() && Arrays.equals(distinct.get(i + 1).name, entry.name);
+            if (firstOfName && hasRival && entry.population < DOMINANCE_FACTOR * distinct.get(i + 1).population) {
+                ambiguous.set(i);
+            }
+        }
+        nameOffsets[distinct.size()] = offset;
+
+        double[] lons = new double[placeNames.size()];
+        double[] lats = new double[placeNames.size()];
+        long[] places = new long[placeNames.size()];
+        for (int i = 0; i < placeNames.size(); i++) {
+            lons[i] = coordinates.get(i)[0];
+            lats[i] = coordinates.get(i)[1];
+            places[i] = populations.get(i);
+        }
+        return new GazetteerIndex(names, nameOffsets, namePlaces, placeNames.toArray(String[]::new), lons, lats, places, ambiguous);
+    }
+
+    /**
+     * Finds the place a normalized name confidently refers to. If several places share the name,
+     * the most populous one is returned only if it clearly dominates the others.
+     *
+     * @param normalizedName the name normalized with {@link AddressNormalizer}
+     * @return the place index, or -1 if the name is unknown or ambiguous
+     */
+    public int find(String normalizedName) {
+        byte[] key = normalizedName.getBytes(StandardCharsets.UTF_8);
+        int entry = lowerBound(key, false);
+        if (entry >= entryCount() || compare(entry, key, false) != 0 || ambiguous.get(entry)) return -1;
+        return namePlaces[entry];
+    }
+
+    /**
+     * Returns the range of entries whose normalized name starts with a prefix.
+     * Entries are sorted by name, and entries with the same name by descending population.
+     *
+     * @param normalizedPrefix the prefix normalized with {@link AddressNormalizer}
+     * @return the first entry and the end of the range (exclusive)
+     */
+    public int[] prefixRange(String normalizedPrefix) {
+        byte[] key = normalizedPrefix.getBytes(StandardCharsets.UTF_8);
+        return new int[]{lowerBound(key, false), lowerBound(key, true)};
+    }
+
+    /**
+     * Gets the number of name entries, including alternate names.
+     *
+     * @return the entry count
+     */
+    public int entryCount() {
+        return namePlaces.length;
+    }
+
+    /**
+     * Gets the place a name entry refers to.
+     *
+     * @param entry the entry index
+     * @return the place index
+     */
+    public int entryPlace(int entry) {
+        return namePlaces[entry];
+    }
+
+    /**
+     * Gets the number of places.
+     *
+     * @return the place count
+     */
+    public int size() {
+        return placeNames.length;
+    }
+
+    /**
+     * Gets the display name of a place.
+     *
+     * @param place the place index
+     * @return the name as given in the gazetteer file
+     */
+    public String name(int place) {
+        return placeNames[place];
+    }
+
+    /**
+     * Gets the longitude of a place.
+     *
+     * @param place the place index
+     * @return the longitude in degrees
+     */
+    public double lon(int place) {
+        return lons[place];
+    }
+
+    /**
+     * Gets the latitude of a place.
+     *
+     * @param place the place index
+     * @return the latitude in degrees
+     */
+    public double lat(int place) {
+        return lats[place];
+    }
+
+    /**
+     * Gets the population of a place.
+     *
+     * @param place the place index
+     * @return the population, or 0 if unknown
+     */
+    public long population(int place) {
+        return populations[place];
+    }
+
+    /**
+     * Returns the first entry not less than the key, or with {@code prefixEnd} the first entry
+     * that neither is less than nor starts with the key.
+     */
+    private int lowerBound(byte[] key, boolean prefixEnd) {
+        int low = 0;
+        int high = entryCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(mid, key, prefixEnd);
+            if (cmp < 0 || (prefixEnd && cmp == 0)) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Compares an entry's name with a key. With {@code prefixOnly}, names starting with the key compare equal.
+     */
+    private int compare(int entry, byte[] key, boolean prefixOnly) {
+        int from = nameOffsets[entry];
+        int length = nameOffsets[entry + 1] - from;
+        int compared = prefixOnly ? Math.min(length, key.length) : length;
+        int cmp = Arrays.compareUnsigned(names, from, from + compared, key, 0, prefixOnly ? compared : key.length);
+        if (cmp != 0 || !prefixOnly) return cmp;
+        return length < key.length ? -1 : 0;
+    }
+
+    private static List<String> split(String line, char delimiter) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private record Entry(byte[] name, int place, long population) {
+    }
+}
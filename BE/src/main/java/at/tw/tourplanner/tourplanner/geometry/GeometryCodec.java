@@ -0,0 +1,222 @@
+package at.tw.tourplanner.tourplanner.geometry;
+
+import at.tw.tourplanner.tourplanner.util.GeometryUtils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Compact binary encoding of line geometries.
+ * Coordinates are quantized to a fixed number of decimals and stored as differences to the previous point,
+ * zigzag-mapped to unsigned values and written as variable-length integers (7 bits per byte). Consecutive
+ * route points are close to each other, so most differences fit into one or two bytes, compared to about
+ * twenty bytes per coordinate pair in GeoJSON text.
+ * <p>
+ * Layout: format version (1 byte), precision (1 byte), point count (varint), then the longitude and latitude
+ * differences of every point (varints). The encoding is deterministic, so equal lines have equal bytes and
+ * can be deduplicated by {@link #hash(byte[])}.
+ */
+public final class GeometryCodec {
+
+    /** Number of decimals stored by default, about ten centimeters. */
+    public static final int DEFAULT_PRECISION = 6;
+
+    private static final int VERSION = 1;
+    private static final int MAX_PRECISION = 9;
+    private static final long[] POWERS_OF_TEN = new long[MAX_PRECISION + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_PRECISION; i++) POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    private GeometryCodec() {
+    }
+
+    /**
+     * Encodes a line.
+     *
+     * @param coordinates the interleaved coordinates of the line
+     * @param precision   the number of decimals to keep (0 to 9)
+     * @return the encoded line
+     */
+    public static byte[] encode(double[] coordinates, int precision) {
+        if (precision < 0 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be between 0 and " + MAX_PRECISION);
+        }
+        double factor = POWERS_OF_TEN[precision];
+        int points = coordinates.length / 2;
+        // worst case: 10 bytes per varint
+        byte[] buffer = new byte[2 + 5 + coordinates.length * 10];
+        buffer[0] = VERSION;
+        buffer[1] = (byte) precision;
+        int position = writeVarint(buffer, 2, points);
+        long previousLon = 0;
+        long previousLat = 0;
+        for (int i = 0; i < coordinates.length; i += 2) {
+            long lon = Math.round(coordinates[i] * factor);
+            long lat = Math.round(coordinates[i + 1] * factor);
+            position = writeVarint(buffer, position, zigzag(lon - previousLon));
+            position = writeVarint(buffer, position, zigzag(lat - previousLat));
+            previousLon = lon;
+            previousLat = lat;
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * Decodes a line.
+     *
+     * @param data the encoded line
+     * @return the interleaved coordinates of the line
+     */
+    public static double[] decode(byte[] data) {
+        Reader reader = new Reader(data);
+        double factor = POWERS_OF_TEN[reader.precision];
+        double[] coordinates = new double[reader.points * 2];
+        for (int i = 0; i < coordinates.length; i += 2) {
+            reader.next();
+            coordinates[i] = reader.lon / factor;
+            coordinates[i + 1] = reader.lat / factor;
+        }
+        return coordinates;
+    }
+
+    /**
+     * Gets the number of points of an encoded line without decoding it.
+     *
+     * @param data the encoded line
+     * @return the point count
+     */
+    public static int pointCount(byte[] data) {
+        return new Reader(data).points;
+    }
+
+    /**
+     * Renders an encoded line as a GeoJSON LineString geometry. The coordinates are written from the
+     * quantized integers, with at most as many decimals as were stored.
+     *
+     * @param data the encoded line
+     * @return the GeoJSON geometry object
+     */
+    public static String toGeoJson(byte[] data) {
+        Reader reader = new Reader(data);
+        StringBuilder json = new StringBuilder(40 + reader.points * (2 * reader.precision + 12));
+        json.append("{\"type\":\"LineString\",\"coordinates\":[");
+        for (int i = 0; i < reader.points; i++) {
+            reader.next();
+            if (i > 0) json.append(',');
+            json.append('[');
+            appendFixed(json, reader.lon, reader.precision);
+            json.append(',');
+            appendFixed(json, reader.lat, reader.precision);
+            json.append(']');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Renders an encoded line in the Encoded Polyline Algorithm Format.
+     *
+     * @param data      the encoded line
+     * @param precision the number of decimals of the polyline
+     * @return the encoded polyline
+     */
+    public static String toPolyline(byte[] data, int precision) {
+        return GeometryUtils.encodePolyline(decode(data), precision);
+    }
+
+    /**
+     * Computes the content hash identifying an encoded line.
+     *
+     * @param data the encoded line
+     * @return the SHA-256 digest as 64 lowercase hex digits
+     */
+    public static String hash(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int writeVarint(byte[] buffer, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * Appends a fixed-point value without going through floating point, dropping trailing zeros.
+     */
+    private static void appendFixed(StringBuilder out, long value, int precision) {
+        if (value < 0) {
+            out.append('-');
+            value = -value;
+        }
+        long scale = POWERS_OF_TEN[precision];
+        out.append(value / scale);
+        long fraction = value % scale;
+        if (fraction == 0) return;
+        int digits = precision;
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            digits--;
+        }
+        out.append('.');
+        String text = Long.toString(fraction);
+        for (int i = text.length(); i < digits; i++) out.append('0');
+        out.append(text);
+    }
+
+    /**
+     * Sequential reader of the quantized points of an encoded line.
+     */
+    private static final class Reader {
+        final byte[] data;
+        final int precision;
+        final int points;
+        int position;
+        long lon;
+        long lat;
+
+        Reader(byte[] data) {
+            if (data.length < 3 || data[0] != VERSION) throw new IllegalArgumentException("Unsupported geometry encoding");
+            this.data = data;
+            this.precision = data[1];
+            if (precision < 0 || precision > MAX_PRECISION) throw new IllegalArgumentException("Invalid geometry precision");
+            this.position = 2;
+            this.points = (int) readVarint();
+        }
+
+        void next() {
+            lon += unzigzag(readVarint());
+            lat += unzigzag(readVarint());
+        }
+
+        private long readVarint() {
+            long value = 0;
+            int shift = 0;
+            while (true) {
+                if (position >= data.length) throw new IllegalArgumentException("Truncated geometry");
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return value;
+                shift += 7;
+            }
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
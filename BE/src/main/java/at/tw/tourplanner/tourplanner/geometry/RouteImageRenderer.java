@@ -0,0 +1,168 @@
+package at.tw.tourplanner.tourplanner.geometry;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Java2D renderer of route images. The route is fitted into the image in Web Mercator with a margin and
+ * drawn with a casing over a plain background or, where available, over raster basemap tiles of the zoom
+ * level closest to the image scale. Start and end are marked with green and red dots.
+ */
+public final class RouteImageRenderer {
+
+    private static final int TILE_SIZE = 256;
+    private static final int MAX_ZOOM = 18;
+    private static final Color BACKGROUND = new Color(0xF2EFE9);
+    private static final Color CASING = Color.WHITE;
+    private static final Color ROUTE = new Color(0x1E64C8);
+    private static final Color START = new Color(0x2E9E48);
+    private static final Color END = new Color(0xD03A2F);
+
+    private RouteImageRenderer() {
+    }
+
+    /**
+     * Source of raster basemap tiles.
+     */
+    @FunctionalInterface
+    public interface TileSource {
+
+        /**
+         * Gets a basemap tile.
+         *
+         * @param z the zoom level
+         * @param x the tile column
+         * @param y the tile row
+         * @return the tile image, or null if it is not available
+         */
+        BufferedImage tile(int z, int x, int y);
+    }
+
+    /**
+     * Renders a route as PNG.
+     *
+     * @param coordinates the interleaved coordinates of the route, at least one point
+     * @param width       the image width in pixels
+     * @param height      the image height in pixels
+     * @param basemap     the source of basemap tiles, or null for a plain background
+     * @return the PNG encoded image
+     */
+    public static byte[] renderPng(double[] coordinates, int width, int height, TileSource basemap) {
+        BufferedImage image = render(coordinates, width, height, basemap);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Renders a route.
+     *
+     * @param coordinates the interleaved coordinates of the route, at least one point
+     * @param width       the image width in pixels
+     * @param height      the image height in pixels
+     * @param basemap     the source of basemap tiles, or null for a plain background
+     * @return the image
+     */
+    public static BufferedImage render(double[] coordinates, int width, int height, TileSource basemap) {
+        int points = coordinates.length / 2;
+        if (points == 0) throw new IllegalArgumentException("Route without points");
+        double[] projected = new double[coordinates.length];
+        double minX = 1, minY = 1, maxX = 0, maxY = 0;
+        for (int i = 0; i < coordinates.length; i += 2) {
+            projected[i] = WebMercator.x(coordinates[i]);
+            projected[i + 1] = WebMercator.y(coordinates[i + 1]);
+            minX = Math.min(minX, projected[i]);
+            maxX = Math.max(maxX, projected[i]);
+            minY = Math.min(minY, projected[i + 1]);
+            maxY = Math.max(maxY, projected[i + 1]);
+        }
+
+        // pixels per normalized map unit, with a margin of a tenth of the smaller side
+        double margin = Math.min(width, height) / 10.0;
+        double scale = Math.min((width - 2 * margin) / Math.max(maxX - minX, 1e-12),
+                (height - 2 * margin) / Math.max(maxY - minY, 1e-12));
+        scale = Math.min(scale, (double) TILE_SIZE * (1L << MAX_ZOOM));
+        double originX = (minX + maxX) / 2 - width / 2.0 / scale;
+        double originY = (minY + maxY) / 2 - height / 2.0 / scale;
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setColor(BACKGROUND);
+            g.fillRect(0, 0, width, height);
+            if (basemap != null) drawBasemap(g, basemap, scale, originX, originY, width, height);
+
+            Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO, points);
+            for (int i = 0; i < projected.length; i += 2) {
+                double px = (projected[i] - originX) * scale;
+                double py = (projected[i + 1] - originY) * scale;
+                if (i == 0) path.moveTo(px, py);
+                else path.lineTo(px, py);
+            }
+            float lineWidth = Math.max(2f, Math.min(width, height) / 90f);
+            g.setColor(CASING);
+            g.setStroke(new BasicStroke(lineWidth + 2.5f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            g.draw(path);
+            g.setColor(ROUTE);
+            g.setStroke(new BasicStroke(lineWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            g.draw(path);
+
+            double radius = lineWidth * 1.6;
+            drawMarker(g, (projected[0] - originX) * scale, (projected[1] - originY) * scale, radius, START);
+            drawMarker(g, (projected[projected.length - 2] - originX) * scale,
+                    (projected[projected.length - 1] - originY) * scale, radius, END);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Draws the basemap tiles covering the image, scaled from the zoom level just below the image scale.
+     */
+    private static void drawBasemap(Graphics2D g, TileSource basemap, double scale, double originX, double originY,
+                                    int width, int height) {
+        int zoom = (int) Math.max(0, Math.min(MAX_ZOOM, Math.floor(Math.log(scale / TILE_SIZE) / Math.log(2))));
+        long tiles = 1L << zoom;
+        double tileSize = scale / tiles;
+        long minColumn = (long) Math.floor(originX * tiles);
+        long maxColumn = (long) Math.floor((originX + width / scale) * tiles);
+        long minRow = Math.max(0, (long) Math.floor(originY * tiles));
+        long maxRow = Math.min(tiles - 1, (long) Math.floor((originY + height / scale) * tiles));
+        for (long column = minColumn; column <= maxColumn; column++) {
+            for (long row = minRow; row <= maxRow; row++) {
+                BufferedImage tile = basemap.tile(zoom, (int) Math.floorMod(column, tiles), (int) row);
+                if (tile == null) continue;
+                int left = (int) Math.floor((column / (double) tiles - originX) * scale);
+                int top = (int) Math.floor((row / (double) tiles - originY) * scale);
+                int size = (int) Math.ceil(tileSize) + 1;
+                g.drawImage(tile, left, top, size, size, null);
+            }
+        }
+    }
+
+    private static void drawMarker(Graphics2D g, double x, double y, double radius, Color color) {
+        Ellipse2D.Double dot = new Ellipse2D.Double(x - radius, y - radius, 2 * radius, 2 * radius);
+        g.setColor(color);
+        g.fill(dot);
+        g.setColor(Color.WHITE);
+        g.setStroke(new BasicStroke((float) Math.max(1.5, radius / 3)));
+        g.draw(dot);
+    }
+}
@@ -0,0 +1,106 @@
+package at.tw.tourplanner.tourplanner.geometry;
+
+import at.tw.tourplanner.tourplanner.util.GeometryUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Transformation of route geometries into the integer coordinates of one map tile: lines are projected
+ * to Web Mercator, clipped to the tile plus a buffer, simplified to the tile resolution and rounded.
+ */
+public final class TileGeometry {
+
+    private TileGeometry() {
+    }
+
+    /**
+     * Returns the bounding box of a tile.
+     *
+     * @param z      the zoom level
+     * @param x      the tile column
+     * @param y      the tile row
+     * @param buffer the margin around the tile as a fraction of its size
+     * @return {@code [minLon, minLat, maxLon, maxLat]}
+     */
+    public static double[] bounds(int z, int x, int y, double buffer) {
+        double tiles = 1L << z;
+        return new double[]{
+                WebMercator.lon(Math.max(0, (x - buffer) / tiles)),
+                WebMercator.lat(Math.min(1, (y + 1 + buffer) / tiles)),
+                WebMercator.lon(Math.min(1, (x + 1 + buffer) / tiles)),
+                WebMercator.lat(Math.max(0, (y - buffer) / tiles))
+        };
+    }
+
+    /**
+     * Projects a line into a tile.
+     *
+     * @param coordinates the interleaved longitudes and latitudes of the line
+     * @param z           the zoom level
+     * @param x           the tile column
+     * @param y           the tile row
+     * @param extent      the number of tile coordinate units per tile side
+     * @param buffer      the number of units kept beyond each tile edge
+     * @param tolerance   the simplification tolerance in tile units
+     * @return the parts of the line inside the buffered tile, each as interleaved x/y tile coordinates
+     */
+    public static List<int[]> clip(double[] coordinates, int z, int x, int y, int extent, int buffer, double tolerance) {
+        double scale = (double) (1L << z) * extent;
+        double[] projected = new double[coordinates.length];
+        for (int i = 0; i < coordinates.length; i += 2) {
+            projected[i] = WebMercator.x(coordinates[i]) * scale - (double) x * extent;
+            projected[i + 1] = WebMercator.y(coordinates[i + 1]) * scale - (double) y * extent;
+        }
+
+        List<int[]> parts = new ArrayList<>();
+        double min = -buffer;
+        double max = extent + buffer;
+        double[] part = new double[16];
+        int length = 0;
+        // whether the current part ends at an unclipped point of the line
+        boolean open = false;
+        for (int i = 2; i < projected.length; i += 2) {
+            double[] segment = GeometryUtils.clipSegment(projected[i - 2], projected[i - 1], projected[i], projected[i + 1], min, min, max, max);
+            if (segment == null) {
+                open = false;
+                continue;
+            }
+            boolean continues = open && segment[0] == projected[i - 2] && segment[1] == projected[i - 1];
+            if (!continues) {
+                addPart(parts, part, length, tolerance);
+                length = 0;
+            }
+            if (length + 4 > part.length) part = Arrays.copyOf(part, part.length * 2);
+            if (!continues) {
+                part[length++] = segment[0];
+                part[length++] = segment[1];
+            }
+            part[length++] = segment[2];
+            part[length++] = segment[3];
+            open = segment[2] == projected[i] && segment[3] == projected[i + 1];
+        }
+        addPart(parts, part, length, tolerance);
+        return parts;
+    }
+
+    /**
+     * Simplifies and rounds a clipped part and adds it unless it collapses to a single point.
+     */
+    private static void addPart(List<int[]> parts, double[] part, int length, double tolerance) {
+        if (length < 4) return;
+        double[] line = Arrays.copyOf(part, length);
+        int[] kept = GeometryUtils.simplify(line, tolerance);
+        int[] rounded = new int[kept.length * 2];
+        int count = 0;
+        for (int index : kept) {
+            int px = (int) Math.round(line[2 * index]);
+            int py = (int) Math.round(line[2 * index + 1]);
+            if (count > 0 && rounded[count - 2] == px && rounded[count - 1] == py) continue;
+            rounded[count++] = px;
+            rounded[count++] = py;
+        }
+        if (count >= 4) parts.add(Arrays.copyOf(rounded, count));
+    }
+}
@@ -0,0 +1,229 @@
+package at.tw.tourplanner.tourplanner.geometry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Mutable in-memory cluster hierarchy over the start points of tours, for map overviews.
+ * Points are projected to Web Mercator and counted in a grid of 64 pixel cells per zoom level, so every
+ * 256 pixel map tile holds 4 x 4 cells and each cell is split into four cells on the next level. A cell
+ * keeps the count and the coordinate sums of its points, which makes writes cost one update per level and
+ * a query one lookup per visible cluster. Tour names are only kept on the deepest level; the representative
+ * tours of a cluster are taken from its most populated descendants. Reads run concurrently, writes
+ * exclusively.
+ */
+public final class TourClusterIndex {
+
+    /** Cells per tile axis at every zoom level, as a power of two (64 pixel cells on 256 pixel tiles). */
+    private static final int CELL_BITS_PER_TILE = 2;
+
+    private final int maxZoom;
+    private final List<Map<Long, Cell>> levels = new ArrayList<>();
+    private final Map<Long, List<String>> leafNames = new HashMap<>();
+    private final Map<String, double[]> positions = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Constructs an empty index.
+     *
+     * @param maxZoom the deepest zoom level with its own clusters; deeper queries are answered from it
+     */
+    public TourClusterIndex(int maxZoom) {
+        if (maxZoom < 0 || maxZoom > 24) throw new IllegalArgumentException("Max zoom must be between 0 and 24");
+        this.maxZoom = maxZoom;
+        for (int z = 0; z <= maxZoom; z++) levels.add(new HashMap<>());
+    }
+
+    /**
+     * Adds a tour or moves it to a new start point.
+     *
+     * @param name the name of the tour
+     * @param lon  the longitude of the start
+     * @param lat  the latitude of the start
+     */
+    public void put(String name, double lon, double lat) {
+        double x = WebMercator.x(lon);
+        double y = WebMercator.y(lat);
+        lock.writeLock().lock();
+        try {
+            removeLocked(name);
+            positions.put(name, new double[]{x, y});
+            for (int z = 0; z <= maxZoom; z++) {
+                Cell cell = levels.get(z).computeIfAbsent(key(cellIndex(x, z), cellIndex(y, z)), k -> new Cell());
+                cell.count++;
+                cell.sumX += x;
+                cell.sumY += y;
+            }
+            leafNames.computeIfAbsent(key(cellIndex(x, maxZoom), cellIndex(y, maxZoom)), k -> new ArrayList<>(2)).add(name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a tour.
+     *
+     * @param name the name of the tour
+     */
+    public void remove(String name) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of indexed tours.
+     *
+     * @return the tour count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return positions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the clusters of a zoom level inside a bounding box. A box with {@code minLon > maxLon}
+     * crosses the antimeridian.
+     *
+     * @param minLon          the western longitude
+     * @param minLat          the southern latitude
+     * @param maxLon          the eastern longitude
+     * @param maxLat          the northern latitude
+     * @param zoom            the map zoom level
+     * @param representatives the maximum number of tour names per cluster
+     * @param limit           the maximum number of clusters
+     * @return up to {@code limit} clusters, largest first
+     */
+    public List<Cluster> clusters(double minLon, double minLat, double maxLon, double maxLat, int zoom,
+                                  int representatives, int limit) {
+        int z = Math.max(0, Math.min(maxZoom, zoom));
+        long minColumn = cellIndex(WebMercator.x(minLon), z);
+        long maxColumn = cellIndex(WebMercator.x(maxLon), z);
+        // the y axis points south
+        long minRow = cellIndex(WebMercator.y(maxLat), z);
+        long maxRow = cellIndex(WebMercator.y(minLat), z);
+        long cellsPerAxis = 1L << (z + CELL_BITS_PER_TILE);
+        boolean wraps = minLon > maxLon;
+        long columnCount = wraps ? cellsPerAxis - minColumn + maxColumn + 1 : maxColumn - minColumn + 1;
+
+        List<Cluster> clusters = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Map<Long, Cell> level = levels.get(z);
+            List<Long> keys = new ArrayList<>();
+            if (columnCount * (maxRow - minRow + 1) > level.size()) {
+                for (Long key : level.keySet()) {
+                    long column = key >>> 32;
+                    long row = key & 0xFFFFFFFFL;
+                    boolean columnInRange = wraps ? column >= minColumn || column <= maxColumn : column >= minColumn && column <= maxColumn;
+                    if (columnInRange && row >= minRow && row <= maxRow) keys.add(key);
+                }
+            } else {
+                for (long i = 0; i < columnCount; i++) {
+                    long column = (minColumn + i) % cellsPerAxis;
+                    for (long row = minRow; row <= maxRow; row++) {
+                        long key = key(column, row);
+                        if (level.containsKey(key)) keys.add(key);
+                    }
+                }
+            }
+            for (Long key : keys) {
+                Cell cell = level.get(key);
+                List<String> names = new ArrayList<>(representatives);
+                collectNames(z, key >>> 32, key & 0xFFFFFFFFL, representatives, names);
+                clusters.add(new Cluster(WebMercator.lon(cell.sumX / cell.count), WebMercator.lat(cell.sumY / cell.count), cell.count, names));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        clusters.sort(Comparator.comparingInt(Cluster::count).reversed());
+        return clusters.size() > limit ? new ArrayList<>(clusters.subList(0, limit)) : clusters;
+    }
+
+    /**
+     * Collects tour names from the most populated descendants of a cell, depth first.
+     */
+    private void collectNames(int z, long column, long row, int limit, List<String> names) {
+        if (names.size() >= limit) return;
+        if (z == maxZoom) {
+            List<String> leaf = leafNames.get(key(column, row));
+            if (leaf != null) {
+                for (int i = 0; i < leaf.size() && names.size() < limit; i++) names.add(leaf.get(i));
+            }
+            return;
+        }
+        Map<Long, Cell> next = levels.get(z + 1);
+        List<long[]> children = new ArrayList<>(4);
+        for (long c = column * 2; c <= column * 2 + 1; c++) {
+            for (long r = row * 2; r <= row * 2 + 1; r++) {
+                Cell child = next.get(key(c, r));
+                if (child != null) children.add(new long[]{c, r, child.count});
+            }
+        }
+        children.sort((a, b) -> Long.compare(b[2], a[2]));
+        for (long[] child : children) collectNames(z + 1, child[0], child[1], limit, names);
+    }
+
+    private void removeLocked(String name) {
+        double[] position = positions.remove(name);
+        if (position == null) return;
+        double x = position[0];
+        double y = position[1];
+        for (int z = 0; z <= maxZoom; z++) {
+            long key = key(cellIndex(x, z), cellIndex(y, z));
+            Cell cell = levels.get(z).get(key);
+            if (cell == null) continue;
+            cell.count--;
+            cell.sumX -= x;
+            cell.sumY -= y;
+            if (cell.count == 0) levels.get(z).remove(key);
+        }
+        long leafKey = key(cellIndex(x, maxZoom), cellIndex(y, maxZoom));
+        List<String> leaf = leafNames.get(leafKey);
+        if (leaf != null) {
+            leaf.remove(name);
+            if (leaf.isEmpty()) leafNames.remove(leafKey);
+        }
+    }
+
+    private static long cellIndex(double value, int zoom) {
+        long cells = 1L << (zoom + CELL_BITS_PER_TILE);
+        return Math.max(0, Math.min(cells - 1, (long) Math.floor(value * cells)));
+    }
+
+    private static long key(long column, long row) {
+        return (column << 32) | row;
+    }
+
+    /**
+     * Count and coordinate sums of the points in one cell.
+     */
+    private static final class Cell {
+        int count;
+        double sumX;
+        double sumY;
+    }
+
+    /**
+     * A cluster of tours.
+     *
+     * @param lon   the longitude of the centroid of the start points
+     * @param lat   the latitude of the centroid of the start points
+     * @param count the number of tours
+     * @param names the names of up to the requested number of representative tours
+     */
+    public record Cluster(double lon, double lat, int count, List<String> names) {
+    }
+}
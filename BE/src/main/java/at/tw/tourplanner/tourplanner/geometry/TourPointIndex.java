@@ -0,0 +1,294 @@
+package at.tw.tourplanner.tourplanner.geometry;
+
+import at.tw.tourplanner.tourplanner.util.GeometryUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Mutable in-memory index of the start and end points of tours.
+ * Points are bucketed into a uniform grid of square cells (in degrees); a query only visits the cells
+ * overlapping its area, or every occupied cell if that is fewer. Start and end points have separate grids.
+ * Reads run concurrently, writes exclusively.
+ */
+public final class TourPointIndex {
+
+    /** Mean length of one degree of latitude in meters. */
+    private static final double METERS_PER_DEGREE = 111_195;
+
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final Map<String, Entry> tours = new HashMap<>();
+    private final Map<Long, List<Entry>> startCells = new HashMap<>();
+    private final Map<Long, List<Entry>> endCells = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Constructs an empty index.
+     *
+     * @param cellSize the width and height of a grid cell in degrees
+     */
+    public TourPointIndex(double cellSize) {
+        if (!(cellSize > 0 && cellSize <= 90)) throw new IllegalArgumentException("Cell size must be between 0 and 90 degrees");
+        this.cellSize = cellSize;
+        this.columns = (int) Math.ceil(360 / cellSize);
+        this.rows = (int) Math.ceil(180 / cellSize);
+    }
+
+    /**
+     * Adds a tour or replaces its points.
+     *
+     * @param entry the tour's points
+     */
+    public void put(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(entry.name());
+            tours.put(entry.name(), entry);
+            startCells.computeIfAbsent(cellKey(entry.fromLon(), entry.fromLat()), k -> new ArrayList<>(4)).add(entry);
+            endCells.computeIfAbsent(cellKey(entry.toLon(), entry.toLat()), k -> new ArrayList<>(4)).add(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a tour.
+     *
+     * @param name the name of the tour
+     */
+    public void remove(String name) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole content of the index.
+     *
+     * @param entries the points of all tours
+     */
+    public void reset(Iterable<Entry> entries) {
+        lock.writeLock().lock();
+        try {
+            tours.clear();
+            startCells.clear();
+            endCells.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        entries.forEach(this::put);
+    }
+
+    /**
+     * Gets the indexed points of a tour.
+     *
+     * @param name the name of the tour
+     * @return the points, or null if the tour is not indexed
+     */
+    public Entry get(String name) {
+        lock.readLock().lock();
+        try {
+            return tours.get(name);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of indexed tours.
+     *
+     * @return the tour count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return tours.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the tours with a point within a great-circle distance of a coordinate.
+     *
+     * @param lon      the longitude in degrees
+     * @param lat      the latitude in degrees
+     * @param radius   the maximum distance in meters
+     * @param endpoint which points of the tours are matched
+     * @param limit    the maximum number of results
+     * @return the closest matching tours, nearest first
+     */
+    public List<Match> near(double lon, double lat, double radius, Endpoint endpoint, int limit) {
+        double deltaLat = radius / METERS_PER_DEGREE;
+        double cos = Math.cos(Math.toRadians(Math.min(90, Math.abs(lat) + deltaLat)));
+        double deltaLon = cos <= 0 ? 180 : Math.min(180, deltaLat / cos);
+        int minColumn = column(lon - deltaLon);
+        int maxColumn = column(lon + deltaLon);
+        if (deltaLon >= 180) {
+            minColumn = 0;
+            maxColumn = columns - 1;
+        }
+        int minRow = row(lat - deltaLat);
+        int maxRow = row(lat + deltaLat);
+
+        Map<String, Match> matches = new HashMap<>();
+        Consumer<Entry> startVisitor = entry -> offer(matches, entry, GeometryUtils.haversine(lon, lat, entry.fromLon(), entry.fromLat()), radius);
+        Consumer<Entry> endVisitor = entry -> offer(matches, entry, GeometryUtils.haversine(lon, lat, entry.toLon(), entry.toLat()), radius);
+        lock.readLock().lock();
+        try {
+            if (endpoint != Endpoint.END) visit(startCells, minColumn, maxColumn, minRow, maxRow, startVisitor);
+            if (endpoint != Endpoint.START) visit(endCells, minColumn, maxColumn, minRow, maxRow, endVisitor);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches.values().stream()
+                .sorted(Comparator.comparingDouble(Match::distance).thenComparing(match -> match.entry().name()))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Finds the tours with a point inside a bounding box. A box with {@code minLon > maxLon} crosses the
+     * antimeridian.
+     *
+     * @param minLon   the western longitude
+     * @param minLat   the southern latitude
+     * @param maxLon   the eastern longitude
+     * @param maxLat   the northern latitude
+     * @param endpoint which points of the tours are matched
+     * @param limit    the maximum number of results
+     * @return up to {@code limit} matching tours, in no particular order
+     */
+    public List<Entry> within(double minLon, double minLat, double maxLon, double maxLat, Endpoint endpoint, int limit) {
+        Map<String, Entry> matches = new HashMap<>();
+        boolean wraps = minLon > maxLon;
+        Consumer<Entry> startVisitor = entry -> {
+            if (matches.size() < limit && inBox(entry.fromLon(), entry.fromLat(), minLon, minLat, maxLon, maxLat, wraps)) {
+                matches.putIfAbsent(entry.name(), entry);
+            }
+        };
+        Consumer<Entry> endVisitor = entry -> {
+            if (matches.size() < limit && inBox(entry.toLon(), entry.toLat(), minLon, minLat, maxLon, maxLat, wraps)) {
+                matches.putIfAbsent(entry.name(), entry);
+            }
+        };
+        int minRow = row(minLat);
+        int maxRow = row(maxLat);
+        lock.readLock().lock();
+        try {
+            if (endpoint != Endpoint.END) visit(startCells, column(minLon), column(maxLon), minRow, maxRow, startVisitor);
+            if (endpoint != Endpoint.START) visit(endCells, column(minLon), column(maxLon), minRow, maxRow, endVisitor);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new ArrayList<>(matches.values());
+    }
+
+    private void removeLocked(String name) {
+        Entry old = tours.remove(name);
+        if (old == null) return;
+        removeFromCell(startCells, cellKey(old.fromLon(), old.fromLat()), old);
+        removeFromCell(endCells, cellKey(old.toLon(), old.toLat()), old);
+    }
+
+    private static void removeFromCell(Map<Long, List<Entry>> cells, long key, Entry entry) {
+        List<Entry> cell = cells.get(key);
+        if (cell == null) return;
+        cell.remove(entry);
+        if (cell.isEmpty()) cells.remove(key);
+    }
+
+    private static void offer(Map<String, Match> matches, Entry entry, double distance, double radius) {
+        if (distance > radius) return;
+        Match previous = matches.get(entry.name());
+        if (previous == null || distance < previous.distance()) matches.put(entry.name(), new Match(entry, distance));
+    }
+
+    private static boolean inBox(double lon, double lat, double minLon, double minLat, double maxLon, double maxLat, boolean wraps) {
+        if (lat < minLat || lat > maxLat) return false;
+        return wraps ? lon >= minLon || lon <= maxLon : lon >= minLon && lon <= maxLon;
+    }
+
+    /**
+     * Visits the entries of the cells in a column and row range; the column range wraps around the
+     * antimeridian if {@code minColumn > maxColumn}. If the range covers more cells than are occupied,
+     * the occupied cells are filtered instead.
+     */
+    private void visit(Map<Long, List<Entry>> cells, int minColumn, int maxColumn, int minRow, int maxRow, Consumer<Entry> visitor) {
+        long columnCount = minColumn <= maxColumn ? maxColumn - minColumn + 1 : columns - minColumn + maxColumn + 1;
+        long cellCount = columnCount * (maxRow - minRow + 1);
+        if (cellCount > cells.size()) {
+            cells.forEach((key, cell) -> {
+                int column = (int) (key >>> 32);
+                int row = (int) (long) key;
+                boolean columnInRange = minColumn <= maxColumn
+                        ? column >= minColumn && column <= maxColumn
+                        : column >= minColumn || column <= maxColumn;
+                if (columnInRange && row >= minRow && row <= maxRow) cell.forEach(visitor);
+            });
+            return;
+        }
+        for (long i = 0; i < columnCount; i++) {
+            int column = (int) ((minColumn + i) % columns);
+            for (int row = minRow; row <= maxRow; row++) {
+                List<Entry> cell = cells.get(key(column, row));
+                if (cell != null) cell.forEach(visitor);
+            }
+        }
+    }
+
+    private long cellKey(double lon, double lat) {
+        return key(column(lon), row(lat));
+    }
+
+    private static long key(int column, int row) {
+        return ((long) column << 32) | row;
+    }
+
+    private int column(double lon) {
+        return Math.floorMod((int) Math.floor((lon + 180) / cellSize), columns);
+    }
+
+    private int row(double lat) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((Math.max(-90, Math.min(90, lat)) + 90) / cellSize)));
+    }
+
+    /**
+     * Which points of a tour a query matches.
+     */
+    public enum Endpoint {
+        START, END, ANY
+    }
+
+    /**
+     * Indexed points of a tour.
+     *
+     * @param name    the name of the tour
+     * @param fromLon the longitude of the start
+     * @param fromLat the latitude of the start
+     * @param toLon   the longitude of the end
+     * @param toLat   the latitude of the end
+     */
+    public record Entry(String name, double fromLon, double fromLat, double toLon, double toLat) {
+    }
+
+    /**
+     * Result of a distance query.
+     *
+     * @param entry    the matching tour
+     * @param distance the distance of its closest matching point in meters
+     */
+    public record Match(Entry entry, double distance) {
+    }
+}
@@ -0,0 +1,318 @@
+package at.tw.tourplanner.tourplanner.geometry;
+
+import at.tw.tourplanner.tourplanner.util.GeometryUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Mutable in-memory index of the grid cells the route of each tour passes through.
+ * Every segment of a route is traced through a uniform grid of square cells (in degrees), and each cell
+ * holds the ids of the tours passing through it. A query collects the tours of the cells overlapping its
+ * area and only checks their geometries exactly, which the index loads through a function instead of
+ * keeping them in memory. Reads run concurrently, writes exclusively.
+ */
+public final class TourSegmentIndex {
+
+    /** Mean length of one degree of latitude in meters. */
+    private static final double METERS_PER_DEGREE = 111_195;
+
+    private final double cellSize;
+    private final Function<String, double[]> geometries;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<Route> routes = new ArrayList<>();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+    private final Map<Long, int[]> cells = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Constructs an empty index.
+     *
+     * @param cellSize   the width and height of a grid cell in degrees
+     * @param geometries loads the coordinates of a route by its geometry hash, or returns null if it is gone
+     */
+    public TourSegmentIndex(double cellSize, Function<String, double[]> geometries) {
+        if (!(cellSize > 0 && cellSize <= 90)) throw new IllegalArgumentException("Cell size must be between 0 and 90 degrees");
+        this.cellSize = cellSize;
+        this.geometries = geometries;
+    }
+
+    /**
+     * Adds the route of a tour or replaces it.
+     *
+     * @param name         the name of the tour
+     * @param geometryHash the hash of the route geometry, passed to the geometry function on queries
+     * @param coordinates  the interleaved coordinates of the route
+     */
+    public void put(String name, String geometryHash, double[] coordinates) {
+        long[] keys = trace(coordinates);
+        lock.writeLock().lock();
+        try {
+            removeLocked(name);
+            int id = freeIds.isEmpty() ? routes.size() : freeIds.pop();
+            Route route = new Route(name, geometryHash, keys);
+            if (id == routes.size()) routes.add(route);
+            else routes.set(id, route);
+            ids.put(name, id);
+            for (long key : keys) cells.merge(key, new int[]{1, id}, TourSegmentIndex::append);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the route of a tour.
+     *
+     * @param name the name of the tour
+     */
+    public void remove(String name) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of indexed routes.
+     *
+     * @return the route count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the tours whose route passes within a distance of a coordinate.
+     *
+     * @param lon    the longitude in degrees
+     * @param lat    the latitude in degrees
+     * @param radius the maximum distance in meters
+     * @param limit  the maximum number of results
+     * @return the closest matching tours, nearest first
+     */
+    public List<Match> near(double lon, double lat, double radius, int limit) {
+        double deltaLat = radius / METERS_PER_DEGREE;
+        double deltaLon = deltaLat / Math.max(0.01, Math.cos(Math.toRadians(Math.min(90, Math.abs(lat) + deltaLat))));
+        List<Match> matches = new ArrayList<>();
+        for (Route route : candidates(lon - deltaLon, lat - deltaLat, lon + deltaLon, lat + deltaLat)) {
+            double[] coordinates = geometries.apply(route.geometryHash());
+            if (coordinates == null) continue;
+            double distance = GeometryUtils.distanceToLine(coordinates, lon, lat);
+            if (distance <= radius) matches.add(new Match(route.name(), distance));
+        }
+        matches.sort(Comparator.comparingDouble(Match::distance).thenComparing(Match::name));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * Finds the tours whose route crosses a bounding box.
+     *
+     * @param minLon the western longitude
+     * @param minLat the southern latitude
+     * @param maxLon the eastern longitude
+     * @param maxLat the northern latitude
+     * @param limit  the maximum number of results
+     * @return up to {@code limit} names of matching tours, in no particular order
+     */
+    public List<String> crossing(double minLon, double minLat, double maxLon, double maxLat, int limit) {
+        List<String> matches = new ArrayList<>();
+        for (Route route : candidates(minLon, minLat, maxLon, maxLat)) {
+            if (matches.size() >= limit) break;
+            double[] coordinates = geometries.apply(route.geometryHash());
+            if (coordinates != null && GeometryUtils.intersectsBox(coordinates, minLon, minLat, maxLon, maxLat)) {
+                matches.add(route.name());
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the routes passing through any grid cell overlapping a bounding box, from the index alone
+     * without loading geometries. The result includes every route crossing the box, and it only changes
+     * when a route through one of these cells is added, changed or removed, so it can version data derived
+     * from the box before any geometry is loaded.
+     *
+     * @param minLon the western longitude
+     * @param minLat the southern latitude
+     * @param maxLon the eastern longitude
+     * @param maxLat the northern latitude
+     * @return the candidate routes ordered by tour name
+     */
+    public List<IndexedRoute> candidateRoutes(double minLon, double minLat, double maxLon, double maxLat) {
+        List<IndexedRoute> result = new ArrayList<>();
+        for (Route route : candidates(minLon, minLat, maxLon, maxLat)) {
+            result.add(new IndexedRoute(route.name(), route.geometryHash()));
+        }
+        result.sort(Comparator.comparing(IndexedRoute::name));
+        return result;
+    }
+
+    /**
+     * Collects the routes passing through any cell overlapping a box. If the box covers more cells than are
+     * occupied, the occupied cells are filtered instead.
+     */
+    private List<Route> candidates(double minLon, double minLat, double maxLon, double maxLat) {
+        long minColumn = column(minLon);
+        long maxColumn = column(maxLon);
+        long minRow = row(minLat);
+        long maxRow = row(maxLat);
+        BitSet seen = new BitSet();
+        List<Route> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if ((maxColumn - minColumn + 1) * (maxRow - minRow + 1) > cells.size()) {
+                cells.forEach((key, cell) -> {
+                    long column = key >> 32;
+                    long row = (int) (long) key;
+                    if (column >= minColumn && column <= maxColumn && row >= minRow && row <= maxRow) collect(cell, seen, candidates);
+                });
+            } else {
+                for (long column = minColumn; column <= maxColumn; column++) {
+                    for (long row = minRow; row <= maxRow; row++) {
+                        int[] cell = cells.get(key(column, row));
+                        if (cell != null) collect(cell, seen, candidates);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return candidates;
+    }
+
+    private void collect(int[] cell, BitSet seen, List<Route> candidates) {
+        for (int i = 1; i <= cell[0]; i++) {
+            int id = cell[i];
+            if (!seen.get(id)) {
+                seen.set(id);
+                candidates.add(routes.get(id));
+            }
+        }
+    }
+
+    private void removeLocked(String name) {
+        Integer id = ids.remove(name);
+        if (id == null) return;
+        for (long key : routes.get(id).cellKeys()) {
+            int[] cell = cells.get(key);
+            if (cell == null) continue;
+            for (int i = 1; i <= cell[0]; i++) {
+                if (cell[i] == id) {
+                    cell[i] = cell[cell[0]];
+                    cell[0]--;
+                    break;
+                }
+            }
+            if (cell[0] == 0) cells.remove(key);
+        }
+        routes.set(id, null);
+        freeIds.push(id);
+    }
+
+    /**
+     * Appends the id of a size-prefixed cell array {@code [size, id...]}, growing it if necessary.
+     */
+    private static int[] append(int[] cell, int[] added) {
+        int size = cell[0];
+        if (size + 1 == cell.length) cell = Arrays.copyOf(cell, cell.length * 2);
+        cell[size + 1] = added[1];
+        cell[0] = size + 1;
+        return cell;
+    }
+
+    /**
+     * Returns the distinct cells the segments of a line pass through, walking each segment cell by cell
+     * (Amanatides and Woo).
+     */
+    private long[] trace(double[] coordinates) {
+        Set<Long> keys = new HashSet<>();
+        for (int i = 0; i < coordinates.length; i += 2) {
+            double x1 = (coordinates[i] + 180) / cellSize;
+            double y1 = (coordinates[i + 1] + 90) / cellSize;
+            long column = (long) Math.floor(x1);
+            long row = (long) Math.floor(y1);
+            keys.add(key(column, row));
+            if (i + 3 >= coordinates.length) break;
+
+            double x2 = (coordinates[i + 2] + 180) / cellSize;
+            double y2 = (coordinates[i + 3] + 90) / cellSize;
+            long endColumn = (long) Math.floor(x2);
+            long endRow = (long) Math.floor(y2);
+            double dx = x2 - x1;
+            double dy = y2 - y1;
+            int stepX = dx > 0 ? 1 : -1;
+            int stepY = dy > 0 ? 1 : -1;
+            double deltaX = dx == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dx);
+            double deltaY = dy == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dy);
+            double nextX = dx == 0 ? Double.POSITIVE_INFINITY : (dx > 0 ? column + 1 - x1 : x1 - column) * deltaX;
+            double nextY = dy == 0 ? Double.POSITIVE_INFINITY : (dy > 0 ? row + 1 - y1 : y1 - row) * deltaY;
+            long steps = Math.abs(endColumn - column) + Math.abs(endRow - row);
+            for (long s = 0; s < steps; s++) {
+                if (nextX < nextY) {
+                    column += stepX;
+                    nextX += deltaX;
+                } else {
+                    row += stepY;
+                    nextY += deltaY;
+                }
+                keys.add(key(column, row));
+            }
+        }
+        return keys.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long key(long column, long row) {
+        return (column << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    private long column(double lon) {
+        return (long) Math.floor((Math.max(-180, Math.min(180, lon)) + 180) / cellSize);
+    }
+
+    private long row(double lat) {
+        return (long) Math.floor((Math.max(-90, Math.min(90, lat)) + 90) / cellSize);
+    }
+
+    /**
+     * Indexed route of a tour.
+     */
+    private record Route(String name, String geometryHash, long[] cellKeys) {
+    }
+
+    /**
+     * Route found in the cells of a bounding box.
+     *
+     * @param name         the name of the tour
+     * @param geometryHash the hash of its route geometry
+     */
+    public record IndexedRoute(String name, String geometryHash) {
+    }
+
+    /**
+     * Result of a distance query.
+     *
+     * @param name     the name of the matching tour
+     * @param distance the distance between its route and the queried coordinate in meters
+     */
+    public record Match(String name, double distance) {
+    }
+}
@@ -0,0 +1,152 @@
+package at.tw.tourplanner.tourplanner.geometry;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encoder of single-layer Mapbox Vector Tiles (version 2.1) with line features.
+ * The protocol buffer messages are written by hand: a tile holds one layer, the layer holds the features
+ * and the deduplicated property keys and values, and each feature holds its geometry as MoveTo/LineTo
+ * commands with zigzag-encoded deltas in tile coordinates.
+ */
+public final class VectorTileEncoder {
+
+    private static final int GEOMETRY_LINESTRING = 2;
+    private static final int COMMAND_MOVE_TO = 1;
+    private static final int COMMAND_LINE_TO = 2;
+
+    private final String layerName;
+    private final int extent;
+    private final Map<String, Integer> keys = new LinkedHashMap<>();
+    private final Map<Object, Integer> values = new LinkedHashMap<>();
+    private final List<byte[]> features = new ArrayList<>();
+
+    /**
+     * Constructs an encoder for one layer.
+     *
+     * @param layerName the name of the layer
+     * @param extent    the number of tile coordinate units per tile side, usually 4096
+     */
+    public VectorTileEncoder(String layerName, int extent) {
+        this.layerName = layerName;
+        this.extent = extent;
+    }
+
+    /**
+     * Adds a (multi) line feature.
+     *
+     * @param lines      the parts of the line, each as interleaved x/y tile coordinates with at least two points
+     * @param properties the feature properties; values must be strings or numbers
+     */
+    public void addLines(List<int[]> lines, Map<String, Object> properties) {
+        List<Integer> geometry = new ArrayList<>();
+        int cursorX = 0;
+        int cursorY = 0;
+        for (int[] line : lines) {
+            if (line.length < 4) continue;
+            geometry.add(command(COMMAND_MOVE_TO, 1));
+            geometry.add(zigzag(line[0] - cursorX));
+            geometry.add(zigzag(line[1] - cursorY));
+            geometry.add(command(COMMAND_LINE_TO, line.length / 2 - 1));
+            for (int i = 2; i < line.length; i += 2) {
+                geometry.add(zigzag(line[i] - line[i - 2]));
+                geometry.add(zigzag(line[i + 1] - line[i - 1]));
+            }
+            cursorX = line[line.length - 2];
+            cursorY = line[line.length - 1];
+        }
+        if (geometry.isEmpty()) return;
+
+        Writer feature = new Writer();
+        Writer tags = new Writer();
+        properties.forEach((key, value) -> {
+            if (value == null) return;
+            Object normalized = value instanceof Number number && !(value instanceof Double) ? number.doubleValue() : value;
+            tags.varint(keys.computeIfAbsent(key, k -> keys.size()));
+            tags.varint(values.computeIfAbsent(normalized, v -> values.size()));
+        });
+        if (tags.size() > 0) feature.bytes(2, tags.toByteArray());
+        feature.tag(3, 0).varint(GEOMETRY_LINESTRING);
+        Writer packed = new Writer();
+        for (int value : geometry) packed.varint(value & 0xFFFFFFFFL);
+        feature.bytes(4, packed.toByteArray());
+        features.add(feature.toByteArray());
+    }
+
+    /**
+     * Gets the number of features added so far.
+     *
+     * @return the feature count
+     */
+    public int size() {
+        return features.size();
+    }
+
+    /**
+     * Encodes the tile.
+     *
+     * @return the protocol buffer encoded tile, empty if no feature was added
+     */
+    public byte[] encode() {
+        if (features.isEmpty()) return new byte[0];
+        Writer layer = new Writer();
+        layer.tag(15, 0).varint(2);
+        layer.string(1, layerName);
+        for (byte[] feature : features) layer.bytes(2, feature);
+        for (String key : keys.keySet()) layer.string(3, key);
+        for (Object value : values.keySet()) {
+            Writer encoded = new Writer();
+            if (value instanceof Double number) encoded.tag(3, 1).fixed64(Double.doubleToLongBits(number));
+            else encoded.string(1, value.toString());
+            layer.bytes(4, encoded.toByteArray());
+        }
+        layer.tag(5, 0).varint(extent);
+        return new Writer().bytes(3, layer.toByteArray()).toByteArray();
+    }
+
+    private static int command(int id, int count) {
+        return (id & 0x7) | (count << 3);
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Minimal protocol buffer writer.
+     */
+    private static final class Writer extends ByteArrayOutputStream {
+
+        Writer tag(int field, int wireType) {
+            return varint((long) field << 3 | wireType);
+        }
+
+        Writer varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+            return this;
+        }
+
+        Writer fixed64(long value) {
+            for (int i = 0; i < 8; i++) write((int) (value >>> (8 * i)));
+            return this;
+        }
+
+        Writer bytes(int field, byte[] data) {
+            tag(field, 2).varint(data.length);
+            write(data, 0, data.length);
+            return this;
+        }
+
+        Writer string(int field, String value) {
+            return bytes(field, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
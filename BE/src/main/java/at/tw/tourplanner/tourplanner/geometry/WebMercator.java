@@ -0,0 +1,55 @@
+package at.tw.tourplanner.tourplanner.geometry;
+
+/**
+ * Web Mercator projection to normalized map coordinates: x grows east and y grows south, both from 0 to 1
+ * over the whole map, so a coordinate at zoom level z lies in tile {@code floor(x * 2^z), floor(y * 2^z)}.
+ */
+public final class WebMercator {
+
+    /** Latitude limit of the projection. */
+    public static final double MAX_LATITUDE = 85.05112878;
+
+    private WebMercator() {
+    }
+
+    /**
+     * Projects a longitude.
+     *
+     * @param lon the longitude in degrees
+     * @return the normalized x coordinate
+     */
+    public static double x(double lon) {
+        return (Math.max(-180, Math.min(180, lon)) + 180) / 360;
+    }
+
+    /**
+     * Projects a latitude, clamped to the limits of the projection.
+     *
+     * @param lat the latitude in degrees
+     * @return the normalized y coordinate
+     */
+    public static double y(double lat) {
+        double sin = Math.sin(Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, lat))));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+
+    /**
+     * Unprojects a normalized x coordinate.
+     *
+     * @param x the normalized x coordinate
+     * @return the longitude in degrees
+     */
+    public static double lon(double x) {
+        return x * 360 - 180;
+    }
+
+    /**
+     * Unprojects a normalized y coordinate.
+     *
+     * @param y the normalized y coordinate
+     * @return the latitude in degrees
+     */
+    public static double lat(double y) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y))));
+    }
+}
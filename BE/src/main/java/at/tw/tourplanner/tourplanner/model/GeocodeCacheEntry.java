@@ -0,0 +1,71 @@
+package at.tw.tourplanner.tourplanner.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Entity class representing a persisted geocode result, keyed by the normalized address.
+ */
+@Entity
+@Table(name = "geocode_cache")
+public class GeocodeCacheEntry {
+
+    @Id
+    @Column(name = "normalizedAddress")
+    @Getter
+    @Setter
+    private String normalizedAddress;
+
+    @Column(name = "query")
+    @Getter
+    @Setter
+    private String query;
+
+    @Column(name = "lon")
+    @Getter
+    @Setter
+    private double lon;
+
+    @Column(name = "lat")
+    @Getter
+    @Setter
+    private double lat;
+
+    @Column(name = "provider")
+    @Getter
+    @Setter
+    private String provider;
+
+    @Column(name = "fetchedAt")
+    @Getter
+    @Setter
+    private Instant fetchedAt;
+
+    /**
+     * Constructs a GeocodeCacheEntry with specified properties.
+     *
+     * @param normalizedAddress the normalized address used as lookup key
+     * @param query the address as it was originally queried
+     * @param lon the resolved longitude
+     * @param lat the resolved latitude
+     * @param provider the geocoding provider that produced the result
+     * @param fetchedAt the time the result was fetched from the provider
+     */
+    public GeocodeCacheEntry(String normalizedAddress, String query, double lon, double lat, String provider, Instant fetchedAt) {
+        this.normalizedAddress = normalizedAddress;
+        this.query = query;
+        this.lon = lon;
+        this.lat = lat;
+        this.provider = provider;
+        this.fetchedAt = fetchedAt;
+    }
+
+    /**
+     * Default constructor.
+     */
+    public GeocodeCacheEntry() {
+    }
+}
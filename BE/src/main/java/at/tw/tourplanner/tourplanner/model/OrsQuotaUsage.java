@@ -0,0 +1,44 @@
+package at.tw.tourplanner.tourplanner.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Entity counting the OpenRouteService requests sent on one (UTC) day, so the daily quota
+ * is still respected after a restart.
+ */
+@Entity
+@Table(name = "ors_quota_usage")
+public class OrsQuotaUsage {
+
+    @Id
+    @Column(name = "day")
+    @Getter
+    @Setter
+    private LocalDate day;
+
+    @Column(name = "requests")
+    @Getter
+    @Setter
+    private long requests;
+
+    /**
+     * Constructs an OrsQuotaUsage for the given day.
+     *
+     * @param day      the UTC day
+     * @param requests the number of requests sent on that day
+     */
+    public OrsQuotaUsage(LocalDate day, long requests) {
+        this.day = day;
+        this.requests = requests;
+    }
+
+    /**
+     * Default constructor required by JPA.
+     */
+    public OrsQuotaUsage() {
+    }
+}
@@ -0,0 +1,59 @@
+package at.tw.tourplanner.tourplanner.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Entity class representing a stored route geometry, keyed by the hash of its encoded content.
+ * Tours with the same route reference the same geometry.
+ */
+@Entity
+@Table(name = "route_geometry")
+public class RouteGeometry {
+
+    @Id
+    @Column(name = "hash", length = 64)
+    @Getter
+    @Setter
+    private String hash;
+
+    // GeometryCodec encoding
+    @Column(name = "data", nullable = false, columnDefinition = "bytea")
+    @Getter
+    @Setter
+    private byte[] data;
+
+    @Column(name = "pointCount")
+    @Getter
+    @Setter
+    private int pointCount;
+
+    @Column(name = "createdAt")
+    @Getter
+    @Setter
+    private Instant createdAt;
+
+    /**
+     * Constructs a RouteGeometry with specified properties.
+     *
+     * @param hash the content hash of the encoded geometry
+     * @param data the encoded geometry
+     * @param pointCount the number of points of the geometry
+     * @param createdAt the time the geometry was first stored
+     */
+    public RouteGeometry(String hash, byte[] data, int pointCount, Instant createdAt) {
+        this.hash = hash;
+        this.data = data;
+        this.pointCount = pointCount;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Default constructor.
+     */
+    public RouteGeometry() {
+    }
+}
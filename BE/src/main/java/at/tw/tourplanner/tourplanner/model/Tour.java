@@ -1,14 +1,21 @@
 package at.tw.tourplanner.tourplanner.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Getter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 import lombok.Setter;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Entity class representing a Tour.
+ * The route fields (distance, duration, start/end coordinates and geometry) are computed by the backend
+ * from the locations and the transport type; they are read-only in the API and null until computed.
  */
 @Entity
 @Table(name = "tours")
@@ -40,6 +47,73 @@ public class Tour {
     @Setter
     private String transportType;
 
+    @ElementCollection(fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
+    @CollectionTable(name = "tour_waypoints", joinColumns = @JoinColumn(name = "tourName"))
+    @OrderColumn(name = "position")
+    @Column(name = "location")
+    @Getter
+    @Setter
+    // null in an update body without "waypoints", which leaves the stored waypoints unchanged
+    private List<String> waypoints;
+
+    @Column(name = "distance")
+    @Getter
+    @Setter
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Double distance;
+
+    @Column(name = "duration")
+    @Getter
+    @Setter
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Double duration;
+
+    @Column(name = "fromLon")
+    @Getter
+    @Setter
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Double fromLon;
+
+    @Column(name = "fromLat")
+    @Getter
+    @Setter
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Double fromLat;
+
+    @Column(name = "toLon")
+    @Getter
+    @Setter
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Double toLon;
+
+    @Column(name = "toLat")
+    @Getter
+    @Setter
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Double toLat;
+
+    // content hash of the stored RouteGeometry, served by GET /tour/{name}/route
+    @Column(name = "routeGeometryHash", length = 64)
+    @Getter
+    @Setter
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String routeGeometryHash;
+
+    @Column(name = "routeComputedAt")
+    @Getter
+    @Setter
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant routeComputedAt;
+
+    // incremented on every update, so storing a computed route cannot overwrite a concurrent edit
+    @Version
+    @Column(name = "version", nullable = false)
+    @ColumnDefault("0")
+    @Getter
+    @JsonIgnore
+    private long version;
+
     @OneToMany(mappedBy = "tour", cascade = CascadeType.ALL)
     private List<TourLog> tourLog = new ArrayList<>();
 
@@ -65,4 +139,28 @@ public class Tour {
      */
     public Tour() {
     }
+
+    /**
+     * Checks whether the route fields have been computed.
+     *
+     * @return true if distance, duration, coordinates and geometry are available
+     */
+    @JsonProperty(value = "routeAvailable", access = JsonProperty.Access.READ_ONLY)
+    public boolean isRouteAvailable() {
+        return routeGeometryHash != null;
+    }
+
+    /**
+     * Discards the computed route fields, e.g. after the locations or the transport type changed.
+     */
+    public void clearRoute() {
+        distance = null;
+        duration = null;
+        fromLon = null;
+        fromLat = null;
+        toLon = null;
+        toLat = null;
+        routeGeometryHash = null;
+        routeComputedAt = null;
+    }
 }
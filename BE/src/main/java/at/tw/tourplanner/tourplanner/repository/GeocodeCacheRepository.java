@@ -0,0 +1,9 @@
+package at.tw.tourplanner.tourplanner.repository;
+
+import at.tw.tourplanner.tourplanner.model.GeocodeCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Repository interface for accessing persisted geocode results.
+ */
+public interface GeocodeCacheRepository extends JpaRepository<GeocodeCacheEntry, String> { }
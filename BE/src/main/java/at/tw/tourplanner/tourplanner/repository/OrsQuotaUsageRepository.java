@@ -0,0 +1,11 @@
+package at.tw.tourplanner.tourplanner.repository;
+
+import at.tw.tourplanner.tourplanner.model.OrsQuotaUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+
+/**
+ * Repository for the persisted daily OpenRouteService request counters.
+ */
+public interface OrsQuotaUsageRepository extends JpaRepository<OrsQuotaUsage, LocalDate> { }
@@ -0,0 +1,9 @@
+package at.tw.tourplanner.tourplanner.repository;
+
+import at.tw.tourplanner.tourplanner.model.RouteGeometry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Repository interface for accessing stored route geometries by content hash.
+ */
+public interface RouteGeometryRepository extends JpaRepository<RouteGeometry, String> { }
@@ -1,9 +1,36 @@
 package at.tw.tourplanner.tourplanner.repository;
 
 import at.tw.tourplanner.tourplanner.model.Tour;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for accessing Tour entities.
+ * The waypoints are loaded lazily; the finders below fetch them in the same query where they are needed.
  */
-public interface TourRepository extends JpaRepository<Tour, String> { }
+public interface TourRepository extends JpaRepository<Tour, String> {
+
+    /**
+     * Finds all tours together with their waypoints.
+     *
+     * @return all tours
+     */
+    @EntityGraph(attributePaths = "waypoints")
+    @Query("select t from Tour t")
+    List<Tour> findAllWithWaypoints();
+
+    /**
+     * Finds a tour together with its waypoints.
+     *
+     * @param name the name of the tour
+     * @return the tour, or empty if it does not exist
+     */
+    @EntityGraph(attributePaths = "waypoints")
+    @Query("select t from Tour t where t.name = :name")
+    Optional<Tour> findWithWaypointsByName(@Param("name") String name);
+}
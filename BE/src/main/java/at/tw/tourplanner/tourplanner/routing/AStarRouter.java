@@ -0,0 +1,207 @@
+package at.tw.tourplanner.tourplanner.routing;
+
+import at.tw.tourplanner.tourplanner.util.GeometryUtils;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Fastest-path search on a {@link RoutingGraph} with A*. Edge weights are travel times, the heuristic
+ * is the great-circle distance at the profile's top speed, which never overestimates the remaining time.
+ * Search states hold several arrays of one entry per node, so they are borrowed from a pool of at most
+ * {@code maxSearches} states instead of being kept per thread; further searches wait for a free state.
+ * States are reset lazily, so a query allocates only its result.
+ */
+public final class AStarRouter {
+
+    private final RoutingGraph graph;
+    private final Semaphore permits;
+    private final Queue<SearchState> idle = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructs an AStarRouter for the given graph running one search at a time.
+     *
+     * @param graph the routing graph
+     */
+    public AStarRouter(RoutingGraph graph) {
+        this(graph, 1);
+    }
+
+    /**
+     * Constructs an AStarRouter for the given graph.
+     *
+     * @param graph       the routing graph
+     * @param maxSearches the maximum number of concurrent searches, i.e. of search states kept in memory
+     */
+    public AStarRouter(RoutingGraph graph, int maxSearches) {
+        if (maxSearches < 1) throw new IllegalArgumentException("maxSearches must be positive");
+        this.graph = graph;
+        this.permits = new Semaphore(maxSearches);
+    }
+
+    /**
+     * Computes the fastest path between two nodes.
+     *
+     * @param from    the start node
+     * @param to      the destination node
+     * @param profile the routing profile
+     * @return the path, or null if the destination cannot be reached
+     */
+    public Path route(int from, int to, RoutingProfile profile) {
+        permits.acquireUninterruptibly();
+        SearchState state = idle.poll();
+        if (state == null) state = new SearchState(graph.nodeCount());
+        try {
+            return route(state, from, to, profile);
+        } finally {
+            idle.add(state);
+            permits.release();
+        }
+    }
+
+    private Path route(SearchState state, int from, int to, RoutingProfile profile) {
+        state.reset();
+        int mask = profile.mask();
+        double maxSpeed = profile.maxSpeedMetersPerSecond();
+        double targetLon = graph.lon(to);
+        double targetLat = graph.lat(to);
+
+        state.open(from, 0, 0, -1, heuristic(from, targetLon, targetLat, maxSpeed));
+        while (!state.heap.isEmpty()) {
+            int node = state.heap.poll();
+            if (state.closed[node] == state.generation) continue;
+            state.closed[node] = state.generation;
+            if (node == to) return state.path(from, to);
+
+            double time = state.time[node];
+            for (int e = graph.firstEdge(node); e < graph.firstEdge(node + 1); e++) {
+                if ((graph.access(e) & mask) == 0) continue;
+                int target = graph.target(e);
+                if (state.closed[target] == state.generation) continue;
+                double length = graph.length(e);
+                double candidate = time + length / profile.speedMetersPerSecond(graph.speed(e));
+                if (state.seen[target] != state.generation || candidate < state.time[target]) {
+                    state.open(target, candidate, state.distance[node] + length, node,
+                            candidate + heuristic(target, targetLon, targetLat, maxSpeed));
+                }
+            }
+        }
+        return null;
+    }
+
+    private double heuristic(int node, double targetLon, double targetLat, double maxSpeed) {
+        return GeometryUtils.haversine(graph.lon(node), graph.lat(node), targetLon, targetLat) / maxSpeed;
+    }
+
+    /**
+     * A path found by the router.
+     *
+     * @param nodes    the node indices from start to destination
+     * @param distance the length of the path in meters
+     * @param duration the travel time in seconds
+     */
+    public record Path(int[] nodes, double distance, double duration) {
+    }
+
+    /**
+     * Search arrays of one search at a time. Entries are valid only if their stamp equals the current generation.
+     */
+    private static final class SearchState {
+        final double[] time;
+        final double[] distance;
+        final int[] parent;
+        final int[] seen;
+        final int[] closed;
+        final MinHeap heap = new MinHeap();
+        int generation;
+
+        SearchState(int nodeCount) {
+            time = new double[nodeCount];
+            distance = new double[nodeCount];
+            parent = new int[nodeCount];
+            seen = new int[nodeCount];
+            closed = new int[nodeCount];
+        }
+
+        void reset() {
+            heap.clear();
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(seen, 0);
+                Arrays.fill(closed, 0);
+                generation = 1;
+            }
+        }
+
+        void open(int node, double nodeTime, double nodeDistance, int nodeParent, double priority) {
+            seen[node] = generation;
+            time[node] = nodeTime;
+            distance[node] = nodeDistance;
+            parent[node] = nodeParent;
+            heap.add(node, priority);
+        }
+
+        Path path(int from, int to) {
+            int length = 1;
+            for (int node = to; node != from; node = parent[node]) length++;
+            int[] nodes = new int[length];
+            for (int node = to, i = length - 1; i >= 0; node = parent[node], i--) nodes[i] = node;
+            return new Path(nodes, distance[to], time[to]);
+        }
+    }
+
+    /**
+     * Binary min-heap of nodes keyed by priority. Improved nodes are added again instead of
+     * decreasing their key; stale entries are skipped when polled.
+     */
+    private static final class MinHeap {
+        int[] nodes = new int[256];
+        double[] keys = new double[256];
+        int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(int node, double key) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) break;
+                nodes[i] = nodes[parent];
+                keys[i] = keys[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            keys[i] = key;
+        }
+
+        int poll() {
+            int result = nodes[0];
+            int lastNode = nodes[--size];
+            double lastKey = keys[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+                if (keys[child] >= lastKey) break;
+                nodes[i] = nodes[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+            nodes[i] = lastNode;
+            keys[i] = lastKey;
+            return result;
+        }
+    }
+}
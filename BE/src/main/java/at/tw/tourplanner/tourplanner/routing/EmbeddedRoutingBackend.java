@@ -0,0 +1,160 @@
+package at.tw.tourplanner.tourplanner.routing;
+
+import at.tw.tourplanner.tourplanner.cache.RouteKey;
+import at.tw.tourplanner.tourplanner.client.OrsPriority;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routing backend answering route requests from a local OpenStreetMap extract, without network access.
+ * The extract is compiled into a memory-mapped graph file on startup whenever the graph file is missing
+ * or older than the extract; otherwise the existing graph file is used directly. Searches run on a
+ * dedicated pool of {@code max-concurrent-searches} threads, which bounds the memory held by their search
+ * states independently of the shared task executor.
+ */
+@Component
+@ConditionalOnProperty(name = "routing.backend", havingValue = "embedded")
+public class EmbeddedRoutingBackend implements RoutingBackend {
+
+    private static final Logger logger = LogManager.getLogger(EmbeddedRoutingBackend.class);
+
+    private final RoutingGraph graph;
+    private final AStarRouter router;
+    private final ExecutorService executor;
+    private final double maxSnapDistance;
+
+    /**
+     * Constructs the EmbeddedRoutingBackend and loads its routing graph.
+     *
+     * @param osmFile         the OpenStreetMap XML extract to compile, or blank to use the graph file as is
+     * @param graphFile       the compiled graph file
+     * @param maxSnapDistance the maximum distance in meters between a waypoint and the nearest road
+     * @param maxSearches     the maximum number of concurrent route searches
+     * @throws IOException if the extract cannot be compiled or the graph file cannot be loaded
+     */
+    public EmbeddedRoutingBackend(@Value("${routing.embedded.osm-file:}") String osmFile,
+                                  @Value("${routing.embedded.graph-file:data/routing-graph.bin}") String graphFile,
+                                  @Value("${routing.embedded.max-snap-distance:1000}") double maxSnapDistance,
+                                  @Value("${routing.embedded.max-concurrent-searches:2}") int maxSearches) throws IOException {
+        Path graphPath = Path.of(graphFile);
+        if (!osmFile.isBlank()) {
+            Path osmPath = Path.of(osmFile);
+            if (!Files.exists(graphPath)
+                    || Files.getLastModifiedTime(graphPath).compareTo(Files.getLastModifiedTime(osmPath)) < 0) {
+                logger.info("Compiling routing graph {} from {}", graphPath, osmPath);
+                OsmGraphCompiler.compile(osmPath, graphPath);
+            }
+        }
+        if (!Files.exists(graphPath)) {
+            throw new IllegalStateException("Routing graph " + graphPath + " not found; set routing.embedded.osm-file to compile one");
+        }
+        this.graph = RoutingGraph.open(graphPath);
+        this.router = new AStarRouter(graph, maxSearches);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(maxSearches, runnable -> {
+            Thread thread = new Thread(runnable, "embedded-routing-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxSnapDistance = maxSnapDistance;
+        logger.info("Loaded routing graph with {} nodes and {} edges", graph.nodeCount(), graph.edgeCount());
+    }
+
+    @Override
+    public CompletableFuture<byte[]> directions(RouteKey key, OrsPriority priority) {
+        return CompletableFuture.supplyAsync(() -> route(key), executor);
+    }
+
+    /**
+     * Stops the search threads on shutdown.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Routes through all waypoints of the key and renders the result like the OpenRouteService
+     * GeoJSON directions response.
+     *
+     * @param key the quantized waypoints and the OpenRouteService profile
+     * @return the UTF-8 encoded GeoJSON route
+     */
+    private byte[] route(RouteKey key) {
+        RoutingProfile profile = RoutingProfile.fromOrsProfile(key.profile());
+        int[] snapped = new int[key.size()];
+        for (int i = 0; i < key.size(); i++) {
+            snapped[i] = graph.nearestNode(key.lon(i), key.lat(i), profile, maxSnapDistance);
+            if (snapped[i] < 0) {
+                throw new RoutingException("Waypoint " + i + " is not within " + maxSnapDistance + " m of a road");
+            }
+        }
+
+        JSONArray coordinates = new JSONArray();
+        JSONArray segments = new JSONArray();
+        JSONArray wayPoints = new JSONArray().put(0);
+        double[] bbox = {Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        double distance = 0;
+        double duration = 0;
+        addPoint(coordinates, bbox, snapped[0]);
+        for (int leg = 0; leg + 1 < snapped.length; leg++) {
+            AStarRouter.Path path = router.route(snapped[leg], snapped[leg + 1], profile);
+            if (path == null) {
+                throw new RoutingException("No " + key.profile() + " route between waypoints " + leg + " and " + (leg + 1));
+            }
+            for (int i = 1; i < path.nodes().length; i++) addPoint(coordinates, bbox, path.nodes()[i]);
+            wayPoints.put(coordinates.length() - 1);
+            segments.put(new JSONObject()
+                    .put("distance", round(path.distance()))
+                    .put("duration", round(path.duration()))
+                    .put("steps", new JSONArray()));
+            distance += path.distance();
+            duration += path.duration();
+        }
+
+        JSONArray bboxJson = new JSONArray().put(bbox[0]).put(bbox[1]).put(bbox[2]).put(bbox[3]);
+        JSONObject feature = new JSONObject()
+                .put("type", "Feature")
+                .put("bbox", bboxJson)
+                .put("properties", new JSONObject()
+                        .put("segments", segments)
+                        .put("summary", new JSONObject().put("distance", round(distance)).put("duration", round(duration)))
+                        .put("way_points", wayPoints))
+                .put("geometry", new JSONObject().put("type", "LineString").put("coordinates", coordinates));
+        return new JSONObject()
+                .put("type", "FeatureCollection")
+                .put("bbox", bboxJson)
+                .put("features", new JSONArray().put(feature))
+                .put("metadata", new JSONObject().put("service", "routing").put("engine", new JSONObject().put("version", "embedded")))
+                .toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void addPoint(JSONArray coordinates, double[] bbox, int node) {
+        double lon = graph.lon(node);
+        double lat = graph.lat(node);
+        coordinates.put(new JSONArray().put(lon).put(lat));
+        bbox[0] = Math.min(bbox[0], lon);
+        bbox[1] = Math.min(bbox[1], lat);
+        bbox[2] = Math.max(bbox[2], lon);
+        bbox[3] = Math.max(bbox[3], lat);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+}
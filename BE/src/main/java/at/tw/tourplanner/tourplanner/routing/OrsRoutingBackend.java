@@ -0,0 +1,40 @@
+package at.tw.tourplanner.tourplanner.routing;
+
+import at.tw.tourplanner.tourplanner.cache.RouteKey;
+import at.tw.tourplanner.tourplanner.client.OrsClient;
+import at.tw.tourplanner.tourplanner.client.OrsPriority;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Routing backend requesting routes from the GeoJSON directions endpoint of OpenRouteService.
+ */
+@Component
+@ConditionalOnProperty(name = "routing.backend", havingValue = "ors", matchIfMissing = true)
+public class OrsRoutingBackend implements RoutingBackend {
+
+    private final OrsClient orsClient;
+
+    /**
+     * Constructs the OrsRoutingBackend.
+     *
+     * @param orsClient the shared OpenRouteService client
+     */
+    public OrsRoutingBackend(OrsClient orsClient) {
+        this.orsClient = orsClient;
+    }
+
+    @Override
+    public CompletableFuture<byte[]> directions(RouteKey key, OrsPriority priority) {
+        JSONArray coordinates = new JSONArray();
+        for (int i = 0; i < key.size(); i++) {
+            coordinates.put(new JSONArray().put(key.lon(i)).put(key.lat(i)));
+        }
+        String jsonInput = new JSONObject().put("coordinates", coordinates).toString();
+        return orsClient.postJson("/v2/directions/" + key.profile() + "/geojson", jsonInput, priority);
+    }
+}
@@ -0,0 +1,367 @@
+package at.tw.tourplanner.tourplanner.routing;
+
+import at.tw.tourplanner.tourplanner.util.GeometryUtils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compiles an OpenStreetMap XML extract ({@code .osm} or {@code .osm.gz}) into the binary graph
+ * file read by {@link RoutingGraph}. Every routable way is split into directed edges between
+ * consecutive way nodes; each edge stores its length, the profiles allowed to use it and the car speed.
+ */
+public final class OsmGraphCompiler {
+
+    private static final Map<String, Integer> CAR_SPEEDS = Map.ofEntries(
+            Map.entry("motorway", 120), Map.entry("motorway_link", 60),
+            Map.entry("trunk", 100), Map.entry("trunk_link", 50),
+            Map.entry("primary", 80), Map.entry("primary_link", 50),
+            Map.entry("secondary", 70), Map.entry("secondary_link", 40),
+            Map.entry("tertiary", 60), Map.entry("tertiary_link", 40),
+            Map.entry("unclassified", 50), Map.entry("road", 40),
+            Map.entry("residential", 30), Map.entry("service", 20),
+            Map.entry("living_street", 10), Map.entry("track", 15));
+    private static final Set<String> NON_CAR_WAYS = Set.of(
+            "cycleway", "footway", "pedestrian", "path", "steps", "bridleway");
+    private static final Set<String> NO_BICYCLE_OR_FOOT = Set.of(
+            "motorway", "motorway_link", "trunk", "trunk_link");
+    private static final int MAX_CAR_SPEED = 130;
+
+    private OsmGraphCompiler() {
+    }
+
+    /**
+     * Compiles an extract into a graph file. The file is written next to the target and moved into place
+     * once complete, so a running router never sees a partially written graph.
+     *
+     * @param osmFile   the OpenStreetMap XML extract
+     * @param graphFile the graph file to write
+     * @throws IOException if the extract cannot be read or the graph cannot be written
+     */
+    public static void compile(Path osmFile, Path graphFile) throws IOException {
+        OsmData data = new OsmData();
+        try (InputStream in = open(osmFile)) {
+            parse(in, data);
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid OpenStreetMap extract " + osmFile + ": " + e.getMessage(), e);
+        }
+
+        Path parent = graphFile.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, graphFile.getFileName().toString(), ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            write(data, out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, graphFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Compiles an extract from the command line, e.g. as part of a deployment pipeline.
+     *
+     * @param args the extract and the graph file to write
+     * @throws IOException if the extract cannot be read or the graph cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: OsmGraphCompiler <extract.osm[.gz]> <graph.bin>");
+            System.exit(2);
+        }
+        compile(Path.of(args[0]), Path.of(args[1]));
+    }
+
+    private static InputStream open(Path osmFile) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(osmFile), 1 << 16);
+        return osmFile.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(in, 1 << 16) : in;
+    }
+
+    /**
+     * Streams through the extract and collects all nodes and routable ways.
+     */
+    private static void parse(InputStream in, OsmData data) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = factory.createXMLStreamReader(in);
+
+        LongList wayRefs = new LongList();
+        Map<String, String> wayTags = new HashMap<>();
+        boolean inWay = false;
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "node" -> data.addNode(
+                                Long.parseLong(reader.getAttributeValue(null, "id")),
+                                Double.parseDouble(reader.getAttributeValue(null, "lon")),
+                                Double.parseDouble(reader.getAttributeValue(null, "lat")));
+                        case "way" -> {
+                            inWay = true;
+                            wayRefs.clear();
+                            wayTags.clear();
+                        }
+                        case "nd" -> {
+                            if (inWay) wayRefs.add(Long.parseLong(reader.getAttributeValue(null, "ref")));
+                        }
+                        case "tag" -> {
+                            if (inWay) wayTags.put(reader.getAttributeValue(null, "k"), reader.getAttributeValue(null, "v"));
+                        }
+                        default -> {
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("way")) {
+                    inWay = false;
+                    data.addWay(wayRefs, wayTags);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Resolves the way node references, drops nodes that are not part of a routable way and writes
+     * the remaining graph in compressed sparse row layout.
+     */
+    private static void write(OsmData data, OutputStream target) throws IOException {
+        data.sortNodes();
+
+        // map OSM node ids to dense graph node indices, keeping only nodes used by a routable way
+        int[] graphIndex = new int[data.nodeIds.size];
+        Arrays.fill(graphIndex, -1);
+        int nodeCount = 0;
+        int[] wayNodes = new int[data.wayRefs.size];
+        for (int i = 0; i < data.wayRefs.size; i++) {
+            int osmIndex = Arrays.binarySearch(data.nodeIds.values, 0, data.nodeIds.size, data.wayRefs.values[i]);
+            if (osmIndex < 0) {
+                wayNodes[i] = -1;
+                continue;
+            }
+            if (graphIndex[osmIndex] < 0) graphIndex[osmIndex] = nodeCount++;
+            wayNodes[i] = graphIndex[osmIndex];
+        }
+        int[] lon = new int[nodeCount];
+        int[] lat = new int[nodeCount];
+        for (int i = 0; i < graphIndex.length; i++) {
+            if (graphIndex[i] >= 0) {
+                lon[graphIndex[i]] = data.nodeLon.values[i];
+                lat[graphIndex[i]] = data.nodeLat.values[i];
+            }
+        }
+
+        // directed edges between consecutive way nodes
+        IntList from = new IntList();
+        IntList to = new IntList();
+        IntList access = new IntList();
+        IntList speed = new IntList();
+        for (int w = 0; w < data.wayStart.size; w++) {
+            int start = data.wayStart.values[w];
+            int end = w + 1 < data.wayStart.size ? data.wayStart.values[w + 1] : data.wayRefs.size;
+            int forward = data.wayForward.values[w];
+            int backward = data.wayBackward.values[w];
+            for (int i = start; i + 1 < end; i++) {
+                int a = wayNodes[i];
+                int b = wayNodes[i + 1];
+                if (a < 0 || b < 0 || a == b) continue;
+                if (forward != 0) {
+                    from.add(a); to.add(b); access.add(forward); speed.add(data.waySpeed.values[w]);
+                }
+                if (backward != 0) {
+                    from.add(b); to.add(a); access.add(backward); speed.add(data.waySpeed.values[w]);
+                }
+            }
+        }
+
+        // counting sort of the edges by source node
+        int edgeCount = from.size;
+        int[] firstEdge = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) firstEdge[from.values[e] + 1]++;
+        for (int n = 0; n < nodeCount; n++) firstEdge[n + 1] += firstEdge[n];
+        int[] next = Arrays.copyOf(firstEdge, nodeCount);
+        int[] order = new int[edgeCount];
+        for (int e = 0; e < edgeCount; e++) order[next[from.values[e]]++] = e;
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target, 1 << 16));
+        out.writeInt(RoutingGraph.MAGIC);
+        out.writeInt(RoutingGraph.VERSION);
+        out.writeInt(nodeCount);
+        out.writeInt(edgeCount);
+        for (int n = 0; n < nodeCount; n++) out.writeInt(lon[n]);
+        for (int n = 0; n < nodeCount; n++) out.writeInt(lat[n]);
+        for (int n = 0; n <= nodeCount; n++) out.writeInt(firstEdge[n]);
+        for (int e : order) out.writeInt(to.values[e]);
+        for (int e : order) {
+            int a = from.values[e];
+            int b = to.values[e];
+            out.writeFloat((float) GeometryUtils.haversine(
+                    lon[a] / RoutingGraph.SCALE, lat[a] / RoutingGraph.SCALE,
+                    lon[b] / RoutingGraph.SCALE, lat[b] / RoutingGraph.SCALE));
+        }
+        for (int e : order) out.writeByte(access.values[e]);
+        for (int e : order) out.writeByte(speed.values[e]);
+        out.flush();
+    }
+
+    /**
+     * Determines which profiles may use a way in each direction and the speed of cars on it.
+     *
+     * @param tags the tags of the way
+     * @return the forward access mask, the backward access mask and the car speed in km/h
+     */
+    static int[] classify(Map<String, String> tags) {
+        String highway = tags.get("highway");
+        if (highway == null || "yes".equals(tags.get("area"))) return new int[]{0, 0, 0};
+        boolean routable = CAR_SPEEDS.containsKey(highway) || NON_CAR_WAYS.contains(highway);
+        boolean accessAllowed = routable && !isDenied(tags.get("access"));
+
+        Integer carSpeed = CAR_SPEEDS.get(highway);
+        boolean car = carSpeed != null && accessAllowed
+                && !isDenied(tags.get("motor_vehicle")) && !isDenied(tags.get("motorcar"));
+        boolean foot = accessAllowed && !NO_BICYCLE_OR_FOOT.contains(highway);
+        boolean bicycle = foot && !highway.equals("steps") && !highway.equals("footway") && !highway.equals("pedestrian");
+        bicycle = override(bicycle, tags.get("bicycle"));
+        foot = override(foot, tags.get("foot"));
+        boolean wheelchair = override(foot && !highway.equals("steps"), tags.get("wheelchair"));
+
+        int both = (car ? RoutingProfile.CAR.mask() : 0)
+                | (bicycle ? RoutingProfile.BICYCLE.mask() : 0)
+                | (foot ? RoutingProfile.FOOT.mask() : 0)
+                | (wheelchair ? RoutingProfile.WHEELCHAIR.mask() : 0);
+        int forward = both;
+        int backward = both;
+
+        String oneway = tags.getOrDefault("oneway",
+                highway.equals("motorway") || "roundabout".equals(tags.get("junction")) ? "yes" : "no");
+        int onewayMask = RoutingProfile.CAR.mask();
+        String cycleway = tags.getOrDefault("cycleway", "");
+        if (!"no".equals(tags.get("oneway:bicycle")) && !cycleway.startsWith("opposite")) {
+            onewayMask |= RoutingProfile.BICYCLE.mask();
+        }
+        if (oneway.equals("yes") || oneway.equals("true") || oneway.equals("1")) {
+            backward &= ~onewayMask;
+        } else if (oneway.equals("-1") || oneway.equals("reverse")) {
+            forward &= ~onewayMask;
+        }
+
+        int speed = car ? Math.min(MAX_CAR_SPEED, parseMaxSpeed(tags.get("maxspeed"), carSpeed)) : 0;
+        return new int[]{forward, backward, speed};
+    }
+
+    private static boolean isDenied(String value) {
+        return "no".equals(value) || "private".equals(value);
+    }
+
+    private static boolean override(boolean allowed, String value) {
+        if (value == null) return allowed;
+        if (isDenied(value)) return false;
+        return allowed || value.equals("yes") || value.equals("designated") || value.equals("permissive");
+    }
+
+    private static int parseMaxSpeed(String value, int fallback) {
+        if (value == null) return fallback;
+        int digits = 0;
+        while (digits < value.length() && Character.isDigit(value.charAt(digits))) digits++;
+        if (digits == 0) return fallback;
+        int speed = Integer.parseInt(value.substring(0, digits));
+        if (value.endsWith("mph")) speed = (int) Math.round(speed * 1.609344);
+        return speed > 0 ? speed : fallback;
+    }
+
+    /**
+     * Nodes and routable ways collected while parsing the extract.
+     */
+    private static final class OsmData {
+        final LongList nodeIds = new LongList();
+        final IntList nodeLon = new IntList();
+        final IntList nodeLat = new IntList();
+        final LongList wayRefs = new LongList();
+        final IntList wayStart = new IntList();
+        final IntList wayForward = new IntList();
+        final IntList wayBackward = new IntList();
+        final IntList waySpeed = new IntList();
+
+        void addNode(long id, double lon, double lat) {
+            nodeIds.add(id);
+            nodeLon.add((int) Math.round(lon * RoutingGraph.SCALE));
+            nodeLat.add((int) Math.round(lat * RoutingGraph.SCALE));
+        }
+
+        void addWay(LongList refs, Map<String, String> tags) {
+            if (refs.size < 2) return;
+            int[] classification = classify(tags);
+            if (classification[0] == 0 && classification[1] == 0) return;
+            wayStart.add(wayRefs.size);
+            wayForward.add(classification[0]);
+            wayBackward.add(classification[1]);
+            waySpeed.add(classification[2]);
+            for (int i = 0; i < refs.size; i++) wayRefs.add(refs.values[i]);
+        }
+
+        /**
+         * Sorts the nodes by id for binary search. Extracts are usually sorted already.
+         */
+        void sortNodes() {
+            boolean sorted = true;
+            for (int i = 1; i < nodeIds.size && sorted; i++) sorted = nodeIds.values[i - 1] <= nodeIds.values[i];
+            if (sorted) return;
+
+            Integer[] order = new Integer[nodeIds.size];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Long.compare(nodeIds.values[a], nodeIds.values[b]));
+            long[] ids = new long[order.length];
+            int[] lons = new int[order.length];
+            int[] lats = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                ids[i] = nodeIds.values[order[i]];
+                lons[i] = nodeLon.values[order[i]];
+                lats[i] = nodeLat.values[order[i]];
+            }
+            nodeIds.values = ids;
+            nodeLon.values = lons;
+            nodeLat.values = lats;
+        }
+    }
+
+    private static final class LongList {
+        long[] values = new long[1024];
+        int size;
+
+        void add(long value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[1024];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package at.tw.tourplanner.tourplanner.routing;
+
+import at.tw.tourplanner.tourplanner.cache.RouteKey;
+import at.tw.tourplanner.tourplanner.client.OrsPriority;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Computes routes for the route service. The active implementation is chosen with the
+ * {@code routing.backend} property: {@code ors} (default) asks OpenRouteService,
+ * {@code embedded} routes on a locally compiled OpenStreetMap graph.
+ */
+public interface RoutingBackend {
+
+    /**
+     * Computes the route through the waypoints of the given key.
+     * The result has the layout of the OpenRouteService GeoJSON directions response: a feature collection
+     * whose first feature carries the line geometry and {@code summary}, {@code segments} and
+     * {@code way_points} properties.
+     *
+     * @param key      the quantized waypoints and the OpenRouteService profile
+     * @param priority the priority of the request in the OpenRouteService rate limiter
+     * @return a future completing with the UTF-8 encoded GeoJSON route
+     */
+    CompletableFuture<byte[]> directions(RouteKey key, OrsPriority priority);
+}
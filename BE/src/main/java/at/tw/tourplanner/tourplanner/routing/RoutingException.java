@@ -0,0 +1,17 @@
+package at.tw.tourplanner.tourplanner.routing;
+
+/**
+ * Exception thrown when the embedded router cannot compute a route, e.g. because a waypoint
+ * lies outside the routing graph or no path exists for the requested profile.
+ */
+public class RoutingException extends RuntimeException {
+
+    /**
+     * Constructs a RoutingException with the given message.
+     *
+     * @param message description of the failed route request
+     */
+    public RoutingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,263 @@
+package at.tw.tourplanner.tourplanner.routing;
+
+import at.tw.tourplanner.tourplanner.util.GeometryUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read-only routing graph backed by a memory-mapped file written by {@link OsmGraphCompiler}.
+ * Nodes and edges are addressed by dense indices; the outgoing edges of node {@code n} are
+ * {@code firstEdge(n) .. firstEdge(n + 1) - 1} (compressed sparse row layout). Only the nearest-node
+ * grid index is kept on the heap, everything else is paged in by the operating system on demand.
+ * <p>
+ * File layout (big-endian): magic, version, node count, edge count, node longitudes and latitudes
+ * in 1e-7 degrees, edge offsets, edge targets, edge lengths in meters (float), edge access masks
+ * and car speeds in km/h (one byte each).
+ */
+public final class RoutingGraph {
+
+    /** File signature, "TPRG". */
+    static final int MAGIC = 0x54505247;
+    /** Version of the file layout. */
+    static final int VERSION = 1;
+    /** Number of fixed-point steps per degree of the stored coordinates. */
+    static final double SCALE = 1e7;
+
+    private static final int HEADER_SIZE = 16;
+    private static final double CELL_SIZE = 0.01;
+    private static final int CELLS_PER_COLUMN = (int) Math.ceil(180 / CELL_SIZE);
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final IntBuffer lons;
+    private final IntBuffer lats;
+    private final IntBuffer firstEdges;
+    private final IntBuffer targets;
+    private final FloatBuffer lengths;
+    private final ByteBuffer access;
+    private final ByteBuffer speeds;
+    private final byte[] nodeAccess;
+    private final int[] cellKeys;
+    private final int[] cellNodes;
+
+    private RoutingGraph(MappedByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Not a routing graph file of version " + VERSION);
+        }
+        nodeCount = buffer.getInt(8);
+        edgeCount = buffer.getInt(12);
+        int offset = HEADER_SIZE;
+        lons = slice(buffer, offset, nodeCount * 4L).asIntBuffer();
+        offset += nodeCount * 4;
+        lats = slice(buffer, offset, nodeCount * 4L).asIntBuffer();
+        offset += nodeCount * 4;
+        firstEdges = slice(buffer, offset, (nodeCount + 1) * 4L).asIntBuffer();
+        offset += (nodeCount + 1) * 4;
+        targets = slice(buffer, offset, edgeCount * 4L).asIntBuffer();
+        offset += edgeCount * 4;
+        lengths = slice(buffer, offset, edgeCount * 4L).asFloatBuffer();
+        offset += edgeCount * 4;
+        access = slice(buffer, offset, edgeCount);
+        offset += edgeCount;
+        speeds = slice(buffer, offset, edgeCount);
+
+        nodeAccess = new byte[nodeCount];
+        for (int n = 0; n < nodeCount; n++) {
+            int mask = 0;
+            for (int e = firstEdge(n); e < firstEdge(n + 1); e++) mask |= access(e);
+            nodeAccess[n] = (byte) mask;
+        }
+
+        // nodes sorted by grid cell, for nearest-node lookups
+        long[] packed = new long[nodeCount];
+        for (int n = 0; n < nodeCount; n++) {
+            packed[n] = ((long) cellKey(lon(n), lat(n)) << 32) | n;
+        }
+        Arrays.sort(packed);
+        cellKeys = new int[nodeCount];
+        cellNodes = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            cellKeys[i] = (int) (packed[i] >>> 32);
+            cellNodes[i] = (int) packed[i];
+        }
+    }
+
+    /**
+     * Maps a graph file into memory. Files are limited to 2 GiB, which holds roughly
+     * 80 million edges.
+     *
+     * @param file the graph file written by {@link OsmGraphCompiler}
+     * @return the routing graph
+     * @throws IOException if the file cannot be mapped
+     */
+    public static RoutingGraph open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new RoutingGraph(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, long length) {
+        return buffer.slice(offset, Math.toIntExact(length));
+    }
+
+    /**
+     * Gets the number of nodes.
+     *
+     * @return the node count
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Gets the number of directed edges.
+     *
+     * @return the edge count
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Gets the longitude of a node.
+     *
+     * @param node the node index
+     * @return the longitude in degrees
+     */
+    public double lon(int node) {
+        return lons.get(node) / SCALE;
+    }
+
+    /**
+     * Gets the latitude of a node.
+     *
+     * @param node the node index
+     * @return the latitude in degrees
+     */
+    public double lat(int node) {
+        return lats.get(node) / SCALE;
+    }
+
+    /**
+     * Gets the index of the first outgoing edge of a node.
+     *
+     * @param node the node index, or the node count for the end of the last node's edges
+     * @return the edge index
+     */
+    public int firstEdge(int node) {
+        return firstEdges.get(node);
+    }
+
+    /**
+     * Gets the node an edge leads to.
+     *
+     * @param edge the edge index
+     * @return the target node index
+     */
+    public int target(int edge) {
+        return targets.get(edge);
+    }
+
+    /**
+     * Gets the length of an edge.
+     *
+     * @param edge the edge index
+     * @return the length in meters
+     */
+    public double length(int edge) {
+        return lengths.get(edge);
+    }
+
+    /**
+     * Gets the profiles allowed to use an edge.
+     *
+     * @param edge the edge index
+     * @return the access mask, see {@link RoutingProfile#mask()}
+     */
+    public int access(int edge) {
+        return access.get(edge) & 0xFF;
+    }
+
+    /**
+     * Gets the car speed of an edge.
+     *
+     * @param edge the edge index
+     * @return the speed in km/h
+     */
+    public int speed(int edge) {
+        return speeds.get(edge) & 0xFF;
+    }
+
+    /**
+     * Finds the node closest to a coordinate that the given profile can leave.
+     * Grid cells are searched in growing rings around the coordinate.
+     *
+     * @param lon         the longitude in degrees
+     * @param lat         the latitude in degrees
+     * @param profile     the routing profile
+     * @param maxDistance the maximum distance between the coordinate and the node in meters
+     * @return the node index, or -1 if no usable node is within the maximum distance
+     */
+    public int nearestNode(double lon, double lat, RoutingProfile profile, double maxDistance) {
+        int column = column(lon);
+        int row = row(lat);
+        // one cell is at least this wide at the coordinate's latitude
+        double cellMeters = CELL_SIZE * 111_000 * Math.max(0.01, Math.cos(Math.toRadians(Math.abs(lat) + CELL_SIZE)));
+        int maxRing = (int) Math.ceil(maxDistance / cellMeters) + 1;
+
+        int best = -1;
+        double bestDistance = maxDistance;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (best >= 0 && (ring - 1) * cellMeters > bestDistance) break;
+            for (int c = column - ring; c <= column + ring; c++) {
+                for (int r = row - ring; r <= row + ring; r++) {
+                    if (Math.max(Math.abs(c - column), Math.abs(r - row)) != ring) continue;
+                    if (r < 0 || r >= CELLS_PER_COLUMN) continue;
+                    int key = Math.floorMod(c, 2 * CELLS_PER_COLUMN) * CELLS_PER_COLUMN + r;
+                    int i = lowerBound(key);
+                    for (; i < cellKeys.length && cellKeys[i] == key; i++) {
+                        int node = cellNodes[i];
+                        if ((nodeAccess[node] & profile.mask()) == 0) continue;
+                        double distance = GeometryUtils.haversine(lon, lat, lon(node), lat(node));
+                        if (distance <= bestDistance) {
+                            bestDistance = distance;
+                            best = node;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private int lowerBound(int key) {
+        int low = 0;
+        int high = cellKeys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cellKeys[mid] < key) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private static int cellKey(double lon, double lat) {
+        return Math.floorMod(column(lon), 2 * CELLS_PER_COLUMN) * CELLS_PER_COLUMN + Math.min(CELLS_PER_COLUMN - 1, row(lat));
+    }
+
+    private static int column(double lon) {
+        return (int) Math.floor((lon + 180) / CELL_SIZE);
+    }
+
+    private static int row(double lat) {
+        return (int) Math.floor((lat + 90) / CELL_SIZE);
+    }
+}
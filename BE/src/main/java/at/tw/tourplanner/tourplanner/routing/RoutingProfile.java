@@ -0,0 +1,73 @@
+package at.tw.tourplanner.tourplanner.routing;
+
+/**
+ * Profiles supported by the embedded router, one per OpenRouteService profile used by
+ * {@link at.tw.tourplanner.tourplanner.model.TransportMode}. Each profile owns one bit of the
+ * per-edge access mask in the routing graph.
+ */
+public enum RoutingProfile {
+    CAR("driving-car", 0, 130),
+    BICYCLE("cycling-regular", 1, 18),
+    FOOT("foot-walking", 2, 5),
+    WHEELCHAIR("wheelchair", 3, 4);
+
+    private final String orsProfile;
+    private final int accessBit;
+    private final int maxSpeed;
+
+    /**
+     * Constructor for RoutingProfile enum.
+     *
+     * @param orsProfile the matching OpenRouteService profile
+     * @param accessBit  the bit of the edge access mask for this profile
+     * @param maxSpeed   the highest speed in km/h the profile travels at
+     */
+    RoutingProfile(String orsProfile, int accessBit, int maxSpeed) {
+        this.orsProfile = orsProfile;
+        this.accessBit = accessBit;
+        this.maxSpeed = maxSpeed;
+    }
+
+    /**
+     * Gets the access mask bit of this profile.
+     *
+     * @return the bit set in an edge's access mask if the profile may use the edge
+     */
+    public int mask() {
+        return 1 << accessBit;
+    }
+
+    /**
+     * Gets the highest speed of this profile, used for the A* heuristic.
+     *
+     * @return the speed in meters per second
+     */
+    public double maxSpeedMetersPerSecond() {
+        return maxSpeed / 3.6;
+    }
+
+    /**
+     * Gets the speed at which the profile travels along an edge.
+     * Cars use the speed stored with the edge, all other profiles travel at a constant speed.
+     *
+     * @param edgeSpeed the car speed stored with the edge in km/h
+     * @return the speed in meters per second
+     */
+    public double speedMetersPerSecond(int edgeSpeed) {
+        return (this == CAR ? edgeSpeed : maxSpeed) / 3.6;
+    }
+
+    /**
+     * Converts an OpenRouteService profile string to the corresponding RoutingProfile.
+     *
+     * @param orsProfile the OpenRouteService profile, e.g. {@code driving-car}
+     * @return the matching RoutingProfile
+     * @throws IllegalArgumentException if the profile is unsupported
+     */
+    public static RoutingProfile fromOrsProfile(String orsProfile) {
+        for (RoutingProfile profile : values()) {
+            if (profile.orsProfile.equals(orsProfile)) return profile;
+        }
+        throw new IllegalArgumentException("Unsupported routing profile: " + orsProfile);
+    }
+}
@@ -0,0 +1,61 @@
+package at.tw.tourplanner.tourplanner.service;
+
+import at.tw.tourplanner.tourplanner.dto.CoordinateDTO;
+import at.tw.tourplanner.tourplanner.gazetteer.GazetteerIndex;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Local geocoder backed by a place-name gazetteer file loaded at startup.
+ * Without a configured file the gazetteer is empty and every lookup misses.
+ */
+@Service
+public class GazetteerService {
+
+    private static final Logger logger = LogManager.getLogger(GazetteerService.class);
+
+    private final GazetteerIndex index;
+
+    /**
+     * Constructs the GazetteerService and loads the gazetteer file.
+     *
+     * @param file the CSV or TSV gazetteer file, or blank to disable the local geocoder
+     * @throws IOException if the configured file cannot be loaded
+     */
+    public GazetteerService(@Value("${geocode.gazetteer.file:}") String file) throws IOException {
+        if (file.isBlank()) {
+            this.index = GazetteerIndex.empty();
+        } else {
+            long start = System.nanoTime();
+            this.index = GazetteerIndex.load(Path.of(file));
+            logger.info("Loaded {} gazetteer places with {} names in {} ms",
+                    index.size(), index.entryCount(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Resolves a normalized address if it is the name of exactly one gazetteer place,
+     * or clearly refers to the most populous of several places with that name.
+     *
+     * @param normalizedAddress the address normalized with {@link at.tw.tourplanner.tourplanner.util.AddressNormalizer}
+     * @return the coordinate of the place, or null if the gazetteer has no confident match
+     */
+    public CoordinateDTO lookup(String normalizedAddress) {
+        int place = index.find(normalizedAddress);
+        return place < 0 ? null : new CoordinateDTO(index.lon(place), index.lat(place));
+    }
+
+    /**
+     * Gets the loaded gazetteer index.
+     *
+     * @return the index, empty if no gazetteer file is configured
+     */
+    public GazetteerIndex getIndex() {
+        return index;
+    }
+}
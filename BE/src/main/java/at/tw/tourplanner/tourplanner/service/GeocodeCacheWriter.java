@@ -0,0 +1,43 @@
+package at.tw.tourplanner.tourplanner.service;
+
+import at.tw.tourplanner.tourplanner.model.GeocodeCacheEntry;
+import at.tw.tourplanner.tourplanner.repository.GeocodeCacheRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service writing geocode results to the persistent cache table off the request thread.
+ */
+@Service
+public class GeocodeCacheWriter {
+
+    private static final Logger logger = LogManager.getLogger(GeocodeCacheWriter.class);
+
+    private final GeocodeCacheRepository geocodeCacheRepository;
+
+    /**
+     * Constructs the GeocodeCacheWriter with the given repository.
+     *
+     * @param geocodeCacheRepository the repository holding persisted geocode results
+     */
+    public GeocodeCacheWriter(GeocodeCacheRepository geocodeCacheRepository) {
+        this.geocodeCacheRepository = geocodeCacheRepository;
+    }
+
+    /**
+     * Persists a geocode result in the background. Failures are logged and otherwise ignored,
+     * since the entry will simply be fetched from the provider again.
+     *
+     * @param entry the geocode result to persist
+     */
+    @Async
+    public void store(GeocodeCacheEntry entry) {
+        try {
+            geocodeCacheRepository.save(entry);
+        } catch (Exception e) {
+            logger.warn("Failed to persist geocode result for '{}': {}", entry.getNormalizedAddress(), e.getMessage());
+        }
+    }
+}
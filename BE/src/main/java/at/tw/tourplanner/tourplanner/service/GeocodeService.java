@@ -1,26 +1,116 @@
 package at.tw.tourplanner.tourplanner.service;
 
+import at.tw.tourplanner.tourplanner.cache.CacheResult;
+import at.tw.tourplanner.tourplanner.cache.CachedGeocode;
+import at.tw.tourplanner.tourplanner.cache.Caches;
+import at.tw.tourplanner.tourplanner.cache.InFlightRequests;
+import at.tw.tourplanner.tourplanner.client.OrsClient;
+import at.tw.tourplanner.tourplanner.client.OrsPriority;
+import at.tw.tourplanner.tourplanner.dto.BatchGeocodeResultDTO;
+import at.tw.tourplanner.tourplanner.dto.CacheStatsDTO;
 import at.tw.tourplanner.tourplanner.dto.CoordinateDTO;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import at.tw.tourplanner.tourplanner.dto.GeocodeStatus;
+import at.tw.tourplanner.tourplanner.model.GeocodeCacheEntry;
+import at.tw.tourplanner.tourplanner.repository.GeocodeCacheRepository;
+import at.tw.tourplanner.tourplanner.util.AddressNormalizer;
+import at.tw.tourplanner.tourplanner.util.Futures;
+import at.tw.tourplanner.tourplanner.util.OrsResponseParser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 /**
  * Service responsible for geocoding addresses using the OpenRouteService API.
+ * Addresses matching a place of the local gazetteer are resolved without any lookup. Other results are kept
+ * in a size- and TTL-bounded in-memory cache keyed by the normalized address, backed by a persistent cache
+ * table that survives restarts. If OpenRouteService cannot be reached, expired persisted results are served as stale.
  */
 @Service
 public class GeocodeService {
 
-    @Value("${openrouteservice.api-key}")
-    private String apiKey;
+    private static final Logger logger = LogManager.getLogger(GeocodeService.class);
+    private static final String PROVIDER = "openrouteservice";
+
+    private final OrsClient orsClient;
+    private final GazetteerService gazetteerService;
+    private final Cache<String, CachedGeocode> cache;
+    private final InFlightRequests<String, CacheResult<CoordinateDTO>> inFlight = new InFlightRequests<>();
+    private final GeocodeCacheRepository geocodeCacheRepository;
+    private final GeocodeCacheWriter geocodeCacheWriter;
+    private final Executor executor;
+    private final Duration persistentMaxAge;
+    private final int batchParallelism;
+
+    /**
+     * Constructs the GeocodeService and its in-memory cache.
+     * Eviction is frequency-aware (Window TinyLFU), so popular addresses survive bursts of one-off lookups.
+     *
+     * @param orsClient              the shared OpenRouteService client
+     * @param gazetteerService       the local gazetteer consulted before any cache or remote lookup
+     * @param geocodeCacheRepository the repository holding persisted geocode results
+     * @param geocodeCacheWriter     the writer persisting new results in the background
+     * @param executor               the executor running the blocking lookups in the cache table
+     * @param maxSize                the maximum number of cached addresses
+     * @param ttl                    how long a successful lookup is cached in memory
+     * @param negativeTtl            how long a lookup without result is cached in memory
+     * @param persistentMaxAge       how old a persisted result may be before it is fetched again
+     * @param batchParallelism       the maximum number of concurrent lookups per batch request
+     */
+    public GeocodeService(OrsClient orsClient,
+                          GazetteerService gazetteerService,
+                          GeocodeCacheRepository geocodeCacheRepository,
+                          GeocodeCacheWriter geocodeCacheWriter,
+                          @Qualifier("applicationTaskExecutor") Executor executor,
+                          @Value("${geocode.cache.max-size:10000}") long maxSize,
+                          @Value("${geocode.cache.ttl:7d}") Duration ttl,
+                          @Value("${geocode.cache.negative-ttl:10m}") Duration negativeTtl,
+                          @Value("${geocode.cache.persistent-max-age:180d}") Duration persistentMaxAge,
+                          @Value("${geocode.batch.parallelism:8}") int batchParallelism) {
+        this.orsClient = orsClient;
+        this.gazetteerService = gazetteerService;
+        this.geocodeCacheRepository = geocodeCacheRepository;
+        this.geocodeCacheWriter = geocodeCacheWriter;
+        this.executor = executor;
+        this.persistentMaxAge = persistentMaxAge;
+        this.batchParallelism = batchParallelism;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, CachedGeocode>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedGeocode value, long currentTime) {
+                        return (value.found() ? ttl : negativeTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedGeocode value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedGeocode value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
 
     /**
      * Retrieves geographic coordinates (longitude and latitude) for a given address.
@@ -30,27 +120,143 @@ public class GeocodeService {
      * @throws Exception if the HTTP request fails or response is invalid
      */
     public CoordinateDTO geocode(String address) throws Exception {
-        String encoded = URLEncoder.encode(address, StandardCharsets.UTF_8);
-        URL url = new URL("https://api.openrouteservice.org/geocode/search?api_key=" + apiKey + "&text=" + encoded);
+        return Futures.await(geocodeAsync(address)).value();
+    }
+
+    /**
+     * Retrieves geographic coordinates for a given address without blocking the calling thread.
+     * Addresses with a confident match in the local gazetteer are answered directly. Otherwise repeated
+     * lookups of the same normalized address are answered from the in-memory cache, then from the
+     * persistent cache table, and only then from OpenRouteService.
+     * Concurrent lookups of the same address share one pending request.
+     * If OpenRouteService fails, an expired persisted result is returned marked as stale.
+     *
+     * @param address the address to geocode
+     * @return a future completing with the coordinate, or with a null coordinate if no result found
+     */
+    public CompletableFuture<CacheResult<CoordinateDTO>> geocodeAsync(String address) {
+        return geocodeAsync(address, OrsPriority.INTERACTIVE);
+    }
 
-        HttpURLConnection con = (HttpURLConnection) url.openConnection();
-        con.setRequestMethod("GET");
+    /**
+     * Retrieves geographic coordinates for a given address with the given rate limiter priority.
+     *
+     * @param address  the address to geocode
+     * @param priority the priority of a resulting OpenRouteService request
+     * @return a future completing with the coordinate, or with a null coordinate if no result found
+     */
+    public CompletableFuture<CacheResult<CoordinateDTO>> geocodeAsync(String address, OrsPriority priority) {
+        String key = AddressNormalizer.normalize(address);
+        CoordinateDTO local = gazetteerService.lookup(key);
+        if (local != null) return CompletableFuture.completedFuture(CacheResult.fresh(local));
 
-        if (con.getResponseCode() != 200) {
-            throw new RuntimeException("Geocoding failed: HTTP " + con.getResponseCode());
-        }
+        CachedGeocode cached = cache.getIfPresent(key);
+        if (cached != null) return CompletableFuture.completedFuture(CacheResult.fresh(cached.toCoordinate()));
 
-        StringBuilder response = new StringBuilder();
-        try (BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream()))) {
-            String line;
-            while ((line = in.readLine()) != null) response.append(line);
+        return inFlight.submit(key, () -> load(key, address, priority));
+    }
+
+    /**
+     * Geocodes a list of addresses. Addresses with the same normalized form are looked up once,
+     * and at most {@code geocode.batch.parallelism} lookups run concurrently. Remote lookups are sent
+     * with background priority, so they only use rate limit capacity interactive requests leave spare.
+     *
+     * @param addresses the addresses to geocode
+     * @return a future completing with one result per input address, in input order
+     */
+    public CompletableFuture<List<BatchGeocodeResultDTO>> geocodeBatchAsync(List<String> addresses) {
+        Map<String, String> distinct = new LinkedHashMap<>();
+        for (String address : addresses) {
+            distinct.putIfAbsent(AddressNormalizer.normalize(address), address);
         }
 
-        JSONObject json = new JSONObject(response.toString());
-        JSONArray features = json.getJSONArray("features");
-        if (features.isEmpty()) return null;
+        Map<String, BatchGeocodeResultDTO> results = new ConcurrentHashMap<>();
+        List<Map.Entry<String, String>> lookups = new ArrayList<>(distinct.entrySet());
+        return Futures.forEachBounded(lookups, batchParallelism, lookup -> geocodeAsync(lookup.getValue(), OrsPriority.BACKGROUND)
+                .thenApply(CacheResult::value)
+                .handle((coordinate, failure) -> results.put(lookup.getKey(), failure != null
+                        ? new BatchGeocodeResultDTO(lookup.getValue(), GeocodeStatus.ERROR, null)
+                        : new BatchGeocodeResultDTO(lookup.getValue(), coordinate == null ? GeocodeStatus.NOT_FOUND : GeocodeStatus.OK, coordinate))))
+                .thenApply(done -> {
+                    List<BatchGeocodeResultDTO> ordered = new ArrayList<>(addresses.size());
+                    for (String address : addresses) {
+                        BatchGeocodeResultDTO result = results.get(AddressNormalizer.normalize(address));
+                        ordered.add(new BatchGeocodeResultDTO(address, result.getStatus(), result.getCoordinate()));
+                    }
+                    return ordered;
+                });
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the geocode cache.
+     *
+     * @return a snapshot of the cache statistics
+     */
+    public CacheStatsDTO getCacheStats() {
+        return Caches.stats(cache);
+    }
+
+    /**
+     * Resolves an address that is not in the in-memory cache, from the persistent cache table
+     * or from OpenRouteService, and stores the result in the in-memory cache.
+     * A persisted result older than the maximum age is only used, marked as stale, if OpenRouteService fails.
+     *
+     * @param key      the normalized address
+     * @param address  the address as entered by the user
+     * @param priority the priority of a resulting OpenRouteService request
+     * @return a future completing with the resolved coordinate, or with a null coordinate if no result found
+     */
+    private CompletableFuture<CacheResult<CoordinateDTO>> load(String key, String address, OrsPriority priority) {
+        return CompletableFuture.supplyAsync(() -> findPersisted(key), executor)
+                .thenCompose(persisted -> {
+                    Instant oldest = Instant.now().minus(persistentMaxAge);
+                    if (persisted.isPresent() && persisted.get().getFetchedAt() != null && persisted.get().getFetchedAt().isAfter(oldest)) {
+                        CoordinateDTO coordinate = new CoordinateDTO(persisted.get().getLon(), persisted.get().getLat());
+                        cache.put(key, CachedGeocode.of(coordinate));
+                        return CompletableFuture.completedFuture(CacheResult.fresh(coordinate));
+                    }
+                    return fetchGeocode(address, priority).handle((coordinate, failure) -> {
+                        if (failure == null) {
+                            cache.put(key, CachedGeocode.of(coordinate));
+                            if (coordinate != null) {
+                                geocodeCacheWriter.store(new GeocodeCacheEntry(key, address, coordinate.getLon(), coordinate.getLat(), PROVIDER, Instant.now()));
+                            }
+                            return CacheResult.fresh(coordinate);
+                        }
+                        if (persisted.isEmpty()) {
+                            throw failure instanceof CompletionException completion ? completion : new CompletionException(failure);
+                        }
+                        logger.warn("Serving stale geocode result for '{}': {}", key, Futures.unwrap(failure).getMessage());
+                        GeocodeCacheEntry entry = persisted.get();
+                        return CacheResult.stale(new CoordinateDTO(entry.getLon(), entry.getLat()), entry.getFetchedAt());
+                    });
+                });
+    }
+
+    /**
+     * Looks up a persisted geocode result regardless of its age.
+     * Database errors are treated as a miss so geocoding keeps working without the cache table.
+     *
+     * @param key the normalized address
+     * @return the persisted entry, or empty if none exists
+     */
+    private Optional<GeocodeCacheEntry> findPersisted(String key) {
+        try {
+            return geocodeCacheRepository.findById(key);
+        } catch (Exception e) {
+            logger.warn("Failed to read persisted geocode result for '{}': {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
 
-        JSONArray coords = features.getJSONObject(0).getJSONObject("geometry").getJSONArray("coordinates");
-        return new CoordinateDTO(coords.getDouble(0), coords.getDouble(1));
+    /**
+     * Performs the actual geocode request against OpenRouteService.
+     *
+     * @param address  the address to geocode
+     * @param priority the priority of the request in the rate limiter
+     * @return a future completing with the coordinate of the first match, or with null if no result found
+     */
+    private CompletableFuture<CoordinateDTO> fetchGeocode(String address, OrsPriority priority) {
+        return orsClient.get("/geocode/search", Map.of("text", address), priority).thenApply(OrsResponseParser::readFirstPoint);
     }
 }
@@ -0,0 +1,199 @@
+package at.tw.tourplanner.tourplanner.service;
+
+import at.tw.tourplanner.tourplanner.cache.CachedMatrixCell;
+import at.tw.tourplanner.tourplanner.cache.Caches;
+import at.tw.tourplanner.tourplanner.cache.MatrixCellKey;
+import at.tw.tourplanner.tourplanner.cache.RouteKey;
+import at.tw.tourplanner.tourplanner.client.OrsClient;
+import at.tw.tourplanner.tourplanner.client.OrsPriority;
+import at.tw.tourplanner.tourplanner.dto.CacheStatsDTO;
+import at.tw.tourplanner.tourplanner.dto.CoordinateDTO;
+import at.tw.tourplanner.tourplanner.dto.MatrixResultDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service responsible for distance/duration matrices using the OpenRouteService matrix API.
+ * Every origin/destination cell is cached individually, so overlapping matrices only request
+ * the cells that are not cached yet.
+ */
+@Service
+public class MatrixService {
+
+    private final OrsClient orsClient;
+    private final Cache<MatrixCellKey, CachedMatrixCell> cache;
+    private final int maxCellsPerRequest;
+
+    /**
+     * Constructs the MatrixService and its cell cache.
+     *
+     * @param orsClient          the shared OpenRouteService client
+     * @param maxSize            the maximum number of cached cells
+     * @param ttl                how long a cell is cached
+     * @param maxCellsPerRequest the maximum number of cells OpenRouteService accepts in one matrix request
+     */
+    public MatrixService(OrsClient orsClient,
+                         @Value("${route.matrix.cache.max-size:100000}") long maxSize,
+                         @Value("${route.matrix.cache.ttl:1d}") Duration ttl,
+                         @Value("${route.matrix.max-cells-per-request:3500}") int maxCellsPerRequest) {
+        this.orsClient = orsClient;
+        this.maxCellsPerRequest = maxCellsPerRequest;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Computes the distance and duration from every source to every destination.
+     * Cached cells are used directly; the missing ones are requested from OpenRouteService,
+     * split into several requests if they exceed the per-request cell limit.
+     *
+     * @param sources      the origin coordinates, one per matrix row
+     * @param destinations the destination coordinates, one per matrix column
+     * @param profile      transport mode profile for OpenRouteService
+     * @return a future completing with the distance and duration matrices
+     */
+    public CompletableFuture<MatrixResultDTO> getMatrixAsync(List<CoordinateDTO> sources, List<CoordinateDTO> destinations, String profile) {
+        List<Point> sourcePoints = sources.stream().map(Point::of).toList();
+        List<Point> destinationPoints = destinations.stream().map(Point::of).toList();
+        Double[][] distances = new Double[sourcePoints.size()][destinationPoints.size()];
+        Double[][] durations = new Double[sourcePoints.size()][destinationPoints.size()];
+
+        Set<Point> missingSources = new LinkedHashSet<>();
+        Set<Point> missingDestinations = new LinkedHashSet<>();
+        for (int i = 0; i < sourcePoints.size(); i++) {
+            for (int j = 0; j < destinationPoints.size(); j++) {
+                CachedMatrixCell cell = cache.getIfPresent(cellKey(sourcePoints.get(i), destinationPoints.get(j), profile));
+                if (cell != null) {
+                    distances[i][j] = cell.distance();
+                    durations[i][j] = cell.duration();
+                } else {
+                    missingSources.add(sourcePoints.get(i));
+                    missingDestinations.add(destinationPoints.get(j));
+                }
+            }
+        }
+        if (missingSources.isEmpty()) {
+            return CompletableFuture.completedFuture(new MatrixResultDTO(distances, durations));
+        }
+
+        Map<MatrixCellKey, CachedMatrixCell> fetched = new ConcurrentHashMap<>();
+        List<Point> rows = new ArrayList<>(missingSources);
+        List<Point> columns = new ArrayList<>(missingDestinations);
+        int columnChunk = Math.min(columns.size(), maxCellsPerRequest);
+        int rowChunk = Math.max(1, maxCellsPerRequest / columnChunk);
+
+        List<CompletableFuture<Void>> requests = new ArrayList<>();
+        for (int r = 0; r < rows.size(); r += rowChunk) {
+            for (int c = 0; c < columns.size(); c += columnChunk) {
+                requests.add(requestCells(rows.subList(r, Math.min(r + rowChunk, rows.size())),
+                        columns.subList(c, Math.min(c + columnChunk, columns.size())), profile, fetched));
+            }
+        }
+
+        return CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            for (int i = 0; i < sourcePoints.size(); i++) {
+                for (int j = 0; j < destinationPoints.size(); j++) {
+                    if (distances[i][j] != null || durations[i][j] != null) continue;
+                    CachedMatrixCell cell = fetched.get(cellKey(sourcePoints.get(i), destinationPoints.get(j), profile));
+                    if (cell != null) {
+                        distances[i][j] = cell.distance();
+                        durations[i][j] = cell.duration();
+                    }
+                }
+            }
+            return new MatrixResultDTO(distances, durations);
+        });
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the matrix cell cache.
+     *
+     * @return a snapshot of the cache statistics
+     */
+    public CacheStatsDTO getCacheStats() {
+        return Caches.stats(cache);
+    }
+
+    /**
+     * Requests one block of cells from the OpenRouteService matrix API and caches every returned cell.
+     *
+     * @param rows    the origins of the block
+     * @param columns the destinations of the block
+     * @param profile transport mode profile for OpenRouteService
+     * @param fetched map collecting the cells fetched for the current matrix
+     * @return a future completing once the block has been cached
+     */
+    private CompletableFuture<Void> requestCells(List<Point> rows, List<Point> columns, String profile,
+                                                 Map<MatrixCellKey, CachedMatrixCell> fetched) {
+        JSONArray locations = new JSONArray();
+        JSONArray sourceIndices = new JSONArray();
+        JSONArray destinationIndices = new JSONArray();
+        for (Point row : rows) {
+            sourceIndices.put(locations.length());
+            locations.put(row.toJson());
+        }
+        for (Point column : columns) {
+            destinationIndices.put(locations.length());
+            locations.put(column.toJson());
+        }
+        String jsonInput = new JSONObject()
+                .put("locations", locations)
+                .put("sources", sourceIndices)
+                .put("destinations", destinationIndices)
+                .put("metrics", new JSONArray().put("distance").put("duration"))
+                .toString();
+
+        return orsClient.postJson("/v2/matrix/" + profile, jsonInput, OrsPriority.INTERACTIVE).thenAccept(body -> {
+            JSONObject json = new JSONObject(new String(body, StandardCharsets.UTF_8));
+            JSONArray distanceRows = json.getJSONArray("distances");
+            JSONArray durationRows = json.getJSONArray("durations");
+            for (int i = 0; i < rows.size(); i++) {
+                JSONArray distanceRow = distanceRows.getJSONArray(i);
+                JSONArray durationRow = durationRows.getJSONArray(i);
+                for (int j = 0; j < columns.size(); j++) {
+                    CachedMatrixCell cell = new CachedMatrixCell(
+                            distanceRow.isNull(j) ? null : distanceRow.getDouble(j),
+                            durationRow.isNull(j) ? null : durationRow.getDouble(j));
+                    MatrixCellKey key = cellKey(rows.get(i), columns.get(j), profile);
+                    cache.put(key, cell);
+                    fetched.put(key, cell);
+                }
+            }
+        });
+    }
+
+    private static MatrixCellKey cellKey(Point source, Point destination, String profile) {
+        return new MatrixCellKey(source.lon(), source.lat(), destination.lon(), destination.lat(), profile);
+    }
+
+    /**
+     * Coordinate quantized with the resolution of {@link RouteKey}.
+     */
+    private record Point(long lon, long lat) {
+
+        static Point of(CoordinateDTO coordinate) {
+            return new Point(RouteKey.quantize(coordinate.getLon()), RouteKey.quantize(coordinate.getLat()));
+        }
+
+        JSONArray toJson() {
+            return new JSONArray().put(RouteKey.toDegrees(lon)).put(RouteKey.toDegrees(lat));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package at.tw.tourplanner.tourplanner.service;
+
+import at.tw.tourplanner.tourplanner.geometry.GeometryCodec;
+import at.tw.tourplanner.tourplanner.model.RouteGeometry;
+import at.tw.tourplanner.tourplanner.repository.RouteGeometryRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Service storing route geometries in the compact {@link GeometryCodec} encoding.
+ * Geometries are keyed by the hash of their encoding, so a route shared by several tours is stored once.
+ * Recently read geometries are kept in memory in their encoded form.
+ */
+@Service
+public class RouteGeometryService {
+
+    private final RouteGeometryRepository repository;
+    private final int precision;
+    private final Cache<String, byte[]> cache;
+
+    /**
+     * Constructs the RouteGeometryService.
+     *
+     * @param repository the repository of the stored geometries
+     * @param precision  the number of decimals stored per coordinate value
+     * @param maxMemory  the approximate upper bound for the memory used by cached geometries
+     */
+    public RouteGeometryService(RouteGeometryRepository repository,
+                                @Value("${route.geometry.precision:6}") int precision,
+                                @Value("${route.geometry.cache.max-memory:16MB}") DataSize maxMemory) {
+        this.repository = repository;
+        this.precision = precision;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxMemory.toBytes())
+                .weigher((String hash, byte[] data) -> data.length)
+                .build();
+    }
+
+    /**
+     * Encodes and stores a geometry unless an equal geometry is already stored.
+     * If the same geometry is stored concurrently, e.g. by two route jobs of tours with the same route,
+     * the losing insert fails with a duplicate key and is treated as already stored.
+     *
+     * @param coordinates the interleaved coordinates of the line
+     * @return the hash referencing the stored geometry
+     */
+    public String store(double[] coordinates) {
+        byte[] data = GeometryCodec.encode(coordinates, precision);
+        String hash = GeometryCodec.hash(data);
+        if (cache.getIfPresent(hash) == null && !repository.existsById(hash)) {
+            try {
+                repository.save(new RouteGeometry(hash, data, coordinates.length / 2, Instant.now()));
+            } catch (DataIntegrityViolationException e) {
+                if (!repository.existsById(hash)) throw e;
+            }
+        }
+        cache.put(hash, data);
+        return hash;
+    }
+
+    /**
+     * Loads an encoded geometry.
+     *
+     * @param hash the hash referencing the geometry
+     * @return the encoded geometry, or empty if no geometry is stored under the hash
+     */
+    public Optional<byte[]> load(String hash) {
+        if (hash == null) return Optional.empty();
+        byte[] cached = cache.getIfPresent(hash);
+        if (cached != null) return Optional.of(cached);
+        Optional<byte[]> data = repository.findById(hash).map(RouteGeometry::getData);
+        data.ifPresent(d -> cache.put(hash, d));
+        return data;
+    }
+
+    /**
+     * Loads and decodes a geometry.
+     *
+     * @param hash the hash referencing the geometry
+     * @return the interleaved coordinates of the line, or empty if no geometry is stored under the hash
+     */
+    public Optional<double[]> coordinates(String hash) {
+        return load(hash).map(GeometryCodec::decode);
+    }
+
+    /**
+     * Loads and decodes several geometries, reading those not in memory with a single query.
+     * Callers loading many geometries should pass them in chunks to bound the query and the decoded result.
+     *
+     * @param hashes the hashes referencing the geometries
+     * @return the interleaved coordinates of the lines by hash; hashes without a stored geometry are missing
+     */
+    public Map<String, double[]> coordinates(Collection<String> hashes) {
+        Map<String, double[]> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String hash : hashes) {
+            byte[] cached = cache.getIfPresent(hash);
+            if (cached != null) result.put(hash, GeometryCodec.decode(cached));
+            else missing.add(hash);
+        }
+        if (missing.isEmpty()) return result;
+        for (RouteGeometry geometry : repository.findAllById(missing)) {
+            cache.put(geometry.getHash(), geometry.getData());
+            result.put(geometry.getHash(), GeometryCodec.decode(geometry.getData()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,123 @@
+package at.tw.tourplanner.tourplanner.service;
+
+import at.tw.tourplanner.tourplanner.cache.FileCache;
+import at.tw.tourplanner.tourplanner.geometry.RouteImageRenderer;
+import at.tw.tourplanner.tourplanner.model.Tour;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Service rendering PNG images of the stored tour routes.
+ * Images are rendered from the stored geometry on first request and cached on disk per geometry hash and
+ * size, so they are shared by tours with the same route and never have to be invalidated: a changed route
+ * has a new hash. A basemap is drawn from a local directory of raster tiles ({z}/{x}/{y}.png) if one is
+ * configured; tiles are never downloaded.
+ */
+@Service
+public class RouteImageService {
+
+    private static final Logger logger = LogManager.getLogger(RouteImageService.class);
+
+    /**
+     * Rendered image sizes.
+     */
+    public enum Size {
+        SMALL(320, 180),
+        MEDIUM(640, 360),
+        LARGE(1280, 720);
+
+        private final int width;
+        private final int height;
+
+        Size(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Parses a size name, ignoring case.
+         *
+         * @param name the size name, e.g. medium
+         * @return the size, or null if the name is unknown
+         */
+        public static Size fromString(String name) {
+            for (Size size : values()) {
+                if (size.name().equalsIgnoreCase(name)) return size;
+            }
+            return null;
+        }
+    }
+
+    private final RouteGeometryService routeGeometryService;
+    private final FileCache cache;
+    private final Path basemapDirectory;
+
+    /**
+     * Constructs the RouteImageService.
+     *
+     * @param routeGeometryService the store of the route geometries
+     * @param cacheDirectory       the directory of the image cache, blank to disable it
+     * @param basemapDirectory     the directory of the basemap tiles, blank for a plain background
+     */
+    public RouteImageService(RouteGeometryService routeGeometryService,
+                             @Value("${images.cache-dir:data/images}") String cacheDirectory,
+                             @Value("${images.basemap-dir:}") String basemapDirectory) {
+        this.routeGeometryService = routeGeometryService;
+        this.cache = new FileCache(cacheDirectory);
+        this.basemapDirectory = basemapDirectory == null || basemapDirectory.isBlank() ? null : Path.of(basemapDirectory);
+    }
+
+    /**
+     * Returns the image of a tour's route, from the disk cache if it was rendered before.
+     *
+     * @param tour the tour
+     * @param size the image size
+     * @return the image, or empty if the route has not been computed
+     */
+    public Optional<RouteImage> getImage(Tour tour, Size size) {
+        String hash = tour.getRouteGeometryHash();
+        if (hash == null) return Optional.empty();
+        String group = hash.substring(0, 2) + "/" + hash;
+        String name = size.name().toLowerCase() + ".png";
+        String version = hash + "-" + size.name().toLowerCase();
+        Optional<byte[]> cached = cache.read(group, name);
+        if (cached.isPresent()) return Optional.of(new RouteImage(cached.get(), hash, version));
+
+        Optional<double[]> coordinates = routeGeometryService.coordinates(hash);
+        if (coordinates.isEmpty() || coordinates.get().length < 2) return Optional.empty();
+        byte[] data = RouteImageRenderer.renderPng(coordinates.get(), size.width, size.height,
+                basemapDirectory == null ? null : this::basemapTile);
+        cache.write(group, name, data);
+        return Optional.of(new RouteImage(data, hash, version));
+    }
+
+    private BufferedImage basemapTile(int z, int x, int y) {
+        Path file = basemapDirectory.resolve(Integer.toString(z)).resolve(Integer.toString(x)).resolve(y + ".png");
+        if (!Files.isRegularFile(file)) return null;
+        try {
+            return ImageIO.read(file.toFile());
+        } catch (IOException e) {
+            logger.warn("Failed to read basemap tile {}/{}/{}: {}", z, x, y, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * A rendered route image.
+     *
+     * @param data         the PNG encoded image
+     * @param geometryHash the hash of the rendered route geometry
+     * @param version      the version of the image, usable as entity tag
+     */
+    public record RouteImage(byte[] data, String geometryHash, String version) {
+    }
+}
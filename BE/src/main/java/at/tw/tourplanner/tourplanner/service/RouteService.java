@@ -1,27 +1,71 @@
 package at.tw.tourplanner.tourplanner.service;
 
+import at.tw.tourplanner.tourplanner.cache.CacheResult;
+import at.tw.tourplanner.tourplanner.cache.CachedRoute;
+import at.tw.tourplanner.tourplanner.cache.Caches;
+import at.tw.tourplanner.tourplanner.cache.InFlightRequests;
+import at.tw.tourplanner.tourplanner.cache.RouteKey;
+import at.tw.tourplanner.tourplanner.client.OrsPriority;
+import at.tw.tourplanner.tourplanner.dto.CacheStatsDTO;
+import at.tw.tourplanner.tourplanner.dto.CoordinateDTO;
 import at.tw.tourplanner.tourplanner.dto.RouteResultDTO;
-import org.json.JSONObject;
+import at.tw.tourplanner.tourplanner.dto.WaypointRouteResultDTO;
+import at.tw.tourplanner.tourplanner.routing.RoutingBackend;
+import at.tw.tourplanner.tourplanner.util.Futures;
+import at.tw.tourplanner.tourplanner.util.OrsResponseParser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.util.Locale;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Service responsible for fetching routing information from the OpenRouteService API.
+ * Service responsible for fetching routing information from the configured {@link RoutingBackend}.
+ * Both the route summary and the GeoJSON are served from a single cached directions request,
+ * which may pass through any number of waypoints. Routes older than the cache TTL are kept for a while longer
+ * and served as stale if the routing backend fails while revalidating them.
  */
 @Service
 public class RouteService {
 
-    @Value("${openrouteservice.api-key}")
-    private String apiKey;
+    private final RoutingBackend routingBackend;
+    private final Cache<RouteKey, CachedRoute> cache;
+    private final Map<OrsPriority, InFlightRequests<RouteKey, CachedRoute>> inFlight = new EnumMap<>(OrsPriority.class);
+    private final Duration ttl;
+
+    /**
+     * Constructs the RouteService and its in-memory route cache.
+     *
+     * @param routingBackend the backend computing routes
+     * @param maxMemory      the approximate upper bound for the memory used by cached GeoJSON responses
+     * @param ttl            how long a cached route is served without revalidation
+     * @param staleTtl       how long after the TTL an expired route is kept as a fallback
+     */
+    public RouteService(RoutingBackend routingBackend,
+                        @Value("${route.cache.max-memory:64MB}") DataSize maxMemory,
+                        @Value("${route.cache.ttl:1d}") Duration ttl,
+                        @Value("${route.cache.stale-ttl:7d}") Duration staleTtl) {
+        this.routingBackend = routingBackend;
+        this.ttl = ttl;
+        for (OrsPriority priority : OrsPriority.values()) {
+            inFlight.put(priority, new InFlightRequests<>());
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxMemory.toBytes())
+                .weigher((RouteKey key, CachedRoute route) -> route.geoJson().length)
+                .expireAfterWrite(ttl.plus(staleTtl))
+                .recordStats()
+                .build();
+    }
 
     /**
      * Retrieves route summary (distance and duration) between two coordinates.
@@ -35,37 +79,22 @@ public class RouteService {
      * @throws Exception if the HTTP request or JSON parsing fails
      */
     public RouteResultDTO getRoute(double startLon, double startLat, double endLon, double endLat, String profile) throws Exception {
-        URL url = new URL("https://api.openrouteservice.org/v2/directions/" + profile);
-        HttpURLConnection con = (HttpURLConnection) url.openConnection();
-
-        con.setRequestMethod("POST");
-        con.setRequestProperty("Authorization", apiKey);
-        con.setRequestProperty("Content-Type", "application/json");
-        con.setDoOutput(true);
-
-        String jsonInput = String.format(Locale.US, """
-                {
-                  "coordinates": [
-                    [%f, %f],
-                    [%f, %f]
-                  ]
-                }
-                """, startLon, startLat, endLon, endLat);
-
-        try (OutputStream os = con.getOutputStream()) {
-            os.write(jsonInput.getBytes(StandardCharsets.UTF_8));
-        }
-
-        StringBuilder response = new StringBuilder();
-        try (BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream()))) {
-            String line;
-            while ((line = in.readLine()) != null) response.append(line);
-        }
-
-        JSONObject json = new JSONObject(response.toString());
-        JSONObject summary = json.getJSONArray("routes").getJSONObject(0).getJSONObject("summary");
+        return Futures.await(getRouteAsync(startLon, startLat, endLon, endLat, profile)).value();
+    }
 
-        return new RouteResultDTO(summary.getDouble("distance"), summary.getDouble("duration"));
+    /**
+     * Retrieves route summary (distance and duration) between two coordinates without blocking the calling thread.
+     *
+     * @param startLon start longitude
+     * @param startLat start latitude
+     * @param endLon   end longitude
+     * @param endLat   end latitude
+     * @param profile  transport mode profile for OpenRouteService
+     * @return a future completing with the distance (in meters) and duration (in seconds) and whether they are stale
+     */
+    public CompletableFuture<CacheResult<RouteResultDTO>> getRouteAsync(double startLon, double startLat, double endLon, double endLat, String profile) {
+        return fetchRoute(RouteKey.of(startLon, startLat, endLon, endLat, profile), OrsPriority.INTERACTIVE)
+                .thenApply(result -> result.map(route -> new RouteResultDTO(route.distance(), route.duration())));
     }
 
     /**
@@ -80,40 +109,103 @@ public class RouteService {
      * @throws Exception if the HTTP request fails
      */
     public String getRouteGeoJson(double startLon, double startLat, double endLon, double endLat, String profile) throws Exception {
-        URL url = new URL("https://api.openrouteservice.org/v2/directions/" + profile + "/geojson");
-        HttpURLConnection con = (HttpURLConnection) url.openConnection();
+        return new String(Futures.await(getRouteGeoJsonAsync(startLon, startLat, endLon, endLat, profile, OrsPriority.INTERACTIVE)).value(), StandardCharsets.UTF_8);
+    }
 
-        con.setRequestMethod("POST");
-        con.setRequestProperty("Authorization", apiKey);
-        con.setRequestProperty("Content-Type", "application/json");
-        con.setDoOutput(true);
+    /**
+     * Retrieves the GeoJSON route data between two coordinates without blocking the calling thread.
+     * The returned bytes are shared with the cache and must not be modified.
+     *
+     * @param startLon start longitude
+     * @param startLat start latitude
+     * @param endLon   end longitude
+     * @param endLat   end latitude
+     * @param profile  transport mode profile for OpenRouteService
+     * @param priority the priority of a directions request in the rate limiter
+     * @return a future completing with the UTF-8 encoded GeoJSON route and whether it is stale
+     */
+    public CompletableFuture<CacheResult<byte[]>> getRouteGeoJsonAsync(double startLon, double startLat, double endLon, double endLat, String profile,
+                                                                     OrsPriority priority) {
+        return fetchRoute(RouteKey.of(startLon, startLat, endLon, endLat, profile), priority).thenApply(result -> result.map(CachedRoute::geoJson));
+    }
 
-        String jsonInput = String.format(Locale.US, """
-        {
-          "coordinates": [
-            [%f, %f],
-            [%f, %f]
-          ]
-        }
-        """, startLon, startLat, endLon, endLat);
+    /**
+     * Retrieves the total and per-leg summaries of a route through an ordered list of waypoints
+     * with a single directions request.
+     *
+     * @param waypoints the waypoints, including start and end
+     * @param profile   transport mode profile for OpenRouteService
+     * @return a future completing with the total distance and duration, one summary per leg and whether they are stale
+     */
+    public CompletableFuture<CacheResult<WaypointRouteResultDTO>> getRouteAsync(List<CoordinateDTO> waypoints, String profile) {
+        return fetchRoute(RouteKey.of(waypoints, profile), OrsPriority.INTERACTIVE).thenApply(result -> result.map(route -> {
+            List<RouteResultDTO> legs = new ArrayList<>(route.legDistances().length);
+            for (int i = 0; i < route.legDistances().length; i++) {
+                legs.add(new RouteResultDTO(route.legDistances()[i], route.legDurations()[i]));
+            }
+            return new WaypointRouteResultDTO(route.distance(), route.duration(), legs);
+        }));
+    }
 
-        try (OutputStream os = con.getOutputStream()) {
-            os.write(jsonInput.getBytes(StandardCharsets.UTF_8));
-        }
+    /**
+     * Retrieves the GeoJSON route data through an ordered list of waypoints.
+     * The returned bytes are shared with the cache and must not be modified.
+     *
+     * @param waypoints the waypoints, including start and end
+     * @param profile   transport mode profile for OpenRouteService
+     * @param priority  the priority of a directions request in the rate limiter
+     * @return a future completing with the UTF-8 encoded GeoJSON route and whether it is stale
+     */
+    public CompletableFuture<CacheResult<byte[]>> getRouteGeoJsonAsync(List<CoordinateDTO> waypoints, String profile, OrsPriority priority) {
+        return fetchRoute(RouteKey.of(waypoints, profile), priority).thenApply(result -> result.map(CachedRoute::geoJson));
+    }
 
-        int responseCode = con.getResponseCode();
-        if (responseCode != 200) {
-            throw new RuntimeException("GeoJSON route request failed: HTTP " + responseCode);
-        }
+    /**
+     * Returns the hit, miss and eviction counters of the route cache.
+     *
+     * @return a snapshot of the cache statistics
+     */
+    public CacheStatsDTO getCacheStats() {
+        return Caches.stats(cache);
+    }
 
-        StringBuilder response = new StringBuilder();
-        try (BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream()))) {
-            String line;
-            while ((line = in.readLine()) != null) {
-                response.append(line);
-            }
+    /**
+     * Returns the cached route for the given key, requesting it from the routing backend on a miss.
+     * Concurrent misses for the same key and priority share one pending request, so an interactive request
+     * never waits behind a background one. A route older than the TTL is revalidated; if that fails, the old
+     * route is returned marked as stale.
+     *
+     * @param key      the quantized route key
+     * @param priority the priority of a directions request in the rate limiter
+     * @return a future completing with the cached route
+     */
+    private CompletableFuture<CacheResult<CachedRoute>> fetchRoute(RouteKey key, OrsPriority priority) {
+        CachedRoute cached = cache.getIfPresent(key);
+        if (cached != null && cached.fetchedAt().plus(ttl).isAfter(Instant.now())) {
+            return CompletableFuture.completedFuture(CacheResult.fresh(cached));
         }
 
-        return response.toString();
+        CompletableFuture<CacheResult<CachedRoute>> loaded = inFlight.get(priority).submit(key, () -> loadRoute(key, priority)).thenApply(CacheResult::fresh);
+        if (cached == null) return loaded;
+        return loaded.handle((result, failure) -> failure == null ? result : CacheResult.stale(cached, cached.fetchedAt()));
+    }
+
+    /**
+     * Requests a route in the OpenRouteService GeoJSON layout from the routing backend and stores it in the cache.
+     * The summary is contained in the feature properties, so one request serves both endpoints. Only the
+     * summary and the segments are parsed; the geometry is kept as raw bytes.
+     *
+     * @param key      the quantized route key
+     * @param priority the priority of the directions request in the rate limiter
+     * @return a future completing with the loaded route
+     */
+    private CompletableFuture<CachedRoute> loadRoute(RouteKey key, OrsPriority priority) {
+        return routingBackend.directions(key, priority).thenApply(geoJson -> {
+            OrsResponseParser.RouteSummary summary = OrsResponseParser.readRouteSummary(geoJson);
+            CachedRoute route = new CachedRoute(geoJson, summary.distance(), summary.duration(),
+                    summary.legDistances(), summary.legDurations(), Instant.now());
+            cache.put(key, route);
+            return route;
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,139 @@
+package at.tw.tourplanner.tourplanner.service;
+
+import at.tw.tourplanner.tourplanner.dto.CoordinateDTO;
+import at.tw.tourplanner.tourplanner.dto.SuggestionDTO;
+import at.tw.tourplanner.tourplanner.gazetteer.GazetteerIndex;
+import at.tw.tourplanner.tourplanner.model.GeocodeCacheEntry;
+import at.tw.tourplanner.tourplanner.model.Tour;
+import at.tw.tourplanner.tourplanner.repository.GeocodeCacheRepository;
+import at.tw.tourplanner.tourplanner.repository.TourRepository;
+import at.tw.tourplanner.tourplanner.suggest.SuggestionIndex;
+import at.tw.tourplanner.tourplanner.util.AddressNormalizer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service answering address completions from an in-memory prefix index.
+ * The index is an immutable snapshot of the tour locations, the previously geocoded addresses and the
+ * gazetteer places. It is rebuilt in the background and swapped atomically, so a completion never waits
+ * for the database.
+ */
+@Service
+public class SuggestService {
+
+    private static final Logger logger = LogManager.getLogger(SuggestService.class);
+    private static final double TOUR_WEIGHT = 2;
+    private static final double GEOCODED_WEIGHT = 1;
+    private static final double GAZETTEER_WEIGHT = 0.1;
+
+    private final TourRepository tourRepository;
+    private final GeocodeCacheRepository geocodeCacheRepository;
+    private final GazetteerService gazetteerService;
+    private volatile SuggestionIndex index = SuggestionIndex.empty();
+
+    /**
+     * Constructs the SuggestService.
+     *
+     * @param tourRepository         the repository of the tours whose locations are suggested
+     * @param geocodeCacheRepository the repository of the previously geocoded addresses
+     * @param gazetteerService       the local gazetteer whose places are suggested
+     */
+    public SuggestService(TourRepository tourRepository,
+                          GeocodeCacheRepository geocodeCacheRepository,
+                          GazetteerService gazetteerService) {
+        this.tourRepository = tourRepository;
+        this.geocodeCacheRepository = geocodeCacheRepository;
+        this.gazetteerService = gazetteerService;
+    }
+
+    /**
+     * Returns the best-ranked completions of a prefix. Addresses used by many tours rank first,
+     * followed by geocoded addresses and gazetteer places by population.
+     *
+     * @param prefix the text entered so far
+     * @param limit  the maximum number of completions
+     * @return the completions, best first
+     */
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        String key = AddressNormalizer.normalize(prefix);
+        if (key.isEmpty()) return List.of();
+
+        List<SuggestionIndex.Suggestion> completions = index.complete(key, limit);
+        List<SuggestionDTO> result = new ArrayList<>(completions.size());
+        for (SuggestionIndex.Suggestion completion : completions) {
+            CoordinateDTO coordinate = Double.isNaN(completion.lon()) ? null : new CoordinateDTO(completion.lon(), completion.lat());
+            result.add(new SuggestionDTO(completion.text(), coordinate));
+        }
+        return result;
+    }
+
+    /**
+     * Rebuilds the index snapshot. If the database cannot be read, the previous snapshot stays in use.
+     */
+    @Scheduled(initialDelayString = "PT0S", fixedDelayString = "${suggest.refresh-interval:PT1M}")
+    public void refresh() {
+        try {
+            Map<String, Candidate> candidates = new HashMap<>();
+            for (Tour tour : tourRepository.findAllWithWaypoints()) {
+                addTourLocation(candidates, tour.getFromLocation());
+                addTourLocation(candidates, tour.getToLocation());
+                if (tour.getWaypoints() != null) tour.getWaypoints().forEach(location -> addTourLocation(candidates, location));
+            }
+            for (GeocodeCacheEntry entry : geocodeCacheRepository.findAll()) {
+                Candidate candidate = candidates.computeIfAbsent(entry.getNormalizedAddress(), key -> new Candidate(entry.getQuery()));
+                candidate.score += GEOCODED_WEIGHT;
+                candidate.setCoordinate(entry.getLon(), entry.getLat());
+            }
+            GazetteerIndex gazetteer = gazetteerService.getIndex();
+            for (int place = 0; place < gazetteer.size(); place++) {
+                String name = gazetteer.name(place);
+                String key = AddressNormalizer.normalize(name);
+                if (key.isEmpty()) continue;
+                Candidate candidate = candidates.computeIfAbsent(key, k -> new Candidate(name));
+                candidate.score += GAZETTEER_WEIGHT * Math.log10(1 + gazetteer.population(place));
+                candidate.setCoordinate(gazetteer.lon(place), gazetteer.lat(place));
+            }
+
+            List<SuggestionIndex.Suggestion> suggestions = new ArrayList<>(candidates.size());
+            candidates.forEach((key, candidate) -> suggestions.add(
+                    new SuggestionIndex.Suggestion(key, candidate.text, candidate.lon, candidate.lat, candidate.score)));
+            index = SuggestionIndex.of(suggestions);
+        } catch (Exception e) {
+            logger.warn("Failed to rebuild the suggestion index: {}", e.getMessage());
+        }
+    }
+
+    private static void addTourLocation(Map<String, Candidate> candidates, String location) {
+        String key = AddressNormalizer.normalize(location);
+        if (key.isEmpty()) return;
+        candidates.computeIfAbsent(key, k -> new Candidate(location.trim())).score += TOUR_WEIGHT;
+    }
+
+    /**
+     * Mutable accumulator for one suggestion while the snapshot is built.
+     */
+    private static final class Candidate {
+        String text;
+        double lon = Double.NaN;
+        double lat = Double.NaN;
+        double score;
+
+        Candidate(String text) {
+            this.text = text;
+        }
+
+        void setCoordinate(double lon, double lat) {
+            if (Double.isNaN(this.lon)) {
+                this.lon = lon;
+                this.lat = lat;
+            }
+        }
+    }
+}
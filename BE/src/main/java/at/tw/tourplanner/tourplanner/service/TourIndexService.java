@@ -0,0 +1,254 @@
+package at.tw.tourplanner.tourplanner.service;
+
+import at.tw.tourplanner.tourplanner.dto.TourClusterDTO;
+import at.tw.tourplanner.tourplanner.dto.TourLocationDTO;
+import at.tw.tourplanner.tourplanner.geometry.TourClusterIndex;
+import at.tw.tourplanner.tourplanner.geometry.TourPointIndex;
+import at.tw.tourplanner.tourplanner.geometry.TourSegmentIndex;
+import at.tw.tourplanner.tourplanner.model.Tour;
+import at.tw.tourplanner.tourplanner.repository.TourRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Service answering spatial queries over the tours from in-memory indexes: one over their start and end
+ * points, one over the grid cells their routes pass through and a cluster hierarchy of their start points. The indexes are built from the database on
+ * startup and kept up to date by the tour writes: tours are added once their route (and with it their
+ * coordinates) has been computed and removed when their locations change or they are deleted.
+ */
+@Service
+public class TourIndexService {
+
+    private static final Logger logger = LogManager.getLogger(TourIndexService.class);
+
+    /** Number of route geometries read per query when the index is rebuilt. */
+    static final int GEOMETRY_BATCH_SIZE = 500;
+
+    private final TourRepository tourRepository;
+    private final RouteGeometryService routeGeometryService;
+    private final TourPointIndex points;
+    private final TourSegmentIndex routes;
+    private final TourClusterIndex clusters;
+
+    /**
+     * Constructs the TourIndexService.
+     *
+     * @param tourRepository       the repository of the tours, read on startup
+     * @param routeGeometryService the store of the route geometries, read when routes are indexed and queried
+     * @param cellSize             the width and height of a grid cell of the point index in degrees
+     * @param segmentCellSize      the width and height of a grid cell of the route index in degrees
+     * @param clusterMaxZoom       the deepest zoom level with its own clusters
+     */
+    public TourIndexService(TourRepository tourRepository,
+                            RouteGeometryService routeGeometryService,
+                            @Value("${tour.index.cell-size:0.05}") double cellSize,
+                            @Value("${tour.index.segment-cell-size:0.02}") double segmentCellSize,
+                            @Value("${tour.clusters.max-zoom:16}") int clusterMaxZoom) {
+        this.tourRepository = tourRepository;
+        this.routeGeometryService = routeGeometryService;
+        this.points = new TourPointIndex(cellSize);
+        this.routes = new TourSegmentIndex(segmentCellSize, hash -> routeGeometryService.coordinates(hash).orElse(null));
+        this.clusters = new TourClusterIndex(clusterMaxZoom);
+    }
+
+    /**
+     * Loads the coordinates and routes of all tours into the indexes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            List<Tour> tours = tourRepository.findAll();
+            List<TourPointIndex.Entry> entries = tours.stream().map(TourIndexService::entry).filter(Objects::nonNull).toList();
+            points.reset(entries);
+            entries.forEach(entry -> clusters.put(entry.name(), entry.fromLon(), entry.fromLat()));
+            indexRoutes(tours);
+            logger.info("Indexed {} tours and {} routes", points.size(), routes.size());
+        } catch (Exception e) {
+            logger.warn("Failed to build the tour index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Updates the indexes after a tour was written.
+     *
+     * @param tour the saved tour
+     */
+    public void update(Tour tour) {
+        TourPointIndex.Entry entry = entry(tour);
+        if (entry == null) {
+            points.remove(tour.getName());
+            clusters.remove(tour.getName());
+        } else {
+            points.put(entry);
+            clusters.put(entry.name(), entry.fromLon(), entry.fromLat());
+        }
+        updateRoute(tour);
+    }
+
+    /**
+     * Removes a deleted tour from the indexes.
+     *
+     * @param name the name of the tour
+     */
+    public void remove(String name) {
+        points.remove(name);
+        routes.remove(name);
+        clusters.remove(name);
+    }
+
+    /**
+     * Finds the tours starting or ending within a distance of a coordinate.
+     *
+     * @param lon      the longitude in degrees
+     * @param lat      the latitude in degrees
+     * @param radius   the maximum distance in meters
+     * @param endpoint which points of the tours are matched
+     * @param limit    the maximum number of results
+     * @return the closest matching tours with their distance, nearest first
+     */
+    public List<TourLocationDTO> near(double lon, double lat, double radius, TourPointIndex.Endpoint endpoint, int limit) {
+        return points.near(lon, lat, radius, endpoint, limit).stream()
+                .map(match -> dto(match.entry(), match.distance()))
+                .toList();
+    }
+
+    /**
+     * Finds the tours starting or ending inside a bounding box.
+     *
+     * @param minLon   the western longitude
+     * @param minLat   the southern latitude
+     * @param maxLon   the eastern longitude, less than minLon for boxes crossing the antimeridian
+     * @param maxLat   the northern latitude
+     * @param endpoint which points of the tours are matched
+     * @param limit    the maximum number of results
+     * @return up to {@code limit} matching tours
+     */
+    public List<TourLocationDTO> within(double minLon, double minLat, double maxLon, double maxLat,
+                                        TourPointIndex.Endpoint endpoint, int limit) {
+        return points.within(minLon, minLat, maxLon, maxLat, endpoint, limit).stream()
+                .map(entry -> dto(entry, null))
+                .toList();
+    }
+
+    /**
+     * Finds the tours whose route passes within a distance of a coordinate.
+     *
+     * @param lon    the longitude in degrees
+     * @param lat    the latitude in degrees
+     * @param radius the maximum distance in meters
+     * @param limit  the maximum number of results
+     * @return the closest matching tours with the distance of their route, nearest first
+     */
+    public List<TourLocationDTO> passingNear(double lon, double lat, double radius, int limit) {
+        List<TourLocationDTO> result = new ArrayList<>();
+        for (TourSegmentIndex.Match match : routes.near(lon, lat, radius, limit)) {
+            TourPointIndex.Entry entry = points.get(match.name());
+            if (entry != null) result.add(dto(entry, match.distance()));
+        }
+        return result;
+    }
+
+    /**
+     * Finds the tours whose route crosses a bounding box.
+     *
+     * @param minLon the western longitude
+     * @param minLat the southern latitude
+     * @param maxLon the eastern longitude
+     * @param maxLat the northern latitude
+     * @param limit  the maximum number of results
+     * @return up to {@code limit} matching tours
+     */
+    public List<TourLocationDTO> crossing(double minLon, double minLat, double maxLon, double maxLat, int limit) {
+        List<TourLocationDTO> result = new ArrayList<>();
+        for (String name : routes.crossing(minLon, minLat, maxLon, maxLat, limit)) {
+            TourPointIndex.Entry entry = points.get(name);
+            if (entry != null) result.add(dto(entry, null));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the clusters of tour start points for a map view.
+     *
+     * @param minLon          the western longitude of the view
+     * @param minLat          the southern latitude of the view
+     * @param maxLon          the eastern longitude of the view, less than minLon across the antimeridian
+     * @param maxLat          the northern latitude of the view
+     * @param zoom            the map zoom level
+     * @param representatives the maximum number of tour names per cluster
+     * @param limit           the maximum number of clusters
+     * @return the clusters, largest first
+     */
+    public List<TourClusterDTO> clusters(double minLon, double minLat, double maxLon, double maxLat, int zoom,
+                                         int representatives, int limit) {
+        return clusters.clusters(minLon, minLat, maxLon, maxLat, zoom, representatives, limit).stream()
+                .map(cluster -> new TourClusterDTO(cluster.lon(), cluster.lat(), cluster.count(), cluster.names()))
+                .toList();
+    }
+
+    /**
+     * Returns the routes that may cross a bounding box, from the route index without loading geometries,
+     * e.g. to version a map tile before drawing it.
+     *
+     * @param minLon the western longitude
+     * @param minLat the southern latitude
+     * @param maxLon the eastern longitude
+     * @param maxLat the northern latitude
+     * @return the routes passing through the grid cells of the box, ordered by tour name
+     */
+    public List<TourSegmentIndex.IndexedRoute> routeCandidates(double minLon, double minLat, double maxLon, double maxLat) {
+        return routes.candidateRoutes(minLon, minLat, maxLon, maxLat);
+    }
+
+    /**
+     * Adds the routes of many tours to the route index, loading each distinct geometry once and in batches
+     * instead of one query per tour.
+     */
+    private void indexRoutes(List<Tour> tours) {
+        Map<String, List<String>> namesByHash = new LinkedHashMap<>();
+        for (Tour tour : tours) {
+            if (tour.getRouteGeometryHash() == null) routes.remove(tour.getName());
+            else namesByHash.computeIfAbsent(tour.getRouteGeometryHash(), hash -> new ArrayList<>()).add(tour.getName());
+        }
+        List<String> hashes = new ArrayList<>(namesByHash.keySet());
+        for (int from = 0; from < hashes.size(); from += GEOMETRY_BATCH_SIZE) {
+            List<String> batch = hashes.subList(from, Math.min(from + GEOMETRY_BATCH_SIZE, hashes.size()));
+            Map<String, double[]> loaded = routeGeometryService.coordinates(batch);
+            for (String hash : batch) {
+                double[] coordinates = loaded.get(hash);
+                for (String name : namesByHash.get(hash)) {
+                    if (coordinates == null) routes.remove(name);
+                    else routes.put(name, hash, coordinates);
+                }
+            }
+        }
+    }
+
+    private void updateRoute(Tour tour) {
+        String hash = tour.getRouteGeometryHash();
+        double[] coordinates = hash == null ? null : routeGeometryService.coordinates(hash).orElse(null);
+        if (coordinates == null) routes.remove(tour.getName());
+        else routes.put(tour.getName(), hash, coordinates);
+    }
+
+    private static TourPointIndex.Entry entry(Tour tour) {
+        if (tour.getFromLon() == null || tour.getFromLat() == null || tour.getToLon() == null || tour.getToLat() == null) {
+            return null;
+        }
+        return new TourPointIndex.Entry(tour.getName(), tour.getFromLon(), tour.getFromLat(), tour.getToLon(), tour.getToLat());
+    }
+
+    private static TourLocationDTO dto(TourPointIndex.Entry entry, Double distance) {
+        return new TourLocationDTO(entry.name(), entry.fromLon(), entry.fromLat(), entry.toLon(), entry.toLat(), distance);
+    }
+}
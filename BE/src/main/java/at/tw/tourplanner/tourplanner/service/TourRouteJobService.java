@@ -0,0 +1,309 @@
+package at.tw.tourplanner.tourplanner.service;
+
+import at.tw.tourplanner.tourplanner.client.OrsPriority;
+import at.tw.tourplanner.tourplanner.dto.RouteJobState;
+import at.tw.tourplanner.tourplanner.dto.RouteJobStatusDTO;
+import at.tw.tourplanner.tourplanner.model.Tour;
+import at.tw.tourplanner.tourplanner.repository.TourRepository;
+import at.tw.tourplanner.tourplanner.util.Futures;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background pipeline precomputing the routes of created and updated tours.
+ * Jobs wait in a FIFO queue holding each tour at most once, and at most {@code concurrency} jobs run at a
+ * time. A tour edited while its job is queued keeps its place in the queue; a tour edited while its job is
+ * running is queued again once the running attempt finishes, since that attempt computes the old route.
+ * Failed attempts are retried with exponential backoff and jitter, except for tours whose locations cannot
+ * be found or whose transport type is not supported. Finished jobs are forgotten after a retention period.
+ */
+@Service
+public class TourRouteJobService {
+
+    private static final Logger logger = LogManager.getLogger(TourRouteJobService.class);
+
+    private final TourRouteService tourRouteService;
+    private final TourRepository tourRepository;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final int concurrency;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration retention;
+    private final boolean backfillOnStartup;
+
+    private final LinkedHashSet<String> queue = new LinkedHashSet<>();
+    private final Map<String, Job> jobs = new HashMap<>();
+    private int running;
+
+    /**
+     * Constructs the TourRouteJobService.
+     *
+     * @param tourRouteService  the service computing and storing a tour's route
+     * @param tourRepository    the repository of the tours, used to find tours without route on startup
+     * @param executor          the executor starting the jobs
+     * @param concurrency       the maximum number of jobs running at a time
+     * @param maxAttempts       the maximum number of attempts per job
+     * @param initialBackoff    the delay before the first retry, doubled for each further retry
+     * @param maxBackoff        the maximum delay between two attempts
+     * @param retention         how long the status of a succeeded or failed job is kept
+     * @param backfillOnStartup whether tours without a route are enqueued on startup
+     */
+    @Autowired
+    public TourRouteJobService(TourRouteService tourRouteService,
+                               TourRepository tourRepository,
+                               @Qualifier("applicationTaskExecutor") Executor executor,
+                               @Value("${route.jobs.concurrency:4}") int concurrency,
+                               @Value("${route.jobs.max-attempts:6}") int maxAttempts,
+                               @Value("${route.jobs.initial-backoff:5s}") Duration initialBackoff,
+                               @Value("${route.jobs.max-backoff:10m}") Duration maxBackoff,
+                               @Value("${route.jobs.retention:1h}") Duration retention,
+                               @Value("${route.jobs.backfill-on-startup:true}") boolean backfillOnStartup) {
+        this(tourRouteService, tourRepository, executor, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tour-route-jobs");
+            thread.setDaemon(true);
+            return thread;
+        }), concurrency, maxAttempts, initialBackoff, maxBackoff, retention, backfillOnStartup);
+    }
+
+    TourRouteJobService(TourRouteService tourRouteService, TourRepository tourRepository, Executor executor,
+                        ScheduledExecutorService scheduler, int concurrency, int maxAttempts,
+                        Duration initialBackoff, Duration maxBackoff, Duration retention, boolean backfillOnStartup) {
+        this.tourRouteService = tourRouteService;
+        this.tourRepository = tourRepository;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.concurrency = concurrency;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.retention = retention;
+        this.backfillOnStartup = backfillOnStartup;
+    }
+
+    /**
+     * Enqueues the route computation of a tour, e.g. after it was created or its locations changed.
+     *
+     * @param name the name of the tour
+     */
+    public void enqueue(String name) {
+        List<String> started;
+        synchronized (this) {
+            Job job = jobs.computeIfAbsent(name, Job::new);
+            if (job.state == RouteJobState.QUEUED) return;
+            if (job.state == RouteJobState.RUNNING) {
+                job.rerun = true;
+                return;
+            }
+            if (job.state == RouteJobState.RETRY_SCHEDULED) job.retry.cancel(false);
+            requeue(job);
+            started = dispatch();
+        }
+        started.forEach(this::start);
+    }
+
+    /**
+     * Forgets the job of a deleted tour. A running attempt finds the tour gone and stores nothing.
+     *
+     * @param name the name of the tour
+     */
+    public synchronized void remove(String name) {
+        Job job = jobs.remove(name);
+        if (job == null) return;
+        queue.remove(name);
+        if (job.retry != null) job.retry.cancel(false);
+    }
+
+    /**
+     * Returns the state of a tour's route job.
+     *
+     * @param name the name of the tour
+     * @return the job status, or empty if no job was enqueued for the tour since startup or its last job
+     *         finished longer than the retention period ago
+     */
+    public synchronized Optional<RouteJobStatusDTO> getStatus(String name) {
+        Job job = jobs.get(name);
+        if (job == null) return Optional.empty();
+        return Optional.of(new RouteJobStatusDTO(name, job.state, job.attempts, job.lastError, job.nextAttemptAt, job.updatedAt));
+    }
+
+    /**
+     * Enqueues all tours whose route has not been computed yet, e.g. tours created before the pipeline
+     * existed or whose last job failed before a restart.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void enqueueMissingRoutes() {
+        if (!backfillOnStartup) return;
+        try {
+            List<String> missing = tourRepository.findAll().stream()
+                    .filter(tour -> !tour.isRouteAvailable())
+                    .map(Tour::getName)
+                    .toList();
+            if (!missing.isEmpty()) logger.info("Enqueueing route computation for {} tours", missing.size());
+            missing.forEach(this::enqueue);
+        } catch (Exception e) {
+            logger.warn("Failed to enqueue tours without route: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stops scheduling retries on shutdown.
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void requeue(Job job) {
+        job.state = RouteJobState.QUEUED;
+        job.attempts = 0;
+        job.lastError = null;
+        job.nextAttemptAt = null;
+        job.retry = null;
+        job.updatedAt = Instant.now();
+        queue.add(job.name);
+    }
+
+    /**
+     * Takes jobs from the queue while fewer than {@code concurrency} are running. The jobs are started by
+     * the caller after releasing the lock.
+     */
+    private List<String> dispatch() {
+        List<String> started = new ArrayList<>();
+        while (running < concurrency && !queue.isEmpty()) {
+            Iterator<String> first = queue.iterator();
+            Job job = jobs.get(first.next());
+            first.remove();
+            job.state = RouteJobState.RUNNING;
+            job.attempts++;
+            job.nextAttemptAt = null;
+            job.updatedAt = Instant.now();
+            running++;
+            started.add(job.name);
+        }
+        return started;
+    }
+
+    private void start(String name) {
+        CompletableFuture.runAsync(() -> { }, executor)
+                .thenCompose(ignored -> tourRouteService.computeRoute(name, OrsPriority.BACKGROUND))
+                .whenComplete((tour, failure) -> finish(name, failure));
+    }
+
+    private void finish(String name, Throwable failure) {
+        List<String> started;
+        synchronized (this) {
+            running--;
+            Job job = jobs.get(name);
+            if (job != null && job.state == RouteJobState.RUNNING) {
+                if (job.rerun) {
+                    job.rerun = false;
+                    requeue(job);
+                } else if (failure == null) {
+                    job.state = RouteJobState.SUCCEEDED;
+                    job.lastError = null;
+                    job.updatedAt = Instant.now();
+                    scheduleEviction(job);
+                } else {
+                    onFailure(job, Futures.unwrap(failure));
+                }
+            }
+            started = dispatch();
+        }
+        started.forEach(this::start);
+    }
+
+    private void onFailure(Job job, Throwable cause) {
+        job.lastError = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        job.updatedAt = Instant.now();
+        if (cause instanceof IllegalArgumentException || job.attempts >= maxAttempts) {
+            job.state = RouteJobState.FAILED;
+            logger.warn("Route computation for tour {} failed after {} attempts: {}", job.name, job.attempts, job.lastError);
+            scheduleEviction(job);
+            return;
+        }
+        long delay = backoffMillis(job.attempts);
+        job.state = RouteJobState.RETRY_SCHEDULED;
+        job.nextAttemptAt = job.updatedAt.plusMillis(delay);
+        job.retry = scheduler.schedule(() -> retry(job.name), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the delay before the next attempt: the backoff doubles per attempt up to the maximum, and a
+     * random jitter of up to half the backoff spreads out retries of jobs that failed together.
+     */
+    private long backoffMillis(int attempts) {
+        long backoff = initialBackoff.toMillis() << Math.min(attempts - 1, 30);
+        if (backoff <= 0 || backoff > maxBackoff.toMillis()) backoff = maxBackoff.toMillis();
+        return backoff - ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    /**
+     * Forgets a finished job once the retention period has passed, unless the tour was enqueued again in the meantime.
+     */
+    private void scheduleEviction(Job job) {
+        Instant finishedAt = job.updatedAt;
+        scheduler.schedule(() -> {
+            synchronized (this) {
+                if (jobs.get(job.name) == job && job.updatedAt.equals(finishedAt)) jobs.remove(job.name);
+            }
+        }, retention.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void retry(String name) {
+        List<String> started;
+        synchronized (this) {
+            Job job = jobs.get(name);
+            if (job == null || job.state != RouteJobState.RETRY_SCHEDULED) return;
+            job.state = RouteJobState.QUEUED;
+            job.retry = null;
+            job.updatedAt = Instant.now();
+            queue.add(name);
+            started = dispatch();
+        }
+        started.forEach(this::start);
+    }
+
+    /**
+     * Mutable state of one tour's job, guarded by the service's lock.
+     */
+    private static final class Job {
+        final String name;
+        RouteJobState state;
+        int attempts;
+        String lastError;
+        Instant nextAttemptAt;
+        Instant updatedAt;
+        boolean rerun;
+        ScheduledFuture<?> retry;
+
+        Job(String name) {
+            this.name = name;
+        }
+    }
+}
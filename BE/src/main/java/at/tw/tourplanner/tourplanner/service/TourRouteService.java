@@ -0,0 +1,199 @@
+package at.tw.tourplanner.tourplanner.service;
+
+import at.tw.tourplanner.tourplanner.cache.CacheResult;
+import at.tw.tourplanner.tourplanner.client.OrsPriority;
+import at.tw.tourplanner.tourplanner.dto.CoordinateDTO;
+import at.tw.tourplanner.tourplanner.dto.RoutePolylineDTO;
+import at.tw.tourplanner.tourplanner.geometry.GeometryCodec;
+import at.tw.tourplanner.tourplanner.model.Tour;
+import at.tw.tourplanner.tourplanner.model.TransportMode;
+import at.tw.tourplanner.tourplanner.repository.TourRepository;
+import at.tw.tourplanner.tourplanner.util.OrsResponseParser;
+import at.tw.tourplanner.tourplanner.util.RouteGeoJson;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Service computing the route of a tour and storing it with the tour.
+ * The locations are geocoded and routed once when the tour is written; afterwards the tour and its route
+ * geometry are served from the database without calling OpenRouteService. The geometry is kept in the
+ * {@link RouteGeometryService} and referenced from the tour by its content hash.
+ */
+@Service
+public class TourRouteService {
+
+    /** Number of decimals of the served polyline, about one meter. */
+    public static final int POLYLINE_PRECISION = RouteGeoJson.DEFAULT_POLYLINE_PRECISION;
+
+    private final TourRepository tourRepository;
+    private final GeocodeService geocodeService;
+    private final RouteService routeService;
+    private final RouteGeometryService routeGeometryService;
+    private final TourIndexService tourIndexService;
+    private final Executor executor;
+
+    /**
+     * Constructs the TourRouteService.
+     *
+     * @param tourRepository       the repository of the tours
+     * @param geocodeService       the service resolving the tour locations
+     * @param routeService         the service routing through the resolved locations
+     * @param routeGeometryService the store of the route geometries
+     * @param tourIndexService     the spatial index of the tours, updated with the computed coordinates
+     * @param executor             the executor storing computed routes, keeping the database work off the
+     *                             HTTP client threads completing the route requests
+     */
+    public TourRouteService(TourRepository tourRepository, GeocodeService geocodeService, RouteService routeService,
+                            RouteGeometryService routeGeometryService, TourIndexService tourIndexService,
+                            @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.tourRepository = tourRepository;
+        this.geocodeService = geocodeService;
+        this.routeService = routeService;
+        this.routeGeometryService = routeGeometryService;
+        this.tourIndexService = tourIndexService;
+        this.executor = executor;
+    }
+
+    /**
+     * Checks whether an update changes the inputs of the route, i.e. the locations or the transport type.
+     *
+     * @param tour    the stored tour
+     * @param updated the updated values; null waypoints leave the stored waypoints unchanged
+     * @return true if the stored route no longer matches the updated tour
+     */
+    public static boolean routeInputsChanged(Tour tour, Tour updated) {
+        return !Objects.equals(tour.getFromLocation(), updated.getFromLocation())
+                || !Objects.equals(tour.getToLocation(), updated.getToLocation())
+                || !Objects.equals(tour.getTransportType(), updated.getTransportType())
+                || (updated.getWaypoints() != null && !Objects.equals(tour.getWaypoints(), updated.getWaypoints()));
+    }
+
+    /**
+     * Geocodes the locations of a tour, routes through them and stores the result with the tour.
+     * If the tour is changed while its route is computed, the outdated result is discarded.
+     *
+     * @param name the name of the tour
+     * @return a future completing with the updated tour, or with an empty optional if the tour does not exist;
+     *         it fails with an {@link IllegalArgumentException} if a location cannot be found or the transport
+     *         type is not supported
+     */
+    public CompletableFuture<Optional<Tour>> computeRoute(String name) {
+        return computeRoute(name, OrsPriority.INTERACTIVE);
+    }
+
+    /**
+     * Computes and stores the route of a tour like {@link #computeRoute(String)}, sending the geocode and
+     * directions requests with the given rate limiter priority.
+     *
+     * @param name     the name of the tour
+     * @param priority the priority of the resulting geocode and directions requests
+     * @return a future completing with the updated tour, or with an empty optional if the tour does not exist
+     */
+    public CompletableFuture<Optional<Tour>> computeRoute(String name, OrsPriority priority) {
+        Optional<Tour> stored = tourRepository.findWithWaypointsByName(name);
+        if (stored.isEmpty()) return CompletableFuture.completedFuture(Optional.empty());
+        Tour tour = stored.get();
+
+        String profile;
+        try {
+            profile = TransportMode.fromString(Objects.requireNonNull(tour.getTransportType(), "transport type")).getOrsProfile();
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Unsupported transport type: " + tour.getTransportType()));
+        }
+
+        List<String> locations = new ArrayList<>();
+        locations.add(tour.getFromLocation());
+        if (tour.getWaypoints() != null) locations.addAll(tour.getWaypoints());
+        locations.add(tour.getToLocation());
+        List<CompletableFuture<CoordinateDTO>> geocodes = new ArrayList<>(locations.size());
+        for (String location : locations) {
+            if (location == null || location.isBlank()) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException("Tour has an empty location"));
+            }
+            geocodes.add(geocodeService.geocodeAsync(location, priority).thenApply(result -> {
+                if (result.value() == null) throw new IllegalArgumentException("Location not found: " + location);
+                return result.value();
+            }));
+        }
+
+        return CompletableFuture.allOf(geocodes.toArray(CompletableFuture[]::new))
+                .thenCompose(done -> {
+                    List<CoordinateDTO> coordinates = geocodes.stream().map(CompletableFuture::join).toList();
+                    return routeService.getRouteGeoJsonAsync(coordinates, profile, priority)
+                            .thenApply(CacheResult::value)
+                            .thenApplyAsync(geoJson -> store(tour, coordinates, geoJson), executor);
+                });
+    }
+
+    /**
+     * Renders the stored route of a tour as a GeoJSON feature.
+     *
+     * @param tour the tour with a computed route
+     * @return the GeoJSON LineString feature with distance and duration as properties, or empty if the route
+     *         has not been computed
+     */
+    public Optional<String> toGeoJson(Tour tour) {
+        return routeGeometryService.load(tour.getRouteGeometryHash()).map(data -> {
+            JSONObject properties = new JSONObject()
+                    .put("name", tour.getName())
+                    .put("distance", tour.getDistance())
+                    .put("duration", tour.getDuration());
+            return "{\"type\":\"Feature\",\"properties\":" + properties + ",\"geometry\":" + GeometryCodec.toGeoJson(data) + "}";
+        });
+    }
+
+    /**
+     * Renders the stored route of a tour as an encoded polyline.
+     *
+     * @param tour the tour with a computed route
+     * @return the polyline with distance and duration, or empty if the route has not been computed
+     */
+    public Optional<RoutePolylineDTO> toPolyline(Tour tour) {
+        return routeGeometryService.load(tour.getRouteGeometryHash()).map(data -> new RoutePolylineDTO(
+                GeometryCodec.toPolyline(data, POLYLINE_PRECISION), POLYLINE_PRECISION, tour.getDistance(), tour.getDuration()));
+    }
+
+    /**
+     * Stores the route with the tour unless the tour was changed or deleted in the meantime.
+     * A change committed between reading and saving the tour is detected by its version; the route is then
+     * discarded like for a tour whose route inputs changed.
+     */
+    private Optional<Tour> store(Tour computedFor, List<CoordinateDTO> coordinates, byte[] geoJson) {
+        Optional<Tour> current = tourRepository.findWithWaypointsByName(computedFor.getName());
+        if (current.isEmpty()) return Optional.empty();
+        Tour tour = current.get();
+        if (routeInputsChanged(tour, computedFor)) return Optional.of(tour);
+
+        OrsResponseParser.RouteSummary route = OrsResponseParser.readRouteSummary(geoJson);
+        String geometryHash = routeGeometryService.store(RouteGeoJson.coordinates(geoJson));
+
+        CoordinateDTO from = coordinates.get(0);
+        CoordinateDTO to = coordinates.get(coordinates.size() - 1);
+        tour.setDistance(route.distance());
+        tour.setDuration(route.duration());
+        tour.setFromLon(from.getLon());
+        tour.setFromLat(from.getLat());
+        tour.setToLon(to.getLon());
+        tour.setToLat(to.getLat());
+        tour.setRouteGeometryHash(geometryHash);
+        tour.setRouteComputedAt(Instant.now());
+        Tour saved;
+        try {
+            saved = tourRepository.save(tour);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return tourRepository.findWithWaypointsByName(computedFor.getName());
+        }
+        tourIndexService.update(saved);
+        return Optional.of(saved);
+    }
+}
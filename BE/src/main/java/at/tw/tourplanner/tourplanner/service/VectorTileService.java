@@ -0,0 +1,139 @@
+package at.tw.tourplanner.tourplanner.service;
+
+import at.tw.tourplanner.tourplanner.cache.FileCache;
+import at.tw.tourplanner.tourplanner.geometry.TileGeometry;
+import at.tw.tourplanner.tourplanner.geometry.TourSegmentIndex;
+import at.tw.tourplanner.tourplanner.geometry.VectorTileEncoder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service generating Mapbox Vector Tiles of the stored tour routes.
+ * The routes passing through the grid cells of a tile are taken from the route index of the
+ * {@link TourIndexService}. Their names and geometry hashes give the tile's version, without loading any
+ * geometry, and tiles are cached on disk under that version; a changed route yields a new version and
+ * replaces the cached tile. Only on a cache miss are the geometries loaded, clipped to the tile and
+ * simplified to its resolution. Busy tiles hold the first {@code maxFeatures} routes by tour name, so
+ * the drawn subset is stable across restarts.
+ */
+@Service
+public class VectorTileService {
+
+    private static final Logger logger = LogManager.getLogger(VectorTileService.class);
+
+    /** Name of the layer holding the routes. */
+    public static final String LAYER = "tours";
+
+    /** Tile coordinate units per tile side. */
+    private static final int EXTENT = 4096;
+
+    /** Units kept beyond each tile edge, so lines are not cut visibly at tile borders. */
+    private static final int BUFFER = 64;
+
+    /** Simplification tolerance in units, half a pixel of a 256 pixel tile. */
+    private static final double TOLERANCE = EXTENT / 512.0;
+
+    private final TourIndexService tourIndexService;
+    private final RouteGeometryService routeGeometryService;
+    private final FileCache cache;
+    private final int minZoom;
+    private final int maxFeatures;
+
+    /**
+     * Constructs the VectorTileService.
+     *
+     * @param tourIndexService     the spatial indexes of the tours
+     * @param routeGeometryService the store of the route geometries, read on cache misses
+     * @param cacheDirectory   the directory of the tile cache, blank to disable it
+     * @param minZoom          the lowest zoom level with routes; lower tiles are empty and the clusters are
+     *                         meant to be shown instead
+     * @param maxFeatures      the maximum number of routes per tile
+     */
+    public VectorTileService(TourIndexService tourIndexService,
+                             RouteGeometryService routeGeometryService,
+                             @Value("${tiles.cache-dir:data/tiles}") String cacheDirectory,
+                             @Value("${tiles.min-zoom:6}") int minZoom,
+                             @Value("${tiles.max-features:5000}") int maxFeatures) {
+        this.tourIndexService = tourIndexService;
+        this.routeGeometryService = routeGeometryService;
+        this.cache = new FileCache(cacheDirectory);
+        this.minZoom = minZoom;
+        this.maxFeatures = maxFeatures;
+    }
+
+    /**
+     * Returns a tile, from the disk cache if its routes are unchanged.
+     *
+     * @param z the zoom level
+     * @param x the tile column
+     * @param y the tile row
+     * @return the tile; its data is empty if no route crosses it
+     */
+    public VectorTile getTile(int z, int x, int y) {
+        if (z < minZoom) return VectorTile.EMPTY;
+        double buffer = (double) BUFFER / EXTENT;
+        double[] bounds = TileGeometry.bounds(z, x, y, buffer);
+        List<TourSegmentIndex.IndexedRoute> routes = tourIndexService.routeCandidates(bounds[0], bounds[1], bounds[2], bounds[3]);
+        if (routes.isEmpty()) return VectorTile.EMPTY;
+
+        String version = version(routes);
+        String group = z + "/" + x + "/" + y;
+        String name = version + ".mvt";
+        byte[] cached = cache.read(group, name).orElse(null);
+        if (cached != null) return new VectorTile(cached, version);
+
+        VectorTileEncoder encoder = new VectorTileEncoder(LAYER, EXTENT);
+        for (TourSegmentIndex.IndexedRoute route : routes) {
+            if (encoder.size() >= maxFeatures) {
+                logger.info("Tile {} reached {} routes, further routes by tour name are not drawn", group, maxFeatures);
+                break;
+            }
+            double[] coordinates = routeGeometryService.coordinates(route.geometryHash()).orElse(null);
+            if (coordinates == null) continue;
+            List<int[]> lines = TileGeometry.clip(coordinates, z, x, y, EXTENT, BUFFER, TOLERANCE);
+            if (!lines.isEmpty()) encoder.addLines(lines, Map.of("name", route.name()));
+        }
+        byte[] data = encoder.encode();
+        cache.replace(group, name, data);
+        return new VectorTile(data, version);
+    }
+
+    /**
+     * Derives the version of a tile from the sorted names and geometry hashes of its candidate routes.
+     */
+    private static String version(List<TourSegmentIndex.IndexedRoute> routes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (TourSegmentIndex.IndexedRoute route : routes) {
+                digest.update(route.name().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(route.geometryHash().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * An encoded tile.
+     *
+     * @param data    the protocol buffer encoded tile, empty if no route crosses it
+     * @param version the version of the tile, usable as entity tag
+     */
+    public record VectorTile(byte[] data, String version) {
+
+        /** Tile without routes. */
+        static final VectorTile EMPTY = new VectorTile(new byte[0], "empty");
+    }
+}
@@ -0,0 +1,159 @@
+package at.tw.tourplanner.tourplanner.suggest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable prefix index answering top-k completion queries.
+ * Suggestions are sorted by normalized text, so all completions of a prefix form one contiguous range.
+ * A segment tree over the scores finds the best suggestion of any range in logarithmic time, and the
+ * k best are extracted by repeatedly splitting the range around the best remaining suggestion,
+ * so a query never scans the whole range.
+ */
+public final class SuggestionIndex {
+
+    private static final SuggestionIndex EMPTY = new SuggestionIndex(List.of());
+
+    private final String[] keys;
+    private final String[] texts;
+    private final double[] lons;
+    private final double[] lats;
+    private final double[] scores;
+    private final int[] tree;
+    private final int size;
+
+    private SuggestionIndex(List<Suggestion> suggestions) {
+        List<Suggestion> sorted = new ArrayList<>(suggestions);
+        sorted.sort(Comparator.comparing(Suggestion::key));
+        size = sorted.size();
+        keys = new String[size];
+        texts = new String[size];
+        lons = new double[size];
+        lats = new double[size];
+        scores = new double[size];
+        for (int i = 0; i < size; i++) {
+            Suggestion suggestion = sorted.get(i);
+            keys[i] = suggestion.key();
+            texts[i] = suggestion.text();
+            lons[i] = suggestion.lon();
+            lats[i] = suggestion.lat();
+            scores[i] = suggestion.score();
+        }
+
+        // iterative segment tree: leaves at [size, 2 * size), each inner node holds the index of its best leaf
+        tree = new int[2 * size];
+        for (int i = 0; i < size; i++) tree[size + i] = i;
+        for (int i = size - 1; i > 0; i--) tree[i] = better(tree[2 * i], tree[2 * i + 1]);
+    }
+
+    /**
+     * Returns an index without suggestions.
+     *
+     * @return the empty index
+     */
+    public static SuggestionIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds an index from suggestions with distinct keys.
+     *
+     * @param suggestions the suggestions
+     * @return the index
+     */
+    public static SuggestionIndex of(List<Suggestion> suggestions) {
+        return new SuggestionIndex(suggestions);
+    }
+
+    /**
+     * Gets the number of suggestions.
+     *
+     * @return the suggestion count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the best-scored suggestions whose key starts with the prefix, best first.
+     *
+     * @param normalizedPrefix the prefix, normalized like the suggestion keys
+     * @param limit            the maximum number of suggestions
+     * @return the matching suggestions
+     */
+    public List<Suggestion> complete(String normalizedPrefix, int limit) {
+        int from = lowerBound(normalizedPrefix);
+        int to = prefixEnd(normalizedPrefix, from);
+        List<Suggestion> result = new ArrayList<>(Math.min(limit, to - from));
+        if (from >= to || limit <= 0) return result;
+
+        // ranges ordered by their best score; each step emits a best and splits its range in two
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> compare(b[2], a[2]));
+        ranges.add(new int[]{from, to, best(from, to)});
+        while (!ranges.isEmpty() && result.size() < limit) {
+            int[] range = ranges.poll();
+            int best = range[2];
+            result.add(new Suggestion(keys[best], texts[best], lons[best], lats[best], scores[best]));
+            if (range[0] < best) ranges.add(new int[]{range[0], best, best(range[0], best)});
+            if (best + 1 < range[1]) ranges.add(new int[]{best + 1, range[1], best(best + 1, range[1])});
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of the best suggestion in {@code [from, to)}.
+     */
+    private int best(int from, int to) {
+        int best = -1;
+        for (int l = from + size, r = to + size; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) best = best < 0 ? tree[l++] : better(best, tree[l++]);
+            if ((r & 1) == 1) best = best < 0 ? tree[--r] : better(best, tree[--r]);
+        }
+        return best;
+    }
+
+    private int better(int a, int b) {
+        return compare(a, b) >= 0 ? a : b;
+    }
+
+    /**
+     * Orders suggestions by score, and suggestions with equal scores by shorter, then alphabetically first key.
+     */
+    private int compare(int a, int b) {
+        int byScore = Double.compare(scores[a], scores[b]);
+        if (byScore != 0) return byScore;
+        int byLength = Integer.compare(keys[b].length(), keys[a].length());
+        return byLength != 0 ? byLength : keys[b].compareTo(keys[a]);
+    }
+
+    private int lowerBound(String prefix) {
+        int index = Arrays.binarySearch(keys, prefix);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private int prefixEnd(String prefix, int from) {
+        int low = from;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].startsWith(prefix)) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * A completion candidate.
+     *
+     * @param key   the normalized text used for prefix matching
+     * @param text  the text shown to the user
+     * @param lon   the longitude, or NaN if unknown
+     * @param lat   the latitude, or NaN if unknown
+     * @param score the ranking score, higher is better
+     */
+    public record Suggestion(String key, String text, double lon, double lat, double score) {
+    }
+}
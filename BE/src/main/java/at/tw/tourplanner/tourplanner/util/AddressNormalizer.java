@@ -0,0 +1,32 @@
+package at.tw.tourplanner.tourplanner.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Utility for turning free-text addresses into stable lookup keys.
+ */
+public final class AddressNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private AddressNormalizer() {
+    }
+
+    /**
+     * Normalizes an address by folding Unicode compatibility forms and diacritics,
+     * lower-casing it and collapsing all whitespace runs into single spaces.
+     *
+     * @param address the address as entered by the user
+     * @return the normalized address, or an empty string if the address is null or blank
+     */
+    public static String normalize(String address) {
+        if (address == null) return "";
+        String folded = Normalizer.normalize(address, Normalizer.Form.NFKD);
+        folded = COMBINING_MARKS.matcher(folded).replaceAll("");
+        folded = folded.toLowerCase(Locale.ROOT);
+        return WHITESPACE.matcher(folded).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,98 @@
+package at.tw.tourplanner.tourplanner.util;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Helpers for bridging the asynchronous service APIs to blocking callers.
+ */
+public final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Waits for a future and rethrows its original failure instead of a wrapper exception.
+     *
+     * @param future the future to wait for
+     * @param <T>    the result type
+     * @return the result of the future
+     * @throws Exception the exception the future completed with
+     */
+    public static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof Exception exception) throw exception;
+            throw e;
+        }
+    }
+
+    /**
+     * Strips the {@link CompletionException} and {@link ExecutionException} wrappers added by
+     * {@link CompletableFuture} stages.
+     *
+     * @param throwable the throwable passed to a completion stage
+     * @return the original cause
+     */
+    public static Throwable unwrap(Throwable throwable) {
+        Throwable current = throwable;
+        while ((current instanceof CompletionException || current instanceof ExecutionException) && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    /**
+     * Runs an asynchronous task for every item while keeping at most {@code parallelism} tasks pending.
+     * Failures of individual tasks are ignored; tasks are expected to record their own outcome.
+     *
+     * @param items       the items to process
+     * @param parallelism the maximum number of tasks in flight
+     * @param task        the task started for each item
+     * @param <T>         the item type
+     * @return a future completing once all tasks have finished
+     */
+    public static <T> CompletableFuture<Void> forEachBounded(List<T> items, int parallelism, Function<T, CompletableFuture<?>> task) {
+        CompletableFuture<Void> all = new CompletableFuture<>();
+        if (items.isEmpty()) {
+            all.complete(null);
+            return all;
+        }
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        for (int i = 0; i < Math.min(Math.max(parallelism, 1), items.size()); i++) {
+            startNext(items, next, finished, task, all);
+        }
+        return all;
+    }
+
+    private static <T> void startNext(List<T> items, AtomicInteger next, AtomicInteger finished,
+                                      Function<T, CompletableFuture<?>> task, CompletableFuture<Void> all) {
+        // loop instead of recursing while tasks complete synchronously, e.g. on cache hits
+        while (true) {
+            int index = next.getAndIncrement();
+            if (index >= items.size()) return;
+
+            CompletableFuture<?> pending;
+            try {
+                pending = task.apply(items.get(index));
+            } catch (RuntimeException e) {
+                pending = CompletableFuture.failedFuture(e);
+            }
+            CompletableFuture<Void> done = pending.handle((result, failure) -> {
+                if (finished.incrementAndGet() == items.size()) all.complete(null);
+                return null;
+            });
+            if (!done.isDone()) {
+                done.thenRun(() -> startNext(items, next, finished, task, all));
+                return;
+            }
+        }
+    }
+}
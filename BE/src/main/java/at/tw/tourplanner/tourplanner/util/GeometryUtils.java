@@ -0,0 +1,321 @@
+package at.tw.tourplanner.tourplanner.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Numeric helpers for route geometries. Coordinates are passed as interleaved
+ * {@code [lon0, lat0, lon1, lat1, ...]} arrays to avoid allocating one object per point.
+ */
+public final class GeometryUtils {
+
+    private static final int TILE_SIZE = 256;
+    private static final double EARTH_RADIUS = 6_371_008.8;
+
+    private GeometryUtils() {
+    }
+
+    /**
+     * Returns the simplification tolerance that corresponds to one screen pixel at the given zoom level.
+     *
+     * @param zoom the web map zoom level
+     * @return the tolerance in degrees
+     */
+    public static double toleranceForZoom(int zoom) {
+        return 360.0 / (TILE_SIZE * Math.pow(2, zoom));
+    }
+
+    /**
+     * Returns the great-circle distance between two points.
+     *
+     * @param lon1 longitude of the first point
+     * @param lat1 latitude of the first point
+     * @param lon2 longitude of the second point
+     * @param lat2 latitude of the second point
+     * @return the distance in meters
+     */
+    public static double haversine(double lon1, double lat1, double lon2, double lat2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Returns the shortest distance between a point and a line. The line is projected onto a plane tangent at
+     * the point, which is accurate to well below a percent for distances up to a few hundred kilometers.
+     *
+     * @param coordinates the interleaved coordinates of the line
+     * @param lon         longitude of the point
+     * @param lat         latitude of the point
+     * @return the distance in meters, or infinity for an empty line
+     */
+    public static double distanceToLine(double[] coordinates, double lon, double lat) {
+        double metersPerDegree = Math.toRadians(EARTH_RADIUS);
+        double scaleX = metersPerDegree * Math.cos(Math.toRadians(lat));
+        double best = Double.POSITIVE_INFINITY;
+        double x1 = Double.NaN;
+        double y1 = Double.NaN;
+        for (int i = 0; i < coordinates.length; i += 2) {
+            double x2 = (coordinates[i] - lon) * scaleX;
+            double y2 = (coordinates[i + 1] - lat) * metersPerDegree;
+            if (i == 0) {
+                best = x2 * x2 + y2 * y2;
+            } else {
+                double dx = x2 - x1;
+                double dy = y2 - y1;
+                double lengthSquared = dx * dx + dy * dy;
+                double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, -(x1 * dx + y1 * dy) / lengthSquared));
+                double px = x1 + t * dx;
+                double py = y1 + t * dy;
+                best = Math.min(best, px * px + py * py);
+            }
+            x1 = x2;
+            y1 = y2;
+        }
+        return Math.sqrt(best);
+    }
+
+    /**
+     * Checks whether a line has a point inside a bounding box or a segment crossing it.
+     *
+     * @param coordinates the interleaved coordinates of the line
+     * @param minLon      the western longitude of the box
+     * @param minLat      the southern latitude of the box
+     * @param maxLon      the eastern longitude of the box
+     * @param maxLat      the northern latitude of the box
+     * @return true if the line intersects the box
+     */
+    public static boolean intersectsBox(double[] coordinates, double minLon, double minLat, double maxLon, double maxLat) {
+        for (int i = 0; i < coordinates.length; i += 2) {
+            double x2 = coordinates[i];
+            double y2 = coordinates[i + 1];
+            if (x2 >= minLon && x2 <= maxLon && y2 >= minLat && y2 <= maxLat) return true;
+            if (i > 0 && clipSegment(coordinates[i - 2], coordinates[i - 1], x2, y2, minLon, minLat, maxLon, maxLat) != null) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Clips a segment to a box with the Liang–Barsky algorithm.
+     *
+     * @param x1   x of the start of the segment
+     * @param y1   y of the start of the segment
+     * @param x2   x of the end of the segment
+     * @param y2   y of the end of the segment
+     * @param minX the lower x bound of the box
+     * @param minY the lower y bound of the box
+     * @param maxX the upper x bound of the box
+     * @param maxY the upper y bound of the box
+     * @return the part of the segment inside the box as {@code [x1, y1, x2, y2]}, or null if there is none;
+     *         end points inside the box are returned unchanged
+     */
+    public static double[] clipSegment(double x1, double y1, double x2, double y2,
+                                       double minX, double minY, double maxX, double maxY) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double[] p = {-dx, dx, -dy, dy};
+        double[] q = {x1 - minX, maxX - x1, y1 - minY, maxY - y1};
+        double enter = 0;
+        double exit = 1;
+        for (int i = 0; i < 4; i++) {
+            if (p[i] == 0) {
+                if (q[i] < 0) return null;
+            } else {
+                double t = q[i] / p[i];
+                if (p[i] < 0) enter = Math.max(enter, t);
+                else exit = Math.min(exit, t);
+                if (enter > exit) return null;
+            }
+        }
+        return new double[]{
+                enter == 0 ? x1 : x1 + enter * dx, enter == 0 ? y1 : y1 + enter * dy,
+                exit == 1 ? x2 : x1 + exit * dx, exit == 1 ? y2 : y1 + exit * dy
+        };
+    }
+
+    /**
+     * Simplifies a line with the Douglas–Peucker algorithm. The first and last point are always kept.
+     *
+     * @param coordinates the interleaved coordinates of the line
+     * @param tolerance   the maximum distance in degrees a removed point may have from the simplified line
+     * @return the indices of the points to keep, in ascending order
+     */
+    public static int[] simplify(double[] coordinates, double tolerance) {
+        return simplify(coordinates, tolerance, new int[0]);
+    }
+
+    /**
+     * Simplifies a line with the Douglas–Peucker algorithm, always keeping the first and last point and the
+     * given points, e.g. the way points between the segments of a route. The parts between kept points are
+     * simplified independently, so the kept points stay vertices of the simplified line.
+     *
+     * @param coordinates the interleaved coordinates of the line
+     * @param tolerance   the maximum distance in degrees a removed point may have from the simplified line
+     * @param required    the indices of points that must be kept; indices outside the line are ignored
+     * @return the indices of the points to keep, in ascending order
+     */
+    public static int[] simplify(double[] coordinates, double tolerance, int[] required) {
+        int count = coordinates.length / 2;
+        if (count <= 2 || tolerance <= 0) {
+            int[] all = new int[count];
+            for (int i = 0; i < count; i++) all[i] = i;
+            return all;
+        }
+
+        boolean[] keep = new boolean[count];
+        keep[0] = true;
+        keep[count - 1] = true;
+        for (int index : required) {
+            if (index >= 0 && index < count) keep[index] = true;
+        }
+        double toleranceSquared = tolerance * tolerance;
+        // explicit stack instead of recursion, long routes have tens of thousands of points
+        Deque<int[]> ranges = new ArrayDeque<>();
+        for (int first = 0, last = 1; last < count; last++) {
+            if (!keep[last]) continue;
+            ranges.push(new int[]{first, last});
+            first = last;
+        }
+        while (!ranges.isEmpty()) {
+            int[] range = ranges.pop();
+            int first = range[0];
+            int last = range[1];
+            double maxDistance = 0;
+            int farthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                double distance = segmentDistanceSquared(coordinates, i, first, last);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+            if (farthest != -1 && maxDistance > toleranceSquared) {
+                keep[farthest] = true;
+                ranges.push(new int[]{first, farthest});
+                ranges.push(new int[]{farthest, last});
+            }
+        }
+
+        int kept = 0;
+        for (boolean k : keep) if (k) kept++;
+        int[] indices = new int[kept];
+        for (int i = 0, j = 0; i < count; i++) if (keep[i]) indices[j++] = i;
+        return indices;
+    }
+
+    /**
+     * Selects the given points from a line and rounds them to a fixed number of decimals.
+     *
+     * @param coordinates the interleaved coordinates of the line
+     * @param indices     the indices of the points to select
+     * @param precision   the number of decimals to keep, or a negative value to keep full precision
+     * @return the interleaved coordinates of the selected points
+     */
+    public static double[] select(double[] coordinates, int[] indices, int precision) {
+        double[] selected = new double[indices.length * 2];
+        double factor = Math.pow(10, precision);
+        for (int i = 0; i < indices.length; i++) {
+            double lon = coordinates[2 * indices[i]];
+            double lat = coordinates[2 * indices[i] + 1];
+            selected[2 * i] = precision < 0 ? lon : Math.round(lon * factor) / factor;
+            selected[2 * i + 1] = precision < 0 ? lat : Math.round(lat * factor) / factor;
+        }
+        return selected;
+    }
+
+    /**
+     * Maps an index of the original line to the index of the closest preceding kept point.
+     *
+     * @param indices the ascending indices of the kept points
+     * @param index   an index of the original line
+     * @return the index into the simplified line
+     */
+    public static int remapIndex(int[] indices, int index) {
+        int position = Arrays.binarySearch(indices, index);
+        return position >= 0 ? position : Math.max(0, -position - 2);
+    }
+
+    /**
+     * Encodes a line in the Encoded Polyline Algorithm Format (latitude first, as defined by Google).
+     *
+     * @param coordinates the interleaved coordinates of the line
+     * @param precision   the number of decimals encoded per value, 5 for the standard format
+     * @return the encoded polyline
+     */
+    public static String encodePolyline(double[] coordinates, int precision) {
+        double factor = Math.pow(10, precision);
+        StringBuilder encoded = new StringBuilder(coordinates.length * 3);
+        long previousLat = 0;
+        long previousLon = 0;
+        for (int i = 0; i < coordinates.length; i += 2) {
+            long lat = Math.round(coordinates[i + 1] * factor);
+            long lon = Math.round(coordinates[i] * factor);
+            encodeValue(lat - previousLat, encoded);
+            encodeValue(lon - previousLon, encoded);
+            previousLat = lat;
+            previousLon = lon;
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * Decodes a line in the Encoded Polyline Algorithm Format.
+     *
+     * @param encoded   the encoded polyline
+     * @param precision the number of decimals encoded per value
+     * @return the interleaved coordinates of the line
+     */
+    public static double[] decodePolyline(String encoded, int precision) {
+        double factor = Math.pow(10, precision);
+        double[] coordinates = new double[encoded.length()];
+        int count = 0;
+        int position = 0;
+        long lat = 0;
+        long lon = 0;
+        while (position < encoded.length()) {
+            long[] value = decodeValue(encoded, position);
+            lat += value[0];
+            position = (int) value[1];
+            value = decodeValue(encoded, position);
+            lon += value[0];
+            position = (int) value[1];
+            coordinates[count++] = lon / factor;
+            coordinates[count++] = lat / factor;
+        }
+        return Arrays.copyOf(coordinates, count);
+    }
+
+    private static void encodeValue(long value, StringBuilder encoded) {
+        long shifted = value < 0 ? ~(value << 1) : value << 1;
+        while (shifted >= 0x20) {
+            encoded.append((char) ((0x20 | (shifted & 0x1f)) + 63));
+            shifted >>= 5;
+        }
+        encoded.append((char) (shifted + 63));
+    }
+
+    private static long[] decodeValue(String encoded, int position) {
+        long result = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = encoded.charAt(position++) - 63;
+            result |= (long) (b & 0x1f) << shift;
+            shift += 5;
+        } while (b >= 0x20);
+        return new long[]{(result & 1) != 0 ? ~(result >> 1) : result >> 1, position};
+    }
+
+    private static double segmentDistanceSquared(double[] c, int point, int start, int end) {
+        double x = c[2 * point], y = c[2 * point + 1];
+        double x1 = c[2 * start], y1 = c[2 * start + 1];
+        double dx = c[2 * end] - x1, dy = c[2 * end + 1] - y1;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((x - x1) * dx + (y - y1) * dy) / lengthSquared));
+        double px = x1 + t * dx - x, py = y1 + t * dy - y;
+        return px * px + py * py;
+    }
+}
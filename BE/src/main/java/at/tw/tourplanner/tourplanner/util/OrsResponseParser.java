@@ -0,0 +1,208 @@
+package at.tw.tourplanner.tourplanner.util;
+
+import at.tw.tourplanner.tourplanner.dto.CoordinateDTO;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Streaming readers for the few fields the backend needs from OpenRouteService responses.
+ * Instead of building a tree of the whole response, the tokens are read in order and the parser stops as
+ * soon as the requested fields have been read. Everything else is skipped without allocating objects,
+ * so the route geometry, which makes up most of a directions response, is never materialized.
+ */
+public final class OrsResponseParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private OrsResponseParser() {
+    }
+
+    /**
+     * Reads the summary and the per-leg distances and durations of the first route of a directions
+     * response, in the GeoJSON layout ({@code features[0].properties}) or the JSON layout ({@code routes[0]}).
+     * ORS omits distance and duration for zero-length routes; they are read as 0.
+     *
+     * @param body the UTF-8 encoded directions response
+     * @return the route summary
+     * @throws UncheckedIOException if the response is malformed or contains no route
+     */
+    public static RouteSummary readRouteSummary(byte[] body) {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("features".equals(field) && firstElement(parser, value)) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String featureField = parser.currentName();
+                        JsonToken featureValue = parser.nextToken();
+                        if ("properties".equals(featureField)) {
+                            expect(parser, featureValue, JsonToken.START_OBJECT);
+                            return readRoute(parser);
+                        }
+                        parser.skipChildren();
+                    }
+                    throw new JsonParseException(parser, "Route feature without properties");
+                } else if ("routes".equals(field) && firstElement(parser, value)) {
+                    return readRoute(parser);
+                }
+                parser.skipChildren();
+            }
+            throw new JsonParseException(parser, "Directions response without route");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the point of the first feature of a geocode response ({@code features[0].geometry.coordinates}).
+     *
+     * @param body the UTF-8 encoded geocode response
+     * @return the coordinate, or null if the response has no features
+     * @throws UncheckedIOException if the response is malformed
+     */
+    public static CoordinateDTO readFirstPoint(byte[] body) {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("features".equals(field)) {
+                    if (!firstElement(parser, value)) return null;
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String featureField = parser.currentName();
+                        JsonToken featureValue = parser.nextToken();
+                        if ("geometry".equals(featureField)) {
+                            expect(parser, featureValue, JsonToken.START_OBJECT);
+                            return readPoint(parser);
+                        }
+                        parser.skipChildren();
+                    }
+                    throw new JsonParseException(parser, "Feature without geometry");
+                }
+                parser.skipChildren();
+            }
+            throw new JsonParseException(parser, "Geocode response without features");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the summary and segments of a route object, stopping once both have been read.
+     * The parser is positioned after the START_OBJECT of the route.
+     */
+    private static RouteSummary readRoute(JsonParser parser) throws IOException {
+        double[] summary = null;
+        double[][] segments = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("summary".equals(field)) {
+                expect(parser, value, JsonToken.START_OBJECT);
+                summary = readDistanceAndDuration(parser);
+            } else if ("segments".equals(field)) {
+                expect(parser, value, JsonToken.START_ARRAY);
+                segments = readSegments(parser);
+            } else {
+                parser.skipChildren();
+            }
+            if (summary != null && segments != null) break;
+        }
+        if (summary == null) throw new JsonParseException(parser, "Route without summary");
+        if (segments == null) segments = new double[][]{new double[0], new double[0]};
+        return new RouteSummary(summary[0], summary[1], segments[0], segments[1]);
+    }
+
+    /**
+     * Reads the distance and duration of every segment, skipping the steps.
+     */
+    private static double[][] readSegments(JsonParser parser) throws IOException {
+        double[] distances = new double[8];
+        double[] durations = new double[8];
+        int count = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            double[] segment = readDistanceAndDuration(parser);
+            if (count == distances.length) {
+                distances = Arrays.copyOf(distances, count * 2);
+                durations = Arrays.copyOf(durations, count * 2);
+            }
+            distances[count] = segment[0];
+            durations[count] = segment[1];
+            count++;
+        }
+        expect(parser, parser.currentToken(), JsonToken.END_ARRAY);
+        return new double[][]{Arrays.copyOf(distances, count), Arrays.copyOf(durations, count)};
+    }
+
+    /**
+     * Reads the distance and duration fields of an object up to its end.
+     */
+    private static double[] readDistanceAndDuration(JsonParser parser) throws IOException {
+        double[] result = new double[2];
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("distance".equals(field) && value.isNumeric()) result[0] = parser.getDoubleValue();
+            else if ("duration".equals(field) && value.isNumeric()) result[1] = parser.getDoubleValue();
+            else parser.skipChildren();
+        }
+        return result;
+    }
+
+    /**
+     * Reads the coordinates of a geometry object. The parser is positioned after its START_OBJECT.
+     */
+    private static CoordinateDTO readPoint(JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("coordinates".equals(field)) {
+                expect(parser, value, JsonToken.START_ARRAY);
+                expect(parser, parser.nextToken(), JsonToken.VALUE_NUMBER_FLOAT, JsonToken.VALUE_NUMBER_INT);
+                double lon = parser.getDoubleValue();
+                expect(parser, parser.nextToken(), JsonToken.VALUE_NUMBER_FLOAT, JsonToken.VALUE_NUMBER_INT);
+                return new CoordinateDTO(lon, parser.getDoubleValue());
+            }
+            parser.skipChildren();
+        }
+        throw new JsonParseException(parser, "Geometry without coordinates");
+    }
+
+    /**
+     * Moves from the START_ARRAY of an array to the START_OBJECT of its first element.
+     *
+     * @return false if the array is empty
+     */
+    private static boolean firstElement(JsonParser parser, JsonToken value) throws IOException {
+        expect(parser, value, JsonToken.START_ARRAY);
+        JsonToken first = parser.nextToken();
+        if (first == JsonToken.END_ARRAY) return false;
+        expect(parser, first, JsonToken.START_OBJECT);
+        return true;
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken... expected) throws JsonParseException {
+        for (JsonToken token : expected) {
+            if (actual == token) return;
+        }
+        throw new JsonParseException(parser, "Expected " + expected[0] + " but found " + actual);
+    }
+
+    /**
+     * Distance and duration of a route and of each of its legs.
+     *
+     * @param distance     the total distance in meters
+     * @param duration     the total duration in seconds
+     * @param legDistances the distance of each leg in meters
+     * @param legDurations the duration of each leg in seconds
+     */
+    public record RouteSummary(double distance, double duration, double[] legDistances, double[] legDurations) {
+    }
+}
@@ -0,0 +1,128 @@
+package at.tw.tourplanner.tourplanner.util;
+
+import at.tw.tourplanner.tourplanner.dto.RoutePolylineDTO;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Transformations of OpenRouteService GeoJSON route responses for clients that only need
+ * enough geometry to draw the route.
+ */
+public final class RouteGeoJson {
+
+    /** Default number of decimals of the Encoded Polyline Algorithm Format. */
+    public static final int DEFAULT_POLYLINE_PRECISION = 5;
+
+    private RouteGeoJson() {
+    }
+
+    /**
+     * Simplifies the geometry of the first route feature and rounds its coordinates.
+     * The way points between the route segments are kept as vertices; way point indices in the feature
+     * properties and steps are remapped to the simplified geometry.
+     *
+     * @param geoJson   the UTF-8 encoded GeoJSON route
+     * @param tolerance the simplification tolerance in degrees, 0 to keep every point
+     * @param precision the number of decimals to keep, or a negative value to keep full precision
+     * @return the UTF-8 encoded simplified GeoJSON route
+     */
+    public static byte[] simplify(byte[] geoJson, double tolerance, int precision) {
+        JSONObject json = parse(geoJson);
+        JSONObject feature = json.getJSONArray("features").getJSONObject(0);
+        double[] coordinates = coordinates(feature);
+        int[] kept = GeometryUtils.simplify(coordinates, tolerance, wayPoints(feature));
+        double[] simplified = GeometryUtils.select(coordinates, kept, precision);
+
+        JSONArray points = new JSONArray();
+        for (int i = 0; i < simplified.length; i += 2) {
+            points.put(new JSONArray().put(simplified[i]).put(simplified[i + 1]));
+        }
+        feature.getJSONObject("geometry").put("coordinates", points);
+
+        JSONObject properties = feature.optJSONObject("properties");
+        if (properties != null) {
+            remapWayPoints(properties, kept);
+            JSONArray segments = properties.optJSONArray("segments");
+            for (int s = 0; segments != null && s < segments.length(); s++) {
+                JSONArray steps = segments.getJSONObject(s).optJSONArray("steps");
+                for (int i = 0; steps != null && i < steps.length(); i++) {
+                    remapWayPoints(steps.getJSONObject(i), kept);
+                }
+            }
+        }
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converts the first route feature into an encoded polyline with its summary.
+     *
+     * @param geoJson   the UTF-8 encoded GeoJSON route
+     * @param tolerance the simplification tolerance in degrees, 0 to keep every point
+     * @param precision the number of decimals encoded per coordinate value
+     * @return the encoded polyline and route summary
+     */
+    public static RoutePolylineDTO toPolyline(byte[] geoJson, double tolerance, int precision) {
+        JSONObject feature = parse(geoJson).getJSONArray("features").getJSONObject(0);
+        double[] coordinates = coordinates(feature);
+        int[] kept = GeometryUtils.simplify(coordinates, tolerance, wayPoints(feature));
+        String polyline = GeometryUtils.encodePolyline(GeometryUtils.select(coordinates, kept, -1), precision);
+
+        JSONObject summary = feature.optJSONObject("properties", new JSONObject()).optJSONObject("summary", new JSONObject());
+        return new RoutePolylineDTO(polyline, precision, summary.optDouble("distance", 0), summary.optDouble("duration", 0));
+    }
+
+    /**
+     * Reads the LineString coordinates of the first route feature.
+     *
+     * @param geoJson the UTF-8 encoded GeoJSON route
+     * @return the interleaved coordinates of the line
+     */
+    public static double[] coordinates(byte[] geoJson) {
+        return coordinates(parse(geoJson).getJSONArray("features").getJSONObject(0));
+    }
+
+    /**
+     * Reads the LineString coordinates of a GeoJSON feature.
+     *
+     * @param feature the GeoJSON feature
+     * @return the interleaved coordinates of the line
+     */
+    public static double[] coordinates(JSONObject feature) {
+        JSONArray points = feature.getJSONObject("geometry").getJSONArray("coordinates");
+        double[] coordinates = new double[points.length() * 2];
+        for (int i = 0; i < points.length(); i++) {
+            JSONArray point = points.getJSONArray(i);
+            coordinates[2 * i] = point.getDouble(0);
+            coordinates[2 * i + 1] = point.getDouble(1);
+        }
+        return coordinates;
+    }
+
+    private static JSONObject parse(byte[] geoJson) {
+        return new JSONObject(new JSONTokener(new ByteArrayInputStream(geoJson)));
+    }
+
+    /**
+     * Reads the indices of the way points from the feature properties, empty if there are none.
+     */
+    private static int[] wayPoints(JSONObject feature) {
+        JSONObject properties = feature.optJSONObject("properties");
+        JSONArray wayPoints = properties == null ? null : properties.optJSONArray("way_points");
+        if (wayPoints == null) return new int[0];
+        int[] indices = new int[wayPoints.length()];
+        for (int i = 0; i < indices.length; i++) indices[i] = wayPoints.getInt(i);
+        return indices;
+    }
+
+    private static void remapWayPoints(JSONObject object, int[] kept) {
+        JSONArray wayPoints = object.optJSONArray("way_points");
+        if (wayPoints == null) return;
+        for (int i = 0; i < wayPoints.length(); i++) {
+            wayPoints.put(i, GeometryUtils.remapIndex(kept, wayPoints.getInt(i)));
+        }
+    }
+}
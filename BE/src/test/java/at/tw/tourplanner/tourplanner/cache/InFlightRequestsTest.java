@@ -0,0 +1,60 @@
+package at.tw.tourplanner.tourplanner.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightRequestsTest {
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        InFlightRequests<String, String> inFlight = new InFlightRequests<>();
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(inFlight.submit("wien", () -> {
+                loads.incrementAndGet();
+                return upstream;
+            }));
+        }
+        assertEquals(1, inFlight.size());
+        upstream.complete("result");
+
+        for (CompletableFuture<String> result : results) assertEquals("result", result.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(0, inFlight.size());
+    }
+
+    @Test
+    void failureIsPropagatedAndNotRemembered() throws Exception {
+        InFlightRequests<String, String> inFlight = new InFlightRequests<>();
+        CompletableFuture<String> failed = inFlight.submit("graz",
+                () -> CompletableFuture.failedFuture(new IOException("upstream down")));
+
+        ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+        assertInstanceOf(IOException.class, e.getCause());
+        assertEquals("ok", inFlight.submit("graz", () -> CompletableFuture.completedFuture("ok")).get());
+    }
+
+    @Test
+    void cancellingOneCallerDoesNotAffectOthers() throws Exception {
+        InFlightRequests<String, String> inFlight = new InFlightRequests<>();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> first = inFlight.submit("linz", () -> upstream);
+        CompletableFuture<String> second = inFlight.submit("linz", () -> upstream);
+
+        first.cancel(true);
+        upstream.complete("result");
+        assertEquals("result", second.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,82 @@
+package at.tw.tourplanner.tourplanner.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, Duration.ofSeconds(30), 2, clock::get);
+
+    private void call(boolean failure) {
+        assertTrue(breaker.tryAcquire());
+        if (failure) breaker.onFailure();
+        else breaker.onSuccess();
+    }
+
+    @Test
+    void staysClosedUntilTheMinimumNumberOfCalls() {
+        call(true);
+        call(true);
+        call(true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        call(false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void onlyTheLastCallsCountTowardsTheFailureRate() {
+        for (int i = 0; i < 4; i++) call(true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        CircuitBreaker slidingBreaker = new CircuitBreaker(4, 4, 0.5, Duration.ofSeconds(30), 2, clock::get);
+        for (boolean failure : new boolean[]{true, false, false, false, true, false, false}) {
+            assertTrue(slidingBreaker.tryAcquire());
+            if (failure) slidingBreaker.onFailure();
+            else slidingBreaker.onSuccess();
+        }
+        // the first failure has left the window of four calls
+        assertEquals(0.25, slidingBreaker.getFailureRate());
+        assertEquals(CircuitBreaker.State.CLOSED, slidingBreaker.getState());
+    }
+
+    @Test
+    void halfOpenProbesCloseOrReopenTheCircuit() {
+        for (int i = 0; i < 4; i++) call(true);
+        clock.addAndGet(30 * SECOND);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // only two probes are let through
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onSuccess();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        clock.addAndGet(30 * SECOND);
+        call(false);
+        call(false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getFailureRate());
+    }
+
+    @Test
+    void ignoredProbesReleaseTheirPermit() {
+        for (int i = 0; i < 4; i++) call(true);
+        clock.addAndGet(30 * SECOND);
+
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        breaker.onIgnored();
+        assertTrue(breaker.tryAcquire());
+    }
+}
@@ -0,0 +1,50 @@
+package at.tw.tourplanner.tourplanner.client;
+
+import at.tw.tourplanner.tourplanner.loadtest.FakeOrsServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrsClientTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void requestRejectedByOpenCircuitGivesItsTokenBack() throws Exception {
+        FakeOrsServer.Options failing = new FakeOrsServer.Options(Duration.ZERO, Duration.ZERO, 1.0, 503);
+        try (FakeOrsServer server = FakeOrsServer.start(0, failing)) {
+            OrsRateLimiter limiter = new OrsRateLimiter(null, 100, 1000, 0.25, 100, Duration.ofSeconds(30),
+                    Duration.ofMinutes(5), System::nanoTime, () -> LocalDate.of(2025, 1, 1), scheduler);
+            OrsClient client = new OrsClient("key", server.baseUri().toString().replaceAll("/$", ""),
+                    Duration.ofSeconds(2), Duration.ofSeconds(5), limiter, 4, 4, 2, 0.5, Duration.ofSeconds(5),
+                    Duration.ofMinutes(1), 1);
+
+            for (int i = 0; i < 2; i++) {
+                CompletionException e = assertThrows(CompletionException.class,
+                        () -> client.get("/geocode/search", Map.of("text", "Wien")).join());
+                assertEquals(503, ((OrsException) e.getCause()).getStatusCode());
+            }
+            assertEquals("OPEN", client.getCircuitBreakerStats().getState());
+            assertEquals(2, limiter.getStats().getDailyUsed());
+
+            CompletionException e = assertThrows(CompletionException.class,
+                    () -> client.get("/geocode/search", Map.of("text", "Wien")).join());
+            assertInstanceOf(OrsUnavailableException.class, e.getCause());
+            assertEquals(2, limiter.getStats().getDailyUsed());
+            assertEquals(2, server.requestCount());
+        }
+    }
+}
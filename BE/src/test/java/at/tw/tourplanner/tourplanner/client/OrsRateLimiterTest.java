@@ -0,0 +1,112 @@
+package at.tw.tourplanner.tourplanner.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrsRateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicReference<LocalDate> today = new AtomicReference<>(LocalDate.of(2025, 1, 1));
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    private OrsRateLimiter limiter(int perMinute, long perDay) {
+        return new OrsRateLimiter(null, perMinute, perDay, 0.25, 100, Duration.ofSeconds(30),
+                Duration.ofMinutes(5), clock::get, today::get, scheduler);
+    }
+
+    @Test
+    void backgroundRequestsLeaveTheReserveToInteractiveOnes() {
+        OrsRateLimiter limiter = limiter(60, 1000);
+        for (int i = 0; i < 45; i++) assertTrue(limiter.acquire(OrsPriority.BACKGROUND).isDone());
+        CompletableFuture<Void> background = limiter.acquire(OrsPriority.BACKGROUND);
+        assertFalse(background.isDone());
+
+        for (int i = 0; i < 15; i++) assertTrue(limiter.acquire(OrsPriority.INTERACTIVE).isDone());
+        CompletableFuture<Void> interactive = limiter.acquire(OrsPriority.INTERACTIVE);
+        assertFalse(interactive.isDone());
+
+        // one token refilled: the waiting interactive request is served before the older background one
+        clock.addAndGet(SECOND);
+        limiter.drain();
+        assertTrue(interactive.isDone());
+        assertFalse(background.isDone());
+        assertEquals(1, limiter.getStats().getBackground().getQueueDepth());
+
+        clock.addAndGet(16 * SECOND);
+        limiter.drain();
+        assertTrue(background.isDone());
+        assertEquals(17, limiter.getStats().getBackground().getMaxWaitMillis() / 1000, 1e-9);
+    }
+
+    @Test
+    void dailyQuotaRejectsBackgroundBeforeInteractive() {
+        OrsRateLimiter limiter = limiter(1000, 8);
+        for (int i = 0; i < 6; i++) assertTrue(limiter.acquire(OrsPriority.BACKGROUND).isDone());
+        CompletableFuture<Void> rejected = limiter.acquire(OrsPriority.BACKGROUND);
+        assertTrue(rejected.isCompletedExceptionally());
+
+        assertTrue(limiter.acquire(OrsPriority.INTERACTIVE).isDone());
+        assertTrue(limiter.acquire(OrsPriority.INTERACTIVE).isDone());
+        assertTrue(limiter.acquire(OrsPriority.INTERACTIVE).isCompletedExceptionally());
+        assertEquals(8, limiter.getStats().getDailyUsed());
+
+        today.set(LocalDate.of(2025, 1, 2));
+        assertFalse(limiter.acquire(OrsPriority.INTERACTIVE).isCompletedExceptionally());
+        assertEquals(1, limiter.getStats().getDailyUsed());
+    }
+
+    @Test
+    void waitersFailAfterTheMaximumWait() {
+        OrsRateLimiter limiter = limiter(60, 1000);
+        for (int i = 0; i < 60; i++) assertTrue(limiter.acquire(OrsPriority.INTERACTIVE).isDone());
+        CompletableFuture<Void> first = limiter.acquire(OrsPriority.INTERACTIVE);
+        clock.addAndGet(SECOND / 2);
+        CompletableFuture<Void> second = limiter.acquire(OrsPriority.INTERACTIVE);
+
+        // the bucket is emptied before every drain, so both waiters run into their deadline
+        clock.addAndGet(29 * SECOND + SECOND * 3 / 4);
+        limiter.onRateLimited();
+        limiter.drain();
+        assertTrue(first.isCompletedExceptionally());
+        assertFalse(second.isDone());
+        clock.addAndGet(SECOND);
+        limiter.onRateLimited();
+        limiter.drain();
+        assertTrue(second.isCompletedExceptionally());
+        assertEquals(0, limiter.getStats().getInteractive().getQueueDepth());
+        assertEquals(2, limiter.getStats().getInteractive().getRejected());
+        assertEquals(60, limiter.getStats().getDailyUsed());
+    }
+
+    @Test
+    void releasedTokensAreGivenBackAndServeTheNextWaiter() {
+        OrsRateLimiter limiter = limiter(60, 1000);
+        for (int i = 0; i < 60; i++) assertTrue(limiter.acquire(OrsPriority.INTERACTIVE).isDone());
+        CompletableFuture<Void> waiting = limiter.acquire(OrsPriority.INTERACTIVE);
+        assertFalse(waiting.isDone());
+
+        limiter.release();
+        assertTrue(waiting.isDone());
+        assertEquals(60, limiter.getStats().getDailyUsed());
+
+        limiter.release();
+        assertEquals(59, limiter.getStats().getDailyUsed());
+    }
+}
@@ -0,0 +1,87 @@
+package at.tw.tourplanner.tourplanner.controller;
+
+import at.tw.tourplanner.tourplanner.model.Tour;
+import at.tw.tourplanner.tourplanner.repository.TourRepository;
+import at.tw.tourplanner.tourplanner.service.RouteGeometryService;
+import at.tw.tourplanner.tourplanner.service.TourIndexService;
+import at.tw.tourplanner.tourplanner.service.TourRouteJobService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TourControllerTest {
+
+    private final Map<String, Tour> stored = new HashMap<>();
+    private final List<String> enqueued = new ArrayList<>();
+    private final TourController controller = new TourController();
+
+    TourControllerTest() {
+        controller.tourRepository = (TourRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{TourRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.ofNullable(stored.get((String) args[0]));
+                    case "save" -> {
+                        Tour tour = (Tour) args[0];
+                        stored.put(tour.getName(), tour);
+                        yield tour;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        RouteGeometryService geometries = new RouteGeometryService(null, 6, DataSize.ofMegabytes(1)) {
+            @Override
+            public Optional<double[]> coordinates(String hash) {
+                return Optional.empty();
+            }
+        };
+        controller.tourIndexService = new TourIndexService(null, geometries, 0.05, 0.02, 16);
+        controller.tourRouteJobService = new TourRouteJobService(null, null, Runnable::run, 1, 1, null, null, null, false) {
+            @Override
+            public void enqueue(String name) {
+                enqueued.add(name);
+            }
+        };
+    }
+
+    @Test
+    void updateWithoutWaypointsKeepsThemAndTheRoute() throws Exception {
+        Tour tour = new Tour("Ring", "", "Wien", "Graz", "CAR");
+        tour.setWaypoints(List.of("Baden"));
+        tour.setRouteGeometryHash("ab");
+        stored.put("Ring", tour);
+
+        Tour body = new ObjectMapper().readValue(
+                "{\"description\":\"new\",\"fromLocation\":\"Wien\",\"toLocation\":\"Graz\",\"transportType\":\"CAR\"}",
+                Tour.class);
+        controller.updateTour("Ring", body);
+
+        assertEquals(List.of("Baden"), stored.get("Ring").getWaypoints());
+        assertEquals("new", stored.get("Ring").getDescription());
+        assertTrue(stored.get("Ring").isRouteAvailable());
+        assertTrue(enqueued.isEmpty());
+    }
+
+    @Test
+    void updateWithWaypointsReplacesThemAndRecomputesTheRoute() throws Exception {
+        Tour tour = new Tour("Ring", "", "Wien", "Graz", "CAR");
+        tour.setWaypoints(List.of("Baden"));
+        tour.setRouteGeometryHash("ab");
+        stored.put("Ring", tour);
+
+        Tour body = new ObjectMapper().readValue(
+                "{\"fromLocation\":\"Wien\",\"toLocation\":\"Graz\",\"transportType\":\"CAR\",\"waypoints\":[]}",
+                Tour.class);
+        controller.updateTour("Ring", body);
+
+        assertEquals(List.of(), stored.get("Ring").getWaypoints());
+        assertFalse(stored.get("Ring").isRouteAvailable());
+        assertEquals(List.of("Ring"), enqueued);
+    }
+}
@@ -0,0 +1,62 @@
+package at.tw.tourplanner.tourplanner.gazetteer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GazetteerIndexTest {
+
+    private static final String GAZETTEER = """
+            name,lat,lon,population,alternate names
+            # capitals
+            Wien,48.2082,16.3738,1982097,Vienna|Vienne
+            Graz,47.0707,15.4395,291072
+            "Sankt Pölten",48.2047,15.6256,56760,St. Pölten
+            Neustadt,50.0,10.0,1000
+            Neustadt,51.0,11.0,1500
+            Springfield,40.0,-89.0,100000
+            Springfield,42.0,-72.0,1000
+            """;
+
+    @Test
+    void findsNamesAndAlternateNamesAfterNormalization() throws Exception {
+        GazetteerIndex index = GazetteerIndex.read(new StringReader(GAZETTEER), ',');
+        assertEquals(7, index.size());
+        int wien = index.find("wien");
+        assertTrue(wien >= 0);
+        assertEquals(wien, index.find("vienna"));
+        assertEquals(16.3738, index.lon(wien));
+        assertEquals(48.2082, index.lat(wien));
+        assertEquals("Sankt Pölten", index.name(index.find("sankt polten")));
+        assertEquals(-1, index.find("linz"));
+        assertEquals(-1, index.find("wie"));
+    }
+
+    @Test
+    void ambiguousNamesAreNotConfident() throws Exception {
+        GazetteerIndex index = GazetteerIndex.read(new StringReader(GAZETTEER), ',');
+        assertEquals(-1, index.find("neustadt"));
+        assertEquals(40.0, index.lat(index.find("springfield")));
+    }
+
+    @Test
+    void prefixRangeCoversAllMatchingNames() throws Exception {
+        GazetteerIndex index = GazetteerIndex.read(new StringReader(GAZETTEER), ',');
+        int[] range = index.prefixRange("s");
+        assertEquals(4, range[1] - range[0]); // sankt polten, springfield (twice), st. polten
+        int[] none = index.prefixRange("x");
+        assertEquals(none[0], none[1]);
+        int[] all = index.prefixRange("");
+        assertEquals(index.entryCount(), all[1] - all[0]);
+    }
+
+    @Test
+    void invalidPopulationReportsItsLine() {
+        IOException e = assertThrows(IOException.class,
+                () -> GazetteerIndex.read(new StringReader("Wien,48.2082,16.3738,1982097\nGraz,47.0707,15.4395,n/a\n"), ','));
+        assertEquals("Line 2: invalid population", e.getMessage());
+    }
+}
@@ -0,0 +1,124 @@
+package at.tw.tourplanner.tourplanner.geometry;
+
+import at.tw.tourplanner.tourplanner.util.RouteGeoJson;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares reading a route geometry stored as GeoJSON text with reading it from the {@link GeometryCodec}
+ * encoding, on random-walk lines resembling road routes. {@link #main} first prints the storage size of both
+ * representations, then runs the benchmarks from the test classpath, e.g. from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeometryCodecBenchmark {
+
+    private static final int[] SIZES = {1000, 20000, 100000};
+
+    @Param({"1000", "20000", "100000"})
+    public int points;
+
+    private String geoJson;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        double[] line = line(points);
+        geoJson = geoJsonText(line);
+        encoded = GeometryCodec.encode(line, GeometryCodec.DEFAULT_PRECISION);
+    }
+
+    @Benchmark
+    public double[] decodeGeoJsonText() {
+        return RouteGeoJson.coordinates(new JSONObject().put("geometry", new JSONObject(geoJson)));
+    }
+
+    @Benchmark
+    public double[] decodeBinary() {
+        return GeometryCodec.decode(encoded);
+    }
+
+    @Benchmark
+    public String binaryToGeoJson() {
+        return GeometryCodec.toGeoJson(encoded);
+    }
+
+    @Benchmark
+    public String binaryToPolyline() {
+        return GeometryCodec.toPolyline(encoded, RouteGeoJson.DEFAULT_POLYLINE_PRECISION);
+    }
+
+    /**
+     * Builds a random walk with steps of up to about 30 meters, starting in Vienna.
+     */
+    static double[] line(int points) {
+        Random random = new Random(points);
+        double[] line = new double[points * 2];
+        double lon = 16.37;
+        double lat = 48.21;
+        for (int i = 0; i < points; i++) {
+            line[2 * i] = lon;
+            line[2 * i + 1] = lat;
+            lon += (random.nextDouble() - 0.4) * 4e-4;
+            lat += (random.nextDouble() - 0.45) * 3e-4;
+        }
+        return line;
+    }
+
+    /**
+     * Writes a line as a GeoJSON LineString geometry with six decimals, like OpenRouteService.
+     */
+    static String geoJsonText(double[] line) {
+        StringBuilder json = new StringBuilder(line.length * 12 + 64).append("{\"type\":\"LineString\",\"coordinates\":[");
+        for (int i = 0; i < line.length; i += 2) {
+            if (i > 0) json.append(',');
+            json.append(String.format(Locale.ROOT, "[%.6f,%.6f]", line[i], line[i + 1]));
+        }
+        return json.append("]}").toString();
+    }
+
+    private static int gzipSize(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.size();
+    }
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        System.out.printf(Locale.ROOT, "%8s %12s %12s %12s %10s%n", "points", "geojson", "geojson.gz", "binary", "ratio");
+        for (int size : SIZES) {
+            double[] line = line(size);
+            byte[] text = geoJsonText(line).getBytes(StandardCharsets.UTF_8);
+            byte[] binary = GeometryCodec.encode(line, GeometryCodec.DEFAULT_PRECISION);
+            System.out.printf(Locale.ROOT, "%8d %12d %12d %12d %9.1fx%n",
+                    size, text.length, gzipSize(text), binary.length, (double) text.length / binary.length);
+        }
+        new Runner(new OptionsBuilder().include(GeometryCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
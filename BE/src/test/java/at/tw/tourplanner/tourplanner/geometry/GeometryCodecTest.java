@@ -0,0 +1,64 @@
+package at.tw.tourplanner.tourplanner.geometry;
+
+import at.tw.tourplanner.tourplanner.util.GeometryUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeometryCodecTest {
+
+    @Test
+    void roundTripsAtStoredPrecision() {
+        double[] line = GeometryCodecBenchmark.line(5000);
+        byte[] data = GeometryCodec.encode(line, 6);
+        double[] decoded = GeometryCodec.decode(data);
+
+        assertEquals(line.length, decoded.length);
+        assertEquals(5000, GeometryCodec.pointCount(data));
+        for (int i = 0; i < line.length; i++) assertEquals(line[i], decoded[i], 0.5e-6);
+        // short steps fit into two bytes per value instead of about ten characters of text
+        assertTrue(data.length < line.length * 2 + 8, "encoded size " + data.length);
+    }
+
+    @Test
+    void handlesNegativeCoordinatesAndLargeJumps() {
+        double[] line = {-179.999999, -89.5, 179.999999, 89.5, 0, 0, -0.000001, 0.000001};
+        assertArrayEquals(line, GeometryCodec.decode(GeometryCodec.encode(line, 6)), 1e-9);
+        assertEquals(0, GeometryCodec.decode(GeometryCodec.encode(new double[0], 6)).length);
+    }
+
+    @Test
+    void rendersGeoJsonAndPolylineFromTheEncoding() {
+        double[] line = {16.37, 48.21, -0.05, 51.500001, 15.4, 47.0};
+        byte[] data = GeometryCodec.encode(line, 6);
+
+        String geoJson = GeometryCodec.toGeoJson(data);
+        assertTrue(geoJson.contains("[-0.05,51.500001]"), geoJson);
+        JSONArray coordinates = new JSONObject(geoJson).getJSONArray("coordinates");
+        assertEquals(3, coordinates.length());
+        assertEquals(15.4, coordinates.getJSONArray(2).getDouble(0));
+        assertEquals(47, coordinates.getJSONArray(2).getDouble(1));
+
+        assertEquals(GeometryUtils.encodePolyline(line, 5), GeometryCodec.toPolyline(data, 5));
+    }
+
+    @Test
+    void equalLinesHaveEqualHashes() {
+        double[] line = {16.37, 48.21, 15.44, 47.07};
+        String hash = GeometryCodec.hash(GeometryCodec.encode(line, 6));
+        assertEquals(64, hash.length());
+        assertEquals(hash, GeometryCodec.hash(GeometryCodec.encode(line.clone(), 6)));
+        assertNotEquals(hash, GeometryCodec.hash(GeometryCodec.encode(new double[]{16.37, 48.21, 15.44, 47.08}, 6)));
+    }
+
+    @Test
+    void rejectsCorruptData() {
+        byte[] data = GeometryCodec.encode(new double[]{16.37, 48.21, 15.44, 47.07}, 6);
+        assertThrows(IllegalArgumentException.class, () -> GeometryCodec.decode(new byte[]{9, 6, 0}));
+        assertThrows(IllegalArgumentException.class, () -> GeometryCodec.decode(Arrays.copyOf(data, data.length - 1)));
+    }
+}
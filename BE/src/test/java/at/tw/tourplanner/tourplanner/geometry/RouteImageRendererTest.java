@@ -0,0 +1,68 @@
+package at.tw.tourplanner.tourplanner.geometry;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteImageRendererTest {
+
+    private static final double[] VIENNA_GRAZ = {16.37, 48.21, 16.0, 47.8, 15.44, 47.07};
+
+    @Test
+    void renderPng_encodesImageOfRequestedSize() throws IOException {
+        byte[] png = RouteImageRenderer.renderPng(VIENNA_GRAZ, 320, 180, null);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(320, image.getWidth());
+        assertEquals(180, image.getHeight());
+    }
+
+    @Test
+    void render_fitsRouteInsideMarginAndMarksEnds() {
+        BufferedImage image = RouteImageRenderer.render(VIENNA_GRAZ, 640, 360, null);
+
+        // the route spans the height minus a margin of 36 pixels: Vienna top right, Graz bottom left
+        int start = image.getRGB(399, 36);
+        int via = image.getRGB(336, 140);
+        int end = image.getRGB(241, 324);
+        assertTrue(green(start) > red(start) && green(start) > blue(start), "start marker");
+        assertTrue(blue(via) > red(via) && blue(via) > green(via), "route line");
+        assertTrue(red(end) > green(end) && red(end) > blue(end), "end marker");
+        assertEquals(image.getRGB(0, 0), image.getRGB(639, 359));
+        assertEquals(image.getRGB(0, 0), image.getRGB(320, 10));
+    }
+
+    @Test
+    void render_usesBasemapTiles() {
+        BufferedImage tile = new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 256; x++) for (int y = 0; y < 256; y++) tile.setRGB(x, y, 0x000000);
+
+        BufferedImage image = RouteImageRenderer.render(VIENNA_GRAZ, 320, 180, (z, x, y) -> tile);
+
+        assertEquals(0x000000, image.getRGB(0, 0) & 0xFFFFFF);
+    }
+
+    @Test
+    void render_singlePoint() {
+        BufferedImage image = RouteImageRenderer.render(new double[]{16.37, 48.21}, 320, 180, null);
+
+        assertTrue(red(image.getRGB(160, 90)) > green(image.getRGB(160, 90)));
+    }
+
+    private static int red(int rgb) {
+        return (rgb >> 16) & 0xFF;
+    }
+
+    private static int green(int rgb) {
+        return (rgb >> 8) & 0xFF;
+    }
+
+    private static int blue(int rgb) {
+        return rgb & 0xFF;
+    }
+}
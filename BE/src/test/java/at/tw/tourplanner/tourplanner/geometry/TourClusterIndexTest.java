@@ -0,0 +1,79 @@
+package at.tw.tourplanner.tourplanner.geometry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TourClusterIndexTest {
+
+    private static int total(List<TourClusterIndex.Cluster> clusters) {
+        return clusters.stream().mapToInt(TourClusterIndex.Cluster::count).sum();
+    }
+
+    @Test
+    void mergesNearbyToursAtLowZoomAndSplitsThemWhenZoomingIn() {
+        TourClusterIndex index = new TourClusterIndex(16);
+        index.put("Stephansplatz", 16.3725, 48.2083);
+        index.put("Karlsplatz", 16.3700, 48.2000);
+        index.put("Prater", 16.4000, 48.2150);
+        index.put("Graz", 15.4395, 47.0707);
+
+        List<TourClusterIndex.Cluster> overview = index.clusters(9, 46, 17, 49, 7, 3, 100);
+        assertEquals(2, overview.size());
+        assertEquals(3, overview.get(0).count());
+        assertEquals(3, overview.get(0).names().size());
+        assertEquals(16.381, overview.get(0).lon(), 0.001);
+        assertEquals(48.208, overview.get(0).lat(), 0.001);
+        assertEquals(List.of("Graz"), overview.get(1).names());
+
+        List<TourClusterIndex.Cluster> city = index.clusters(16.3, 48.15, 16.45, 48.25, 16, 3, 100);
+        assertEquals(3, city.size());
+        assertTrue(city.stream().allMatch(cluster -> cluster.count() == 1 && cluster.names().size() == 1));
+    }
+
+    @Test
+    void representativesComeFromTheDensestPart() {
+        TourClusterIndex index = new TourClusterIndex(12);
+        for (int i = 0; i < 5; i++) index.put("vienna" + i, 16.37 + i * 1e-4, 48.21);
+        index.put("linz", 14.29, 48.31);
+
+        TourClusterIndex.Cluster cluster = index.clusters(-180, -85, 180, 85, 0, 2, 10).get(0);
+        assertEquals(6, cluster.count());
+        assertEquals(2, cluster.names().size());
+        assertTrue(cluster.names().stream().allMatch(name -> name.startsWith("vienna")));
+    }
+
+    @Test
+    void movesAndRemovesTours() {
+        TourClusterIndex index = new TourClusterIndex(10);
+        index.put("Tour", 16.37, 48.21);
+        index.put("Tour", -73.98, 40.75);
+        assertEquals(1, index.size());
+        assertTrue(index.clusters(16, 48, 17, 49, 10, 3, 10).isEmpty());
+        assertEquals(1, index.clusters(-74.5, 40.5, -73.5, 41, 10, 3, 10).size());
+
+        index.remove("Tour");
+        assertEquals(0, index.size());
+        assertTrue(index.clusters(-180, -85, 180, 85, 0, 3, 10).isEmpty());
+    }
+
+    @Test
+    void everyZoomLevelAccountsForAllTours() {
+        Random random = new Random(3);
+        TourClusterIndex index = new TourClusterIndex(16);
+        for (int i = 0; i < 100_000; i++) {
+            index.put("t" + i, 9.5 + random.nextDouble() * 7.5, 46.4 + random.nextDouble() * 2.6);
+        }
+        for (int zoom = 0; zoom <= 18; zoom += 3) {
+            List<TourClusterIndex.Cluster> clusters = index.clusters(-180, -85, 180, 85, zoom, 1, Integer.MAX_VALUE);
+            assertEquals(100_000, total(clusters), "zoom " + zoom);
+        }
+        // an overview of Austria stays small
+        assertTrue(index.clusters(9, 46, 17.5, 49.1, 6, 3, Integer.MAX_VALUE).size() < 200);
+        // boxes crossing the antimeridian select nothing here
+        assertEquals(0, total(index.clusters(170, -85, -170, 85, 4, 1, Integer.MAX_VALUE)));
+    }
+}
@@ -0,0 +1,99 @@
+package at.tw.tourplanner.tourplanner.geometry;
+
+import at.tw.tourplanner.tourplanner.util.GeometryUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TourPointIndexTest {
+
+    private static TourPointIndex.Entry entry(String name, double fromLon, double fromLat, double toLon, double toLat) {
+        return new TourPointIndex.Entry(name, fromLon, fromLat, toLon, toLat);
+    }
+
+    private static Set<String> names(List<TourPointIndex.Entry> entries) {
+        return entries.stream().map(TourPointIndex.Entry::name).collect(Collectors.toSet());
+    }
+
+    @Test
+    void findsNearbyStartsAndEndsNearestFirst() {
+        TourPointIndex index = new TourPointIndex(0.05);
+        index.put(entry("Vienna-Graz", 16.3725, 48.2083, 15.4395, 47.0707));
+        index.put(entry("Baden-Vienna", 16.2311, 48.0050, 16.3700, 48.2100));
+        index.put(entry("Linz-Salzburg", 14.2858, 48.3069, 13.0550, 47.8095));
+
+        List<TourPointIndex.Match> starts = index.near(16.37, 48.21, 1000, TourPointIndex.Endpoint.START, 10);
+        assertEquals(List.of("Vienna-Graz"), starts.stream().map(m -> m.entry().name()).toList());
+
+        List<TourPointIndex.Match> any = index.near(16.37, 48.21, 1000, TourPointIndex.Endpoint.ANY, 10);
+        assertEquals(List.of("Baden-Vienna", "Vienna-Graz"), any.stream().map(m -> m.entry().name()).toList());
+        assertTrue(any.get(0).distance() < any.get(1).distance());
+
+        assertEquals(1, index.near(16.37, 48.21, 1000, TourPointIndex.Endpoint.ANY, 1).size());
+    }
+
+    @Test
+    void updatesAndRemovesTours() {
+        TourPointIndex index = new TourPointIndex(0.05);
+        index.put(entry("Tour", 16.37, 48.21, 15.44, 47.07));
+        index.put(entry("Tour", 14.29, 48.31, 13.06, 47.81));
+        assertEquals(1, index.size());
+        assertTrue(index.near(16.37, 48.21, 5000, TourPointIndex.Endpoint.START, 10).isEmpty());
+        assertEquals(1, index.near(14.29, 48.31, 5000, TourPointIndex.Endpoint.START, 10).size());
+
+        index.remove("Tour");
+        assertEquals(0, index.size());
+        assertTrue(index.within(-180, -90, 180, 90, TourPointIndex.Endpoint.ANY, 10).isEmpty());
+    }
+
+    @Test
+    void boundingBoxesMayCrossTheAntimeridian() {
+        TourPointIndex index = new TourPointIndex(1);
+        index.put(entry("Fiji", 178.4, -18.1, 178.5, -18.2));
+        index.put(entry("Samoa", -171.8, -13.8, -171.7, -13.9));
+        index.put(entry("Vienna", 16.37, 48.21, 16.4, 48.2));
+
+        assertEquals(Set.of("Fiji", "Samoa"), names(index.within(170, -30, -170, 0, TourPointIndex.Endpoint.START, 10)));
+        assertEquals(Set.of("Vienna"), names(index.within(-170, 0, 170, 60, TourPointIndex.Endpoint.START, 10)));
+        assertEquals(1, index.near(179.9, -18.1, 200_000, TourPointIndex.Endpoint.START, 10).size());
+    }
+
+    @Test
+    void matchesBruteForceOnManyTours() {
+        Random random = new Random(7);
+        TourPointIndex index = new TourPointIndex(0.05);
+        List<TourPointIndex.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            entries.add(entry("t" + i, 9.5 + random.nextDouble() * 7.5, 46.4 + random.nextDouble() * 2.6,
+                    9.5 + random.nextDouble() * 7.5, 46.4 + random.nextDouble() * 2.6));
+        }
+        index.reset(entries);
+        assertEquals(100_000, index.size());
+
+        for (int q = 0; q < 20; q++) {
+            double lon = 9.5 + random.nextDouble() * 7.5;
+            double lat = 46.4 + random.nextDouble() * 2.6;
+            double radius = 1000 + random.nextDouble() * 20_000;
+            Set<String> expected = entries.stream()
+                    .filter(e -> GeometryUtils.haversine(lon, lat, e.fromLon(), e.fromLat()) <= radius)
+                    .map(TourPointIndex.Entry::name)
+                    .collect(Collectors.toSet());
+            Set<String> actual = index.near(lon, lat, radius, TourPointIndex.Endpoint.START, Integer.MAX_VALUE).stream()
+                    .map(m -> m.entry().name())
+                    .collect(Collectors.toSet());
+            assertEquals(expected, actual);
+
+            Set<String> expectedInBox = entries.stream()
+                    .filter(e -> e.toLon() >= lon - 0.2 && e.toLon() <= lon + 0.2 && e.toLat() >= lat - 0.1 && e.toLat() <= lat + 0.1)
+                    .map(TourPointIndex.Entry::name)
+                    .collect(Collectors.toSet());
+            assertEquals(expectedInBox, names(index.within(lon - 0.2, lat - 0.1, lon + 0.2, lat + 0.1, TourPointIndex.Endpoint.END, Integer.MAX_VALUE)));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package at.tw.tourplanner.tourplanner.geometry;
+
+import at.tw.tourplanner.tourplanner.util.GeometryUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TourSegmentIndexTest {
+
+    private final Map<String, double[]> geometries = new HashMap<>();
+    private final TourSegmentIndex index = new TourSegmentIndex(0.02, geometries::get);
+
+    private void put(String name, double... coordinates) {
+        geometries.put(name, coordinates);
+        index.put(name, name, coordinates);
+    }
+
+    @Test
+    void findsRoutesPassingBetweenTheirPoints() {
+        // a straight route Vienna - Graz without points in between
+        put("Vienna-Graz", 16.37, 48.21, 15.44, 47.07);
+        put("Linz-Salzburg", 14.29, 48.31, 13.06, 47.81);
+
+        double midLon = (16.37 + 15.44) / 2;
+        double midLat = (48.21 + 47.07) / 2;
+        List<TourSegmentIndex.Match> matches = index.near(midLon + 0.005, midLat, 1000, 10);
+        assertEquals(List.of("Vienna-Graz"), matches.stream().map(TourSegmentIndex.Match::name).toList());
+        assertTrue(matches.get(0).distance() < 1000);
+        assertTrue(index.near(midLon + 0.05, midLat, 1000, 10).isEmpty());
+
+        assertEquals(List.of("Vienna-Graz"), index.crossing(midLon - 0.01, midLat - 0.01, midLon + 0.01, midLat + 0.01, 10));
+        assertEquals(Set.of("Vienna-Graz", "Linz-Salzburg"), new HashSet<>(index.crossing(13, 47, 17, 49, 10)));
+    }
+
+    @Test
+    void candidateRoutesComeFromTheCellsWithoutLoadingGeometries() {
+        TourSegmentIndex unloadable = new TourSegmentIndex(0.02, hash -> fail("geometry loaded"));
+        unloadable.put("b", "hash-b", new double[]{16.37, 48.21, 15.44, 47.07});
+        unloadable.put("a", "hash-a", new double[]{16.0, 48.0, 16.1, 48.0});
+        unloadable.put("c", "hash-c", new double[]{14.29, 48.31, 13.06, 47.81});
+
+        assertEquals(List.of(new TourSegmentIndex.IndexedRoute("a", "hash-a"), new TourSegmentIndex.IndexedRoute("b", "hash-b")),
+                unloadable.candidateRoutes(15.5, 47.5, 16.5, 48.5));
+        unloadable.put("a", "hash-a2", new double[]{16.0, 48.0, 16.1, 48.0});
+        assertEquals("hash-a2", unloadable.candidateRoutes(15.5, 47.5, 16.5, 48.5).get(0).geometryHash());
+    }
+
+    @Test
+    void replacesAndRemovesRoutes() {
+        put("Tour", 16.37, 48.21, 16.40, 48.22);
+        put("Tour", 14.29, 48.31, 14.30, 48.32);
+        assertEquals(1, index.size());
+        assertTrue(index.near(16.37, 48.21, 500, 10).isEmpty());
+        assertEquals(1, index.near(14.29, 48.31, 500, 10).size());
+
+        index.remove("Tour");
+        assertEquals(0, index.size());
+        assertTrue(index.crossing(-180, -90, 180, 90, 10).isEmpty());
+    }
+
+    @Test
+    void matchesBruteForceOnRandomRoutes() {
+        Random random = new Random(11);
+        for (int t = 0; t < 2000; t++) {
+            int points = 2 + random.nextInt(30);
+            double[] line = new double[points * 2];
+            line[0] = 14 + random.nextDouble() * 3;
+            line[1] = 47 + random.nextDouble() * 1.5;
+            for (int i = 2; i < line.length; i += 2) {
+                line[i] = line[i - 2] + (random.nextDouble() - 0.5) * 0.2;
+                line[i + 1] = line[i - 1] + (random.nextDouble() - 0.5) * 0.1;
+            }
+            put("t" + t, line);
+        }
+
+        for (int q = 0; q < 50; q++) {
+            double lon = 14 + random.nextDouble() * 3;
+            double lat = 47 + random.nextDouble() * 1.5;
+            double radius = 200 + random.nextDouble() * 5000;
+            Set<String> expected = geometries.entrySet().stream()
+                    .filter(e -> GeometryUtils.distanceToLine(e.getValue(), lon, lat) <= radius)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toSet());
+            Set<String> actual = index.near(lon, lat, radius, Integer.MAX_VALUE).stream()
+                    .map(TourSegmentIndex.Match::name)
+                    .collect(Collectors.toSet());
+            assertEquals(expected, actual);
+
+            Set<String> expectedCrossing = geometries.entrySet().stream()
+                    .filter(e -> GeometryUtils.intersectsBox(e.getValue(), lon, lat, lon + 0.05, lat + 0.03))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toSet());
+            assertEquals(expectedCrossing, new HashSet<>(index.crossing(lon, lat, lon + 0.05, lat + 0.03, Integer.MAX_VALUE)));
+        }
+    }
+}
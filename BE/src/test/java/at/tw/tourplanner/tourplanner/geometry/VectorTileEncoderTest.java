@@ -0,0 +1,123 @@
+package at.tw.tourplanner.tourplanner.geometry;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorTileEncoderTest {
+
+    /**
+     * Reads the fields of a protocol buffer message as {@code [field, value]} pairs; length-delimited values
+     * are returned as byte arrays, varints as longs.
+     */
+    private static List<Object[]> fields(byte[] message) {
+        List<Object[]> fields = new ArrayList<>();
+        int[] position = {0};
+        while (position[0] < message.length) {
+            long tag = varint(message, position);
+            int field = (int) (tag >>> 3);
+            switch ((int) (tag & 7)) {
+                case 0 -> fields.add(new Object[]{field, varint(message, position)});
+                case 1 -> {
+                    long bits = 0;
+                    for (int i = 0; i < 8; i++) bits |= (message[position[0]++] & 0xFFL) << (8 * i);
+                    fields.add(new Object[]{field, Double.longBitsToDouble(bits)});
+                }
+                case 2 -> {
+                    int length = (int) varint(message, position);
+                    byte[] value = new byte[length];
+                    System.arraycopy(message, position[0], value, 0, length);
+                    position[0] += length;
+                    fields.add(new Object[]{field, value});
+                }
+                default -> fail("unexpected wire type");
+            }
+        }
+        return fields;
+    }
+
+    private static long varint(byte[] data, int[] position) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    private static List<Long> packed(byte[] data) {
+        List<Long> values = new ArrayList<>();
+        int[] position = {0};
+        while (position[0] < data.length) values.add(varint(data, position));
+        return values;
+    }
+
+    @Test
+    void encodesLayerFeaturesAndDeduplicatedProperties() {
+        VectorTileEncoder encoder = new VectorTileEncoder("tours", 4096);
+        encoder.addLines(List.of(new int[]{10, 20, 15, 20, 15, 10}, new int[]{100, 100, 90, 110}), Map.of("name", "Ring"));
+        encoder.addLines(List.of(new int[]{0, 0, 1, 1}), Map.of("name", "Ring"));
+        encoder.addLines(List.of(new int[]{5, 5}), Map.of("name", "Dropped"));
+        assertEquals(2, encoder.size());
+
+        List<Object[]> tile = fields(encoder.encode());
+        assertEquals(1, tile.size());
+        assertEquals(3, tile.get(0)[0]);
+        List<Object[]> layer = fields((byte[]) tile.get(0)[1]);
+
+        List<byte[]> features = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        int values = 0;
+        for (Object[] field : layer) {
+            switch ((int) field[0]) {
+                case 15 -> assertEquals(2L, field[1]);
+                case 1 -> assertEquals("tours", new String((byte[]) field[1], StandardCharsets.UTF_8));
+                case 2 -> features.add((byte[]) field[1]);
+                case 3 -> keys.add(new String((byte[]) field[1], StandardCharsets.UTF_8));
+                case 4 -> values++;
+                case 5 -> assertEquals(4096L, field[1]);
+                default -> fail("unexpected layer field " + field[0]);
+            }
+        }
+        assertEquals(2, features.size());
+        assertEquals(List.of("name"), keys);
+        assertEquals(1, values);
+
+        List<Object[]> feature = fields(features.get(0));
+        assertEquals(List.of(0L, 0L), packed((byte[]) feature.get(0)[1]));
+        assertEquals(2L, feature.get(1)[1]);
+        // MoveTo(1) 10,20  LineTo(2) +5,0 0,-10  MoveTo(1) +85,+90  LineTo(1) -10,+10
+        assertEquals(List.of(9L, 20L, 40L, 18L, 10L, 0L, 0L, 19L, 9L, 170L, 180L, 10L, 19L, 20L),
+                packed((byte[]) feature.get(2)[1]));
+    }
+
+    @Test
+    void emptyTilesEncodeToNothing() {
+        assertEquals(0, new VectorTileEncoder("tours", 4096).encode().length);
+    }
+
+    @Test
+    void clipsLinesToTheBufferedTile() {
+        // tile 0/0/0 covers the whole map; a line through Vienna lies inside it
+        List<int[]> whole = TileGeometry.clip(new double[]{16.37, 48.21, 15.44, 47.07}, 0, 0, 0, 4096, 64, 0);
+        assertEquals(1, whole.size());
+        assertEquals(2234, whole.get(0)[0]);
+
+        // a line leaving tile 10/558/355 (Vienna) is cut at the buffer edge
+        double[] bounds = TileGeometry.bounds(10, 558, 355, 0);
+        double midLat = WebMercator.lat(355.5 / 1024);
+        List<int[]> parts = TileGeometry.clip(new double[]{bounds[0] - 1, midLat, (bounds[0] + bounds[2]) / 2, midLat}, 10, 558, 355, 4096, 64, 0);
+        assertEquals(1, parts.size());
+        assertArrayEquals(new int[]{-64, 2048, 2048, 2048}, parts.get(0));
+
+        // a line re-entering the tile becomes two parts; a line outside yields none
+        assertEquals(2, TileGeometry.clip(new double[]{bounds[0] + 0.01, midLat, bounds[0] - 1, midLat, bounds[0] + 0.02, midLat},
+                10, 558, 355, 4096, 64, 0).size());
+        assertTrue(TileGeometry.clip(new double[]{0, 0, 1, 1}, 10, 558, 355, 4096, 64, 0).isEmpty());
+    }
+}
@@ -0,0 +1,379 @@
+package at.tw.tourplanner.tourplanner.loadtest;
+
+import at.tw.tourplanner.tourplanner.util.GeometryUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Embedded stand-in for the OpenRouteService API, so the backend can be load-tested without using ORS quota.
+ * It answers the endpoints the backend calls with generated responses in the ORS layout:
+ * <ul>
+ *     <li>{@code POST /v2/directions/{profile}/geojson} and {@code POST /v2/directions/{profile}}: a zigzag line
+ *     through the requested coordinates, with distances and durations derived from the straight-line distance</li>
+ *     <li>{@code GET /geocode/search?text=...}: a point in Austria derived from the hash of the text; texts
+ *     starting with {@code unknown} have no result</li>
+ * </ul>
+ * Every response can be delayed by a fixed latency plus a random jitter, and a fraction of the requests
+ * can be answered with an error status instead.
+ * <p>
+ * Run {@link #main} and start the backend with {@code openrouteservice.base-url=http://localhost:8081}, e.g.
+ * {@code --port=8081 --latency=150ms --jitter=50ms --error-rate=0.02 --error-status=503}.
+ */
+public final class FakeOrsServer implements AutoCloseable {
+
+    // ORS roads are longer than the straight line between their ends
+    private static final double DETOUR_FACTOR = 1.3;
+    private static final double POINT_SPACING_METERS = 200;
+    private static final int MAX_POINTS_PER_LEG = 500;
+    private static final double ZIGZAG_DEGREES = 1e-4;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Options options;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    private FakeOrsServer(HttpServer server, ExecutorService executor, Options options) {
+        this.server = server;
+        this.executor = executor;
+        this.options = options;
+    }
+
+    /**
+     * Starts a server on the given port.
+     *
+     * @param port    the port, or 0 for an ephemeral port
+     * @param options the latency and error injection options
+     * @return the running server
+     * @throws IOException if the port cannot be bound
+     */
+    public static FakeOrsServer start(int port, Options options) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-ors");
+            thread.setDaemon(true);
+            return thread;
+        });
+        FakeOrsServer fake = new FakeOrsServer(server, executor, options);
+        server.createContext("/v2/directions/", exchange -> fake.handle(exchange, fake::directions));
+        server.createContext("/geocode/search", exchange -> fake.handle(exchange, fake::geocode));
+        server.setExecutor(executor);
+        server.start();
+        return fake;
+    }
+
+    /**
+     * Gets the base URL to configure as {@code openrouteservice.base-url}.
+     *
+     * @return the base URL
+     */
+    public URI baseUri() {
+        return URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    /**
+     * Gets the number of requests received.
+     *
+     * @return the request count
+     */
+    public long requestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Gets the number of requests answered with an injected error.
+     *
+     * @return the injected error count
+     */
+    public long injectedErrorCount() {
+        return injectedErrors.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Delays the response, injects errors and writes the generated response, gzip-compressed if accepted.
+     */
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long delay = options.latency().toMillis() + (options.jitter().isZero() ? 0 : random.nextLong(options.jitter().toMillis() + 1));
+            if (delay > 0) Thread.sleep(delay);
+
+            int status;
+            byte[] body;
+            if (random.nextDouble() < options.errorRate()) {
+                injectedErrors.incrementAndGet();
+                status = options.errorStatus();
+                body = error("Injected error");
+            } else {
+                try {
+                    status = 200;
+                    body = handler.handle(exchange).toString().getBytes(StandardCharsets.UTF_8);
+                } catch (RuntimeException e) {
+                    status = 400;
+                    body = error(e.getMessage());
+                }
+            }
+            write(exchange, status, body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private JSONObject directions(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) throw new IllegalArgumentException("POST required");
+        String[] path = exchange.getRequestURI().getPath().substring("/v2/directions/".length()).split("/");
+        String profile = path[0];
+        boolean geoJson = path.length > 1 && "geojson".equals(path[1]);
+
+        JSONArray waypoints;
+        try (InputStream in = exchange.getRequestBody()) {
+            waypoints = new JSONObject(new JSONTokener(in)).getJSONArray("coordinates");
+        }
+        if (waypoints.length() < 2) throw new IllegalArgumentException("At least two coordinates are required");
+
+        double speed = switch (profile) {
+            case "driving-car" -> 13.9;
+            case "cycling-regular" -> 4.2;
+            case "foot-walking" -> 1.4;
+            case "wheelchair" -> 1.0;
+            default -> 10;
+        };
+        Route route = Route.generate(waypoints, speed);
+        JSONArray bbox = new JSONArray().put(route.bbox[0]).put(route.bbox[1]).put(route.bbox[2]).put(route.bbox[3]);
+        JSONObject summary = new JSONObject().put("distance", route.distance).put("duration", route.duration);
+
+        if (geoJson) {
+            JSONArray coordinates = new JSONArray();
+            for (int i = 0; i < route.coordinates.length; i += 2) {
+                coordinates.put(new JSONArray().put(route.coordinates[i]).put(route.coordinates[i + 1]));
+            }
+            JSONObject feature = new JSONObject()
+                    .put("type", "Feature")
+                    .put("bbox", bbox)
+                    .put("properties", new JSONObject()
+                            .put("segments", route.segments)
+                            .put("summary", summary)
+                            .put("way_points", route.wayPoints))
+                    .put("geometry", new JSONObject().put("type", "LineString").put("coordinates", coordinates));
+            return new JSONObject()
+                    .put("type", "FeatureCollection")
+                    .put("bbox", bbox)
+                    .put("features", new JSONArray().put(feature))
+                    .put("metadata", metadata("routing"));
+        }
+        return new JSONObject()
+                .put("bbox", bbox)
+                .put("routes", new JSONArray().put(new JSONObject()
+                        .put("summary", summary)
+                        .put("segments", route.segments)
+                        .put("bbox", bbox)
+                        .put("geometry", GeometryUtils.encodePolyline(route.coordinates, 5))
+                        .put("way_points", route.wayPoints)))
+                .put("metadata", metadata("routing"));
+    }
+
+    private JSONObject geocode(HttpExchange exchange) {
+        String text = query(exchange.getRequestURI()).getOrDefault("text", "");
+        if (text.isBlank()) throw new IllegalArgumentException("Parameter text is required");
+
+        JSONArray features = new JSONArray();
+        if (!text.toLowerCase().startsWith("unknown")) {
+            int hash = text.toLowerCase().hashCode();
+            double lon = 9.5 + (hash & 0xffff) / 65535.0 * 7.5;
+            double lat = 46.4 + (hash >>> 16) / 65535.0 * 2.6;
+            features.put(new JSONObject()
+                    .put("type", "Feature")
+                    .put("geometry", new JSONObject().put("type", "Point").put("coordinates", new JSONArray().put(lon).put(lat)))
+                    .put("properties", new JSONObject().put("label", text).put("confidence", 1)));
+        }
+        return new JSONObject()
+                .put("type", "FeatureCollection")
+                .put("features", features)
+                .put("geocoding", new JSONObject().put("query", new JSONObject().put("text", text)));
+    }
+
+    private static JSONObject metadata(String service) {
+        return new JSONObject().put("service", service).put("engine", new JSONObject().put("version", "fake"));
+    }
+
+    private static byte[] error(String message) {
+        return new JSONObject().put("error", message).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void write(HttpExchange exchange, int status, byte[] body) throws IOException {
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            }
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String raw = uri.getRawQuery();
+        if (raw == null) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    /**
+     * Starts a server until the process is stopped.
+     *
+     * @param args {@code --port}, {@code --latency}, {@code --jitter}, {@code --error-rate} and {@code --error-status}
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> arguments = LoadGenerator.parseArguments(args);
+        Options options = new Options(
+                DurationStyle.detectAndParse(arguments.getOrDefault("latency", "0ms")),
+                DurationStyle.detectAndParse(arguments.getOrDefault("jitter", "0ms")),
+                Double.parseDouble(arguments.getOrDefault("error-rate", "0")),
+                Integer.parseInt(arguments.getOrDefault("error-status", "503")));
+        FakeOrsServer server = start(Integer.parseInt(arguments.getOrDefault("port", "8081")), options);
+        System.out.println("Fake OpenRouteService listening on " + server.baseUri());
+    }
+
+    /**
+     * Latency and error injection options.
+     *
+     * @param latency     the fixed delay of every response
+     * @param jitter      the maximum random delay added to the fixed delay
+     * @param errorRate   the fraction of requests (0 to 1) answered with the error status
+     * @param errorStatus the HTTP status of injected errors
+     */
+    public record Options(Duration latency, Duration jitter, double errorRate, int errorStatus) {
+
+        /**
+         * Options for immediate, always successful responses.
+         *
+         * @return the options
+         */
+        public static Options immediate() {
+            return new Options(Duration.ZERO, Duration.ZERO, 0, 503);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        JSONObject handle(HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * A generated route: straight legs between the waypoints with a small zigzag, so geometry
+     * simplification has points to remove.
+     */
+    private static final class Route {
+        final double[] bbox = {Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        final JSONArray segments = new JSONArray();
+        final JSONArray wayPoints = new JSONArray().put(0);
+        double[] coordinates;
+        double distance;
+        double duration;
+
+        static Route generate(JSONArray waypoints, double speed) {
+            Route route = new Route();
+            CoordinateBuffer points = new CoordinateBuffer();
+            double lon = waypoints.getJSONArray(0).getDouble(0);
+            double lat = waypoints.getJSONArray(0).getDouble(1);
+            points.add(lon, lat, route.bbox);
+            for (int leg = 1; leg < waypoints.length(); leg++) {
+                double toLon = waypoints.getJSONArray(leg).getDouble(0);
+                double toLat = waypoints.getJSONArray(leg).getDouble(1);
+                double legDistance = GeometryUtils.haversine(lon, lat, toLon, toLat) * DETOUR_FACTOR;
+                int steps = (int) Math.max(1, Math.min(MAX_POINTS_PER_LEG, legDistance / POINT_SPACING_METERS));
+                for (int step = 1; step <= steps; step++) {
+                    double t = (double) step / steps;
+                    double offset = step < steps ? (step % 2 == 0 ? ZIGZAG_DEGREES : -ZIGZAG_DEGREES) : 0;
+                    points.add(lon + (toLon - lon) * t + offset, lat + (toLat - lat) * t - offset, route.bbox);
+                }
+                route.wayPoints.put(points.size() - 1);
+                double legDuration = legDistance / speed;
+                route.segments.put(new JSONObject()
+                        .put("distance", round(legDistance))
+                        .put("duration", round(legDuration))
+                        .put("steps", new JSONArray()));
+                route.distance += legDistance;
+                route.duration += legDuration;
+                lon = toLon;
+                lat = toLat;
+            }
+            route.coordinates = points.toArray();
+            route.distance = round(route.distance);
+            route.duration = round(route.duration);
+            return route;
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 10) / 10.0;
+        }
+    }
+
+    /**
+     * Growable interleaved lon/lat array.
+     */
+    private static final class CoordinateBuffer {
+        private double[] values = new double[64];
+        private int length;
+
+        void add(double lon, double lat, double[] bbox) {
+            if (length + 2 > values.length) values = Arrays.copyOf(values, values.length * 2);
+            values[length++] = lon;
+            values[length++] = lat;
+            bbox[0] = Math.min(bbox[0], lon);
+            bbox[1] = Math.min(bbox[1], lat);
+            bbox[2] = Math.max(bbox[2], lon);
+            bbox[3] = Math.max(bbox[3], lat);
+        }
+
+        int size() {
+            return length / 2;
+        }
+
+        double[] toArray() {
+            return Arrays.copyOf(values, length);
+        }
+    }
+}
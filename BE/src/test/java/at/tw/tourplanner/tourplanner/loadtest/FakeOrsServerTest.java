@@ -0,0 +1,89 @@
+package at.tw.tourplanner.tourplanner.loadtest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FakeOrsServerTest {
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private HttpResponse<String> post(FakeOrsServer server, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(server.baseUri().resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(FakeOrsServer server, String pathAndQuery) throws Exception {
+        return httpClient.send(HttpRequest.newBuilder(server.baseUri().resolve(pathAndQuery)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void directionsGeoJsonHasOneSegmentPerLeg() throws Exception {
+        try (FakeOrsServer server = FakeOrsServer.start(0, FakeOrsServer.Options.immediate())) {
+            HttpResponse<String> response = post(server, "/v2/directions/driving-car/geojson",
+                    "{\"coordinates\":[[16.37,48.21],[16.30,48.18],[16.40,48.25]]}");
+            assertEquals(200, response.statusCode());
+
+            JSONObject properties = new JSONObject(response.body()).getJSONArray("features").getJSONObject(0).getJSONObject("properties");
+            JSONArray segments = properties.getJSONArray("segments");
+            JSONArray wayPoints = properties.getJSONArray("way_points");
+            assertEquals(2, segments.length());
+            assertEquals(3, wayPoints.length());
+            double distance = properties.getJSONObject("summary").getDouble("distance");
+            assertEquals(segments.getJSONObject(0).getDouble("distance") + segments.getJSONObject(1).getDouble("distance"), distance, 0.2);
+            assertEquals(distance / 13.9, properties.getJSONObject("summary").getDouble("duration"), 1);
+        }
+    }
+
+    @Test
+    void geocodeIsDeterministicAndKnowsUnknownAddresses() throws Exception {
+        try (FakeOrsServer server = FakeOrsServer.start(0, FakeOrsServer.Options.immediate())) {
+            String first = get(server, "/geocode/search?text=Stephansplatz%201").body();
+            String second = get(server, "/geocode/search?text=Stephansplatz%201").body();
+            assertEquals(first, second);
+            assertEquals(1, new JSONObject(first).getJSONArray("features").length());
+
+            assertTrue(new JSONObject(get(server, "/geocode/search?text=Unknown%20street").body()).getJSONArray("features").isEmpty());
+            assertEquals(400, get(server, "/geocode/search").statusCode());
+        }
+    }
+
+    @Test
+    void injectsErrorsAndLatency() throws Exception {
+        FakeOrsServer.Options options = new FakeOrsServer.Options(Duration.ofMillis(50), Duration.ZERO, 1, 502);
+        try (FakeOrsServer server = FakeOrsServer.start(0, options)) {
+            long start = System.nanoTime();
+            assertEquals(502, get(server, "/geocode/search?text=Wien").statusCode());
+            assertTrue(System.nanoTime() - start >= Duration.ofMillis(50).toNanos());
+            assertEquals(1, server.requestCount());
+            assertEquals(1, server.injectedErrorCount());
+        }
+    }
+
+    @Test
+    void samplesReportNearestRankPercentiles() {
+        LoadGenerator.Samples samples = new LoadGenerator.Samples();
+        for (int i = 100; i >= 1; i--) samples.add(i, 200);
+        LoadGenerator.Samples other = new LoadGenerator.Samples();
+        other.add(1000, 503);
+        samples.addAll(other);
+
+        assertEquals(101, samples.count());
+        assertEquals(51, samples.percentile(50));
+        assertEquals(100, samples.percentile(99));
+        assertEquals(1000, samples.percentile(100));
+        assertEquals(100L, samples.statuses().get(200));
+        assertEquals(1L, samples.statuses().get(503));
+    }
+}
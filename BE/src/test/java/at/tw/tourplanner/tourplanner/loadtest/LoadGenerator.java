@@ -0,0 +1,277 @@
+package at.tw.tourplanner.tourplanner.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop load generator for the route and geocode endpoints of a running backend.
+ * A fixed number of workers send requests back to back for the configured duration; requests sent
+ * during the warm-up are not recorded. The report lists the throughput, the latency percentiles and
+ * the response status counts per endpoint.
+ * <p>
+ * Requests are drawn uniformly from a pool of {@code --distinct} routes and addresses, so the pool size
+ * controls the cache hit ratio. With {@code --fake-ors-port} a {@link FakeOrsServer} is started in the
+ * same process, e.g. {@code --target=http://localhost:8080 --scenario=mixed --concurrency=32 --duration=60s
+ * --warmup=10s --distinct=500 --fake-ors-port=8081 --fake-ors-latency=150ms}.
+ */
+public final class LoadGenerator {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final URI target;
+    private final Scenario scenario;
+    private final int distinct;
+    private final String mode;
+
+    /**
+     * Constructs a LoadGenerator.
+     *
+     * @param target   the base URL of the backend
+     * @param scenario the endpoints to call
+     * @param distinct the number of distinct routes and addresses requested
+     * @param mode     the transport mode of the route requests
+     */
+    public LoadGenerator(URI target, Scenario scenario, int distinct, String mode) {
+        this.target = target;
+        this.scenario = scenario;
+        this.distinct = distinct;
+        this.mode = mode;
+    }
+
+    /**
+     * Runs the load and returns the recorded samples per endpoint.
+     *
+     * @param concurrency the number of concurrent workers
+     * @param warmup      how long requests are sent before recording starts
+     * @param duration    how long requests are recorded
+     * @return the report
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public Report run(int concurrency, Duration warmup, Duration duration) throws InterruptedException {
+        long start = System.nanoTime();
+        long recordFrom = start + warmup.toNanos();
+        long end = recordFrom + duration.toNanos();
+        List<Map<Endpoint, Samples>> results = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            Map<Endpoint, Samples> samples = new HashMap<>();
+            results.add(samples);
+            Thread worker = new Thread(() -> work(samples, recordFrom, end), "load-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) worker.join();
+
+        Map<Endpoint, Samples> merged = new TreeMap<>();
+        for (Map<Endpoint, Samples> samples : results) {
+            samples.forEach((endpoint, s) -> merged.computeIfAbsent(endpoint, e -> new Samples()).addAll(s));
+        }
+        return new Report(merged, duration);
+    }
+
+    private void work(Map<Endpoint, Samples> samples, long recordFrom, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            Endpoint endpoint = scenario.endpoints[random.nextInt(scenario.endpoints.length)];
+            HttpRequest request = endpoint.request(target, random.nextInt(distinct), mode);
+            int status;
+            try {
+                status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (now >= recordFrom) samples.computeIfAbsent(endpoint, e -> new Samples()).add(System.nanoTime() - now, status);
+        }
+    }
+
+    /**
+     * Parses {@code --name=value} arguments.
+     *
+     * @param args the command line arguments
+     * @return the values by name
+     */
+    static Map<String, String> parseArguments(String[] args) {
+        Map<String, String> arguments = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) throw new IllegalArgumentException("Expected --name=value: " + arg);
+            int eq = arg.indexOf('=');
+            if (eq < 0) arguments.put(arg.substring(2), "true");
+            else arguments.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return arguments;
+    }
+
+    /**
+     * Runs the load generator and prints the report.
+     *
+     * @param args {@code --target}, {@code --scenario} (route, geocode or mixed), {@code --concurrency},
+     *             {@code --duration}, {@code --warmup}, {@code --distinct}, {@code --mode},
+     *             {@code --fake-ors-port}, {@code --fake-ors-latency}, {@code --fake-ors-jitter} and
+     *             {@code --fake-ors-error-rate}
+     * @throws Exception if the fake server cannot be started or the run is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> arguments = parseArguments(args);
+        FakeOrsServer fakeOrs = null;
+        if (arguments.containsKey("fake-ors-port")) {
+            fakeOrs = FakeOrsServer.start(Integer.parseInt(arguments.get("fake-ors-port")), new FakeOrsServer.Options(
+                    DurationStyle.detectAndParse(arguments.getOrDefault("fake-ors-latency", "0ms")),
+                    DurationStyle.detectAndParse(arguments.getOrDefault("fake-ors-jitter", "0ms")),
+                    Double.parseDouble(arguments.getOrDefault("fake-ors-error-rate", "0")),
+                    503));
+            System.out.println("Fake OpenRouteService listening on " + fakeOrs.baseUri());
+        }
+        try {
+            LoadGenerator generator = new LoadGenerator(
+                    URI.create(arguments.getOrDefault("target", "http://localhost:8080")),
+                    Scenario.valueOf(arguments.getOrDefault("scenario", "mixed").toUpperCase()),
+                    Integer.parseInt(arguments.getOrDefault("distinct", "100")),
+                    arguments.getOrDefault("mode", "car"));
+            Report report = generator.run(Integer.parseInt(arguments.getOrDefault("concurrency", "16")),
+                    DurationStyle.detectAndParse(arguments.getOrDefault("warmup", "5s")),
+                    DurationStyle.detectAndParse(arguments.getOrDefault("duration", "30s")));
+            System.out.print(report);
+            if (fakeOrs != null) System.out.println("Fake OpenRouteService requests: " + fakeOrs.requestCount());
+        } finally {
+            if (fakeOrs != null) fakeOrs.close();
+        }
+    }
+
+    /**
+     * Sets of endpoints a run spreads its requests over.
+     */
+    public enum Scenario {
+        ROUTE(Endpoint.ROUTE_SUMMARY, Endpoint.ROUTE_GEOJSON),
+        GEOCODE(Endpoint.GEOCODE),
+        MIXED(Endpoint.ROUTE_SUMMARY, Endpoint.ROUTE_GEOJSON, Endpoint.GEOCODE);
+
+        private final Endpoint[] endpoints;
+
+        Scenario(Endpoint... endpoints) {
+            this.endpoints = endpoints;
+        }
+    }
+
+    /**
+     * Backend endpoints under load. Key {@code n} always maps to the same route or address.
+     */
+    public enum Endpoint {
+        ROUTE_SUMMARY("/api/route/summary"),
+        ROUTE_GEOJSON("/api/route"),
+        GEOCODE("/api/coordinates");
+
+        private final String path;
+
+        Endpoint(String path) {
+            this.path = path;
+        }
+
+        HttpRequest request(URI target, int key, String mode) {
+            String query;
+            if (this == GEOCODE) {
+                query = "address=" + URLEncoder.encode("Teststrasse " + key + ", Wien", StandardCharsets.UTF_8);
+            } else {
+                // routes between points on a grid around Vienna
+                double startLon = 16.2 + (key % 20) * 0.02;
+                double startLat = 48.1 + (key / 20 % 20) * 0.01;
+                double endLon = 16.5 - (key % 17) * 0.02;
+                double endLat = 48.3 - (key / 17 % 17) * 0.01;
+                query = String.format(Locale.ROOT, "startLon=%.5f&startLat=%.5f&endLon=%.5f&endLat=%.5f&mode=%s",
+                        startLon, startLat, endLon, endLat, mode);
+            }
+            return HttpRequest.newBuilder(target.resolve(path + "?" + query))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+        }
+    }
+
+    /**
+     * Latencies and status counts of one endpoint.
+     */
+    static final class Samples {
+        private long[] latencies = new long[1024];
+        private int count;
+        private final Map<Integer, Long> statuses = new TreeMap<>();
+
+        void add(long latencyNanos, int status) {
+            if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = latencyNanos;
+            statuses.merge(status, 1L, Long::sum);
+        }
+
+        void addAll(Samples other) {
+            if (count + other.count > latencies.length) latencies = Arrays.copyOf(latencies, count + other.count);
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            other.statuses.forEach((status, n) -> statuses.merge(status, n, Long::sum));
+        }
+
+        int count() {
+            return count;
+        }
+
+        /**
+         * Returns the latency at a percentile using the nearest-rank method.
+         *
+         * @param percentile the percentile (0 to 100)
+         * @return the latency in nanoseconds, or 0 without samples
+         */
+        long percentile(double percentile) {
+            if (count == 0) return 0;
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100 * count);
+            return sorted[Math.max(0, Math.min(count, rank) - 1)];
+        }
+
+        Map<Integer, Long> statuses() {
+            return statuses;
+        }
+    }
+
+    /**
+     * Result of a run.
+     *
+     * @param samples  the samples per endpoint
+     * @param duration the recorded duration
+     */
+    public record Report(Map<Endpoint, Samples> samples, Duration duration) {
+
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            double seconds = duration.toNanos() / 1e9;
+            report.append(String.format(Locale.ROOT, "%-14s %9s %9s", "endpoint", "requests", "req/s"));
+            for (double p : PERCENTILES) report.append(String.format(Locale.ROOT, " %9s", "p" + (p == (long) p ? Long.toString((long) p) : Double.toString(p))));
+            report.append(String.format(Locale.ROOT, " %9s  %s%n", "max", "statuses"));
+            samples.forEach((endpoint, s) -> {
+                report.append(String.format(Locale.ROOT, "%-14s %9d %9.1f", endpoint.name().toLowerCase(), s.count(), s.count() / seconds));
+                for (double p : PERCENTILES) report.append(String.format(Locale.ROOT, " %7.1fms", s.percentile(p) / 1e6));
+                report.append(String.format(Locale.ROOT, " %7.1fms  %s%n", s.percentile(100) / 1e6, s.statuses()));
+            });
+            return report.toString();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package at.tw.tourplanner.tourplanner.routing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OsmGraphCompilerTest {
+
+    // 1 -- 2 -- 3 along a residential street, plus a one-way primary shortcut 1 -> 3 and a footway 3 -- 4
+    private static final String EXTRACT = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <osm version="0.6">
+              <node id="1" lat="48.2000" lon="16.3000"/>
+              <node id="2" lat="48.2100" lon="16.3100"/>
+              <node id="3" lat="48.2000" lon="16.3200"/>
+              <node id="4" lat="48.2000" lon="16.3300"/>
+              <way id="10">
+                <nd ref="1"/><nd ref="2"/><nd ref="3"/>
+                <tag k="highway" v="residential"/>
+              </way>
+              <way id="11">
+                <nd ref="1"/><nd ref="3"/>
+                <tag k="highway" v="primary"/>
+                <tag k="oneway" v="yes"/>
+              </way>
+              <way id="12">
+                <nd ref="3"/><nd ref="4"/>
+                <tag k="highway" v="footway"/>
+              </way>
+            </osm>
+            """;
+
+    @Test
+    void compiledGraphRoutesPerProfile(@TempDir Path dir) throws Exception {
+        Path osm = dir.resolve("extract.osm");
+        Path graphFile = dir.resolve("graph.bin");
+        Files.writeString(osm, EXTRACT);
+        OsmGraphCompiler.compile(osm, graphFile);
+
+        RoutingGraph graph = RoutingGraph.open(graphFile);
+        assertEquals(4, graph.nodeCount());
+        AStarRouter router = new AStarRouter(graph);
+        int first = graph.nearestNode(16.3001, 48.2001, RoutingProfile.CAR, 1000);
+        int third = graph.nearestNode(16.3199, 48.2001, RoutingProfile.CAR, 1000);
+        int fourth = graph.nearestNode(16.33, 48.2, RoutingProfile.FOOT, 1000);
+
+        // cars take the one-way shortcut forwards but must use the residential street backwards
+        assertEquals(2, router.route(first, third, RoutingProfile.CAR).nodes().length);
+        assertEquals(3, router.route(third, first, RoutingProfile.CAR).nodes().length);
+
+        // the footway is closed to cars and bicycles
+        assertNull(router.route(first, fourth, RoutingProfile.CAR));
+        assertNull(router.route(first, fourth, RoutingProfile.BICYCLE));
+        AStarRouter.Path walk = router.route(first, fourth, RoutingProfile.FOOT);
+        assertNotNull(walk);
+        assertEquals(walk.distance() / (5 / 3.6), walk.duration(), 1e-6);
+    }
+
+    @Test
+    void routerSharesBoundedSearchStatesBetweenThreads(@TempDir Path dir) throws Exception {
+        Path osm = dir.resolve("extract.osm");
+        Path graphFile = dir.resolve("graph.bin");
+        Files.writeString(osm, EXTRACT);
+        OsmGraphCompiler.compile(osm, graphFile);
+
+        RoutingGraph graph = RoutingGraph.open(graphFile);
+        AStarRouter router = new AStarRouter(graph, 2);
+        int first = graph.nearestNode(16.3001, 48.2001, RoutingProfile.CAR, 1000);
+        int third = graph.nearestNode(16.3199, 48.2001, RoutingProfile.CAR, 1000);
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<AStarRouter.Path>> paths = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                boolean forwards = i % 2 == 0;
+                paths.add(threads.submit(() -> forwards
+                        ? router.route(first, third, RoutingProfile.CAR)
+                        : router.route(third, first, RoutingProfile.CAR)));
+            }
+            for (int i = 0; i < paths.size(); i++) {
+                assertEquals(i % 2 == 0 ? 2 : 3, paths.get(i).get().nodes().length);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void nearestNodeRespectsMaximumDistance(@TempDir Path dir) throws Exception {
+        Path osm = dir.resolve("extract.osm");
+        Path graphFile = dir.resolve("graph.bin");
+        Files.writeString(osm, EXTRACT);
+        OsmGraphCompiler.compile(osm, graphFile);
+
+        RoutingGraph graph = RoutingGraph.open(graphFile);
+        assertEquals(-1, graph.nearestNode(16.5, 48.5, RoutingProfile.CAR, 1000));
+    }
+}
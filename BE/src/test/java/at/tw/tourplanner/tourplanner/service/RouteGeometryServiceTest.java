@@ -0,0 +1,81 @@
+package at.tw.tourplanner.tourplanner.service;
+
+import at.tw.tourplanner.tourplanner.geometry.GeometryCodec;
+import at.tw.tourplanner.tourplanner.model.RouteGeometry;
+import at.tw.tourplanner.tourplanner.repository.RouteGeometryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteGeometryServiceTest {
+
+    /**
+     * Repository whose every save loses a race: the row is inserted by a concurrent writer first,
+     * or not at all if {@code insertedConcurrently} is false.
+     */
+    private static RouteGeometryRepository racingRepository(Set<String> rows, boolean insertedConcurrently) {
+        return (RouteGeometryRepository) Proxy.newProxyInstance(RouteGeometryServiceTest.class.getClassLoader(),
+                new Class<?>[]{RouteGeometryRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "existsById" -> rows.contains((String) args[0]);
+                    case "save" -> {
+                        if (insertedConcurrently) rows.add(((RouteGeometry) args[0]).getHash());
+                        throw new DataIntegrityViolationException("duplicate key");
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Test
+    void concurrentlyStoredGeometryCountsAsStored() {
+        Set<String> rows = new HashSet<>();
+        RouteGeometryService service = new RouteGeometryService(racingRepository(rows, true), 6, DataSize.ofMegabytes(1));
+
+        String hash = service.store(new double[]{16.37, 48.21, 15.44, 47.07});
+
+        assertTrue(rows.contains(hash));
+    }
+
+    @Test
+    void otherIntegrityViolationsAreRethrown() {
+        RouteGeometryService service = new RouteGeometryService(racingRepository(new HashSet<>(), false), 6, DataSize.ofMegabytes(1));
+
+        assertThrows(DataIntegrityViolationException.class, () -> service.store(new double[]{16.37, 48.21, 15.44, 47.07}));
+    }
+
+    @Test
+    void batchLoadQueriesOnlyGeometriesNotInMemory() {
+        double[] stored = {16.37, 48.21, 15.44, 47.07};
+        byte[] data = GeometryCodec.encode(stored, 6);
+        String storedHash = GeometryCodec.hash(data);
+        List<Collection<?>> queries = new ArrayList<>();
+        RouteGeometryRepository repository = (RouteGeometryRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{RouteGeometryRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "existsById" -> false;
+                    case "save" -> args[0];
+                    case "findAllById" -> {
+                        queries.add((Collection<?>) args[0]);
+                        yield List.of(new RouteGeometry(storedHash, data, 2, Instant.now()));
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        RouteGeometryService service = new RouteGeometryService(repository, 6, DataSize.ofMegabytes(1));
+        String cachedHash = service.store(new double[]{16.0, 48.0, 16.5, 48.5});
+
+        Map<String, double[]> loaded = service.coordinates(List.of(cachedHash, storedHash, "missing"));
+
+        assertEquals(List.of(List.of(storedHash, "missing")), queries);
+        assertEquals(Set.of(cachedHash, storedHash), loaded.keySet());
+        assertArrayEquals(stored, loaded.get(storedHash), 1e-9);
+    }
+}
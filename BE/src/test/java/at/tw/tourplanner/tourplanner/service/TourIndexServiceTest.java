@@ -0,0 +1,60 @@
+package at.tw.tourplanner.tourplanner.service;
+
+import at.tw.tourplanner.tourplanner.geometry.GeometryCodec;
+import at.tw.tourplanner.tourplanner.geometry.TourSegmentIndex;
+import at.tw.tourplanner.tourplanner.model.RouteGeometry;
+import at.tw.tourplanner.tourplanner.model.Tour;
+import at.tw.tourplanner.tourplanner.repository.RouteGeometryRepository;
+import at.tw.tourplanner.tourplanner.repository.TourRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TourIndexServiceTest {
+
+    private static Tour tour(String name, String geometryHash) {
+        Tour tour = new Tour(name, "", "Wien", "Graz", "CAR");
+        tour.setFromLon(16.37);
+        tour.setFromLat(48.21);
+        tour.setToLon(15.44);
+        tour.setToLat(47.07);
+        tour.setRouteGeometryHash(geometryHash);
+        return tour;
+    }
+
+    @Test
+    void rebuildLoadsEachGeometryOnceInBatches() {
+        byte[] data = GeometryCodec.encode(new double[]{16.37, 48.21, 15.44, 47.07}, 6);
+        String hash = GeometryCodec.hash(data);
+        List<Tour> tours = List.of(tour("a", hash), tour("b", hash), tour("c", "missing"), tour("d", null));
+        List<Collection<?>> queries = new ArrayList<>();
+        RouteGeometryRepository geometryRepository = (RouteGeometryRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{RouteGeometryRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findAllById" -> {
+                        queries.add((Collection<?>) args[0]);
+                        yield List.of(new RouteGeometry(hash, data, 2, Instant.now()));
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        TourRepository tourRepository = (TourRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{TourRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findAll" -> tours;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        TourIndexService index = new TourIndexService(tourRepository,
+                new RouteGeometryService(geometryRepository, 6, DataSize.ofMegabytes(1)), 0.05, 0.02, 16);
+
+        index.rebuild();
+
+        assertEquals(List.of(List.of(hash, "missing")), queries);
+        assertEquals(List.of("a", "b"), index.routeCandidates(15.0, 47.0, 17.0, 49.0).stream()
+                .map(TourSegmentIndex.IndexedRoute::name).toList());
+    }
+}
@@ -0,0 +1,170 @@
+package at.tw.tourplanner.tourplanner.service;
+
+import at.tw.tourplanner.tourplanner.client.OrsException;
+import at.tw.tourplanner.tourplanner.client.OrsPriority;
+import at.tw.tourplanner.tourplanner.cache.CacheResult;
+import at.tw.tourplanner.tourplanner.dto.CoordinateDTO;
+import at.tw.tourplanner.tourplanner.dto.RouteJobState;
+import at.tw.tourplanner.tourplanner.model.Tour;
+import at.tw.tourplanner.tourplanner.repository.TourRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TourRouteJobServiceTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final List<String> started = new ArrayList<>();
+    private final List<CompletableFuture<Optional<Tour>>> attempts = new ArrayList<>();
+
+    private final TourRouteService routes = new TourRouteService(null, null, null, null, null, Runnable::run) {
+        @Override
+        public synchronized CompletableFuture<Optional<Tour>> computeRoute(String name, OrsPriority priority) {
+            started.add(name);
+            CompletableFuture<Optional<Tour>> attempt = new CompletableFuture<>();
+            attempts.add(attempt);
+            return attempt;
+        }
+    };
+
+    private final TourRouteJobService jobs = new TourRouteJobService(routes, null, Runnable::run, scheduler,
+            2, 3, Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofHours(1), false);
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    private RouteJobState state(String name) {
+        return jobs.getStatus(name).orElseThrow().getState();
+    }
+
+    private CompletableFuture<Optional<Tour>> attempt(int index) {
+        synchronized (routes) {
+            return attempts.get(index);
+        }
+    }
+
+    private int startedCount() {
+        synchronized (routes) {
+            return started.size();
+        }
+    }
+
+    @Test
+    void runsAtMostConcurrencyJobsAndDedupesQueuedTours() {
+        jobs.enqueue("a");
+        jobs.enqueue("b");
+        jobs.enqueue("c");
+        jobs.enqueue("c");
+        assertEquals(List.of("a", "b"), started);
+        assertEquals(RouteJobState.QUEUED, state("c"));
+
+        attempt(0).complete(Optional.empty());
+        assertEquals(RouteJobState.SUCCEEDED, state("a"));
+        assertEquals(List.of("a", "b", "c"), started);
+    }
+
+    @Test
+    void tourEditedWhileRunningIsComputedAgain() {
+        jobs.enqueue("a");
+        jobs.enqueue("a");
+        assertEquals(1, started.size());
+
+        attempt(0).complete(Optional.empty());
+        assertEquals(List.of("a", "a"), started);
+        assertEquals(RouteJobState.RUNNING, state("a"));
+        assertEquals(1, jobs.getStatus("a").orElseThrow().getAttempts());
+    }
+
+    @Test
+    void retriesTransientFailuresWithBackoff() throws Exception {
+        jobs.enqueue("a");
+        attempt(0).completeExceptionally(new OrsException("unavailable", 503));
+        assertNotNull(jobs.getStatus("a").orElseThrow().getNextAttemptAt());
+
+        waitFor(() -> startedCount() == 2);
+        attempt(1).completeExceptionally(new OrsException("unavailable", 503));
+        waitFor(() -> startedCount() == 3);
+        attempt(2).completeExceptionally(new OrsException("unavailable", 503));
+
+        assertEquals(RouteJobState.FAILED, state("a"));
+        assertEquals(3, jobs.getStatus("a").orElseThrow().getAttempts());
+        assertEquals("unavailable: HTTP 503", jobs.getStatus("a").orElseThrow().getLastError());
+    }
+
+    @Test
+    void doesNotRetryToursThatCannotBeRouted() {
+        jobs.enqueue("a");
+        attempt(0).completeExceptionally(new IllegalArgumentException("Location not found: Atlantis"));
+        assertEquals(RouteJobState.FAILED, state("a"));
+        assertEquals(1, startedCount());
+
+        jobs.remove("a");
+        assertTrue(jobs.getStatus("a").isEmpty());
+    }
+
+    @Test
+    void finishedJobsAreForgottenAfterTheRetentionPeriod() throws Exception {
+        TourRouteJobService shortLived = new TourRouteJobService(routes, null, Runnable::run, scheduler,
+                2, 1, Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(100), false);
+        shortLived.enqueue("a");
+        shortLived.enqueue("b");
+        attempt(0).complete(Optional.empty());
+        attempt(1).completeExceptionally(new IllegalArgumentException("Location not found: Atlantis"));
+        assertEquals(RouteJobState.SUCCEEDED, shortLived.getStatus("a").orElseThrow().getState());
+        assertEquals(RouteJobState.FAILED, shortLived.getStatus("b").orElseThrow().getState());
+
+        shortLived.enqueue("c");
+        waitFor(() -> shortLived.getStatus("a").isEmpty() && shortLived.getStatus("b").isEmpty());
+        assertEquals(RouteJobState.RUNNING, shortLived.getStatus("c").orElseThrow().getState());
+    }
+
+    @Test
+    void jobsGeocodeAndRouteWithBackgroundPriority() {
+        List<OrsPriority> priorities = new ArrayList<>();
+        TourRepository tours = (TourRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{TourRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findWithWaypointsByName" -> Optional.of(new Tour((String) args[0], "", "Wien", "Graz", "CAR"));
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        GeocodeService geocoder = new GeocodeService(null, null, null, null, null, 0, null, null, null, 1) {
+            @Override
+            public CompletableFuture<CacheResult<CoordinateDTO>> geocodeAsync(String address, OrsPriority priority) {
+                priorities.add(priority);
+                return CompletableFuture.completedFuture(CacheResult.fresh(new CoordinateDTO(16.37, 48.21)));
+            }
+        };
+        RouteService router = new RouteService((key, priority) -> {
+            priorities.add(priority);
+            return CompletableFuture.failedFuture(new IllegalArgumentException("No route found"));
+        }, DataSize.ofMegabytes(1), Duration.ofDays(1), Duration.ofDays(1));
+        TourRouteJobService backgroundJobs = new TourRouteJobService(new TourRouteService(tours, geocoder, router, null, null, Runnable::run),
+                tours, Runnable::run, scheduler, 1, 1, Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofHours(1), false);
+
+        backgroundJobs.enqueue("a");
+        assertEquals(RouteJobState.FAILED, backgroundJobs.getStatus("a").orElseThrow().getState());
+        assertEquals(List.of(OrsPriority.BACKGROUND, OrsPriority.BACKGROUND, OrsPriority.BACKGROUND), priorities);
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("Timed out");
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package at.tw.tourplanner.tourplanner.service;
+
+import at.tw.tourplanner.tourplanner.cache.CacheResult;
+import at.tw.tourplanner.tourplanner.client.OrsPriority;
+import at.tw.tourplanner.tourplanner.dto.CoordinateDTO;
+import at.tw.tourplanner.tourplanner.dto.RoutePolylineDTO;
+import at.tw.tourplanner.tourplanner.geometry.GeometryCodec;
+import at.tw.tourplanner.tourplanner.model.Tour;
+import at.tw.tourplanner.tourplanner.repository.TourRepository;
+import at.tw.tourplanner.tourplanner.util.GeometryUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TourRouteServiceTest {
+
+    private static Tour tour() {
+        Tour tour = new Tour("Ring", "", "Wien", "Graz", "CAR");
+        tour.setWaypoints(List.of("Baden"));
+        return tour;
+    }
+
+    @Test
+    void onlyLocationsAndTransportTypeInvalidateTheRoute() {
+        Tour updated = tour();
+        updated.setDescription("new description");
+        assertFalse(TourRouteService.routeInputsChanged(tour(), updated));
+
+        updated.setWaypoints(null);
+        assertFalse(TourRouteService.routeInputsChanged(tour(), updated));
+
+        updated.setWaypoints(List.of("Baden", "Wiener Neustadt"));
+        assertTrue(TourRouteService.routeInputsChanged(tour(), updated));
+
+        Tour otherMode = tour();
+        otherMode.setTransportType("BICYCLE");
+        assertTrue(TourRouteService.routeInputsChanged(tour(), otherMode));
+    }
+
+    @Test
+    void rendersStoredGeometryAsGeoJsonAndPolyline() {
+        double[] line = {16.37, 48.21, 15.44, 47.07};
+        byte[] data = GeometryCodec.encode(line, 6);
+        Map<String, byte[]> stored = Map.of(GeometryCodec.hash(data), data);
+        RouteGeometryService geometries = new RouteGeometryService(null, 6, DataSize.ofMegabytes(1)) {
+            @Override
+            public Optional<byte[]> load(String hash) {
+                return Optional.ofNullable(hash).map(stored::get);
+            }
+        };
+        TourRouteService service = new TourRouteService(null, null, null, geometries, null, Runnable::run);
+
+        Tour tour = tour();
+        assertTrue(service.toGeoJson(tour).isEmpty());
+        tour.setRouteGeometryHash(GeometryCodec.hash(data));
+        tour.setDistance(200000.0);
+        tour.setDuration(7200.0);
+        assertTrue(tour.isRouteAvailable());
+
+        JSONObject feature = new JSONObject(service.toGeoJson(tour).orElseThrow());
+        assertEquals(2, feature.getJSONObject("geometry").getJSONArray("coordinates").length());
+        assertEquals(15.44, feature.getJSONObject("geometry").getJSONArray("coordinates").getJSONArray(1).getDouble(0), 1e-9);
+        assertEquals(200000.0, feature.getJSONObject("properties").getDouble("distance"));
+        assertEquals("Ring", feature.getJSONObject("properties").getString("name"));
+
+        RoutePolylineDTO polyline = service.toPolyline(tour).orElseThrow();
+        assertEquals(GeometryUtils.encodePolyline(line, TourRouteService.POLYLINE_PRECISION), polyline.getPolyline());
+
+        tour.clearRoute();
+        assertFalse(tour.isRouteAvailable());
+        assertNull(tour.getDistance());
+    }
+
+    @Test
+    void routeIsDiscardedIfTheTourChangesBeforeItIsSaved() {
+        Tour edited = tour();
+        edited.setToLocation("Linz");
+        Deque<Tour> reads = new ArrayDeque<>(List.of(tour(), tour(), edited));
+        TourRepository tours = (TourRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{TourRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findWithWaypointsByName" -> Optional.of(reads.pop());
+                    case "save" -> throw new ObjectOptimisticLockingFailureException(Tour.class, ((Tour) args[0]).getName());
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        GeocodeService geocoder = new GeocodeService(null, null, null, null, null, 0, null, null, null, 1) {
+            @Override
+            public CompletableFuture<CacheResult<CoordinateDTO>> geocodeAsync(String address, OrsPriority priority) {
+                return CompletableFuture.completedFuture(CacheResult.fresh(new CoordinateDTO(16.37, 48.21)));
+            }
+        };
+        JSONObject feature = new JSONObject()
+                .put("geometry", new JSONObject().put("type", "LineString").put("coordinates", new JSONArray()
+                        .put(new JSONArray().put(16.37).put(48.21)).put(new JSONArray().put(15.44).put(47.07))))
+                .put("properties", new JSONObject()
+                        .put("summary", new JSONObject().put("distance", 200000.0).put("duration", 7200.0))
+                        .put("segments", new JSONArray().put(new JSONObject().put("distance", 200000.0).put("duration", 7200.0)))
+                        .put("way_points", new JSONArray().put(0).put(1)));
+        byte[] geoJson = new JSONObject().put("type", "FeatureCollection").put("features", new JSONArray().put(feature))
+                .toString().getBytes(StandardCharsets.UTF_8);
+        RouteService router = new RouteService((key, priority) -> CompletableFuture.completedFuture(geoJson),
+                DataSize.ofMegabytes(1), Duration.ofDays(1), Duration.ofDays(1));
+        RouteGeometryService geometries = new RouteGeometryService(null, 6, DataSize.ofMegabytes(1)) {
+            @Override
+            public String store(double[] coordinates) {
+                return "hash";
+            }
+        };
+        TourRouteService service = new TourRouteService(tours, geocoder, router, geometries, null, Runnable::run);
+
+        Tour result = service.computeRoute("Ring").join().orElseThrow();
+        assertEquals("Linz", result.getToLocation());
+        assertFalse(result.isRouteAvailable());
+    }
+}
@@ -0,0 +1,46 @@
+package at.tw.tourplanner.tourplanner.suggest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionIndexTest {
+
+    private static SuggestionIndex.Suggestion suggestion(String key, double score) {
+        return new SuggestionIndex.Suggestion(key, key, Double.NaN, Double.NaN, score);
+    }
+
+    @Test
+    void completesPrefixBestFirst() {
+        SuggestionIndex index = SuggestionIndex.of(List.of(
+                suggestion("wien", 5), suggestion("wiener neustadt", 3), suggestion("wels", 4),
+                suggestion("wien hauptbahnhof", 7), suggestion("graz", 9)));
+
+        assertEquals(List.of("wien hauptbahnhof", "wien", "wiener neustadt"),
+                index.complete("wien", 10).stream().map(SuggestionIndex.Suggestion::text).toList());
+        assertEquals(List.of("wien hauptbahnhof", "wien"),
+                index.complete("w", 2).stream().map(SuggestionIndex.Suggestion::text).toList());
+        assertTrue(index.complete("x", 10).isEmpty());
+        assertTrue(SuggestionIndex.empty().complete("w", 10).isEmpty());
+    }
+
+    @Test
+    void topKMatchesFullSort() {
+        List<SuggestionIndex.Suggestion> suggestions = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            suggestions.add(suggestion("street " + i, (i * 7919) % 1000));
+        }
+        SuggestionIndex index = SuggestionIndex.of(suggestions);
+
+        List<Double> expected = suggestions.stream()
+                .filter(s -> s.key().startsWith("street 1"))
+                .map(SuggestionIndex.Suggestion::score)
+                .sorted((a, b) -> Double.compare(b, a))
+                .limit(20)
+                .toList();
+        assertEquals(expected, index.complete("street 1", 20).stream().map(SuggestionIndex.Suggestion::score).toList());
+    }
+}
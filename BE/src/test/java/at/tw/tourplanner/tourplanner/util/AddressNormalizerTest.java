@@ -0,0 +1,21 @@
+package at.tw.tourplanner.tourplanner.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AddressNormalizerTest {
+
+    @Test
+    void foldsCaseWhitespaceAndDiacritics() {
+        assertEquals("wien, stephansplatz 1", AddressNormalizer.normalize("  Wien,\tStephansplatz   1 "));
+        assertEquals("zurich", AddressNormalizer.normalize("Zürich"));
+        assertEquals(AddressNormalizer.normalize("ＭÜNCHEN"), AddressNormalizer.normalize("munchen"));
+    }
+
+    @Test
+    void handlesNullAndBlank() {
+        assertEquals("", AddressNormalizer.normalize(null));
+        assertEquals("", AddressNormalizer.normalize("   "));
+    }
+}
@@ -0,0 +1,57 @@
+package at.tw.tourplanner.tourplanner.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuturesTest {
+
+    @Test
+    void forEachBoundedLimitsPendingTasks() throws Exception {
+        List<Integer> items = IntStream.range(0, 20).boxed().toList();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        AtomicInteger started = new AtomicInteger();
+
+        CompletableFuture<Void> all = Futures.forEachBounded(items, 3, item -> {
+            started.incrementAndGet();
+            CompletableFuture<Void> task = new CompletableFuture<>();
+            synchronized (pending) {
+                pending.add(task);
+            }
+            return task;
+        });
+
+        while (!all.isDone()) {
+            CompletableFuture<Void> next;
+            synchronized (pending) {
+                assertTrue(pending.stream().filter(f -> !f.isDone()).count() <= 3);
+                next = pending.stream().filter(f -> !f.isDone()).findFirst().orElseThrow();
+            }
+            next.complete(null);
+        }
+        all.get(5, TimeUnit.SECONDS);
+        assertEquals(20, started.get());
+    }
+
+    @Test
+    void forEachBoundedHandlesSynchronousCompletionAndFailures() throws Exception {
+        List<Integer> items = IntStream.range(0, 100_000).boxed().toList();
+        AtomicInteger seen = new AtomicInteger();
+
+        Futures.forEachBounded(items, 4, item -> {
+            seen.incrementAndGet();
+            return item % 2 == 0
+                    ? CompletableFuture.completedFuture(item)
+                    : CompletableFuture.failedFuture(new IllegalStateException());
+        }).get(5, TimeUnit.SECONDS);
+
+        assertEquals(100_000, seen.get());
+    }
+}
@@ -0,0 +1,63 @@
+package at.tw.tourplanner.tourplanner.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeometryUtilsTest {
+
+    @Test
+    void encodesPolylineLikeReferenceImplementation() {
+        // example from the Encoded Polyline Algorithm Format documentation
+        double[] line = {-120.2, 38.5, -120.95, 40.7, -126.453, 43.252};
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", GeometryUtils.encodePolyline(line, 5));
+        assertArrayEquals(line, GeometryUtils.decodePolyline("_p~iF~ps|U_ulLnnqC_mqNvxq`@", 5), 1e-9);
+    }
+
+    @Test
+    void simplifyDropsPointsCloseToTheLine() {
+        double[] line = {0, 0, 1, 0.001, 2, -0.001, 3, 5, 4, 0};
+        assertArrayEquals(new int[]{0, 2, 3, 4}, GeometryUtils.simplify(line, 0.01));
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, GeometryUtils.simplify(line, 0));
+    }
+
+    @Test
+    void simplifyKeepsRequiredPoints() {
+        double[] line = {0, 0, 1, 0.001, 2, -0.001, 3, 5, 4, 0};
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, GeometryUtils.simplify(line, 0.01, new int[]{1}));
+        assertArrayEquals(new int[]{0, 2, 3, 4}, GeometryUtils.simplify(line, 0.01, new int[]{0, 4, 9}));
+    }
+
+    @Test
+    void remapIndexPointsToClosestPrecedingKeptPoint() {
+        int[] kept = {0, 2, 3, 7};
+        assertEquals(0, GeometryUtils.remapIndex(kept, 0));
+        assertEquals(0, GeometryUtils.remapIndex(kept, 1));
+        assertEquals(3, GeometryUtils.remapIndex(kept, 7));
+        assertEquals(2, GeometryUtils.remapIndex(kept, 5));
+    }
+
+    @Test
+    void selectRoundsToPrecision() {
+        double[] line = {16.3738189, 48.2081743, 15.4395, 47.0707};
+        assertArrayEquals(new double[]{16.374, 48.208}, GeometryUtils.select(line, new int[]{0}, 3), 1e-12);
+    }
+
+    @Test
+    void distanceToLineMeasuresToTheClosestSegment() {
+        // a line along the equator; one degree is about 111.2 km
+        double[] line = {0, 0, 1, 0, 1, 1};
+        assertEquals(GeometryUtils.haversine(0.5, 0, 0.5, 0.01), GeometryUtils.distanceToLine(line, 0.5, 0.01), 1);
+        assertEquals(GeometryUtils.haversine(1, 0.5, 1.01, 0.5), GeometryUtils.distanceToLine(line, 1.01, 0.5), 1);
+        assertEquals(GeometryUtils.haversine(0, 0, -0.01, 0), GeometryUtils.distanceToLine(line, -0.01, 0), 1);
+        assertEquals(Double.POSITIVE_INFINITY, GeometryUtils.distanceToLine(new double[0], 0, 0));
+    }
+
+    @Test
+    void intersectsBoxDetectsSegmentsCrossingWithoutPointsInside() {
+        double[] line = {0, 0, 2, 2};
+        assertTrue(GeometryUtils.intersectsBox(line, 0.9, 0.9, 1.1, 1.1));
+        assertTrue(GeometryUtils.intersectsBox(line, 1.5, -1, 3, 3));
+        assertFalse(GeometryUtils.intersectsBox(line, 1.2, 0, 2, 0.8));
+    }
+}
@@ -0,0 +1,131 @@
+package at.tw.tourplanner.tourplanner.util;
+
+import at.tw.tourplanner.tourplanner.dto.CoordinateDTO;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming {@link OrsResponseParser} with building an {@code org.json} tree of the whole response,
+ * on GeoJSON directions responses with many geometry points and on geocode responses with many features.
+ * Run {@link #main} from the test classpath, e.g. from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrsResponseParserBenchmark {
+
+    @Param({"1000", "20000", "100000"})
+    public int points;
+
+    private byte[] directions;
+    private byte[] geocode;
+
+    @Setup
+    public void setUp() {
+        directions = directionsResponse(points);
+        geocode = geocodeResponse(Math.max(1, points / 1000));
+    }
+
+    @Benchmark
+    public double routeSummaryJsonObject() {
+        JSONObject json = new JSONObject(new JSONTokener(new ByteArrayInputStream(directions)));
+        JSONObject properties = json.getJSONArray("features").getJSONObject(0).getJSONObject("properties");
+        JSONArray segments = properties.optJSONArray("segments", new JSONArray());
+        double legs = 0;
+        for (int i = 0; i < segments.length(); i++) legs += segments.getJSONObject(i).optDouble("distance", 0);
+        return properties.getJSONObject("summary").optDouble("distance", 0) + legs;
+    }
+
+    @Benchmark
+    public double routeSummaryStreaming() {
+        OrsResponseParser.RouteSummary summary = OrsResponseParser.readRouteSummary(directions);
+        double legs = 0;
+        for (double distance : summary.legDistances()) legs += distance;
+        return summary.distance() + legs;
+    }
+
+    @Benchmark
+    public double geocodeJsonObject() {
+        JSONObject json = new JSONObject(new String(geocode, StandardCharsets.UTF_8));
+        JSONArray coords = json.getJSONArray("features").getJSONObject(0).getJSONObject("geometry").getJSONArray("coordinates");
+        return coords.getDouble(0) + coords.getDouble(1);
+    }
+
+    @Benchmark
+    public double geocodeStreaming() {
+        CoordinateDTO coordinate = OrsResponseParser.readFirstPoint(geocode);
+        return coordinate.getLon() + coordinate.getLat();
+    }
+
+    /**
+     * Builds a GeoJSON directions response in the ORS field order: properties (with steps) before the geometry.
+     */
+    static byte[] directionsResponse(int points) {
+        StringBuilder json = new StringBuilder(points * 24 + 4096);
+        json.append("{\"type\":\"FeatureCollection\",\"bbox\":[16.2,48.1,16.5,48.3],\"features\":[{\"bbox\":[16.2,48.1,16.5,48.3],")
+                .append("\"type\":\"Feature\",\"properties\":{\"segments\":[");
+        int legs = 4;
+        for (int leg = 0; leg < legs; leg++) {
+            if (leg > 0) json.append(',');
+            json.append("{\"distance\":").append(1000 + leg).append(",\"duration\":").append(100 + leg).append(",\"steps\":[");
+            for (int step = 0; step < 20; step++) {
+                if (step > 0) json.append(',');
+                json.append("{\"distance\":50.0,\"duration\":5.0,\"type\":1,\"instruction\":\"Turn left onto Teststrasse\",")
+                        .append("\"name\":\"Teststrasse\",\"way_points\":[").append(step).append(',').append(step + 1).append("]}");
+            }
+            json.append("]}");
+        }
+        json.append("],\"summary\":{\"distance\":4006.0,\"duration\":406.0},\"way_points\":[0,").append(points - 1).append("]},")
+                .append("\"geometry\":{\"coordinates\":[");
+        for (int i = 0; i < points; i++) {
+            if (i > 0) json.append(',');
+            json.append(String.format(Locale.ROOT, "[%.6f,%.6f]", 16.2 + i * 3e-6, 48.1 + i * 2e-6));
+        }
+        json.append("],\"type\":\"LineString\"}}],\"metadata\":{\"service\":\"routing\"}}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds a geocode response with the given number of features.
+     */
+    static byte[] geocodeResponse(int features) {
+        StringBuilder json = new StringBuilder("{\"geocoding\":{\"version\":\"0.2\",\"query\":{\"text\":\"Teststrasse 1\"}},")
+                .append("\"type\":\"FeatureCollection\",\"features\":[");
+        for (int i = 0; i < features; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[")
+                    .append(16.37 + i * 0.01).append(',').append(48.21 + i * 0.01).append("]},")
+                    .append("\"properties\":{\"label\":\"Teststrasse ").append(i).append(", Wien, Austria\",\"confidence\":0.8,")
+                    .append("\"country\":\"Austria\",\"region\":\"Wien\",\"layer\":\"address\"}}");
+        }
+        json.append("],\"bbox\":[16.37,48.21,16.5,48.3]}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OrsResponseParserBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,55 @@
+package at.tw.tourplanner.tourplanner.util;
+
+import at.tw.tourplanner.tourplanner.dto.CoordinateDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrsResponseParserTest {
+
+    private static byte[] utf8(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void readsSummaryAndLegsOfGeoJsonRoute() {
+        OrsResponseParser.RouteSummary summary = OrsResponseParser.readRouteSummary(OrsResponseParserBenchmark.directionsResponse(500));
+
+        assertEquals(4006.0, summary.distance());
+        assertEquals(406.0, summary.duration());
+        assertArrayEquals(new double[]{1000, 1001, 1002, 1003}, summary.legDistances());
+        assertArrayEquals(new double[]{100, 101, 102, 103}, summary.legDurations());
+    }
+
+    @Test
+    void readsRoutesLayoutAndGeometryBeforeProperties() {
+        OrsResponseParser.RouteSummary json = OrsResponseParser.readRouteSummary(utf8(
+                "{\"routes\":[{\"geometry\":\"abc\",\"summary\":{\"distance\":12.5,\"duration\":3},\"segments\":[{\"distance\":12.5,\"duration\":3}]}]}"));
+        assertEquals(12.5, json.distance());
+        assertArrayEquals(new double[]{12.5}, json.legDistances());
+
+        OrsResponseParser.RouteSummary geoJson = OrsResponseParser.readRouteSummary(utf8(
+                "{\"features\":[{\"geometry\":{\"coordinates\":[[1,2],[3,4]]},\"properties\":{\"summary\":{}}}]}"));
+        assertEquals(0, geoJson.distance());
+        assertEquals(0, geoJson.legDistances().length);
+    }
+
+    @Test
+    void rejectsResponsesWithoutRoute() {
+        assertThrows(UncheckedIOException.class, () -> OrsResponseParser.readRouteSummary(utf8("{\"features\":[]}")));
+        assertThrows(UncheckedIOException.class, () -> OrsResponseParser.readRouteSummary(utf8("{\"error\":{\"code\":2010}}")));
+        assertThrows(UncheckedIOException.class, () -> OrsResponseParser.readRouteSummary(utf8("{\"features\":[{\"properties\":")));
+    }
+
+    @Test
+    void readsFirstGeocodePoint() {
+        CoordinateDTO coordinate = OrsResponseParser.readFirstPoint(OrsResponseParserBenchmark.geocodeResponse(3));
+        assertEquals(16.37, coordinate.getLon());
+        assertEquals(48.21, coordinate.getLat());
+
+        assertNull(OrsResponseParser.readFirstPoint(utf8("{\"type\":\"FeatureCollection\",\"features\":[]}")));
+    }
+}
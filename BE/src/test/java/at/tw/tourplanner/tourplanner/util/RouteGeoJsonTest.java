@@ -0,0 +1,33 @@
+package at.tw.tourplanner.tourplanner.util;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteGeoJsonTest {
+
+    @Test
+    void simplifyKeepsIntermediateWayPointAsVertex() {
+        // straight line through an intermediate way point at index 2, which simplification would drop
+        JSONArray points = new JSONArray();
+        for (int i = 0; i <= 4; i++) points.put(new JSONArray().put(i).put(0));
+        JSONObject feature = new JSONObject()
+                .put("geometry", new JSONObject().put("type", "LineString").put("coordinates", points))
+                .put("properties", new JSONObject().put("way_points", new JSONArray().put(0).put(2).put(4)));
+        byte[] geoJson = new JSONObject().put("type", "FeatureCollection")
+                .put("features", new JSONArray().put(feature)).toString().getBytes(StandardCharsets.UTF_8);
+
+        JSONObject simplified = new JSONObject(new String(RouteGeoJson.simplify(geoJson, 0.1, -1), StandardCharsets.UTF_8))
+                .getJSONArray("features").getJSONObject(0);
+
+        JSONArray coordinates = simplified.getJSONObject("geometry").getJSONArray("coordinates");
+        JSONArray wayPoints = simplified.getJSONObject("properties").getJSONArray("way_points");
+        assertEquals(3, coordinates.length());
+        assertEquals(2, wayPoints.getInt(2));
+        assertEquals(2.0, coordinates.getJSONArray(wayPoints.getInt(1)).getDouble(0));
+    }
+}
@@ -11,6 +11,7 @@ import at.tw.tourplanner.object.TransportType;
 import at.tw.tourplanner.service.RouteImageService;
 import javafx.animation.PauseTransition;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
 import javafx.collections.transformation.FilteredList;
 import javafx.collections.transformation.SortedList;
@@ -22,7 +23,6 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.TextFieldTableCell;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.image.WritableImage;
 import javafx.scene.layout.StackPane;
@@ -34,6 +34,7 @@ import javafx.util.Duration;
 import org.json.JSONObject;
 
 import javax.imageio.ImageIO;
+import java.awt.Image;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -196,6 +197,13 @@ public class MainController {
      */
     private final MainModel model = new MainModel();
 
+    /**
+     * Copies the route image of the selected tour into the fields, since images are loaded in the
+     * background and may arrive after their tour was selected.
+     */
+    private final ChangeListener<Image> routeImageListener =
+            (obs, oldImage, newImage) -> model.getFieldTour().setRouteImage(newImage);
+
     @FXML
     private VBox spinnerOverlay;
 
@@ -216,7 +224,7 @@ public class MainController {
     @FXML
     public void initialize() {
         // Set up spinner overlay
-        spinnerGif.setImage(new Image(Objects.requireNonNull(getClass().getResource("/spinner.gif")).toExternalForm()));
+        spinnerGif.setImage(new javafx.scene.image.Image(Objects.requireNonNull(getClass().getResource("/spinner.gif")).toExternalForm()));
         spinnerOverlay.setVisible(false);
         mapStack.getChildren().removeIf(node -> node instanceof WebView);
 
@@ -272,6 +280,7 @@ public class MainController {
 
         // Listener for tour selection
         tourList.getSelectionModel().selectedItemProperty().addListener((obs, oldTour, newTour) -> {
+            if (oldTour != null) oldTour.routeImageProperty().removeListener(routeImageListener);
             if (newTour == null) { // if there is no tour currently selected
                 // Empty tour logs
                 tourLogs.setItems(FXCollections.observableArrayList());
@@ -290,6 +299,7 @@ public class MainController {
                 model.getFieldTour().setToLocation(newTour.getToLocation());
                 model.getFieldTour().setTransportType(newTour.getTransportType());
                 model.getFieldTour().setRouteImage(newTour.getRouteImage());
+                newTour.routeImageProperty().addListener(routeImageListener);
                 model.getCurrentTourLog().setTourName(newTour.getName());
 
                 // Reload logs from backend
@@ -1,5 +1,7 @@
 package at.tw.tourplanner.dto;
 
+import java.util.List;
+
 /**
  * Data transfer object for a tour.
  */
@@ -18,4 +20,34 @@ public class TourDto {
 
     /** The type of transport used. */
     public String transportType;
+
+    /** The intermediate stops between start and destination, in order. */
+    public List<String> waypoints;
+
+    /** The route distance in meters, computed by the backend (null until computed). */
+    public Double distance;
+
+    /** The route duration in seconds, computed by the backend (null until computed). */
+    public Double duration;
+
+    /** The longitude of the starting location, computed by the backend. */
+    public Double fromLon;
+
+    /** The latitude of the starting location, computed by the backend. */
+    public Double fromLat;
+
+    /** The longitude of the destination, computed by the backend. */
+    public Double toLon;
+
+    /** The latitude of the destination, computed by the backend. */
+    public Double toLat;
+
+    /** When the route was computed, as ISO-8601 timestamp. */
+    public String routeComputedAt;
+
+    /** The content hash of the stored route geometry; equal hashes mean equal routes. */
+    public String routeGeometryHash;
+
+    /** Whether the route has been computed; the geometry is served by {@code GET /tour/{name}/route}. */
+    public boolean routeAvailable;
 }
\ No newline at end of file
@@ -9,8 +9,13 @@ import at.tw.tourplanner.object.Tour;
 import at.tw.tourplanner.object.TransportType;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import javafx.application.Platform;
 import org.springframework.web.util.UriUtils;
 
+import javax.imageio.ImageIO;
+import java.awt.Image;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -152,7 +157,7 @@ public class TourService {
      */
     private Tour fromDto(TourDto dto) {
         logger.debug("Entered function fromDto (TourService) with parameter: " + dto);
-        return new Tour(
+        Tour tour = new Tour(
                 TransportType.valueOf(dto.transportType),
                 null,
                 dto.name,
@@ -162,5 +167,36 @@ public class TourService {
                 0,
                 0
         );
+        loadRouteImage(dto, tour);
+        return tour;
     }
-}
\ No newline at end of file
+
+    /**
+     * Loads the route image rendered by the backend in the background and sets it on the tour once it
+     * arrives, so converting the tour list does not wait for the images. The geometry hash in the URL
+     * lets the image be cached.
+     */
+    private void loadRouteImage(TourDto dto, Tour tour) {
+        if (!dto.routeAvailable || dto.routeGeometryHash == null) return;
+        String encodedName = UriUtils.encodePathSegment(dto.name, StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/" + encodedName + "/image?size=medium&v=" + dto.routeGeometryHash))
+                .GET()
+                .build();
+
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenAccept(response -> {
+                    if (response.statusCode() != 200) return;
+                    try {
+                        Image image = ImageIO.read(new ByteArrayInputStream(response.body()));
+                        if (image != null) Platform.runLater(() -> tour.setRouteImage(image));
+                    } catch (IOException e) {
+                        logger.error("Failed to read route image: " + e.getMessage());
+                    }
+                })
+                .exceptionally(e -> {
+                    logger.error("Failed to load route image: " + e.getMessage());
+                    return null;
+                });
+    }
+}